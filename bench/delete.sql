@@ -1,13 +0,0 @@
-DELETE FROM MAIL_LOG;
-DELETE FROM project_assignment;
-
-DELETE FROM project;
-
-DELETE FROM customer;
-DELETE FROM user_to_userrole;
-
-DELETE FROM users;
-
-DELETE FROM user_department;
-
-DELETE FROM TIMESHEET_ENTRY;
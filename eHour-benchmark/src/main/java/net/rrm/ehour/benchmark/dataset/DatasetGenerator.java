@@ -0,0 +1,512 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.benchmark.dataset;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import net.rrm.ehour.domain.*;
+import net.rrm.ehour.util.EhourConstants;
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.LocalDate;
+import org.springframework.security.authentication.encoding.ShaPasswordEncoder;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Generates a deterministic eHour dataset: departments, users, customers, projects,
+ * assignments, timesheet locks and the timesheet entries booked on them with their
+ * month rollups. The same scale, years, seed and last day always give the same data.
+ * <p/>
+ * Bookings follow a working week: around 8 hours on workdays spread over the active
+ * assignments of a user, holidays in blocks booked on a default project, an occasional
+ * day off sick or of training and now and then some hours in the weekend. Users can
+ * have up to three concurrent assignments which run for one to twelve months.
+ * <p/>
+ * All id's start at ID_OFFSET so the admin user and the default department of a
+ * fresh installation are left alone.
+ */
+public class DatasetGenerator {
+    public static final int ID_OFFSET = 1000;
+
+    /**
+     * Password of every generated user, the username is user + user id
+     */
+    public static final String PASSWORD = "password";
+
+    private static final int SALT = 4242;
+
+    private static final int ENTRY_FLUSH_SIZE = 5000;
+
+    private static final String[] ROLES = {"Developer", "Consultant", "Architect", "Tester", "Analyst", "Project lead"};
+
+    private final int userCount;
+    private final LocalDate firstDay;
+    private final LocalDate lastDay;
+    private final long seed;
+
+    private final List<String> names;
+
+    private Project holidayProject;
+    private Project trainingProject;
+
+    /**
+     * @param scale   number of users
+     * @param years   years of booking history
+     * @param seed    seed of the random generators
+     * @param lastDay last day with bookings
+     */
+    public DatasetGenerator(DatasetScale scale, int years, long seed, LocalDate lastDay) {
+        this.userCount = scale.getUsers();
+        this.lastDay = lastDay;
+        this.firstDay = lastDay.minusYears(years).plusDays(1);
+        this.seed = seed;
+        this.names = readNames();
+    }
+
+    public void generate(DatasetWriter writer) {
+        Random random = new Random(seed);
+
+        List<UserDepartment> departments = createDepartments();
+        List<User> users = createUsers(departments, random);
+        List<Customer> customers = createCustomers(random);
+        List<Project> projects = createProjects(customers, users, random);
+        List<UserAssignments> userAssignments = createAssignments(users, projects, random);
+
+        writer.writeDepartments(departments);
+        writer.writeUsers(users);
+        writer.writeCustomers(customers);
+        writer.writeProjects(projects);
+
+        List<ProjectAssignment> assignments = new ArrayList<ProjectAssignment>();
+
+        for (UserAssignments userAssignment : userAssignments) {
+            assignments.addAll(userAssignment.getAssignments());
+        }
+
+        writer.writeAssignments(assignments);
+        writer.writeTimesheetLocks(createLocks());
+
+        for (UserAssignments userAssignment : userAssignments) {
+            bookHours(userAssignment, writer);
+        }
+
+        writer.finish();
+    }
+
+    private List<UserDepartment> createDepartments() {
+        int departmentCount = Math.max(1, userCount / 50);
+
+        List<UserDepartment> departments = new ArrayList<UserDepartment>(departmentCount);
+
+        for (int i = 0; i < departmentCount; i++) {
+            departments.add(new UserDepartment(ID_OFFSET + i, "Department " + (i + 1), "DEPT" + (i + 1)));
+        }
+
+        return departments;
+    }
+
+    private List<User> createUsers(List<UserDepartment> departments, Random random) {
+        String password = new ShaPasswordEncoder().encodePassword(PASSWORD, SALT);
+
+        int projectManagerCount = Math.max(1, userCount / 50);
+        int reportUserCount = Math.max(1, userCount / 100);
+
+        List<User> users = new ArrayList<User>(userCount);
+
+        for (int i = 0; i < userCount; i++) {
+            User user = new User(ID_OFFSET + i, randomName(random), randomName(random));
+            user.setUsername("user" + user.getUserId());
+            user.setPassword(password);
+            user.setSalt(SALT);
+            user.setEmail(user.getUsername() + "@example.com");
+            user.setUserDepartment(departments.get(i % departments.size()));
+            // leavers are flagged when their assignments are created
+            user.setActive(true);
+
+            Set<UserRole> roles = new HashSet<UserRole>();
+            roles.add(UserRole.CONSULTANT);
+
+            if (i < projectManagerCount) {
+                roles.add(UserRole.PROJECTMANAGER);
+            }
+
+            if (i < reportUserCount) {
+                roles.add(UserRole.REPORT);
+            }
+
+            user.setUserRoles(roles);
+
+            users.add(user);
+        }
+
+        return users;
+    }
+
+    private List<Customer> createCustomers(Random random) {
+        int customerCount = Math.max(2, userCount / 10);
+
+        List<Customer> customers = new ArrayList<Customer>(customerCount);
+
+        customers.add(new Customer(ID_OFFSET, "INT", "Internal"));
+
+        for (int i = 1; i < customerCount; i++) {
+            customers.add(new Customer(ID_OFFSET + i, "CUST" + i, randomName(random) + " " + i));
+        }
+
+        return customers;
+    }
+
+    /**
+     * The internal customer gets the default holiday and training projects, the other customers
+     * a skewed number of projects: a few large customers and a long tail of small ones.
+     */
+    private List<Project> createProjects(List<Customer> customers, List<User> users, Random random) {
+        int projectCount = Math.max(3, userCount / 3);
+        int projectManagerCount = Math.max(1, userCount / 50);
+
+        List<Project> projects = new ArrayList<Project>(projectCount);
+
+        Customer internal = customers.get(0);
+
+        holidayProject = createProject(ID_OFFSET, internal, "Holiday", "HOL");
+        holidayProject.setDefaultProject(true);
+        holidayProject.setBillable(false);
+        projects.add(holidayProject);
+
+        trainingProject = createProject(ID_OFFSET + 1, internal, "Training", "TRN");
+        trainingProject.setDefaultProject(true);
+        trainingProject.setBillable(false);
+        projects.add(trainingProject);
+
+        for (int i = 2; i < projectCount; i++) {
+            double skew = random.nextDouble();
+            Customer customer = customers.get(1 + (int) ((customers.size() - 1) * skew * skew));
+
+            Project project = createProject(ID_OFFSET + i, customer, randomName(random) + " " + i, "PRJ" + i);
+            project.setActive(random.nextInt(100) >= 15);
+            project.setProjectManager(users.get(random.nextInt(projectManagerCount)));
+            projects.add(project);
+        }
+
+        return projects;
+    }
+
+    private static Project createProject(int projectId, Customer customer, String name, String code) {
+        Project project = new Project(projectId, customer).setName(name);
+        project.setProjectCode(code);
+        project.setActive(true);
+        project.setBillable(true);
+
+        return project;
+    }
+
+    private List<UserAssignments> createAssignments(List<User> users, List<Project> projects, Random random) {
+        List<UserAssignments> userAssignments = new ArrayList<UserAssignments>(users.size());
+
+        int assignmentId = ID_OFFSET;
+
+        for (User user : users) {
+            LocalDate employmentStart = random.nextInt(100) < 80 ? firstDay : randomDay(firstDay, lastDay, random);
+            LocalDate employmentEnd = random.nextInt(100) < 5 ? randomDay(employmentStart, lastDay, random) : lastDay;
+
+            if (employmentEnd.isBefore(lastDay)) {
+                user.setActive(false);
+            }
+
+            UserAssignments assignments = new UserAssignments(user, employmentStart, employmentEnd);
+
+            assignments.holiday = createAssignment(assignmentId++, user, holidayProject, null, null);
+            assignments.training = createAssignment(assignmentId++, user, trainingProject, null, null);
+
+            int tracks = 1 + (random.nextInt(10) < 4 ? 1 : 0) + (random.nextInt(10) == 0 ? 1 : 0);
+
+            for (int track = 0; track < tracks; track++) {
+                LocalDate start = track == 0 ? employmentStart : employmentStart.plusDays(random.nextInt(180));
+
+                while (!start.isAfter(employmentEnd)) {
+                    int months = 1 + random.nextInt(12);
+                    LocalDate end = min(start.plusMonths(months).minusDays(1), employmentEnd);
+
+                    // skip the internal projects
+                    Project project = projects.get(2 + random.nextInt(projects.size() - 2));
+
+                    ProjectAssignment assignment = createAssignment(assignmentId++, user, project, start, end);
+                    assignment.setHourlyRate(50f + 5 * random.nextInt(21));
+                    assignment.setRole(ROLES[random.nextInt(ROLES.length)]);
+                    setAssignmentType(assignment, months, random);
+
+                    assignments.addWork(assignment, start, end);
+
+                    start = end.plusDays(1 + (track == 0 ? 0 : random.nextInt(60)));
+                }
+            }
+
+            userAssignments.add(assignments);
+        }
+
+        return userAssignments;
+    }
+
+    private static ProjectAssignment createAssignment(int assignmentId, User user, Project project, LocalDate start, LocalDate end) {
+        ProjectAssignment assignment = new ProjectAssignment(user, project);
+        assignment.setAssignmentId(assignmentId);
+        assignment.setDateStart(start == null ? null : start.toDate());
+        assignment.setDateEnd(end == null ? null : end.toDate());
+        assignment.setAssignmentType(EhourConstants.ASSIGNMENT_TYPE_DATE);
+        assignment.setActive(user.isActive());
+
+        return assignment;
+    }
+
+    private static void setAssignmentType(ProjectAssignment assignment, int months, Random random) {
+        switch (random.nextInt(10)) {
+            case 0:
+                assignment.setAssignmentType(EhourConstants.ASSIGNMENT_TYPE_TIME_ALLOTTED_FIXED);
+                assignment.setAllottedHours(months * 200f);
+                break;
+            case 1:
+                assignment.setAssignmentType(EhourConstants.ASSIGNMENT_TYPE_TIME_ALLOTTED_FLEX);
+                assignment.setAllottedHours(months * 150f);
+                assignment.setAllowedOverrun(months * 50f);
+                assignment.setNotifyPm(true);
+                break;
+            default:
+                assignment.setAssignmentType(EhourConstants.ASSIGNMENT_TYPE_DATE);
+        }
+    }
+
+    /**
+     * Every month is locked except for the last two
+     */
+    private List<TimesheetLock> createLocks() {
+        List<TimesheetLock> locks = new ArrayList<TimesheetLock>();
+
+        LocalDate month = firstDay.withDayOfMonth(1);
+        LocalDate firstOpenMonth = lastDay.withDayOfMonth(1).minusMonths(1);
+
+        int lockId = ID_OFFSET;
+
+        while (month.isBefore(firstOpenMonth)) {
+            LocalDate monthEnd = month.plusMonths(1).minusDays(1);
+            locks.add(new TimesheetLock(lockId++, month.toDate(), monthEnd.toDate(), month.toString("yyyy-MM")));
+
+            month = month.plusMonths(1);
+        }
+
+        return locks;
+    }
+
+    private void bookHours(UserAssignments assignments, DatasetWriter writer) {
+        // a random per user keeps the bookings of a user the same regardless of the other users
+        Random random = new Random(seed * 31 + assignments.user.getUserId());
+
+        List<TimesheetEntry> entries = new ArrayList<TimesheetEntry>();
+        Map<RollupKey, Float> rollups = new LinkedHashMap<RollupKey, Float>();
+
+        LocalDate day = assignments.employmentStart;
+        int holidayLeft = 0;
+
+        for (; !day.isAfter(assignments.employmentEnd); day = day.plusDays(1)) {
+            boolean weekend = day.getDayOfWeek() >= DateTimeConstants.SATURDAY;
+
+            if (!weekend && holidayLeft == 0 && random.nextInt(45) == 0) {
+                holidayLeft = 1 + random.nextInt(10);
+            }
+
+            if (weekend) {
+                if (random.nextInt(30) == 0) {
+                    bookWorkDay(assignments, day, 2 + random.nextInt(9) * 0.5f, random, entries, rollups);
+                }
+            } else if (holidayLeft > 0) {
+                book(assignments.holiday, day, 8, null, entries, rollups);
+                holidayLeft--;
+            } else if (random.nextInt(50) == 0) {
+                // off sick, nothing booked
+            } else if (random.nextInt(60) == 0) {
+                book(assignments.training, day, 8, null, entries, rollups);
+            } else {
+                float hours = roundToHalf(8 + random.nextGaussian() * 0.75);
+                bookWorkDay(assignments, day, Math.max(4, Math.min(12, hours)), random, entries, rollups);
+            }
+
+            if (entries.size() >= ENTRY_FLUSH_SIZE) {
+                writer.writeTimesheetEntries(entries);
+                entries.clear();
+            }
+        }
+
+        writer.writeTimesheetEntries(entries);
+
+        List<AssignmentMonthRollup> monthRollups = new ArrayList<AssignmentMonthRollup>(rollups.size());
+
+        for (Map.Entry<RollupKey, Float> rollup : rollups.entrySet()) {
+            RollupKey key = rollup.getKey();
+            monthRollups.add(new AssignmentMonthRollup(new AssignmentMonthRollupId(key.month.toDate(), key.assignment), rollup.getValue()));
+        }
+
+        writer.writeRollups(monthRollups);
+    }
+
+    /**
+     * Spread the hours over the active assignments, the first one gets the largest share
+     */
+    private void bookWorkDay(UserAssignments assignments, LocalDate day, float hours, Random random,
+                             List<TimesheetEntry> entries, Map<RollupKey, Float> rollups) {
+        List<ProjectAssignment> active = assignments.getActiveWork(day);
+
+        if (active.isEmpty()) {
+            return;
+        }
+
+        float remaining = hours;
+
+        for (int i = 0; i < active.size() && remaining > 0; i++) {
+            float share;
+
+            if (i == active.size() - 1) {
+                share = remaining;
+            } else if (i == 0) {
+                share = roundToHalf(hours * (0.5 + random.nextDouble() * 0.3));
+            } else {
+                share = roundToHalf(remaining / (active.size() - i));
+            }
+
+            share = Math.min(share, remaining);
+
+            if (share > 0) {
+                String comment = random.nextInt(10) == 0 ? "Worked on " + randomName(random) : null;
+                book(active.get(i), day, share, comment, entries, rollups);
+                remaining -= share;
+            }
+        }
+    }
+
+    private static void book(ProjectAssignment assignment, LocalDate day, float hours, String comment,
+                             List<TimesheetEntry> entries, Map<RollupKey, Float> rollups) {
+        TimesheetEntry entry = new TimesheetEntry();
+        entry.setEntryId(new TimesheetEntryId(day.toDate(), assignment));
+        entry.setHours(hours);
+        entry.setComment(comment);
+        entry.setUpdateDate(day.toDateTimeAtStartOfDay().plusHours(17).toDate());
+        entries.add(entry);
+
+        RollupKey key = new RollupKey(assignment, day.withDayOfMonth(1));
+        Float monthHours = rollups.get(key);
+        rollups.put(key, monthHours == null ? hours : monthHours + hours);
+    }
+
+    private String randomName(Random random) {
+        return StringUtils.capitalize(names.get(random.nextInt(names.size())));
+    }
+
+    private static LocalDate randomDay(LocalDate from, LocalDate to, Random random) {
+        int days = (int) ((to.toDate().getTime() - from.toDate().getTime()) / DateTimeConstants.MILLIS_PER_DAY);
+        return from.plusDays(days <= 0 ? 0 : random.nextInt(days));
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static float roundToHalf(double hours) {
+        return Math.round(hours * 2) / 2f;
+    }
+
+    private static List<String> readNames() {
+        try {
+            return Resources.readLines(Resources.getResource(DatasetGenerator.class, "names.txt"), Charsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read the names", e);
+        }
+    }
+
+    /**
+     * Assignments of a user with their date ranges
+     */
+    private static class UserAssignments {
+        private final User user;
+        private final LocalDate employmentStart;
+        private final LocalDate employmentEnd;
+
+        private ProjectAssignment holiday;
+        private ProjectAssignment training;
+
+        private final List<ProjectAssignment> work = new ArrayList<ProjectAssignment>();
+        private final List<LocalDate> workStart = new ArrayList<LocalDate>();
+        private final List<LocalDate> workEnd = new ArrayList<LocalDate>();
+
+        private UserAssignments(User user, LocalDate employmentStart, LocalDate employmentEnd) {
+            this.user = user;
+            this.employmentStart = employmentStart;
+            this.employmentEnd = employmentEnd;
+        }
+
+        void addWork(ProjectAssignment assignment, LocalDate start, LocalDate end) {
+            work.add(assignment);
+            workStart.add(start);
+            workEnd.add(end);
+        }
+
+        List<ProjectAssignment> getActiveWork(LocalDate day) {
+            List<ProjectAssignment> active = new ArrayList<ProjectAssignment>(3);
+
+            for (int i = 0; i < work.size(); i++) {
+                if (!day.isBefore(workStart.get(i)) && !day.isAfter(workEnd.get(i))) {
+                    active.add(work.get(i));
+                }
+            }
+
+            return active;
+        }
+
+        List<ProjectAssignment> getAssignments() {
+            List<ProjectAssignment> assignments = new ArrayList<ProjectAssignment>(work.size() + 2);
+            assignments.add(holiday);
+            assignments.add(training);
+            assignments.addAll(work);
+
+            return assignments;
+        }
+    }
+
+    private static final class RollupKey {
+        private final ProjectAssignment assignment;
+        private final LocalDate month;
+
+        private RollupKey(ProjectAssignment assignment, LocalDate month) {
+            this.assignment = assignment;
+            this.month = month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RollupKey)) {
+                return false;
+            }
+
+            RollupKey other = (RollupKey) o;
+            return assignment.getAssignmentId().equals(other.assignment.getAssignmentId()) && month.equals(other.month);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * assignment.getAssignmentId() + month.hashCode();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.benchmark.dataset;
+
+/**
+ * Standard sizes of the generated dataset. The number of departments, customers,
+ * projects and assignments is derived from the number of users.
+ */
+public enum DatasetScale {
+    SMALL(100, 1),
+    MEDIUM(5000, 3),
+    LARGE(50000, 10);
+
+    private final int users;
+    private final int years;
+
+    private DatasetScale(int users, int years) {
+        this.users = users;
+        this.years = years;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    /**
+     * @return default years of booking history, can be overridden
+     */
+    public int getYears() {
+        return years;
+    }
+}
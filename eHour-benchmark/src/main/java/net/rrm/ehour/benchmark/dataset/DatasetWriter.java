@@ -0,0 +1,48 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.benchmark.dataset;
+
+import net.rrm.ehour.domain.*;
+
+import java.util.Collection;
+
+/**
+ * Receives the generated domain objects in insertion order: the master data first,
+ * then the timesheet entries and their month rollups per user.
+ */
+public interface DatasetWriter {
+    void writeDepartments(Collection<UserDepartment> departments);
+
+    void writeUsers(Collection<User> users);
+
+    void writeCustomers(Collection<Customer> customers);
+
+    void writeProjects(Collection<Project> projects);
+
+    void writeAssignments(Collection<ProjectAssignment> assignments);
+
+    void writeTimesheetLocks(Collection<TimesheetLock> locks);
+
+    void writeTimesheetEntries(Collection<TimesheetEntry> entries);
+
+    void writeRollups(Collection<AssignmentMonthRollup> rollups);
+
+    /**
+     * Flush any pending rows, called once after everything was written
+     */
+    void finish();
+}
@@ -0,0 +1,121 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.benchmark.dataset;
+
+import net.rrm.ehour.config.PersistenceConfig;
+import net.rrm.ehour.persistence.dbvalidator.DerbyDbValidator;
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.apache.log4j.Logger;
+import org.joda.time.LocalDate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fills a database with a generated dataset for load tests and benchmarks.
+ * <p/>
+ * Usage: GenerateDataset --url jdbc-url [--user user] [--password password] [--scale SMALL|MEDIUM|LARGE]
+ * [--years years] [--seed seed] [--end yyyy-mm-dd] [--clean]
+ * <p/>
+ * A Derby database is created when it doesn't exist yet, MySQL and PostgreSQL databases should be
+ * installed with the fresh install script first. --clean removes a previously generated dataset
+ * before generating, that is every row with an id of 1000 or higher.
+ */
+public final class GenerateDataset {
+    private static final Logger LOGGER = Logger.getLogger(GenerateDataset.class);
+
+    private GenerateDataset() {
+    }
+
+    public static void main(String[] args) throws SQLException {
+        Map<String, String> options = parseOptions(args);
+
+        String url = options.get("url");
+
+        if (url == null) {
+            System.err.println("Usage: GenerateDataset --url jdbc-url [--user user] [--password password] " +
+                    "[--scale SMALL|MEDIUM|LARGE] [--years years] [--seed seed] [--end yyyy-mm-dd] [--clean]");
+            System.exit(1);
+        }
+
+        DatasetScale scale = DatasetScale.valueOf(option(options, "scale", DatasetScale.SMALL.name()).toUpperCase());
+        int years = Integer.parseInt(option(options, "years", Integer.toString(scale.getYears())));
+        long seed = Long.parseLong(option(options, "seed", "42"));
+        LocalDate end = options.containsKey("end") ? new LocalDate(options.get("end")) : new LocalDate().withDayOfMonth(1).minusDays(1);
+
+        JdbcDatasetWriter.Dialect dialect = JdbcDatasetWriter.Dialect.forUrl(url);
+
+        SingleConnectionDataSource dataSource = createDataSource(url, dialect, options);
+
+        try {
+            JdbcDatasetWriter writer = new JdbcDatasetWriter(dataSource, dialect);
+
+            if (options.containsKey("clean")) {
+                writer.clean();
+            }
+
+            LOGGER.info("Generating " + scale + " dataset with " + scale.getUsers() + " users and " + years + " years of bookings until " + end);
+
+            new DatasetGenerator(scale, years, seed, end).generate(writer);
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    private static SingleConnectionDataSource createDataSource(String url, JdbcDatasetWriter.Dialect dialect, Map<String, String> options) throws SQLException {
+        if (dialect == JdbcDatasetWriter.Dialect.DERBY) {
+            // the validator creates the eHour schema in a new database
+            EmbeddedDataSource derbyDataSource = new EmbeddedDataSource();
+            derbyDataSource.setDatabaseName(url.substring("jdbc:derby:".length()).split(";")[0]);
+
+            new DerbyDbValidator(PersistenceConfig.DB_VERSION, derbyDataSource).checkDatabaseState();
+
+            return new SingleConnectionDataSource(derbyDataSource.getConnection(), true);
+        } else {
+            return new SingleConnectionDataSource(url, options.get("user"), options.get("password"), true);
+        }
+    }
+
+    private static String option(Map<String, String> options, String name, String defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<String, String>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+
+            String name = args[i].substring(2);
+
+            if ("clean".equals(name)) {
+                options.put(name, "true");
+            } else if (i + 1 < args.length) {
+                options.put(name, args[++i]);
+            } else {
+                throw new IllegalArgumentException("No value for " + args[i]);
+            }
+        }
+
+        return options;
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.benchmark.dataset;
+
+import net.rrm.ehour.domain.*;
+import org.apache.log4j.Logger;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes a generated dataset with JDBC batch inserts. Id's are inserted as generated,
+ * afterwards the identity columns are moved past the generated id's so eHour can keep
+ * on creating entities.
+ */
+public class JdbcDatasetWriter implements DatasetWriter {
+    private static final Logger LOGGER = Logger.getLogger(JdbcDatasetWriter.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Tables with a generated id, in the order they are filled
+     */
+    private static final String[][] IDENTITIES = {
+            {"USER_DEPARTMENT", "DEPARTMENT_ID"},
+            {"USERS", "USER_ID"},
+            {"CUSTOMER", "CUSTOMER_ID"},
+            {"PROJECT", "PROJECT_ID"},
+            {"PROJECT_ASSIGNMENT", "ASSIGNMENT_ID"},
+            {"TIMESHEET_LOCK", "LOCK_ID"}
+    };
+
+    /**
+     * Removes everything from the id offset on, children first
+     */
+    private static final String[] CLEAN_STATEMENTS = {
+            "DELETE FROM MAIL_LOG_ASSIGNMENT WHERE PROJECT_ASSIGNMENT_ID >= ? OR MAIL_LOG_ID IN (SELECT MAIL_LOG_ID FROM MAIL_LOG WHERE TO_USER_ID >= ?)",
+            "DELETE FROM MAIL_LOG WHERE TO_USER_ID >= ?",
+            "DELETE FROM TIMESHEET_COMMENT WHERE USER_ID >= ?",
+            "DELETE FROM TIMESHEET_ENTRY WHERE ASSIGNMENT_ID >= ?",
+            "DELETE FROM ASSIGNMENT_MONTH_ROLLUP WHERE ASSIGNMENT_ID >= ?",
+            "DELETE FROM PROJECT_ASSIGNMENT WHERE ASSIGNMENT_ID >= ?",
+            "DELETE FROM PROJECT WHERE PROJECT_ID >= ?",
+            "DELETE FROM CUSTOMER WHERE CUSTOMER_ID >= ?",
+            "DELETE FROM USER_TO_USERROLE WHERE USER_ID >= ?",
+            "DELETE FROM USERS WHERE USER_ID >= ?",
+            "DELETE FROM USER_DEPARTMENT WHERE DEPARTMENT_ID >= ?",
+            "DELETE FROM TIMESHEET_LOCK WHERE LOCK_ID >= ?"
+    };
+
+    public enum Dialect {
+        DERBY {
+            @Override
+            void resetIdentity(JdbcTemplate jdbcTemplate, String table, String column, int nextId) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " RESTART WITH " + nextId);
+            }
+        },
+        MYSQL {
+            @Override
+            void resetIdentity(JdbcTemplate jdbcTemplate, String table, String column, int nextId) {
+                // auto_increment continues after the highest id by itself
+            }
+        },
+        POSTGRESQL {
+            @Override
+            void resetIdentity(JdbcTemplate jdbcTemplate, String table, String column, int nextId) {
+                jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence('" + table.toLowerCase() + "', '" + column.toLowerCase() + "'), ?, false)", Long.class, nextId);
+            }
+        };
+
+        abstract void resetIdentity(JdbcTemplate jdbcTemplate, String table, String column, int nextId);
+
+        public static Dialect forUrl(String url) {
+            if (url.startsWith("jdbc:derby:")) {
+                return DERBY;
+            } else if (url.startsWith("jdbc:mysql:")) {
+                return MYSQL;
+            } else if (url.startsWith("jdbc:postgresql:")) {
+                return POSTGRESQL;
+            } else {
+                throw new IllegalArgumentException("Unsupported database url " + url);
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+
+    private long entryCount;
+
+    public JdbcDatasetWriter(DataSource dataSource, Dialect dialect) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.dialect = dialect;
+    }
+
+    /**
+     * Delete a previously generated dataset
+     */
+    public void clean() {
+        for (String statement : CLEAN_STATEMENTS) {
+            int parameterCount = statement.split("\\?", -1).length - 1;
+            Object[] parameters = new Object[parameterCount];
+
+            for (int i = 0; i < parameterCount; i++) {
+                parameters[i] = DatasetGenerator.ID_OFFSET;
+            }
+
+            int deleted = jdbcTemplate.update(statement, parameters);
+            LOGGER.info(statement + ": " + deleted + " rows");
+        }
+    }
+
+    @Override
+    public void writeDepartments(Collection<UserDepartment> departments) {
+        batch("INSERT INTO USER_DEPARTMENT (DEPARTMENT_ID, NAME, CODE) VALUES (?, ?, ?)", departments, new RowSetter<UserDepartment>() {
+            @Override
+            public void set(PreparedStatement ps, UserDepartment department) throws SQLException {
+                ps.setInt(1, department.getDepartmentId());
+                ps.setString(2, department.getName());
+                ps.setString(3, department.getCode());
+            }
+        });
+    }
+
+    @Override
+    public void writeUsers(Collection<User> users) {
+        batch("INSERT INTO USERS (USER_ID, USERNAME, PASSWORD, FIRST_NAME, LAST_NAME, DEPARTMENT_ID, EMAIL, SALT, ACTIVE) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", users, new RowSetter<User>() {
+            @Override
+            public void set(PreparedStatement ps, User user) throws SQLException {
+                ps.setInt(1, user.getUserId());
+                ps.setString(2, user.getUsername());
+                ps.setString(3, user.getPassword());
+                ps.setString(4, user.getFirstName());
+                ps.setString(5, user.getLastName());
+                ps.setInt(6, user.getUserDepartment().getDepartmentId());
+                ps.setString(7, user.getEmail());
+                ps.setInt(8, user.getSalt());
+                ps.setString(9, yesNo(user.isActive()));
+            }
+        });
+
+        List<Object[]> userRoles = new ArrayList<Object[]>();
+
+        for (User user : users) {
+            for (UserRole role : user.getUserRoles()) {
+                userRoles.add(new Object[]{role.getRole(), user.getUserId()});
+            }
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO USER_TO_USERROLE (ROLE, USER_ID) VALUES (?, ?)", userRoles);
+    }
+
+    @Override
+    public void writeCustomers(Collection<Customer> customers) {
+        batch("INSERT INTO CUSTOMER (CUSTOMER_ID, NAME, DESCRIPTION, CODE, ACTIVE) VALUES (?, ?, ?, ?, ?)", customers, new RowSetter<Customer>() {
+            @Override
+            public void set(PreparedStatement ps, Customer customer) throws SQLException {
+                ps.setInt(1, customer.getCustomerId());
+                ps.setString(2, customer.getName());
+                ps.setString(3, customer.getDescription());
+                ps.setString(4, customer.getCode());
+                ps.setString(5, yesNo(customer.isActive()));
+            }
+        });
+    }
+
+    @Override
+    public void writeProjects(Collection<Project> projects) {
+        batch("INSERT INTO PROJECT (PROJECT_ID, CUSTOMER_ID, NAME, DESCRIPTION, CONTACT, PROJECT_CODE, DEFAULT_PROJECT, ACTIVE, BILLABLE, PROJECT_MANAGER) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", projects, new RowSetter<Project>() {
+            @Override
+            public void set(PreparedStatement ps, Project project) throws SQLException {
+                ps.setInt(1, project.getProjectId());
+                ps.setInt(2, project.getCustomer().getCustomerId());
+                ps.setString(3, project.getName());
+                ps.setString(4, project.getDescription());
+                ps.setString(5, project.getContact());
+                ps.setString(6, project.getProjectCode());
+                ps.setString(7, yesNo(project.isDefaultProject()));
+                ps.setString(8, yesNo(project.isActive()));
+                ps.setString(9, yesNo(project.isBillable()));
+                setInteger(ps, 10, project.getProjectManager() == null ? null : project.getProjectManager().getUserId());
+            }
+        });
+    }
+
+    @Override
+    public void writeAssignments(Collection<ProjectAssignment> assignments) {
+        batch("INSERT INTO PROJECT_ASSIGNMENT (ASSIGNMENT_ID, PROJECT_ID, HOURLY_RATE, DATE_START, DATE_END, ROLE, USER_ID, ACTIVE, ASSIGNMENT_TYPE_ID, ALLOTTED_HOURS, ALLOTTED_HOURS_OVERRUN, NOTIFY_PM_ON_OVERRUN) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", assignments, new RowSetter<ProjectAssignment>() {
+            @Override
+            public void set(PreparedStatement ps, ProjectAssignment assignment) throws SQLException {
+                ps.setInt(1, assignment.getAssignmentId());
+                ps.setInt(2, assignment.getProject().getProjectId());
+                setFloat(ps, 3, assignment.getHourlyRate());
+                setDate(ps, 4, assignment.getDateStart());
+                setDate(ps, 5, assignment.getDateEnd());
+                ps.setString(6, assignment.getRole());
+                ps.setInt(7, assignment.getUser().getUserId());
+                ps.setString(8, yesNo(assignment.isActive()));
+                ps.setInt(9, assignment.getAssignmentType().getAssignmentTypeId());
+                setFloat(ps, 10, assignment.getAllottedHours());
+                setFloat(ps, 11, assignment.getAllowedOverrun());
+                ps.setString(12, yesNo(assignment.isNotifyPm()));
+            }
+        });
+    }
+
+    @Override
+    public void writeTimesheetLocks(Collection<TimesheetLock> locks) {
+        batch("INSERT INTO TIMESHEET_LOCK (LOCK_ID, DATE_START, DATE_END, NAME) VALUES (?, ?, ?, ?)", locks, new RowSetter<TimesheetLock>() {
+            @Override
+            public void set(PreparedStatement ps, TimesheetLock lock) throws SQLException {
+                ps.setInt(1, lock.getLockId());
+                setDate(ps, 2, lock.getDateStart());
+                setDate(ps, 3, lock.getDateEnd());
+                ps.setString(4, lock.getName());
+            }
+        });
+    }
+
+    @Override
+    public void writeTimesheetEntries(Collection<TimesheetEntry> entries) {
+        batch("INSERT INTO TIMESHEET_ENTRY (ASSIGNMENT_ID, ENTRY_DATE, UPDATE_DATE, HOURS, COMMENT) VALUES (?, ?, ?, ?, ?)", entries, new RowSetter<TimesheetEntry>() {
+            @Override
+            public void set(PreparedStatement ps, TimesheetEntry entry) throws SQLException {
+                ps.setInt(1, entry.getEntryId().getProjectAssignment().getAssignmentId());
+                setDate(ps, 2, entry.getEntryId().getEntryDate());
+                ps.setTimestamp(3, new Timestamp(entry.getUpdateDate().getTime()));
+                setFloat(ps, 4, entry.getHours());
+                ps.setString(5, entry.getComment());
+            }
+        });
+
+        long previousCount = entryCount;
+        entryCount += entries.size();
+
+        if (entryCount / 100000 != previousCount / 100000) {
+            LOGGER.info(entryCount + " timesheet entries written");
+        }
+    }
+
+    @Override
+    public void writeRollups(Collection<AssignmentMonthRollup> rollups) {
+        batch("INSERT INTO ASSIGNMENT_MONTH_ROLLUP (ASSIGNMENT_ID, MONTH_START, HOURS) VALUES (?, ?, ?)", rollups, new RowSetter<AssignmentMonthRollup>() {
+            @Override
+            public void set(PreparedStatement ps, AssignmentMonthRollup rollup) throws SQLException {
+                ps.setInt(1, rollup.getRollupId().getProjectAssignment().getAssignmentId());
+                setDate(ps, 2, rollup.getRollupId().getMonthStart());
+                setFloat(ps, 3, rollup.getHours());
+            }
+        });
+    }
+
+    @Override
+    public void finish() {
+        for (String[] identity : IDENTITIES) {
+            Integer maxId = jdbcTemplate.queryForObject("SELECT MAX(" + identity[1] + ") FROM " + identity[0], Integer.class);
+
+            dialect.resetIdentity(jdbcTemplate, identity[0], identity[1], maxId == null ? 1 : maxId + 1);
+        }
+
+        LOGGER.info(entryCount + " timesheet entries written in total");
+    }
+
+    private <T> void batch(String sql, Collection<T> rows, final RowSetter<T> rowSetter) {
+        final List<T> rowList = new ArrayList<T>(rows);
+
+        for (int start = 0; start < rowList.size(); start += BATCH_SIZE) {
+            final List<T> batch = rowList.subList(start, Math.min(start + BATCH_SIZE, rowList.size()));
+
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    rowSetter.set(ps, batch.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+        }
+    }
+
+    private static String yesNo(Boolean value) {
+        return value != null && value ? "Y" : "N";
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    private static void setFloat(PreparedStatement ps, int index, Float value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.FLOAT);
+        } else {
+            ps.setFloat(index, value);
+        }
+    }
+
+    private static void setDate(PreparedStatement ps, int index, java.util.Date value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DATE);
+        } else {
+            ps.setDate(index, new java.sql.Date(value.getTime()));
+        }
+    }
+
+    private interface RowSetter<T> {
+        void set(PreparedStatement ps, T row) throws SQLException;
+    }
+}
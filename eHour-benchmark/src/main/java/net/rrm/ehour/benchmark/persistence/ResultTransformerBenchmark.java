@@ -0,0 +1,131 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+
+package net.rrm.ehour.benchmark.persistence;
+
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.persistence.report.dao.AssignmentAggregateTransformer;
+import net.rrm.ehour.persistence.report.dao.FlatReportElementTransformer;
+import net.rrm.ehour.persistence.timesheet.dao.BookedDayTransformer;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.timesheet.dto.BookedDay;
+import org.hibernate.transform.AliasToBeanConstructorResultTransformer;
+import org.hibernate.transform.ResultTransformer;
+import org.hibernate.transform.Transformers;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row mapping of the report queries: the reflective aliasToBean and HQL constructor
+ * transformers against the dedicated transformers. Rows are pre-built tuples so only
+ * the mapping itself is measured, not the JDBC driver.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultTransformerBenchmark {
+    private static final String[] FLAT_REPORT_ALIASES = {"totalHours", "totalTurnOver", "rate", "dayDate", "assignmentId",
+            "customerId", "customerName", "customerCode", "projectId", "userId",
+            "userFirstName", "userLastName", "assignmentDesc", "projectId", "projectName",
+            "projectCode", "comment"};
+
+    private static final String[] PAIR_ALIASES = {"first", "second"};
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private Object[][] flatReportTuples;
+    private Object[][] aggregateTuples;
+    private Object[][] aggregateIdTuples;
+    private Object[][] bookedDayTuples;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Date date = new Date();
+
+        flatReportTuples = new Object[rows][];
+        aggregateTuples = new Object[rows][];
+        aggregateIdTuples = new Object[rows][];
+        bookedDayTuples = new Object[rows][];
+
+        for (int i = 0; i < rows; i++) {
+            Integer assignmentId = random.nextInt(5000);
+            Integer projectId = assignmentId % 500;
+            Float hours = random.nextInt(32) / 4f;
+
+            flatReportTuples[i] = new Object[]{hours, hours * 80, 80f, date, assignmentId,
+                    random.nextInt(50), "Customer", "CUST", projectId, random.nextInt(1000),
+                    "Thies", "Edeling", "Developer", projectId, "Project",
+                    "PRJ", "comment"};
+
+            aggregateTuples[i] = new Object[]{new ProjectAssignment(assignmentId), hours};
+            aggregateIdTuples[i] = new Object[]{assignmentId, hours};
+            bookedDayTuples[i] = new Object[]{date, hours};
+        }
+    }
+
+    @Benchmark
+    public void flatReportAliasToBean(Blackhole blackhole) {
+        transform(Transformers.aliasToBean(FlatReportElement.class), flatReportTuples, FLAT_REPORT_ALIASES, blackhole);
+    }
+
+    @Benchmark
+    public void flatReportTransformer(Blackhole blackhole) {
+        transform(new FlatReportElementTransformer(), flatReportTuples, FLAT_REPORT_ALIASES, blackhole);
+    }
+
+    @Benchmark
+    public void aggregateConstructor(Blackhole blackhole) throws NoSuchMethodException {
+        ResultTransformer transformer = new AliasToBeanConstructorResultTransformer(
+                AssignmentAggregateReportElement.class.getConstructor(ProjectAssignment.class, Number.class));
+
+        transform(transformer, aggregateTuples, PAIR_ALIASES, blackhole);
+    }
+
+    @Benchmark
+    public void aggregateTransformer(Blackhole blackhole) {
+        transform(AssignmentAggregateTransformer.INSTANCE, aggregateIdTuples, PAIR_ALIASES, blackhole);
+    }
+
+    @Benchmark
+    public void bookedDayConstructor(Blackhole blackhole) throws NoSuchMethodException {
+        ResultTransformer transformer = new AliasToBeanConstructorResultTransformer(
+                BookedDay.class.getConstructor(Date.class, Number.class));
+
+        transform(transformer, bookedDayTuples, PAIR_ALIASES, blackhole);
+    }
+
+    @Benchmark
+    public void bookedDayTransformer(Blackhole blackhole) {
+        transform(BookedDayTransformer.INSTANCE, bookedDayTuples, PAIR_ALIASES, blackhole);
+    }
+
+    private static void transform(ResultTransformer transformer, Object[][] tuples, String[] aliases, Blackhole blackhole) {
+        for (Object[] tuple : tuples) {
+            blackhole.consume(transformer.transformTuple(tuple, aliases));
+        }
+    }
+}
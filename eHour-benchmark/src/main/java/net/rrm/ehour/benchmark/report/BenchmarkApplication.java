@@ -0,0 +1,80 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.benchmark.report;
+
+import net.rrm.ehour.audit.service.AuditService;
+import net.rrm.ehour.config.EhourConfigStub;
+import net.rrm.ehour.ui.common.session.DevelopmentWebSession;
+import org.apache.wicket.Component;
+import org.apache.wicket.Session;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.resource.loader.IStringResourceLoader;
+import org.apache.wicket.spring.injection.annot.SpringComponentInjector;
+import org.apache.wicket.spring.test.ApplicationContextMock;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Locale;
+
+/**
+ * Just enough Wicket application for the report configuration, a session with all roles and
+ * the resource models used by the report models. Resource keys are not translated.
+ * Start it with a WicketTester in the setup of a benchmark, the application is bound
+ * to the thread running the benchmark.
+ */
+class BenchmarkApplication extends MockApplication {
+    @Override
+    protected void init() {
+        super.init();
+
+        ApplicationContextMock context = new ApplicationContextMock();
+        context.putBean("EhourConfig", new EhourConfigStub());
+        context.putBean("auditService", createNoOpProxy(AuditService.class));
+
+        getComponentInstantiationListeners().add(new SpringComponentInjector(this, context, true));
+
+        getResourceSettings().getStringResourceLoaders().add(new IStringResourceLoader() {
+            @Override
+            public String loadStringResource(Class<?> clazz, String key, Locale locale, String style, String variation) {
+                return key;
+            }
+
+            @Override
+            public String loadStringResource(Component component, String key, Locale locale, String style, String variation) {
+                return key;
+            }
+        });
+    }
+
+    @Override
+    public Session newSession(Request request, Response response) {
+        return new DevelopmentWebSession(request);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T createNoOpProxy(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+                return method.getDeclaringClass() == Object.class ? method.invoke(this, args) : null;
+            }
+        });
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.benchmark.report;
+
+import net.rrm.ehour.report.reports.ReportData;
+import net.rrm.ehour.ui.report.panel.aggregate.AggregateReportChartGenerator;
+import net.rrm.ehour.ui.report.panel.aggregate.ChartContext;
+import net.rrm.ehour.ui.report.panel.detail.DetailedReportChartGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating the highcharts javascript of the aggregated and detailed report charts.
+ * The detailed chart gets smaller data sets as it groups the hours of every day.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChartGeneratorBenchmark {
+    @Param({"100", "1000", "10000"})
+    private int assignments;
+
+    @Param({"31", "365"})
+    private int days;
+
+    private ChartContext aggregateChartContext;
+    private ChartContext detailedChartContext;
+
+    @Setup
+    public void setUp() {
+        ReportData aggregateReportData = new SyntheticReportData(assignments).createAggregateReportData();
+        aggregateChartContext = new ChartContext("chart", aggregateReportData, "EUR", true);
+
+        // one booking per assignment per day would make the largest detailed chart
+        // a matter of minutes rather than milliseconds
+        ReportData detailedReportData = new SyntheticReportData(Math.max(1, assignments / 100)).createDetailedReportData(days);
+        detailedChartContext = new ChartContext("chart", detailedReportData, "EUR", true);
+    }
+
+    @Benchmark
+    public String customerReportChart() {
+        return AggregateReportChartGenerator.generateCustomerReportChart(aggregateChartContext);
+    }
+
+    @Benchmark
+    public String projectReportChart() {
+        return AggregateReportChartGenerator.generateProjectReportChart(aggregateChartContext);
+    }
+
+    @Benchmark
+    public String employeeReportChart() {
+        return AggregateReportChartGenerator.generateEmployeeReportChart(aggregateChartContext);
+    }
+
+    @Benchmark
+    public String hourBasedDetailedChart() {
+        return DetailedReportChartGenerator.generateHourBasedDetailedChart(detailedChartContext);
+    }
+
+    @Benchmark
+    public String turnoverBasedDetailedChart() {
+        return DetailedReportChartGenerator.generateTurnoverBasedDetailedChart(detailedChartContext);
+    }
+}
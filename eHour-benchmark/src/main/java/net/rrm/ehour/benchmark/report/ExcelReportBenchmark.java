@@ -0,0 +1,118 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.benchmark.report;
+
+import net.rrm.ehour.benchmark.report.ReportBuilderBenchmark.AggregateReport;
+import net.rrm.ehour.benchmark.report.ReportBuilderBenchmark.SyntheticTreeReportModel;
+import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.ui.common.report.AbstractExcelReport;
+import net.rrm.ehour.ui.common.report.Report;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.util.tester.WicketTester;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the Excel workbook of an aggregated report. The workbook styles and resource
+ * strings need a Wicket session, so a mock application is started for the benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExcelReportBenchmark {
+    @Param({"1000", "10000", "50000"})
+    private int assignments;
+
+    @Param({"CUSTOMER", "PROJECT", "USER"})
+    private AggregateReport report;
+
+    private WicketTester tester;
+    private SyntheticExcelReport excelReport;
+    private Report treeReport;
+
+    @Setup
+    public void setUp() {
+        tester = new WicketTester(new BenchmarkApplication());
+
+        excelReport = new SyntheticExcelReport(report);
+
+        SyntheticTreeReportModel treeReportModel = new SyntheticTreeReportModel(new SyntheticReportData(assignments).createAggregateReportData(), report);
+        treeReportModel.getReportData();
+        treeReport = treeReportModel;
+    }
+
+    @TearDown
+    public void tearDown() {
+        tester.destroy();
+    }
+
+    @Benchmark
+    public long writeWorkbook() throws IOException {
+        CountingOutputStream output = new CountingOutputStream();
+        excelReport.write(treeReport, output);
+        return output.count;
+    }
+
+    static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    static class SyntheticExcelReport extends AbstractExcelReport {
+        private static final long serialVersionUID = 1L;
+
+        SyntheticExcelReport(AggregateReport report) {
+            super(report.getReportConfig());
+        }
+
+        @Override
+        protected Report createReport(ReportCriteria reportCriteria) {
+            throw new UnsupportedOperationException("the report is created by the benchmark");
+        }
+
+        @Override
+        protected void write(Report treeReport, OutputStream output) throws IOException {
+            super.write(treeReport, output);
+        }
+
+        @Override
+        protected IModel<String> getExcelReportName() {
+            return new Model<String>("Benchmark");
+        }
+
+        @Override
+        protected IModel<String> getHeaderReportName() {
+            return new Model<String>("Benchmark");
+        }
+    }
+}
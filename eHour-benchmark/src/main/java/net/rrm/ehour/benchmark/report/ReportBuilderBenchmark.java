@@ -0,0 +1,160 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.benchmark.report;
+
+import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.report.reports.ReportData;
+import net.rrm.ehour.ui.common.report.ReportConfig;
+import net.rrm.ehour.ui.report.ReportBuilder;
+import net.rrm.ehour.ui.report.TreeReportModel;
+import net.rrm.ehour.ui.report.aggregate.CustomerAggregateReportModel;
+import net.rrm.ehour.ui.report.aggregate.ProjectAggregateReportModel;
+import net.rrm.ehour.ui.report.aggregate.UserAggregateReportModel;
+import net.rrm.ehour.ui.report.node.ReportNode;
+import net.rrm.ehour.ui.report.node.ReportNodeFactory;
+import org.apache.wicket.util.tester.WicketTester;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the node tree of the aggregated reports, flattening it to the matrix shown
+ * in the report table and the tree report model which does both plus the totals.
+ * The report configuration needs a Wicket application, a mock one is started.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBuilderBenchmark {
+    @Param({"1000", "10000", "50000"})
+    private int assignments;
+
+    @Param({"CUSTOMER", "PROJECT", "USER"})
+    private AggregateReport report;
+
+    private WicketTester tester;
+    private ReportData reportData;
+    private List<ReportNode> rootNodes;
+
+    @Setup
+    public void setUp() {
+        tester = new WicketTester(new BenchmarkApplication());
+
+        reportData = new SyntheticReportData(assignments).createAggregateReportData();
+        rootNodes = new ReportBuilder().createReport(reportData, report.getNodeFactory());
+    }
+
+    @TearDown
+    public void tearDown() {
+        tester.destroy();
+    }
+
+    @Benchmark
+    public List<ReportNode> createReport() {
+        return new ReportBuilder().createReport(reportData, report.getNodeFactory());
+    }
+
+    @Benchmark
+    public void getNodeMatrix(Blackhole blackhole) {
+        int matrixWidth = report.getReportConfig().getReportColumns().length;
+
+        for (ReportNode rootNode : rootNodes) {
+            blackhole.consume(rootNode.getNodeMatrix(matrixWidth));
+        }
+    }
+
+    @Benchmark
+    public float treeReportModel() {
+        TreeReportModel model = new SyntheticTreeReportModel(reportData, report);
+        model.getReportData();
+
+        return model.getTotalHours() + model.getTotalTurnover();
+    }
+
+    public enum AggregateReport {
+        CUSTOMER {
+            @Override
+            ReportConfig getReportConfig() {
+                return ReportConfig.AGGREGATE_CUSTOMER;
+            }
+
+            @Override
+            ReportNodeFactory<?> getNodeFactory() {
+                return new CustomerAggregateReportModel(null).getReportNodeFactory();
+            }
+        },
+        PROJECT {
+            @Override
+            ReportConfig getReportConfig() {
+                return ReportConfig.AGGREGATE_PROJECT;
+            }
+
+            @Override
+            ReportNodeFactory<?> getNodeFactory() {
+                return new ProjectAggregateReportModel(null).getReportNodeFactory();
+            }
+        },
+        USER {
+            @Override
+            ReportConfig getReportConfig() {
+                return ReportConfig.AGGREGATE_USER;
+            }
+
+            @Override
+            ReportNodeFactory<?> getNodeFactory() {
+                return new UserAggregateReportModel(null).getReportNodeFactory();
+            }
+        };
+
+        // ReportConfig is resolved lazily, it can only be loaded once the application runs
+        abstract ReportConfig getReportConfig();
+
+        abstract ReportNodeFactory<?> getNodeFactory();
+    }
+
+    /**
+     * Tree report on synthetic data instead of the report service
+     */
+    static class SyntheticTreeReportModel extends TreeReportModel {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ReportData reportData;
+        private final AggregateReport report;
+
+        SyntheticTreeReportModel(ReportData reportData, AggregateReport report) {
+            super(new ReportCriteria(), report.getReportConfig());
+
+            this.reportData = reportData;
+            this.report = report;
+        }
+
+        @Override
+        protected ReportData fetchReportData(ReportCriteria reportCriteria) {
+            return reportData;
+        }
+
+        @Override
+        protected ReportNodeFactory<?> getReportNodeFactory() {
+            return report.getNodeFactory();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.benchmark.report;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.data.LockedDays;
+import net.rrm.ehour.domain.Customer;
+import net.rrm.ehour.domain.Project;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.report.reports.ReportData;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.LockableDate;
+import org.joda.time.LocalDate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic report data for the report benchmarks. Every customer has the same number of
+ * projects and every user is assigned to a random selection of them, generated from a
+ * fixed seed so consecutive runs measure the same data.
+ */
+public final class SyntheticReportData {
+    private static final long SEED = 42;
+
+    private static final LocalDate FIRST_DAY = new LocalDate(2013, 1, 1);
+
+    private final List<ProjectAssignment> assignments;
+
+    private final Random random = new Random(SEED);
+
+    /**
+     * @param assignmentCount number of assignments, customers, projects and users are derived from it
+     */
+    public SyntheticReportData(int assignmentCount) {
+        int customerCount = Math.max(1, assignmentCount / 100);
+        int projectCount = Math.max(1, assignmentCount / 10);
+        int userCount = Math.max(1, assignmentCount / 20);
+
+        List<Customer> customers = new ArrayList<Customer>(customerCount);
+
+        for (int i = 1; i <= customerCount; i++) {
+            customers.add(new Customer(i, "CUST" + i, "Customer " + i));
+        }
+
+        List<Project> projects = new ArrayList<Project>(projectCount);
+
+        for (int i = 1; i <= projectCount; i++) {
+            Project project = new Project(i, customers.get(i % customerCount)).setName("Project " + i);
+            project.setProjectCode("PRJ" + i);
+            projects.add(project);
+        }
+
+        List<User> users = new ArrayList<User>(userCount);
+
+        for (int i = 1; i <= userCount; i++) {
+            users.add(new User(i, "First" + i, "Last" + i));
+        }
+
+        assignments = new ArrayList<ProjectAssignment>(assignmentCount);
+
+        for (int i = 1; i <= assignmentCount; i++) {
+            Project project = projects.get(random.nextInt(projectCount));
+            User user = users.get(random.nextInt(userCount));
+
+            ProjectAssignment assignment = new ProjectAssignment(user, project, 50f + random.nextInt(100));
+            assignment.setAssignmentId(i);
+            assignment.setRole("Role " + (i % 5));
+            assignments.add(assignment);
+        }
+    }
+
+    /**
+     * Aggregated hours, one element per assignment
+     */
+    public ReportData createAggregateReportData() {
+        List<AssignmentAggregateReportElement> elements = new ArrayList<AssignmentAggregateReportElement>(assignments.size());
+
+        for (ProjectAssignment assignment : assignments) {
+            elements.add(new AssignmentAggregateReportElement(assignment, random.nextInt(1600) / 4f));
+        }
+
+        return new ReportData(LockedDays.NONE, elements, getReportRange(365));
+    }
+
+    /**
+     * Hours per day, each assignment books on roughly half of the days
+     */
+    public ReportData createDetailedReportData(int days) {
+        return new ReportData(LockedDays.NONE, createFlatReportElements(days), getReportRange(days));
+    }
+
+    public List<FlatReportElement> createFlatReportElements(int days) {
+        List<FlatReportElement> elements = new ArrayList<FlatReportElement>();
+
+        for (int day = 0; day < days; day++) {
+            Date date = FIRST_DAY.plusDays(day).toDate();
+
+            for (ProjectAssignment assignment : assignments) {
+                if (random.nextBoolean()) {
+                    elements.add(createFlatReportElement(assignment, date, random.nextInt(40) / 4f));
+                }
+            }
+        }
+
+        return elements;
+    }
+
+    private static FlatReportElement createFlatReportElement(ProjectAssignment assignment, Date date, float hours) {
+        Project project = assignment.getProject();
+        Customer customer = project.getCustomer();
+        User user = assignment.getUser();
+
+        FlatReportElement element = new FlatReportElement();
+        element.setAssignmentId(assignment.getAssignmentId());
+        element.setAssignmentDesc(assignment.getRole());
+        element.setCustomerId(customer.getCustomerId());
+        element.setCustomerCode(customer.getCode());
+        element.setCustomerName(customer.getName());
+        element.setProjectId(project.getProjectId());
+        element.setProjectName(project.getName());
+        element.setProjectCode(project.getProjectCode());
+        element.setUserId(user.getUserId());
+        element.setUserFirstName(user.getFirstName());
+        element.setUserLastName(user.getLastName());
+        element.setDayDate(date);
+        element.setLockableDate(new LockableDate(date, false));
+        element.setDisplayOrder(1);
+        element.setRate(assignment.getHourlyRate());
+        element.setTotalHours(hours);
+        element.setTotalTurnOver(hours * assignment.getHourlyRate());
+        element.setComment("comment");
+
+        return element;
+    }
+
+    private static DateRange getReportRange(int days) {
+        return new DateRange(FIRST_DAY.toDate(), FIRST_DAY.plusDays(days - 1).toDate());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.benchmark.report;
+
+import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
+import net.rrm.ehour.ui.report.trend.TrendReportModel;
+import net.rrm.ehour.ui.timesheet.export.ExcelExportReportModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pivoting the hours per day into the rows of a trend report and summing them up,
+ * with the elements streamed from memory rather than from the report service.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrendReportBenchmark {
+    @Param({"100", "1000"})
+    private int assignments;
+
+    @Param({"31", "365"})
+    private int days;
+
+    private List<FlatReportElement> elements;
+
+    @Setup
+    public void setUp() {
+        elements = new SyntheticReportData(assignments).createFlatReportElements(days);
+    }
+
+    @Benchmark
+    public float getReportData() {
+        TrendReportModel<?> model = new SyntheticTrendReportModel(elements);
+        model.getReportData();
+
+        return model.getGrandTotalHours();
+    }
+
+    /**
+     * Trend report of the timesheet export, streaming the synthetic elements
+     */
+    static class SyntheticTrendReportModel extends ExcelExportReportModel {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<FlatReportElement> elements;
+
+        SyntheticTrendReportModel(List<FlatReportElement> elements) {
+            super(new ReportCriteria());
+
+            this.elements = elements;
+        }
+
+        @Override
+        protected void streamReportData(ReportCriteria reportCriteria, ReportElementHandler<FlatReportElement> handler) {
+            for (FlatReportElement element : elements) {
+                handler.handle(element);
+            }
+        }
+    }
+}
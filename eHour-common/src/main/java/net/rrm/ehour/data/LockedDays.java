@@ -0,0 +1,222 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.data;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Set of locked days, stored as a bitset indexed on the day number so
+ * checking whether a day is locked doesn't depend on the number of locked days
+ **/
+public final class LockedDays implements Serializable
+{
+	private static final long serialVersionUID = -4716360214617311329L;
+
+	public static final LockedDays NONE = new LockedDays(0, new BitSet());
+
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	// day number of the first bit
+	private final int offset;
+	private final BitSet days;
+
+	private LockedDays(int offset, BitSet days)
+	{
+		this.offset = offset;
+		this.days = days;
+	}
+
+	/**
+	 * Lock the days in the ranges, both start and end day are inclusive
+	 * @param ranges
+	 * @return
+	 */
+	public static LockedDays forRanges(Collection<DateRange> ranges)
+	{
+		if (ranges.isEmpty())
+		{
+			return NONE;
+		}
+
+		long offset = Long.MAX_VALUE;
+
+		for (DateRange range : ranges)
+		{
+			offset = Math.min(offset, toDayNumber(range.getDateStart()));
+		}
+
+		BitSet days = new BitSet();
+
+		for (DateRange range : ranges)
+		{
+			long start = toDayNumber(range.getDateStart());
+			long end = toDayNumber(range.getDateEnd());
+
+			if (end >= start)
+			{
+				days.set(toIndex(start - offset), toIndex(end - offset + 1));
+			}
+		}
+
+		return new LockedDays(toIndex(offset), days);
+	}
+
+	public static LockedDays forDates(Collection<Date> dates)
+	{
+		List<DateRange> ranges = new ArrayList<DateRange>(dates.size());
+
+		for (Date date : dates)
+		{
+			ranges.add(new DateRange(date, date));
+		}
+
+		return forRanges(ranges);
+	}
+
+	public boolean isLocked(Date date)
+	{
+		long index = toDayNumber(date) - offset;
+
+		return index >= 0 && index < days.length() && days.get((int) index);
+	}
+
+	public boolean isEmpty()
+	{
+		return days.isEmpty();
+	}
+
+	/**
+	 * @return number of locked days
+	 */
+	public int size()
+	{
+		return days.cardinality();
+	}
+
+	/**
+	 * Locked days between start and end, inclusive. A null start or end is unbounded
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	public LockedDays within(Date start, Date end)
+	{
+		// day numbers are longs so dates far outside the locked days can't overflow
+		long from = start == null ? 0 : Math.max(0, toDayNumber(start) - offset);
+		long to = end == null ? days.length() : Math.min(days.length(), toDayNumber(end) - offset + 1);
+
+		if (from >= to)
+		{
+			return NONE;
+		}
+
+		BitSet slice = days.get((int) from, (int) to);
+
+		return slice.isEmpty() ? NONE : new LockedDays(offset + (int) from, slice);
+	}
+
+	/**
+	 * @return consecutive locked days as ranges, in order
+	 */
+	public List<DateRange> getRanges()
+	{
+		List<DateRange> ranges = new ArrayList<DateRange>();
+
+		int start = days.nextSetBit(0);
+
+		while (start >= 0)
+		{
+			int end = days.nextClearBit(start);
+
+			ranges.add(new DateRange(toDate(offset + start), toDate(offset + end - 1)));
+
+			start = days.nextSetBit(end);
+		}
+
+		return ranges;
+	}
+
+	/**
+	 * @return all locked days, in order
+	 */
+	public List<Date> getDates()
+	{
+		List<Date> dates = new ArrayList<Date>(size());
+
+		for (int i = days.nextSetBit(0); i >= 0; i = days.nextSetBit(i + 1))
+		{
+			dates.add(toDate(offset + i));
+		}
+
+		return dates;
+	}
+
+	/**
+	 * Days since 1970-01-01 of the local date
+	 */
+	static long toDayNumber(Date date)
+	{
+		// midnight in UTC is a whole number of days since the epoch
+		return LocalDate.fromDateFields(date).toDateTimeAtStartOfDay(DateTimeZone.UTC).getMillis() / MILLIS_PER_DAY;
+	}
+
+	private static int toIndex(long dayNumber)
+	{
+		if (dayNumber < Integer.MIN_VALUE || dayNumber > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("Locked day out of range: " + dayNumber);
+		}
+
+		return (int) dayNumber;
+	}
+
+	private static Date toDate(int dayNumber)
+	{
+		return new LocalDate(dayNumber * MILLIS_PER_DAY, DateTimeZone.UTC).toDate();
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		if (!(other instanceof LockedDays))
+		{
+			return false;
+		}
+
+		return getRanges().equals(((LockedDays) other).getRanges());
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return getRanges().hashCode();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "LockedDays" + getRanges();
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.domain;
+
+import org.apache.commons.lang.builder.CompareToBuilder;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.Valid;
+
+/**
+ * Booked hours of an assignment summed per month. Derived from TIMESHEET_ENTRY so
+ * aggregate reports don't have to scan all raw entries; never part of a backup.
+ */
+@Entity
+@Table(name = "ASSIGNMENT_MONTH_ROLLUP")
+public class AssignmentMonthRollup extends DomainObject<AssignmentMonthRollupId, AssignmentMonthRollup> {
+    private static final long serialVersionUID = 4412098276014412301L;
+
+    @Id
+    @Valid
+    private AssignmentMonthRollupId rollupId;
+
+    @Column(name = "HOURS")
+    private Float hours;
+
+    public AssignmentMonthRollup() {
+    }
+
+    public AssignmentMonthRollup(AssignmentMonthRollupId rollupId, Float hours) {
+        this.rollupId = rollupId;
+        this.hours = hours;
+    }
+
+    public AssignmentMonthRollupId getRollupId() {
+        return rollupId;
+    }
+
+    public void setRollupId(AssignmentMonthRollupId rollupId) {
+        this.rollupId = rollupId;
+    }
+
+    public Float getHours() {
+        return hours;
+    }
+
+    public void setHours(Float hours) {
+        this.hours = hours;
+    }
+
+    @Override
+    public AssignmentMonthRollupId getPK() {
+        return rollupId;
+    }
+
+    @Override
+    public int compareTo(AssignmentMonthRollup object) {
+        return new CompareToBuilder()
+                .append(rollupId, object.rollupId).toComparison();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("rollupId", rollupId)
+                .append("hours", hours)
+                .toString();
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (!(other instanceof AssignmentMonthRollup))
+            return false;
+        AssignmentMonthRollup castOther = (AssignmentMonthRollup) other;
+        return new EqualsBuilder().append(rollupId, castOther.rollupId).isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder().append(rollupId).toHashCode();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.domain;
+
+import org.apache.commons.lang.builder.CompareToBuilder;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.Date;
+
+@Embeddable
+public class AssignmentMonthRollupId implements Serializable, Comparable<AssignmentMonthRollupId> {
+    private static final long serialVersionUID = -2253419781706212437L;
+
+    @Column(name = "MONTH_START", nullable = false)
+    @NotNull
+    private Date monthStart;
+
+    @ManyToOne
+    @JoinColumn(name = "ASSIGNMENT_ID", nullable = false)
+    @Basic(fetch = FetchType.LAZY)
+    @NotNull
+    private ProjectAssignment projectAssignment;
+
+    public AssignmentMonthRollupId() {
+    }
+
+    public AssignmentMonthRollupId(Date monthStart, ProjectAssignment projectAssignment) {
+        this.monthStart = monthStart;
+        this.projectAssignment = projectAssignment;
+    }
+
+    public Date getMonthStart() {
+        return monthStart;
+    }
+
+    public void setMonthStart(Date monthStart) {
+        this.monthStart = monthStart;
+    }
+
+    public ProjectAssignment getProjectAssignment() {
+        return projectAssignment;
+    }
+
+    public void setProjectAssignment(ProjectAssignment projectAssignment) {
+        this.projectAssignment = projectAssignment;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this).append("monthStart", monthStart)
+                .append("assignment", projectAssignment)
+                .toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof AssignmentMonthRollupId)) {
+            return false;
+        }
+        AssignmentMonthRollupId castOther = (AssignmentMonthRollupId) other;
+        return new EqualsBuilder().append(monthStart, castOther.monthStart)
+                .append(projectAssignment, castOther.projectAssignment).isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder().append(monthStart)
+                .append(projectAssignment).toHashCode();
+    }
+
+    @Override
+    public int compareTo(AssignmentMonthRollupId object) {
+        return new CompareToBuilder()
+                .append(projectAssignment, object.projectAssignment)
+                .append(monthStart, object.monthStart)
+                .toComparison();
+    }
+}
@@ -11,6 +11,6 @@ public class DomainObjects
                                                             Customer.class, Project.class, ProjectAssignment.class, ProjectAssignmentType.class,
                                                             MailLog.class, MailLogAssignment.class, MailType.class,
                                                             TimesheetEntry.class, TimesheetComment.class,
-                                                            TimesheetLock.class
+                                                            TimesheetLock.class, AssignmentMonthRollup.class
     };
 }
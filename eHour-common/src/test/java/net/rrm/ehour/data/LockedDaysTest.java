@@ -0,0 +1,107 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.data;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class LockedDaysTest
+{
+	private static final LocalDate JAN_1 = new LocalDate(2013, 1, 1);
+
+	@Test
+	public void shouldCountDaysSinceEpoch()
+	{
+		assertEquals(0, LockedDays.toDayNumber(new LocalDate(1970, 1, 1).toDate()));
+		assertEquals(15706, LockedDays.toDayNumber(JAN_1.toDate()));
+		assertEquals(15706 + 59, LockedDays.toDayNumber(new LocalDate(2013, 3, 1).toDate()));
+		assertEquals(-1, LockedDays.toDayNumber(new LocalDate(1969, 12, 31).toDate()));
+	}
+
+	@Test
+	public void shouldHandleDatesFarFromEpoch()
+	{
+		LockedDays lockedDays = LockedDays.forRanges(Arrays.asList(range(JAN_1, JAN_1.plusDays(2))));
+
+		LocalDate farFuture = new LocalDate(20130101, 1, 1);
+		LocalDate farPast = new LocalDate(-20130101, 1, 1);
+
+		assertTrue(LockedDays.toDayNumber(farFuture.toDate()) > Integer.MAX_VALUE);
+		assertFalse(lockedDays.isLocked(farFuture.toDate()));
+		assertFalse(lockedDays.isLocked(farPast.toDate()));
+		assertTrue(lockedDays.within(farFuture.toDate(), farFuture.plusDays(7).toDate()).isEmpty());
+		assertTrue(lockedDays.within(farPast.toDate(), farPast.plusDays(7).toDate()).isEmpty());
+		assertEquals(3, lockedDays.within(farPast.toDate(), farFuture.toDate()).size());
+	}
+
+	@Test
+	public void shouldLockStartAndEndDayInclusive()
+	{
+		LockedDays lockedDays = LockedDays.forRanges(Arrays.asList(range(JAN_1, JAN_1.plusDays(2))));
+
+		assertFalse(lockedDays.isLocked(JAN_1.minusDays(1).toDate()));
+		assertTrue(lockedDays.isLocked(JAN_1.toDate()));
+		assertTrue(lockedDays.isLocked(JAN_1.plusDays(2).toDateTimeAtStartOfDay().plusHours(15).toDate()));
+		assertFalse(lockedDays.isLocked(JAN_1.plusDays(3).toDate()));
+		assertEquals(3, lockedDays.size());
+	}
+
+	@Test
+	public void shouldMergeOverlappingAndConsecutiveRanges()
+	{
+		LockedDays lockedDays = LockedDays.forRanges(Arrays.asList(range(JAN_1.plusDays(10), JAN_1.plusDays(12)),
+																	range(JAN_1, JAN_1.plusDays(4)),
+																	range(JAN_1.plusDays(2), JAN_1.plusDays(6)),
+																	range(JAN_1.plusDays(7), JAN_1.plusDays(7))));
+
+		assertEquals(Arrays.asList(range(JAN_1, JAN_1.plusDays(7)), range(JAN_1.plusDays(10), JAN_1.plusDays(12))), lockedDays.getRanges());
+		assertEquals(11, lockedDays.getDates().size());
+		assertEquals(JAN_1.plusDays(12).toDate(), lockedDays.getDates().get(10));
+	}
+
+	@Test
+	public void shouldLimitToRange()
+	{
+		LockedDays lockedDays = LockedDays.forRanges(Arrays.asList(range(JAN_1, JAN_1.plusDays(4)), range(JAN_1.plusDays(10), JAN_1.plusDays(12))));
+
+		LockedDays within = lockedDays.within(JAN_1.plusDays(3).toDate(), JAN_1.plusDays(10).toDate());
+
+		assertEquals(Arrays.asList(range(JAN_1.plusDays(3), JAN_1.plusDays(4)), range(JAN_1.plusDays(10), JAN_1.plusDays(10))), within.getRanges());
+		assertTrue(lockedDays.within(JAN_1.plusDays(5).toDate(), JAN_1.plusDays(9).toDate()).isEmpty());
+		assertTrue(lockedDays.within(JAN_1.minusDays(9).toDate(), JAN_1.minusDays(1).toDate()).isEmpty());
+	}
+
+	@Test
+	public void shouldHaveNoLockedDaysWithoutRanges()
+	{
+		LockedDays lockedDays = LockedDays.forRanges(Collections.<DateRange>emptyList());
+
+		assertTrue(lockedDays.isEmpty());
+		assertFalse(lockedDays.isLocked(JAN_1.toDate()));
+		assertTrue(lockedDays.getRanges().isEmpty());
+	}
+
+	private static DateRange range(LocalDate start, LocalDate end)
+	{
+		return new DateRange(start.toDate(), end.toDate());
+	}
+}
@@ -13,6 +13,7 @@
 DROP TABLE IF EXISTS `CONFIGURATION_BIN`;
 DROP TABLE IF EXISTS `USER_TO_USERROLE`;
 DROP TABLE IF EXISTS `USER_ROLE`;
+DROP TABLE IF EXISTS `ASSIGNMENT_MONTH_ROLLUP`;
 DROP TABLE IF EXISTS `TIMESHEET_ENTRY`;
 DROP TABLE IF EXISTS `TIMESHEET_COMMENT`;
 DROP TABLE IF EXISTS `MAIL_LOG_ASSIGNMENT`;
@@ -290,6 +291,19 @@ KEY `ASSIGNMENT_ID` (`ASSIGNMENT_ID`),
 CONSTRAINT `TIMESHEET_ENTRY_fk` FOREIGN KEY (`ASSIGNMENT_ID`) REFERENCES `PROJECT_ASSIGNMENT` (`ASSIGNMENT_ID`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
+--
+-- Table structure for table `ASSIGNMENT_MONTH_ROLLUP`
+--
+
+CREATE TABLE `ASSIGNMENT_MONTH_ROLLUP` (
+`ASSIGNMENT_ID` int(11) NOT NULL,
+`MONTH_START` date NOT NULL,
+`HOURS` float(9,3),
+PRIMARY KEY (`MONTH_START`,`ASSIGNMENT_ID`),
+KEY `ASSIGNMENT_ID` (`ASSIGNMENT_ID`),
+CONSTRAINT `ASSIGNMENT_MONTH_ROLLUP_fk` FOREIGN KEY (`ASSIGNMENT_ID`) REFERENCES `PROJECT_ASSIGNMENT` (`ASSIGNMENT_ID`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
 
 
 
@@ -8,5 +8,19 @@ CREATE  TABLE TIMESHEET_LOCK (
 ALTER TABLE TIMESHEET_LOCK
 ADD INDEX IDX_LOCK_RANGE (DATE_START ASC, DATE_END ASC) ;
 
+CREATE TABLE ASSIGNMENT_MONTH_ROLLUP (
+  ASSIGNMENT_ID INT NOT NULL,
+  MONTH_START DATE NOT NULL,
+  HOURS FLOAT(9,3),
+  PRIMARY KEY (MONTH_START, ASSIGNMENT_ID),
+  KEY ASSIGNMENT_ID (ASSIGNMENT_ID),
+  CONSTRAINT ASSIGNMENT_MONTH_ROLLUP_fk FOREIGN KEY (ASSIGNMENT_ID) REFERENCES PROJECT_ASSIGNMENT (ASSIGNMENT_ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+INSERT INTO ASSIGNMENT_MONTH_ROLLUP (ASSIGNMENT_ID, MONTH_START, HOURS)
+SELECT ASSIGNMENT_ID, DATE_FORMAT(ENTRY_DATE, '%Y-%m-01'), SUM(HOURS)
+FROM TIMESHEET_ENTRY
+GROUP BY ASSIGNMENT_ID, DATE_FORMAT(ENTRY_DATE, '%Y-%m-01');
+
 UPDATE CONFIGURATION SET CONFIG_VALUE = '1.3' WHERE CONFIG_KEY = 'version';
 
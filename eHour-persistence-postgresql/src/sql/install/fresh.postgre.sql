@@ -248,6 +248,20 @@ CREATE TABLE TIMESHEET_ENTRY (
 );
 CREATE INDEX ASSIGNMENT_ID ON timesheet_entry (ASSIGNMENT_ID);
 
+--
+-- Table structure for table ASSIGNMENT_MONTH_ROLLUP
+--
+
+DROP TABLE IF EXISTS ASSIGNMENT_MONTH_ROLLUP;
+CREATE TABLE ASSIGNMENT_MONTH_ROLLUP (
+  ASSIGNMENT_ID INTEGER NOT NULL,
+  MONTH_START TIMESTAMP NOT NULL,
+  HOURS real,
+  PRIMARY KEY (MONTH_START, ASSIGNMENT_ID),
+  CONSTRAINT ASSIGNMENT_MONTH_ROLLUP_fk FOREIGN KEY (ASSIGNMENT_ID) REFERENCES PROJECT_ASSIGNMENT (ASSIGNMENT_ID)
+);
+CREATE INDEX ASSIGNMENT_MONTH_ROLLUP_ASSIGNMENT_ID ON ASSIGNMENT_MONTH_ROLLUP (ASSIGNMENT_ID);
+
 --
 -- Table structure for table USER_ROLE
 --
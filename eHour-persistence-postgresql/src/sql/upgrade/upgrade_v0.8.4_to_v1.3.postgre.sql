@@ -7,5 +7,19 @@ CREATE  TABLE TIMESHEET_LOCK (
 
 CREATE INDEX TIMESHEET_LOCK_IDX ON TIMESHEET_LOCK (DATE_START, DATE_END);
 
+CREATE TABLE ASSIGNMENT_MONTH_ROLLUP (
+  ASSIGNMENT_ID INTEGER NOT NULL,
+  MONTH_START TIMESTAMP NOT NULL,
+  HOURS real,
+  PRIMARY KEY (MONTH_START, ASSIGNMENT_ID),
+  CONSTRAINT ASSIGNMENT_MONTH_ROLLUP_fk FOREIGN KEY (ASSIGNMENT_ID) REFERENCES PROJECT_ASSIGNMENT (ASSIGNMENT_ID)
+);
+CREATE INDEX ASSIGNMENT_MONTH_ROLLUP_ASSIGNMENT_ID ON ASSIGNMENT_MONTH_ROLLUP (ASSIGNMENT_ID);
+
+INSERT INTO ASSIGNMENT_MONTH_ROLLUP (ASSIGNMENT_ID, MONTH_START, HOURS)
+SELECT ASSIGNMENT_ID, date_trunc('month', ENTRY_DATE), SUM(HOURS)
+FROM TIMESHEET_ENTRY
+GROUP BY ASSIGNMENT_ID, date_trunc('month', ENTRY_DATE);
+
 UPDATE CONFIGURATION SET CONFIG_VALUE = '1.3' WHERE CONFIG_KEY = 'version';
 
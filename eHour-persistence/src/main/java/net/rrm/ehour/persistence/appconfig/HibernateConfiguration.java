@@ -2,6 +2,9 @@ package net.rrm.ehour.persistence.appconfig;
 
 import net.rrm.ehour.appconfig.EhourHomeUtil;
 import net.rrm.ehour.domain.DomainObjects;
+import net.rrm.ehour.persistence.dao.InstrumentedHibernateTemplate;
+import net.rrm.ehour.persistence.stats.QueryStatistics;
+import net.rrm.ehour.persistence.stats.StatementCountingInterceptor;
 import org.apache.log4j.Logger;
 import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,12 +31,18 @@ public class HibernateConfiguration {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private QueryStatistics queryStatistics;
+
     @Value("${ehour.database}")
     private String databaseName;
 
     @Value("${ehour.db.cache:true}")
     private String caching;
 
+    @Value("${ehour.db.batchSize:50}")
+    private String batchSize = "50";
+
     private static final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
     private static final Logger LOGGER = Logger.getLogger(HibernateConfiguration.class);
 
@@ -63,8 +72,13 @@ public class HibernateConfiguration {
         hibernateProperties.put("net.sf.ehcache.configurationResourceName", "ehcache.xml");
         hibernateProperties.put("hibernate.cache.use_query_cache", caching);
         hibernateProperties.put("hibernate.hbm2ddl.auto", configProperties.get("hibernate.hbm2ddl.auto"));
+        // timesheet weeks are flushed as one batch of inserts, updates and deletes
+        hibernateProperties.put("hibernate.jdbc.batch_size", batchSize);
+        hibernateProperties.put("hibernate.order_inserts", "true");
+        hibernateProperties.put("hibernate.order_updates", "true");
 
         factoryBean.setHibernateProperties(hibernateProperties);
+        factoryBean.setEntityInterceptor(new StatementCountingInterceptor());
         factoryBean.afterPropertiesSet();
 
         return factoryBean.getObject();
@@ -101,7 +115,7 @@ public class HibernateConfiguration {
     public
     @Bean
     HibernateTemplate getHibernateTemplate() throws Exception {
-        return new HibernateTemplate(getSessionFactory());
+        return new InstrumentedHibernateTemplate(getSessionFactory(), queryStatistics);
     }
 
     public
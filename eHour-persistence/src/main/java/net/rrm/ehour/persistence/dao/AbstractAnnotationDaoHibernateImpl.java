@@ -1,24 +1,99 @@
 package net.rrm.ehour.persistence.dao;
 
+import net.rrm.ehour.persistence.stats.QueryStatistics;
+import org.hibernate.Query;
 import org.hibernate.Session;
+import org.hibernate.transform.ResultTransformer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.orm.hibernate3.HibernateTemplate;
 import org.springframework.orm.hibernate3.SessionFactoryUtils;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public class AbstractAnnotationDaoHibernateImpl
 {
 	@Autowired
 	private HibernateTemplate hibernateTemplate;
 
+	@Autowired
+	private QueryStatistics queryStatistics;
+
 	protected HibernateTemplate getHibernateTemplate()
 	{
 		return hibernateTemplate;
 	}
+
+	protected QueryStatistics getQueryStatistics()
+	{
+		return queryStatistics;
+	}
 	
 	protected Session getSession()
 	{
 		return SessionFactoryUtils.getSession(getHibernateTemplate().getSessionFactory(), true);
 	}
+
+	/**
+	 * Find named query with the result rows passed through a transformer
+	 * @param queryName
+	 * @param paramNames
+	 * @param values
+	 * @param transformer
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> List<T> findByNamedQueryAndNamedParam(final String queryName,
+														final String[] paramNames,
+														final Object[] values,
+														final ResultTransformer transformer)
+	{
+		HibernateTemplate template = new InstrumentedHibernateTemplate(getHibernateTemplate().getSessionFactory(), queryStatistics)
+		{
+			@Override
+			protected void prepareQuery(Query queryObject)
+			{
+				super.prepareQuery(queryObject);
+				queryObject.setResultTransformer(transformer);
+			}
+		};
+
+		return (List<T>) template.findByNamedQueryAndNamedParam(queryName, paramNames, values);
+	}
+
+	/**
+	 * List the results of a named query obtained from the session, recording its execution
+	 * @param queryName
+	 * @param query
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> List<T> list(String queryName, Query query)
+	{
+		long start = System.nanoTime();
+
+		List<T> results = query.list();
+
+		queryStatistics.recordQuery(queryName, System.nanoTime() - start, results.size());
+
+		return results;
+	}
+
+	/**
+	 * Execute a named update or delete query obtained from the session, recording its execution
+	 * @param queryName
+	 * @param query
+	 * @return number of affected rows
+	 */
+	protected int executeUpdate(String queryName, Query query)
+	{
+		long start = System.nanoTime();
+
+		int rows = query.executeUpdate();
+
+		queryStatistics.recordQuery(queryName, System.nanoTime() - start, rows);
+
+		return rows;
+	}
 }
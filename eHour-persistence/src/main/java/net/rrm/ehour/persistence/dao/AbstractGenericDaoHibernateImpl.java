@@ -85,7 +85,7 @@ public abstract class AbstractGenericDaoHibernateImpl <T extends DomainObject<?,
 		}
 		else
 		{
-			HibernateTemplate template = new HibernateTemplate(getHibernateTemplate().getSessionFactory())
+			HibernateTemplate template = new InstrumentedHibernateTemplate(getHibernateTemplate().getSessionFactory(), getQueryStatistics())
 			{
 				@Override
 				public boolean isCacheQueries()
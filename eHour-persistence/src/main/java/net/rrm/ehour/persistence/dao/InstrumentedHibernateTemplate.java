@@ -0,0 +1,71 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.dao;
+
+import net.rrm.ehour.persistence.stats.QueryStatistics;
+import org.hibernate.SessionFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.hibernate3.HibernateTemplate;
+
+import java.util.List;
+
+/**
+ * HibernateTemplate recording the latency and row count of every named query it executes.
+ * The single value variants of the find methods delegate to the ones overridden here
+ */
+@SuppressWarnings("rawtypes")
+public class InstrumentedHibernateTemplate extends HibernateTemplate {
+    private final QueryStatistics queryStatistics;
+
+    public InstrumentedHibernateTemplate(SessionFactory sessionFactory, QueryStatistics queryStatistics) {
+        super(sessionFactory);
+        this.queryStatistics = queryStatistics;
+    }
+
+    @Override
+    public List findByNamedQuery(String queryName, Object... values) throws DataAccessException {
+        long start = System.nanoTime();
+
+        List results = super.findByNamedQuery(queryName, values);
+
+        queryStatistics.recordQuery(queryName, System.nanoTime() - start, results.size());
+
+        return results;
+    }
+
+    @Override
+    public List findByNamedQueryAndNamedParam(String queryName, String[] paramNames, Object[] values) throws DataAccessException {
+        long start = System.nanoTime();
+
+        List results = super.findByNamedQueryAndNamedParam(queryName, paramNames, values);
+
+        queryStatistics.recordQuery(queryName, System.nanoTime() - start, results.size());
+
+        return results;
+    }
+
+    @Override
+    public List findByNamedQueryAndValueBean(String queryName, Object valueBean) throws DataAccessException {
+        long start = System.nanoTime();
+
+        List results = super.findByNamedQueryAndValueBean(queryName, valueBean);
+
+        queryStatistics.recordQuery(queryName, System.nanoTime() - start, results.size());
+
+        return results;
+    }
+}
@@ -50,6 +50,15 @@ public interface ProjectAssignmentDao  extends GenericDao<ProjectAssignment, Int
 	 * @return
 	 */
 	List<ProjectAssignment> findProjectAssignmentsForUser(Integer userId, DateRange range);
+
+	/**
+	 * Find (active) projects for user in date range, the project, customer and assignment type
+	 * are fetched in the same query. Not served from the query cache
+	 * @param userId
+	 * @param range
+	 * @return
+	 */
+	List<ProjectAssignment> findProjectAssignmentsWithProjectForUser(Integer userId, DateRange range);
 	
 	/**
 	 * Find project assignments for project in range
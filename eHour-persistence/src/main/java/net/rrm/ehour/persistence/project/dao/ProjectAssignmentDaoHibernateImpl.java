@@ -61,6 +61,22 @@ public class ProjectAssignmentDaoHibernateImpl
         return results;
     }
 
+    /**
+     * Find (active) projects for user in date range with their project, customer and type.
+     * A query cache hit would load the assignments one by one so the query cache is not used
+     *
+     * @param userId
+     * @param range
+     * @return
+     */
+    @Override
+    public List<ProjectAssignment> findProjectAssignmentsWithProjectForUser(Integer userId, DateRange range) {
+        String[] keys = new String[]{"dateStart", "dateEnd", "userId"};
+        Object[] params = new Object[]{range.getDateStart(), range.getDateEnd(), userId};
+
+        return findByNamedQueryAndNamedParam("ProjectAssignment.findProjectAssignmentsWithProjectForUserInRange", keys, params, false, null);
+    }
+
 
     /**
      * Find assigned (active) projects for user
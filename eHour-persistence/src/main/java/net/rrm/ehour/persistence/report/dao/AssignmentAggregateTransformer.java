@@ -0,0 +1,45 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+
+package net.rrm.ehour.persistence.report.dao;
+
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+import org.hibernate.transform.BasicTransformerAdapter;
+
+/**
+ * Creates AssignmentAggregateReportElements from (assignmentId, hours) tuples
+ * rather than through a reflective HQL constructor expression. The assignment
+ * only carries its id, the DAO resolves the actual assignments afterwards.
+ */
+public final class AssignmentAggregateTransformer extends BasicTransformerAdapter {
+    private static final long serialVersionUID = -4160302592424338407L;
+
+    public static final AssignmentAggregateTransformer INSTANCE = new AssignmentAggregateTransformer();
+
+    private AssignmentAggregateTransformer() {
+    }
+
+    @Override
+    public Object transformTuple(Object[] tuple, String[] aliases) {
+        return new AssignmentAggregateReportElement(new ProjectAssignment((Integer) tuple[0]), (Number) tuple[1]);
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+}
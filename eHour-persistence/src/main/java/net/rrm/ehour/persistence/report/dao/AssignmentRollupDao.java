@@ -0,0 +1,119 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.report.dao;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.AssignmentMonthRollup;
+import net.rrm.ehour.domain.AssignmentMonthRollupId;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.persistence.dao.GenericDao;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintenance of the assignment/month rollup of booked hours
+ */
+public interface AssignmentRollupDao extends GenericDao<AssignmentMonthRollup, AssignmentMonthRollupId> {
+    /**
+     * Lock the assignment until the end of the transaction, serializing concurrent
+     * recalculations of its rollup
+     *
+     * @param assignment
+     */
+    void lockAssignment(ProjectAssignment assignment);
+
+    /**
+     * Roll up the timesheet entries of all assignments in a single statement
+     *
+     * @return number of rollup rows inserted
+     */
+    int rollupAll();
+
+    /**
+     * Roll up the timesheet entries of assignments in a single statement
+     *
+     * @param assignmentIds
+     * @return number of rollup rows inserted
+     */
+    int rollupAssignments(List<? extends Serializable> assignmentIds);
+
+    /**
+     * Roll up the timesheet entries of an assignment in a range of whole months
+     *
+     * @param assignment
+     * @param dateRange
+     * @return number of rollup rows inserted
+     */
+    int rollupAssignmentInRange(ProjectAssignment assignment, DateRange dateRange);
+
+    /**
+     * Total hours per assignment id summed over the raw timesheet entries
+     *
+     * @return
+     */
+    Map<Integer, Number> getRawHoursPerAssignment();
+
+    /**
+     * Total hours per assignment id summed over the rollup
+     *
+     * @return
+     */
+    Map<Integer, Number> getRolledUpHoursPerAssignment();
+
+    /**
+     * Whether there are timesheet entries but no rollup at all, as after upgrading
+     * from a version without the rollup. Only looks up a single row of both tables
+     *
+     * @return
+     */
+    boolean isRollupMissing();
+
+    /**
+     * Delete the rollup for assignments
+     *
+     * @param assignmentIds
+     * @return
+     */
+    int deleteForAssignments(List<? extends Serializable> assignmentIds);
+
+    /**
+     * Delete the rollup of an assignment for the months starting in a range
+     *
+     * @param assignment
+     * @param dateRange
+     * @return
+     */
+    int deleteForAssignmentInRange(ProjectAssignment assignment, DateRange dateRange);
+
+    /**
+     * Delete the complete rollup
+     *
+     * @return
+     */
+    int deleteAll();
+
+    /**
+     * Whether the rollup can be used for reporting; false while it's being rebuilt
+     *
+     * @return
+     */
+    boolean isAvailable();
+
+    void setRebuilding(boolean rebuilding);
+}
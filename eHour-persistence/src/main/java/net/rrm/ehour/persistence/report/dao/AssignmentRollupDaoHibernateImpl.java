@@ -0,0 +1,141 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.report.dao;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.AssignmentMonthRollup;
+import net.rrm.ehour.domain.AssignmentMonthRollupId;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.persistence.dao.AbstractGenericDaoHibernateImpl;
+import org.hibernate.LockOptions;
+import org.hibernate.Query;
+import org.springframework.stereotype.Repository;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Repository("assignmentRollupDao")
+public class AssignmentRollupDaoHibernateImpl
+        extends AbstractGenericDaoHibernateImpl<AssignmentMonthRollup, AssignmentMonthRollupId>
+        implements AssignmentRollupDao {
+    private final AtomicInteger runningRebuilds = new AtomicInteger();
+
+    public AssignmentRollupDaoHibernateImpl() {
+        super(AssignmentMonthRollup.class);
+    }
+
+    @Override
+    public void lockAssignment(ProjectAssignment assignment) {
+        getSession().get(ProjectAssignment.class, assignment.getAssignmentId(), LockOptions.UPGRADE);
+    }
+
+    @Override
+    public int rollupAll() {
+        return executeUpdate("AssignmentRollup.insertAll", getSession().getNamedQuery("AssignmentRollup.insertAll"));
+    }
+
+    @Override
+    public int rollupAssignments(List<? extends Serializable> assignmentIds) {
+        Query query = getSession().getNamedQuery("AssignmentRollup.insertForAssignmentIds");
+        query.setParameterList("assignmentIds", assignmentIds);
+
+        return executeUpdate("AssignmentRollup.insertForAssignmentIds", query);
+    }
+
+    @Override
+    public int rollupAssignmentInRange(ProjectAssignment assignment, DateRange dateRange) {
+        return executeUpdate("AssignmentRollup.insertForAssignmentInRange",
+                createAssignmentInRangeQuery("AssignmentRollup.insertForAssignmentInRange", assignment, dateRange));
+    }
+
+    private Query createAssignmentInRangeQuery(String queryName, ProjectAssignment assignment, DateRange dateRange) {
+        Query query = getSession().getNamedQuery(queryName);
+        query.setParameter("assignmentId", assignment.getAssignmentId());
+        query.setDate("dateStart", dateRange.getDateStart());
+        query.setDate("dateEnd", dateRange.getDateEnd());
+
+        return query;
+    }
+
+    @Override
+    public Map<Integer, Number> getRawHoursPerAssignment() {
+        return getHoursPerAssignment("AssignmentRollup.getRawHoursPerAssignmentId");
+    }
+
+    @Override
+    public Map<Integer, Number> getRolledUpHoursPerAssignment() {
+        return getHoursPerAssignment("AssignmentRollup.getRolledUpHoursPerAssignmentId");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, Number> getHoursPerAssignment(String queryName) {
+        List<Object[]> rows = getHibernateTemplate().findByNamedQuery(queryName);
+
+        Map<Integer, Number> hoursPerAssignment = new HashMap<Integer, Number>();
+
+        for (Object[] row : rows) {
+            hoursPerAssignment.put((Integer) row[0], (Number) row[1]);
+        }
+
+        return hoursPerAssignment;
+    }
+
+    @Override
+    public boolean isRollupMissing() {
+        return hasRow("AssignmentRollup.getAnyBookedAssignmentId") && !hasRow("AssignmentRollup.getAnyRolledUpAssignmentId");
+    }
+
+    private boolean hasRow(String queryName) {
+        return !getSession().getNamedQuery(queryName).setMaxResults(1).list().isEmpty();
+    }
+
+    @Override
+    public int deleteForAssignments(List<? extends Serializable> assignmentIds) {
+        Query query = getSession().getNamedQuery("AssignmentRollup.deleteOnAssignmentIds");
+        query.setParameterList("assignmentIds", assignmentIds);
+
+        return executeUpdate("AssignmentRollup.deleteOnAssignmentIds", query);
+    }
+
+    @Override
+    public int deleteForAssignmentInRange(ProjectAssignment assignment, DateRange dateRange) {
+        return executeUpdate("AssignmentRollup.deleteForAssignmentInRange",
+                createAssignmentInRangeQuery("AssignmentRollup.deleteForAssignmentInRange", assignment, dateRange));
+    }
+
+    @Override
+    public int deleteAll() {
+        return executeUpdate("AssignmentRollup.deleteAll", getSession().getNamedQuery("AssignmentRollup.deleteAll"));
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return runningRebuilds.get() == 0;
+    }
+
+    @Override
+    public void setRebuilding(boolean rebuilding) {
+        if (rebuilding) {
+            runningRebuilds.incrementAndGet();
+        } else {
+            runningRebuilds.decrementAndGet();
+        }
+    }
+}
@@ -18,6 +18,7 @@ package net.rrm.ehour.persistence.report.dao;
 
 import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
 
 import java.io.Serializable;
 import java.util.List;
@@ -64,4 +65,36 @@ public interface DetailedReportDao
 	 */
 	List<FlatReportElement> getHoursPerDay(DateRange dateRange);
 
+	/**
+	 * Stream hours per day for users, one row at a time
+	 * @param userIds
+	 * @param dateRange
+	 * @param handler
+	 */
+	void streamHoursPerDayForUsers(List<? extends Serializable> userIds, DateRange dateRange, ReportElementHandler<FlatReportElement> handler);
+
+	/**
+	 * Stream hours per day for projects, one row at a time
+	 * @param projectIds
+	 * @param dateRange
+	 * @param handler
+	 */
+	void streamHoursPerDayForProjects(List<? extends Serializable> projectIds, DateRange dateRange, ReportElementHandler<FlatReportElement> handler);
+
+	/**
+	 * Stream hours per day for projects & users, one row at a time
+	 * @param projectIds
+	 * @param userIds
+	 * @param dateRange
+	 * @param handler
+	 */
+	void streamHoursPerDayForProjectsAndUsers(List<? extends Serializable> projectIds, List<? extends Serializable> userIds, DateRange dateRange, ReportElementHandler<FlatReportElement> handler);
+
+	/**
+	 * Stream hours per day, one row at a time
+	 * @param dateRange
+	 * @param handler
+	 */
+	void streamHoursPerDay(DateRange dateRange, ReportElementHandler<FlatReportElement> handler);
+
 }
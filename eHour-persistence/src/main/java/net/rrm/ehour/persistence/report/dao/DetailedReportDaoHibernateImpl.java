@@ -22,18 +22,41 @@ import java.util.List;
 import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.persistence.dao.AbstractAnnotationDaoHibernateImpl;
 import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
 
 import org.hibernate.Query;
+import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
-import org.hibernate.transform.Transformers;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 /**
- * PerMonth DAO impl using sql-queries  
+ * PerMonth DAO impl using sql-queries, answered from the fact store instead when it is enabled
  **/
 @Repository("detailedReportDao")
 public class DetailedReportDaoHibernateImpl extends AbstractAnnotationDaoHibernateImpl implements DetailedReportDao
 {
+	/**
+	 * Rows fetched per round trip when streaming. MySQL's driver ignores this
+	 * and buffers the complete result unless useCursorFetch=true is set on the url
+	 */
+	private static final int STREAM_FETCH_SIZE = 500;
+
+	private static final String[] FLAT_REPORT_COLUMNS = {"totalHours", "totalTurnOver", "rate", "dayDate", "assignmentId",
+															"customerId", "customerName", "customerCode", "projectId", "userId",
+															"userFirstName", "userLastName", "assignmentDesc", "projectName",
+															"projectCode", "comment"};
+
+	private static final String HOURS_PER_DAY = "Report.getHoursPerDay";
+	private static final String HOURS_PER_DAY_FOR_USERS = "Report.getHoursPerDayForUsers";
+	private static final String HOURS_PER_DAY_FOR_PROJECTS = "Report.getHoursPerDayForProjects";
+	private static final String HOURS_PER_DAY_FOR_PROJECTS_AND_USERS = "Report.getHoursPerDayForProjectsAndUsers";
+
+	@Autowired
+	private TimesheetFactStore timesheetFactStore;
+
 	/**
 	 * Get hours per day for assignments
 	 * @param assignmentId
@@ -43,15 +66,20 @@ public class DetailedReportDaoHibernateImpl extends AbstractAnnotationDaoHiberna
 	@SuppressWarnings("unchecked")
 	public List<FlatReportElement> getHoursPerDayForAssignment(List<? extends Serializable> assignmentIds, DateRange dateRange)
 	{
+		if (timesheetFactStore.isAvailable())
+		{
+			return timesheetFactStore.getHoursPerDay(FactRestriction.forAssignments(assignmentIds), dateRange);
+		}
+
 		Session session = this.getSession();
 		
 		Query query = session.getNamedQuery("Report.getHoursPerDayForAssignment")
 						.setDate("dateStart", dateRange.getDateStart())
 						.setDate("dateEnd", dateRange.getDateEnd())
 						.setParameterList("assignmentId", assignmentIds)
-						.setResultTransformer(Transformers.aliasToBean(FlatReportElement.class));
+						.setResultTransformer(new FlatReportElementTransformer());
 
-		return query.list();
+		return list("Report.getHoursPerDayForAssignment", query);
 	}
 
 	/*
@@ -60,16 +88,35 @@ public class DetailedReportDaoHibernateImpl extends AbstractAnnotationDaoHiberna
 	 */
 	@SuppressWarnings("unchecked")
 	public List<FlatReportElement> getHoursPerDayForUsers(List<? extends Serializable> userIds, DateRange dateRange)
+	{
+		if (timesheetFactStore.isAvailable())
+		{
+			return timesheetFactStore.getHoursPerDay(FactRestriction.forUsers(userIds), dateRange);
+		}
+
+		return list(HOURS_PER_DAY_FOR_USERS, createHoursPerDayForUsersQuery(userIds, dateRange));
+	}
+
+	public void streamHoursPerDayForUsers(List<? extends Serializable> userIds, DateRange dateRange, ReportElementHandler<FlatReportElement> handler)
+	{
+		if (timesheetFactStore.isAvailable())
+		{
+			timesheetFactStore.streamHoursPerDay(FactRestriction.forUsers(userIds), dateRange, handler);
+			return;
+		}
+
+		scroll(HOURS_PER_DAY_FOR_USERS, createHoursPerDayForUsersQuery(userIds, dateRange), handler);
+	}
+
+	private Query createHoursPerDayForUsersQuery(List<? extends Serializable> userIds, DateRange dateRange)
 	{
 		Session session = this.getSession();
 		
-		Query query = session.getNamedQuery("Report.getHoursPerDayForUsers")
+		return session.getNamedQuery(HOURS_PER_DAY_FOR_USERS)
 						.setDate("dateStart", dateRange.getDateStart())
 						.setDate("dateEnd", dateRange.getDateEnd())
 						.setParameterList("userIds", userIds)
-						.setResultTransformer(Transformers.aliasToBean(FlatReportElement.class));
-
-		return query.list();
+						.setResultTransformer(new FlatReportElementTransformer());
 	}
 
 	/*
@@ -78,16 +125,35 @@ public class DetailedReportDaoHibernateImpl extends AbstractAnnotationDaoHiberna
 	 */
 	@SuppressWarnings("unchecked")
 	public List<FlatReportElement> getHoursPerDayForProjects(List<? extends Serializable> projectIds, DateRange dateRange)
+	{
+		if (timesheetFactStore.isAvailable())
+		{
+			return timesheetFactStore.getHoursPerDay(FactRestriction.forProjects(projectIds), dateRange);
+		}
+
+		return list(HOURS_PER_DAY_FOR_PROJECTS, createHoursPerDayForProjectsQuery(projectIds, dateRange));
+	}
+
+	public void streamHoursPerDayForProjects(List<? extends Serializable> projectIds, DateRange dateRange, ReportElementHandler<FlatReportElement> handler)
+	{
+		if (timesheetFactStore.isAvailable())
+		{
+			timesheetFactStore.streamHoursPerDay(FactRestriction.forProjects(projectIds), dateRange, handler);
+			return;
+		}
+
+		scroll(HOURS_PER_DAY_FOR_PROJECTS, createHoursPerDayForProjectsQuery(projectIds, dateRange), handler);
+	}
+
+	private Query createHoursPerDayForProjectsQuery(List<? extends Serializable> projectIds, DateRange dateRange)
 	{
 		Session session = this.getSession();
 		
-		Query query = session.getNamedQuery("Report.getHoursPerDayForProjects")
+		return session.getNamedQuery(HOURS_PER_DAY_FOR_PROJECTS)
 						.setDate("dateStart", dateRange.getDateStart())
 						.setDate("dateEnd", dateRange.getDateEnd())
 						.setParameterList("projectIds", projectIds)
-						.setResultTransformer(Transformers.aliasToBean(FlatReportElement.class));
-
-		return query.list();
+						.setResultTransformer(new FlatReportElementTransformer());
 	}
 
 	/*
@@ -96,17 +162,36 @@ public class DetailedReportDaoHibernateImpl extends AbstractAnnotationDaoHiberna
 	 */
 	@SuppressWarnings("unchecked")
 	public List<FlatReportElement> getHoursPerDayForProjectsAndUsers(List<? extends Serializable> projectIds, List<? extends Serializable> userIds, DateRange dateRange)
+	{
+		if (timesheetFactStore.isAvailable())
+		{
+			return timesheetFactStore.getHoursPerDay(FactRestriction.forProjectsAndUsers(projectIds, userIds), dateRange);
+		}
+
+		return list(HOURS_PER_DAY_FOR_PROJECTS_AND_USERS, createHoursPerDayForProjectsAndUsersQuery(projectIds, userIds, dateRange));
+	}
+
+	public void streamHoursPerDayForProjectsAndUsers(List<? extends Serializable> projectIds, List<? extends Serializable> userIds, DateRange dateRange, ReportElementHandler<FlatReportElement> handler)
+	{
+		if (timesheetFactStore.isAvailable())
+		{
+			timesheetFactStore.streamHoursPerDay(FactRestriction.forProjectsAndUsers(projectIds, userIds), dateRange, handler);
+			return;
+		}
+
+		scroll(HOURS_PER_DAY_FOR_PROJECTS_AND_USERS, createHoursPerDayForProjectsAndUsersQuery(projectIds, userIds, dateRange), handler);
+	}
+
+	private Query createHoursPerDayForProjectsAndUsersQuery(List<? extends Serializable> projectIds, List<? extends Serializable> userIds, DateRange dateRange)
 	{
 		Session session = this.getSession();
 		
-		Query query = session.getNamedQuery("Report.getHoursPerDayForProjectsAndUsers")
+		return session.getNamedQuery(HOURS_PER_DAY_FOR_PROJECTS_AND_USERS)
 						.setDate("dateStart", dateRange.getDateStart())
 						.setDate("dateEnd", dateRange.getDateEnd())
 						.setParameterList("projectIds", projectIds)
 						.setParameterList("userIds", userIds)
-						.setResultTransformer(Transformers.aliasToBean(FlatReportElement.class));
-
-		return query.list();
+						.setResultTransformer(new FlatReportElementTransformer());
 	}
 
 	/*
@@ -115,14 +200,72 @@ public class DetailedReportDaoHibernateImpl extends AbstractAnnotationDaoHiberna
 	 */
 	@SuppressWarnings("unchecked")
 	public List<FlatReportElement> getHoursPerDay(DateRange dateRange)
+	{
+		if (timesheetFactStore.isAvailable())
+		{
+			return timesheetFactStore.getHoursPerDay(FactRestriction.none(), dateRange);
+		}
+
+		return list(HOURS_PER_DAY, createHoursPerDayQuery(dateRange));
+	}
+
+	public void streamHoursPerDay(DateRange dateRange, ReportElementHandler<FlatReportElement> handler)
+	{
+		if (timesheetFactStore.isAvailable())
+		{
+			timesheetFactStore.streamHoursPerDay(FactRestriction.none(), dateRange, handler);
+			return;
+		}
+
+		scroll(HOURS_PER_DAY, createHoursPerDayQuery(dateRange), handler);
+	}
+
+	private Query createHoursPerDayQuery(DateRange dateRange)
 	{
 		Session session = this.getSession();
 		
-		Query query = session.getNamedQuery("Report.getHoursPerDay")
+		return session.getNamedQuery(HOURS_PER_DAY)
 						.setDate("dateStart", dateRange.getDateStart())
 						.setDate("dateEnd", dateRange.getDateEnd())
-						.setResultTransformer(Transformers.aliasToBean(FlatReportElement.class));
+						.setResultTransformer(new FlatReportElementTransformer());
+	}
+
+	/**
+	 * Walk the query results with a forward-only cursor so only the current
+	 * row is kept in memory. The transformed element is handed to the handler
+	 * and nothing is retained by the session. The recorded query time includes the time
+	 * spent in the handler
+	 */
+	private void scroll(String queryName, Query query, ReportElementHandler<FlatReportElement> handler)
+	{
+		// a scrolled sql-query only discovers its column aliases after the result transformer
+		// is created, leaving the transformer without aliases unless they're declared upfront
+		SQLQuery sqlQuery = (SQLQuery) query;
+
+		for (String column : FLAT_REPORT_COLUMNS)
+		{
+			sqlQuery.addScalar(column);
+		}
+
+		long start = System.nanoTime();
+		int rows = 0;
+
+		ScrollableResults results = sqlQuery.setReadOnly(true)
+											.setFetchSize(STREAM_FETCH_SIZE)
+											.scroll(ScrollMode.FORWARD_ONLY);
+
+		try
+		{
+			while (results.next())
+			{
+				handler.handle((FlatReportElement) results.get(0));
+				rows++;
+			}
+		} finally
+		{
+			results.close();
+		}
 
-		return query.list();	
+		getQueryStatistics().recordQuery(queryName, System.nanoTime() - start, rows);
 	}
 }
@@ -0,0 +1,76 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.report.dao;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Users, projects and assignments a fact store query is restricted to,
+ * null when the query is not restricted on them
+ */
+public final class FactRestriction {
+    private static final FactRestriction NONE = new FactRestriction(null, null, null);
+
+    private final Set<Integer> userIds;
+    private final Set<Integer> projectIds;
+    private final Set<Integer> assignmentIds;
+
+    private FactRestriction(Set<Integer> userIds, Set<Integer> projectIds, Set<Integer> assignmentIds) {
+        this.userIds = userIds;
+        this.projectIds = projectIds;
+        this.assignmentIds = assignmentIds;
+    }
+
+    public static FactRestriction none() {
+        return NONE;
+    }
+
+    public static FactRestriction forUsers(Collection<? extends Serializable> userIds) {
+        return new FactRestriction(toSet(userIds), null, null);
+    }
+
+    public static FactRestriction forProjects(Collection<? extends Serializable> projectIds) {
+        return new FactRestriction(null, toSet(projectIds), null);
+    }
+
+    public static FactRestriction forProjectsAndUsers(Collection<? extends Serializable> projectIds, Collection<? extends Serializable> userIds) {
+        return new FactRestriction(toSet(userIds), toSet(projectIds), null);
+    }
+
+    public static FactRestriction forAssignments(Collection<? extends Serializable> assignmentIds) {
+        return new FactRestriction(null, null, toSet(assignmentIds));
+    }
+
+    private static Set<Integer> toSet(Collection<? extends Serializable> ids) {
+        Set<Integer> set = new HashSet<Integer>();
+
+        for (Serializable id : ids) {
+            set.add((Integer) id);
+        }
+
+        return set;
+    }
+
+    public boolean includes(int assignmentId, int userId, int projectId) {
+        return (assignmentIds == null || assignmentIds.contains(assignmentId))
+                && (userIds == null || userIds.contains(userId))
+                && (projectIds == null || projectIds.contains(projectId));
+    }
+}
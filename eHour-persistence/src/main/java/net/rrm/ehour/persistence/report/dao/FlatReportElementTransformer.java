@@ -0,0 +1,197 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.report.dao;
+
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import org.hibernate.HibernateException;
+import org.hibernate.transform.BasicTransformerAdapter;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the rows of the Report.getHoursPerDay* sql-queries on FlatReportElements without
+ * the per row setter lookups of aliasToBean. Column positions are resolved once for
+ * the aliases of a query, so use a new instance for every query.
+ */
+public class FlatReportElementTransformer extends BasicTransformerAdapter {
+    private static final long serialVersionUID = 2876466733208519742L;
+
+    private static final Map<String, Column> COLUMNS = new HashMap<String, Column>();
+
+    static {
+        for (Column column : Column.values()) {
+            COLUMNS.put(column.alias, column);
+        }
+    }
+
+    private String[] resolvedAliases;
+    private Column[] columns;
+
+    @Override
+    public Object transformTuple(Object[] tuple, String[] aliases) {
+        // hibernate passes the same alias array for every row of a query
+        if (aliases != resolvedAliases) {
+            columns = resolve(aliases);
+            resolvedAliases = aliases;
+        }
+
+        FlatReportElement element = new FlatReportElement();
+
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].set(element, tuple[i]);
+        }
+
+        return element;
+    }
+
+    private static Column[] resolve(String[] aliases) {
+        Column[] columns = new Column[aliases.length];
+
+        for (int i = 0; i < aliases.length; i++) {
+            Column column = COLUMNS.get(aliases[i]);
+
+            if (column == null) {
+                throw new HibernateException("No FlatReportElement property for column alias " + aliases[i]);
+            }
+
+            columns[i] = column;
+        }
+
+        return columns;
+    }
+
+    private enum Column {
+        TOTAL_HOURS("totalHours") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setTotalHours((Number) value);
+            }
+        },
+        TOTAL_TURNOVER("totalTurnOver") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setTotalTurnOver((Number) value);
+            }
+        },
+        RATE("rate") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setRate((Number) value);
+            }
+        },
+        DAY_DATE("dayDate") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setDayDate((Date) value);
+            }
+        },
+        ASSIGNMENT_ID("assignmentId") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setAssignmentId((Integer) value);
+            }
+        },
+        CUSTOMER_ID("customerId") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setCustomerId((Integer) value);
+            }
+        },
+        CUSTOMER_NAME("customerName") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setCustomerName((String) value);
+            }
+        },
+        CUSTOMER_CODE("customerCode") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setCustomerCode((String) value);
+            }
+        },
+        PROJECT_ID("projectId") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setProjectId((Integer) value);
+            }
+        },
+        USER_ID("userId") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setUserId((Integer) value);
+            }
+        },
+        USER_FIRST_NAME("userFirstName") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setUserFirstName((String) value);
+            }
+        },
+        USER_LAST_NAME("userLastName") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setUserLastName((String) value);
+            }
+        },
+        ASSIGNMENT_DESC("assignmentDesc") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setAssignmentDesc((String) value);
+            }
+        },
+        PROJECT_NAME("projectName") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setProjectName((String) value);
+            }
+        },
+        PROJECT_CODE("projectCode") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setProjectCode((String) value);
+            }
+        },
+        COMMENT("comment") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setComment((String) value);
+            }
+        },
+        ENTRY_DATE("entryDate") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setEntryDate((String) value);
+            }
+        },
+        DISPLAY_ORDER("displayOrder") {
+            @Override
+            void set(FlatReportElement element, Object value) {
+                element.setDisplayOrder((Integer) value);
+            }
+        };
+
+        private final String alias;
+
+        private Column(String alias) {
+            this.alias = alias;
+        }
+
+        abstract void set(FlatReportElement element, Object value);
+    }
+}
@@ -17,7 +17,11 @@
 package net.rrm.ehour.persistence.report.dao;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.domain.Project;
@@ -25,17 +29,33 @@ import net.rrm.ehour.domain.ProjectAssignment;
 import net.rrm.ehour.domain.User;
 import net.rrm.ehour.persistence.dao.AbstractAnnotationDaoHibernateImpl;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+import net.rrm.ehour.util.EhourUtil;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import org.apache.commons.lang.ArrayUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 /**
- * Reporting data operations 
+ * Reporting data operations. Aggregates are read from the assignment/month rollup,
+ * only partial months and the period during a rollup rebuild use the raw timesheet entries.
+ * Aggregates in a date range come from the fact store instead when it is enabled.
  * @author Thies
  *
  */
 @Repository("reportAggregatedDao")
 public class ReportAggregatedDaoHibernateImpl extends AbstractAnnotationDaoHibernateImpl implements ReportAggregatedDao
 {
+	// keeps IN lists of assignment id's within database parameter limits
+	private static final int MAX_IDS_PER_QUERY = 500;
+
+	@Autowired
+	private AssignmentRollupDao assignmentRollupDao;
+
+	@Autowired
+	private TimesheetFactStore timesheetFactStore;
+
 	/*
 	 * (non-Javadoc)
 	 * @see net.rrm.ehour.persistence.persistence.report.dao.ReportAggregatedDAO#getCumulatedHoursPerAssignmentForUsers(java.util.List, net.rrm.ehour.persistence.persistence.data.DateRange)
@@ -43,12 +63,13 @@ public class ReportAggregatedDaoHibernateImpl extends AbstractAnnotationDaoHiber
 	@SuppressWarnings("unchecked")
 	public List<AssignmentAggregateReportElement> getCumulatedHoursPerAssignmentForUsers(List<User> users, DateRange dateRange)
 	{
-		String[] keys = new String[]{"dateStart", "dateEnd", "users"};
-		Object[] params = new Object[]{dateRange.getDateStart(), dateRange.getDateEnd(), users.toArray()};
+		String[] keys = new String[]{"users"};
+		Object[] params = new Object[]{users.toArray()};
 
-		
-		return getHibernateTemplate().findByNamedQueryAndNamedParam("Report.getCumulatedHoursPerAssignmentOnDateForUsers"
-																		, keys, params);
+		return findAggregatesInRange("Report.getCumulatedHoursPerAssignmentOnDateForUsers",
+										"Report.getRolledUpHoursPerAssignmentOnDateForUsers",
+										dateRange, keys, params,
+										FactRestriction.forUsers(EhourUtil.getIdsFromDomainObjects(users)));
 	}
 
 	/*
@@ -58,8 +79,8 @@ public class ReportAggregatedDaoHibernateImpl extends AbstractAnnotationDaoHiber
 	@SuppressWarnings("unchecked")
 	public List<AssignmentAggregateReportElement> getCumulatedHoursPerAssignmentForUsers(List<User> users)
 	{
-		return getHibernateTemplate().findByNamedQueryAndNamedParam("Report.getCumulatedHoursPerAssignmentForUsers"
-																		, "users", users.toArray());
+		return resolveAssignments(findAggregates(rollupOrRaw("Report.getCumulatedHoursPerAssignmentForUsers", "Report.getRolledUpHoursPerAssignmentForUsers"),
+													new String[]{"users"}, new Object[]{users.toArray()}));
 	}	
 
 	/*
@@ -84,8 +105,8 @@ public class ReportAggregatedDaoHibernateImpl extends AbstractAnnotationDaoHiber
 		String[] keys = new String[]{"users", "projects"};
 		Object[] params = new Object[]{users.toArray(), projects.toArray()};
 		
-		return getHibernateTemplate().findByNamedQueryAndNamedParam("Report.getCumulatedHoursPerAssignmentForUsersAndProjects"
-																		, keys, params);
+		return resolveAssignments(findAggregates(rollupOrRaw("Report.getCumulatedHoursPerAssignmentForUsersAndProjects", "Report.getRolledUpHoursPerAssignmentForUsersAndProjects"),
+													keys, params));
 	}
 
 	/*
@@ -97,10 +118,13 @@ public class ReportAggregatedDaoHibernateImpl extends AbstractAnnotationDaoHiber
 																					List<Project> projects,
 																					DateRange dateRange)
 	{
-		String[] keys = new String[]{"dateStart", "dateEnd", "users", "projects"};
-		Object[] params = new Object[]{dateRange.getDateStart(), dateRange.getDateEnd(), users.toArray(), projects.toArray()};
-		
-		return getHibernateTemplate().findByNamedQueryAndNamedParam("Report.getCumulatedHoursPerAssignmentOnDateForUsersAndProjects", keys, params);
+		String[] keys = new String[]{"users", "projects"};
+		Object[] params = new Object[]{users.toArray(), projects.toArray()};
+
+		return findAggregatesInRange("Report.getCumulatedHoursPerAssignmentOnDateForUsersAndProjects",
+										"Report.getRolledUpHoursPerAssignmentOnDateForUsersAndProjects",
+										dateRange, keys, params,
+										FactRestriction.forProjectsAndUsers(EhourUtil.getIdsFromDomainObjects(projects), EhourUtil.getIdsFromDomainObjects(users)));
 	}
 
 	/*
@@ -124,11 +148,10 @@ public class ReportAggregatedDaoHibernateImpl extends AbstractAnnotationDaoHiber
 	@SuppressWarnings("unchecked")
 	public List<AssignmentAggregateReportElement> getCumulatedHoursPerAssignment(DateRange dateRange)
 	{
-		String[] keys = new String[]{"dateStart", "dateEnd"};
-		Object[] params = new Object[]{dateRange.getDateStart(), dateRange.getDateEnd()};
-		
-		return getHibernateTemplate().findByNamedQueryAndNamedParam("Report.getCumulatedHoursPerAssignment"
-																			, keys, params);
+		return findAggregatesInRange("Report.getCumulatedHoursPerAssignment",
+										"Report.getRolledUpHoursPerAssignment",
+										dateRange, new String[0], new Object[0],
+										FactRestriction.none());
 	}
 
 	/*
@@ -138,11 +161,13 @@ public class ReportAggregatedDaoHibernateImpl extends AbstractAnnotationDaoHiber
 	@SuppressWarnings("unchecked")
 	public List<AssignmentAggregateReportElement> getCumulatedHoursPerAssignmentForProjects(List<Project> projects, DateRange dateRange)
 	{
-		String[]	keys = new String[]{"dateStart", "dateEnd", "projects"};
-		Object[]	params = new Object[]{dateRange.getDateStart(), dateRange.getDateEnd(), projects.toArray()};	
+		String[]	keys = new String[]{"projects"};
+		Object[]	params = new Object[]{projects.toArray()};
 
-		return getHibernateTemplate().findByNamedQueryAndNamedParam("Report.getCumulatedHoursPerAssignmentOnDateForProjects"
-																			, keys, params);
+		return findAggregatesInRange("Report.getCumulatedHoursPerAssignmentOnDateForProjects",
+										"Report.getRolledUpHoursPerAssignmentOnDateForProjects",
+										dateRange, keys, params,
+										FactRestriction.forProjects(EhourUtil.getIdsFromDomainObjects(projects)));
 	}
 
 	/*
@@ -154,9 +179,9 @@ public class ReportAggregatedDaoHibernateImpl extends AbstractAnnotationDaoHiber
 	{
 		List<AssignmentAggregateReportElement>	results;
 		
-		results = getHibernateTemplate().findByNamedQueryAndNamedParam("Report.getCumulatedHoursForAssignment",
-																		"assignment",
-																		projectAssignment);
+		results = resolveAssignments(findAggregates(rollupOrRaw("Report.getCumulatedHoursForAssignment", "Report.getRolledUpHoursForAssignment"),
+													new String[]{"assignment"},
+													new Object[]{projectAssignment}));
 
 		return (results != null && results.size() > 0) ? results.get(0) : null;
 	}
@@ -168,8 +193,16 @@ public class ReportAggregatedDaoHibernateImpl extends AbstractAnnotationDaoHiber
 	@SuppressWarnings("unchecked")
 	public List<AssignmentAggregateReportElement> getCumulatedHoursPerAssignmentForAssignments(List<? extends Serializable> projectAssignmentIds)
 	{
-		return getHibernateTemplate().findByNamedQueryAndNamedParam("Report.getCumulatedHoursPerAssignmentForAssignmentIds"
-																		, "assignmentIds", projectAssignmentIds.toArray());
+		String queryName = rollupOrRaw("Report.getCumulatedHoursPerAssignmentForAssignmentIds", "Report.getRolledUpHoursPerAssignmentForAssignmentIds");
+
+		List<AssignmentAggregateReportElement> aggregates = new ArrayList<AssignmentAggregateReportElement>();
+
+		for (List<? extends Serializable> ids : Lists.partition(projectAssignmentIds, MAX_IDS_PER_QUERY))
+		{
+			aggregates.addAll(findAggregates(queryName, new String[]{"assignmentIds"}, new Object[]{ids.toArray()}));
+		}
+
+		return resolveAssignments(aggregates);
 	}
 
 	/*
@@ -184,4 +217,121 @@ public class ReportAggregatedDaoHibernateImpl extends AbstractAnnotationDaoHiber
 																		, "project",
 																		project);
 		return results.get(0);	}
+
+	private String rollupOrRaw(String rawQueryName, String rolledUpQueryName)
+	{
+		return assignmentRollupDao.isAvailable() ? rolledUpQueryName : rawQueryName;
+	}
+
+	/**
+	 * Whole months in the range are summed from the rollup, the remaining days from the raw entries.
+	 * Partial results are merged per assignment
+	 */
+	private List<AssignmentAggregateReportElement> findAggregatesInRange(String rawQueryName,
+																		String rolledUpQueryName,
+																		DateRange dateRange,
+																		String[] keys,
+																		Object[] params,
+																		FactRestriction restriction)
+	{
+		if (timesheetFactStore.isAvailable())
+		{
+			return resolveAssignments(timesheetFactStore.getHoursPerAssignment(restriction, dateRange));
+		}
+
+		RollupDateRange rollupRange = new RollupDateRange(dateRange);
+
+		if (!rollupRange.hasFullMonths() || !assignmentRollupDao.isAvailable())
+		{
+			return resolveAssignments(findAggregates(rawQueryName, dateRange, keys, params));
+		}
+
+		List<AssignmentAggregateReportElement> aggregates = new ArrayList<AssignmentAggregateReportElement>();
+		aggregates.addAll(findAggregates(rolledUpQueryName, rollupRange.getFullMonths(), keys, params));
+
+		for (DateRange partialRange : rollupRange.getPartialRanges())
+		{
+			aggregates.addAll(findAggregates(rawQueryName, partialRange, keys, params));
+		}
+
+		return resolveAssignments(mergePerAssignment(aggregates));
+	}
+
+	private List<AssignmentAggregateReportElement> findAggregates(String queryName, DateRange dateRange, String[] keys, Object[] params)
+	{
+		String[] rangeKeys = (String[]) ArrayUtils.addAll(new String[]{"dateStart", "dateEnd"}, keys);
+		Object[] rangeParams = ArrayUtils.addAll(new Object[]{dateRange.getDateStart(), dateRange.getDateEnd()}, params);
+
+		return findAggregates(queryName, rangeKeys, rangeParams);
+	}
+
+	private List<AssignmentAggregateReportElement> findAggregates(String queryName, String[] keys, Object[] params)
+	{
+		return findByNamedQueryAndNamedParam(queryName, keys, params, AssignmentAggregateTransformer.INSTANCE);
+	}
+
+	/**
+	 * The aggregate queries only select the assignment id, fetch the assignments in one go
+	 */
+	@SuppressWarnings("unchecked")
+	private List<AssignmentAggregateReportElement> resolveAssignments(List<AssignmentAggregateReportElement> aggregates)
+	{
+		if (aggregates.isEmpty())
+		{
+			return aggregates;
+		}
+
+		Map<Integer, AssignmentAggregateReportElement> aggregatePerAssignmentId = new HashMap<Integer, AssignmentAggregateReportElement>();
+
+		for (AssignmentAggregateReportElement aggregate : aggregates)
+		{
+			aggregatePerAssignmentId.put(aggregate.getProjectAssignment().getAssignmentId(), aggregate);
+		}
+
+		for (List<Integer> ids : Iterables.partition(aggregatePerAssignmentId.keySet(), MAX_IDS_PER_QUERY))
+		{
+			List<ProjectAssignment> assignments = getHibernateTemplate().findByNamedQueryAndNamedParam("Report.getAssignmentsForIds",
+																										"assignmentIds",
+																										ids.toArray());
+
+			for (ProjectAssignment assignment : assignments)
+			{
+				aggregatePerAssignmentId.get(assignment.getAssignmentId()).setProjectAssignment(assignment);
+			}
+		}
+
+		return aggregates;
+	}
+
+	private List<AssignmentAggregateReportElement> mergePerAssignment(List<AssignmentAggregateReportElement> aggregates)
+	{
+		Map<Integer, AssignmentAggregateReportElement> merged = new TreeMap<Integer, AssignmentAggregateReportElement>();
+
+		for (AssignmentAggregateReportElement aggregate : aggregates)
+		{
+			Integer assignmentId = aggregate.getProjectAssignment().getAssignmentId();
+			AssignmentAggregateReportElement existing = merged.get(assignmentId);
+
+			if (existing == null)
+			{
+				merged.put(assignmentId, aggregate);
+			}
+			else
+			{
+				existing.setHours(existing.getHours().doubleValue() + aggregate.getHours().doubleValue());
+			}
+		}
+
+		return new ArrayList<AssignmentAggregateReportElement>(merged.values());
+	}
+
+	void setAssignmentRollupDao(AssignmentRollupDao assignmentRollupDao)
+	{
+		this.assignmentRollupDao = assignmentRollupDao;
+	}
+
+	void setTimesheetFactStore(TimesheetFactStore timesheetFactStore)
+	{
+		this.timesheetFactStore = timesheetFactStore;
+	}
 }
@@ -0,0 +1,77 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.report.dao;
+
+import net.rrm.ehour.data.DateRange;
+import org.joda.time.LocalDate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a report range in the whole months which can be read from the
+ * assignment/month rollup and the partial months at either end which still
+ * have to be summed from the raw timesheet entries.
+ */
+class RollupDateRange {
+    private final DateRange fullMonths;
+    private final List<DateRange> partialRanges = new ArrayList<DateRange>();
+
+    RollupDateRange(DateRange dateRange) {
+        if (dateRange.getDateStart() == null || dateRange.getDateEnd() == null) {
+            fullMonths = null;
+            partialRanges.add(dateRange);
+            return;
+        }
+
+        LocalDate start = new LocalDate(dateRange.getDateStart());
+        LocalDate end = new LocalDate(dateRange.getDateEnd());
+
+        LocalDate firstFullMonth = start.getDayOfMonth() == 1 ? start : start.plusMonths(1).withDayOfMonth(1);
+        LocalDate afterLastFullMonth = end.plusDays(1).withDayOfMonth(1);
+
+        if (firstFullMonth.isBefore(afterLastFullMonth)) {
+            fullMonths = new DateRange(firstFullMonth.toDate(), afterLastFullMonth.minusMonths(1).toDate());
+
+            if (start.isBefore(firstFullMonth)) {
+                partialRanges.add(new DateRange(dateRange.getDateStart(), firstFullMonth.minusDays(1).toDate()));
+            }
+
+            if (!end.isBefore(afterLastFullMonth)) {
+                partialRanges.add(new DateRange(afterLastFullMonth.toDate(), dateRange.getDateEnd()));
+            }
+        } else {
+            fullMonths = null;
+            partialRanges.add(dateRange);
+        }
+    }
+
+    boolean hasFullMonths() {
+        return fullMonths != null;
+    }
+
+    /**
+     * @return range of the month starts of all whole months, null when the range doesn't span a whole month
+     */
+    DateRange getFullMonths() {
+        return fullMonths;
+    }
+
+    List<DateRange> getPartialRanges() {
+        return partialRanges;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.report.dao;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.domain.TimesheetEntry;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Optional in-memory copy of the timesheet entries in primitive columns, joined with the
+ * assignment, project, customer and user names. When enabled the report DAOs answer
+ * their date range queries from here rather than from the database.
+ * Changes are applied once the transaction that made them commits.
+ */
+public interface TimesheetFactStore {
+    /**
+     * Enabled and completely loaded
+     *
+     * @return
+     */
+    boolean isAvailable();
+
+    /**
+     * Hours per assignment in the range, the assignments only carry their id
+     *
+     * @param restriction
+     * @param dateRange
+     * @return
+     */
+    List<AssignmentAggregateReportElement> getHoursPerAssignment(FactRestriction restriction, DateRange dateRange);
+
+    /**
+     * Hours per assignment per day in the order of the Report.getHoursPerDay* queries
+     *
+     * @param restriction
+     * @param dateRange
+     * @return
+     */
+    List<FlatReportElement> getHoursPerDay(FactRestriction restriction, DateRange dateRange);
+
+    void streamHoursPerDay(FactRestriction restriction, DateRange dateRange, ReportElementHandler<FlatReportElement> handler);
+
+    /**
+     * Entries of an assignment were saved or removed
+     *
+     * @param assignment
+     * @param savedEntries
+     * @param removedDates
+     */
+    void entriesChanged(ProjectAssignment assignment, Collection<TimesheetEntry> savedEntries, Collection<Date> removedDates);
+
+    /**
+     * All entries of the assignments were removed
+     *
+     * @param assignmentIds
+     */
+    void assignmentsRemoved(Collection<Integer> assignmentIds);
+
+    /**
+     * Rates, roles or names changed, reload the assignment details on the next query
+     */
+    void dimensionsChanged();
+
+    /**
+     * Reload everything, the database is used until the reload completes
+     */
+    void reload();
+}
@@ -0,0 +1,675 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.report.dao;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.domain.TimesheetEntry;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
+import org.apache.commons.lang.builder.CompareToBuilder;
+import org.apache.log4j.Logger;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Fact store holding the timesheet entries as parallel arrays of assignment id, day number,
+ * hours and comment. Queries are a single scan over the arrays; the assignment details
+ * (rate, role, user, project and customer) are kept apart per assignment id and reloaded
+ * when they change or get old, names edited elsewhere are not tracked.
+ * Disabled by default, set ehour.report.factStore=true to load it in the background at startup.
+ */
+@Repository("timesheetFactStore")
+public class TimesheetFactStoreImpl implements TimesheetFactStore, InitializingBean, DisposableBean {
+    private static final Logger LOGGER = Logger.getLogger(TimesheetFactStoreImpl.class);
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private static final int LOAD_FETCH_SIZE = 1000;
+
+    private static final String FACTS_QUERY = "SELECT ASSIGNMENT_ID, ENTRY_DATE, HOURS, COMMENT FROM TIMESHEET_ENTRY";
+
+    private static final String DIMENSIONS_QUERY = "SELECT PAG.ASSIGNMENT_ID, PAG.HOURLY_RATE, PAG.ROLE, " +
+            "USR.USER_ID, USR.FIRST_NAME, USR.LAST_NAME, PRJ.PROJECT_ID, PRJ.NAME, PRJ.PROJECT_CODE, " +
+            "CUST.CUSTOMER_ID, CUST.NAME, CUST.CODE " +
+            "FROM PROJECT_ASSIGNMENT PAG, PROJECT PRJ, CUSTOMER CUST, USERS USR " +
+            "WHERE PAG.PROJECT_ID = PRJ.PROJECT_ID AND PRJ.CUSTOMER_ID = CUST.CUSTOMER_ID AND PAG.USER_ID = USR.USER_ID";
+
+    // same order as the Report.getHoursPerDay* queries, ties broken on assignment
+    private static final Comparator<FlatReportElement> QUERY_ORDERING = new Comparator<FlatReportElement>() {
+        @Override
+        public int compare(FlatReportElement o1, FlatReportElement o2) {
+            return new CompareToBuilder()
+                    .append(o1.getDayDate(), o2.getDayDate())
+                    .append(o1.getCustomerId(), o2.getCustomerId())
+                    .append(o1.getProjectId(), o2.getProjectId())
+                    .append(o1.getUserId(), o2.getUserId())
+                    .append(o1.getAssignmentId(), o2.getAssignmentId())
+                    .toComparison();
+        }
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long dimensionsMaxAgeMillis;
+
+    private final ReadWriteLock factsLock = new ReentrantReadWriteLock();
+    private Facts facts = new Facts();
+
+    private final Object dimensionsLock = new Object();
+    private volatile Dimensions dimensions;
+    private volatile boolean dimensionsStale;
+
+    // guards the load state, changes committed while loading are replayed afterwards
+    private final Object loadLock = new Object();
+    private volatile boolean available;
+    private boolean loading;
+    private long loadGeneration;
+    private List<Change> pendingChanges = new ArrayList<Change>();
+
+    private ExecutorService loader;
+
+    @Autowired
+    public TimesheetFactStoreImpl(JdbcTemplate jdbcTemplate,
+                                  @Value("${ehour.report.factStore:false}") boolean enabled,
+                                  @Value("${ehour.report.factStore.dimensionsMaxAgeMinutes:30}") long dimensionsMaxAgeMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.dimensionsMaxAgeMillis = dimensionsMaxAgeMinutes * 60 * 1000;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            loader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ehour-fact-store");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+            startLoad();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (loader != null) {
+            loader.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (loadLock) {
+            available = false;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    startLoad();
+                }
+            });
+        } else {
+            startLoad();
+        }
+    }
+
+    private void startLoad() {
+        final long generation;
+
+        synchronized (loadLock) {
+            available = false;
+            loading = true;
+            pendingChanges.clear();
+            generation = ++loadGeneration;
+        }
+
+        loader.execute(new Runnable() {
+            @Override
+            public void run() {
+                load(generation);
+            }
+        });
+    }
+
+    void load(long generation) {
+        try {
+            long start = System.currentTimeMillis();
+
+            Facts loadedFacts = loadFacts();
+            Dimensions loadedDimensions = loadDimensions();
+
+            factsLock.writeLock().lock();
+
+            try {
+                facts = loadedFacts;
+            } finally {
+                factsLock.writeLock().unlock();
+            }
+
+            dimensions = loadedDimensions;
+            dimensionsStale = false;
+
+            while (true) {
+                List<Change> changes;
+
+                synchronized (loadLock) {
+                    if (generation != loadGeneration) {
+                        return;
+                    }
+
+                    if (pendingChanges.isEmpty()) {
+                        loading = false;
+                        available = true;
+                        break;
+                    }
+
+                    changes = pendingChanges;
+                    pendingChanges = new ArrayList<Change>();
+                }
+
+                apply(changes);
+            }
+
+            LOGGER.info("Loaded " + loadedFacts.size + " timesheet entries in the fact store in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to load the fact store, reports are queried from the database", e);
+
+            synchronized (loadLock) {
+                if (generation == loadGeneration) {
+                    loading = false;
+                }
+            }
+        }
+    }
+
+    void load() {
+        long generation;
+
+        synchronized (loadLock) {
+            loading = true;
+            generation = ++loadGeneration;
+        }
+
+        load(generation);
+    }
+
+    private Facts loadFacts() {
+        final Facts loadedFacts = new Facts();
+
+        JdbcTemplate loadTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        loadTemplate.setFetchSize(LOAD_FETCH_SIZE);
+
+        loadTemplate.query(FACTS_QUERY, new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                loadedFacts.add(rs.getInt(1), toDay(rs.getDate(2)), rs.getFloat(3), rs.getString(4));
+            }
+        });
+
+        return loadedFacts;
+    }
+
+    private Dimensions loadDimensions() {
+        final Map<Integer, AssignmentDimension> loaded = new HashMap<Integer, AssignmentDimension>();
+
+        jdbcTemplate.query(DIMENSIONS_QUERY, new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                AssignmentDimension dimension = new AssignmentDimension();
+                dimension.assignmentId = rs.getInt(1);
+                float rate = rs.getFloat(2);
+                dimension.rate = rs.wasNull() ? null : rate;
+                dimension.role = rs.getString(3);
+                dimension.userId = rs.getInt(4);
+                dimension.userFirstName = rs.getString(5);
+                dimension.userLastName = rs.getString(6);
+                dimension.projectId = rs.getInt(7);
+                dimension.projectName = rs.getString(8);
+                dimension.projectCode = rs.getString(9);
+                dimension.customerId = rs.getInt(10);
+                dimension.customerName = rs.getString(11);
+                dimension.customerCode = rs.getString(12);
+
+                loaded.put(dimension.assignmentId, dimension);
+            }
+        });
+
+        return new Dimensions(loaded);
+    }
+
+    private Dimensions getDimensions() {
+        Dimensions current = dimensions;
+
+        if (current != null && !dimensionsStale && !current.isOlderThan(dimensionsMaxAgeMillis)) {
+            return current;
+        }
+
+        synchronized (dimensionsLock) {
+            current = dimensions;
+
+            if (current == null || dimensionsStale || current.isOlderThan(dimensionsMaxAgeMillis)) {
+                dimensionsStale = false;
+                current = loadDimensions();
+                dimensions = current;
+            }
+
+            return current;
+        }
+    }
+
+    @Override
+    public List<AssignmentAggregateReportElement> getHoursPerAssignment(FactRestriction restriction, DateRange dateRange) {
+        Dimensions currentDimensions = getDimensions();
+        boolean[] included = currentDimensions.include(restriction);
+        int firstDay = dateRange.getDateStart() == null ? Integer.MIN_VALUE : toDay(dateRange.getDateStart());
+        int lastDay = dateRange.getDateEnd() == null ? Integer.MAX_VALUE : toDay(dateRange.getDateEnd());
+
+        double[] hours = new double[included.length];
+        boolean[] booked = new boolean[included.length];
+
+        factsLock.readLock().lock();
+
+        try {
+            for (int row = 0; row < facts.size; row++) {
+                int assignmentId = facts.assignmentIds[row];
+                int day = facts.days[row];
+
+                if (day >= firstDay && day <= lastDay && assignmentId < included.length && included[assignmentId]) {
+                    hours[assignmentId] += facts.hours[row];
+                    booked[assignmentId] = true;
+                }
+            }
+        } finally {
+            factsLock.readLock().unlock();
+        }
+
+        List<AssignmentAggregateReportElement> aggregates = new ArrayList<AssignmentAggregateReportElement>();
+
+        for (int assignmentId = 0; assignmentId < booked.length; assignmentId++) {
+            if (booked[assignmentId]) {
+                aggregates.add(new AssignmentAggregateReportElement(new ProjectAssignment(assignmentId), hours[assignmentId]));
+            }
+        }
+
+        return aggregates;
+    }
+
+    @Override
+    public List<FlatReportElement> getHoursPerDay(FactRestriction restriction, DateRange dateRange) {
+        Dimensions currentDimensions = getDimensions();
+        boolean[] included = currentDimensions.include(restriction);
+        int firstDay = dateRange.getDateStart() == null ? Integer.MIN_VALUE : toDay(dateRange.getDateStart());
+        int lastDay = dateRange.getDateEnd() == null ? Integer.MAX_VALUE : toDay(dateRange.getDateEnd());
+
+        List<FlatReportElement> elements = new ArrayList<FlatReportElement>();
+
+        factsLock.readLock().lock();
+
+        try {
+            for (int row = 0; row < facts.size; row++) {
+                int assignmentId = facts.assignmentIds[row];
+                int day = facts.days[row];
+
+                if (day >= firstDay && day <= lastDay && assignmentId < included.length && included[assignmentId]) {
+                    elements.add(createElement(currentDimensions.get(assignmentId), day, facts.hours[row], facts.comments[row]));
+                }
+            }
+        } finally {
+            factsLock.readLock().unlock();
+        }
+
+        Collections.sort(elements, QUERY_ORDERING);
+
+        return elements;
+    }
+
+    @Override
+    public void streamHoursPerDay(FactRestriction restriction, DateRange dateRange, ReportElementHandler<FlatReportElement> handler) {
+        for (FlatReportElement element : getHoursPerDay(restriction, dateRange)) {
+            handler.handle(element);
+        }
+    }
+
+    private static FlatReportElement createElement(AssignmentDimension dimension, int day, float hours, String comment) {
+        FlatReportElement element = new FlatReportElement();
+
+        double totalHours = hours;
+
+        element.setTotalHours(totalHours);
+        element.setTotalTurnOver(dimension.rate == null ? null : totalHours * dimension.rate);
+        element.setRate(dimension.rate);
+        element.setDayDate(toDate(day));
+        element.setAssignmentId(dimension.assignmentId);
+        element.setCustomerId(dimension.customerId);
+        element.setCustomerName(dimension.customerName);
+        element.setCustomerCode(dimension.customerCode);
+        element.setProjectId(dimension.projectId);
+        element.setProjectName(dimension.projectName);
+        element.setProjectCode(dimension.projectCode);
+        element.setUserId(dimension.userId);
+        element.setUserFirstName(dimension.userFirstName);
+        element.setUserLastName(dimension.userLastName);
+        element.setAssignmentDesc(dimension.role);
+        element.setComment(comment);
+
+        return element;
+    }
+
+    @Override
+    public void entriesChanged(ProjectAssignment assignment, Collection<TimesheetEntry> savedEntries, Collection<Date> removedDates) {
+        if (!enabled) {
+            return;
+        }
+
+        // copy the values now, the entries may be modified after the commit
+        final int assignmentId = assignment.getAssignmentId();
+        final int[] savedDays = new int[savedEntries.size()];
+        final float[] savedHours = new float[savedEntries.size()];
+        final String[] savedComments = new String[savedEntries.size()];
+        final int[] removedDays = new int[removedDates.size()];
+
+        int index = 0;
+
+        for (TimesheetEntry entry : savedEntries) {
+            savedDays[index] = toDay(entry.getEntryId().getEntryDate());
+            savedHours[index] = entry.getHours() == null ? 0 : entry.getHours();
+            savedComments[index] = entry.getComment();
+            index++;
+        }
+
+        index = 0;
+
+        for (Date removedDate : removedDates) {
+            removedDays[index++] = toDay(removedDate);
+        }
+
+        onCommit(new Change() {
+            @Override
+            public void apply(Facts facts) {
+                for (int removedDay : removedDays) {
+                    facts.remove(assignmentId, removedDay);
+                }
+
+                for (int i = 0; i < savedDays.length; i++) {
+                    facts.put(assignmentId, savedDays[i], savedHours[i], savedComments[i]);
+                }
+
+                Dimensions currentDimensions = dimensions;
+
+                if (currentDimensions != null && currentDimensions.get(assignmentId) == null) {
+                    dimensionsStale = true;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void assignmentsRemoved(Collection<Integer> assignmentIds) {
+        if (!enabled) {
+            return;
+        }
+
+        final Set<Integer> removedIds = new HashSet<Integer>(assignmentIds);
+
+        onCommit(new Change() {
+            @Override
+            public void apply(Facts facts) {
+                facts.removeAssignments(removedIds);
+            }
+        });
+    }
+
+    @Override
+    public void dimensionsChanged() {
+        dimensionsStale = true;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    dimensionsStale = true;
+                }
+            });
+        }
+    }
+
+    private void onCommit(final Change change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                        submit(change);
+                    }
+                }
+            });
+        } else {
+            submit(change);
+        }
+    }
+
+    private void submit(Change change) {
+        synchronized (loadLock) {
+            if (loading) {
+                pendingChanges.add(change);
+                return;
+            } else if (!available) {
+                return;
+            }
+        }
+
+        apply(Collections.singletonList(change));
+    }
+
+    private void apply(List<Change> changes) {
+        factsLock.writeLock().lock();
+
+        try {
+            for (Change change : changes) {
+                change.apply(facts);
+            }
+        } finally {
+            factsLock.writeLock().unlock();
+        }
+    }
+
+    static int toDay(Date date) {
+        return (int) (LocalDate.fromDateFields(date).toDateTimeAtStartOfDay(DateTimeZone.UTC).getMillis() / MILLIS_PER_DAY);
+    }
+
+    static Date toDate(int day) {
+        return new LocalDate(day * MILLIS_PER_DAY, DateTimeZone.UTC).toDate();
+    }
+
+    private interface Change {
+        void apply(Facts facts);
+    }
+
+    /**
+     * Columns of the fact table, one row per assignment and day, indexed on assignment and day
+     * so saving a week doesn't scan all rows. Not thread safe
+     */
+    static final class Facts {
+        private int[] assignmentIds = new int[1024];
+        private int[] days = new int[1024];
+        private float[] hours = new float[1024];
+        private String[] comments = new String[1024];
+        private int size;
+
+        private final Map<Long, Integer> rows = new HashMap<Long, Integer>();
+
+        void add(int assignmentId, int day, float dayHours, String comment) {
+            if (size == assignmentIds.length) {
+                int capacity = size * 2;
+                assignmentIds = Arrays.copyOf(assignmentIds, capacity);
+                days = Arrays.copyOf(days, capacity);
+                hours = Arrays.copyOf(hours, capacity);
+                comments = Arrays.copyOf(comments, capacity);
+            }
+
+            assignmentIds[size] = assignmentId;
+            days[size] = day;
+            hours[size] = dayHours;
+            comments[size] = comment;
+            rows.put(toKey(assignmentId, day), size);
+            size++;
+        }
+
+        void put(int assignmentId, int day, float dayHours, String comment) {
+            int row = find(assignmentId, day);
+
+            if (row < 0) {
+                add(assignmentId, day, dayHours, comment);
+            } else {
+                hours[row] = dayHours;
+                comments[row] = comment;
+            }
+        }
+
+        void remove(int assignmentId, int day) {
+            int row = find(assignmentId, day);
+
+            if (row >= 0) {
+                removeRow(row);
+            }
+        }
+
+        void removeAssignments(Set<Integer> removedIds) {
+            for (int row = size - 1; row >= 0; row--) {
+                if (removedIds.contains(assignmentIds[row])) {
+                    removeRow(row);
+                }
+            }
+        }
+
+        private int find(int assignmentId, int day) {
+            Integer row = rows.get(toKey(assignmentId, day));
+
+            return row == null ? -1 : row;
+        }
+
+        // rows are unordered, the last row takes the place of the removed one
+        private void removeRow(int row) {
+            int last = --size;
+
+            rows.remove(toKey(assignmentIds[row], days[row]));
+
+            if (row != last) {
+                rows.put(toKey(assignmentIds[last], days[last]), row);
+            }
+
+            assignmentIds[row] = assignmentIds[last];
+            days[row] = days[last];
+            hours[row] = hours[last];
+            comments[row] = comments[last];
+            comments[last] = null;
+        }
+
+        private static long toKey(int assignmentId, int day) {
+            return ((long) assignmentId << 32) | (day & 0xffffffffL);
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    private static final class Dimensions {
+        private final AssignmentDimension[] byAssignmentId;
+        private final long loaded = System.currentTimeMillis();
+
+        private Dimensions(Map<Integer, AssignmentDimension> dimensions) {
+            int maxId = dimensions.isEmpty() ? -1 : Collections.max(dimensions.keySet());
+
+            byAssignmentId = new AssignmentDimension[maxId + 1];
+
+            for (AssignmentDimension dimension : dimensions.values()) {
+                byAssignmentId[dimension.assignmentId] = dimension;
+            }
+        }
+
+        AssignmentDimension get(int assignmentId) {
+            return assignmentId >= 0 && assignmentId < byAssignmentId.length ? byAssignmentId[assignmentId] : null;
+        }
+
+        boolean[] include(FactRestriction restriction) {
+            boolean[] included = new boolean[byAssignmentId.length];
+
+            for (AssignmentDimension dimension : byAssignmentId) {
+                if (dimension != null) {
+                    included[dimension.assignmentId] = restriction.includes(dimension.assignmentId, dimension.userId, dimension.projectId);
+                }
+            }
+
+            return included;
+        }
+
+        boolean isOlderThan(long maxAgeMillis) {
+            return System.currentTimeMillis() - loaded > maxAgeMillis;
+        }
+    }
+
+    private static final class AssignmentDimension {
+        private int assignmentId;
+        private Float rate;
+        private String role;
+        private int userId;
+        private String userFirstName;
+        private String userLastName;
+        private int projectId;
+        private String projectName;
+        private String projectCode;
+        private int customerId;
+        private String customerName;
+        private String customerCode;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.stats;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Records the latency and result size of every public DAO method, named as the
+ * implementing class and method, ie. UserDaoHibernateImpl.findUsers
+ */
+@Aspect
+@Component
+public class DaoStatisticsAspect {
+    private final QueryStatistics queryStatistics;
+
+    @Autowired
+    public DaoStatisticsAspect(QueryStatistics queryStatistics) {
+        this.queryStatistics = queryStatistics;
+    }
+
+    @Around("execution(public * net.rrm.ehour.persistence..dao.*Dao*.*(..))")
+    public Object recordDaoMethod(ProceedingJoinPoint pjp) throws Throwable {
+        long start = System.nanoTime();
+
+        Object result = pjp.proceed();
+
+        String methodName = pjp.getTarget().getClass().getSimpleName() + "." + pjp.getSignature().getName();
+        queryStatistics.recordDaoMethod(methodName, System.nanoTime() - start, getRows(result));
+
+        return result;
+    }
+
+    static int getRows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        } else if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        } else {
+            return result == null ? 0 : 1;
+        }
+    }
+}
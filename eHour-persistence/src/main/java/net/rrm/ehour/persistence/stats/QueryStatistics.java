@@ -0,0 +1,68 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.stats;
+
+import java.util.List;
+
+/**
+ * Latency, row count and call count statistics of the named queries and
+ * the DAO methods, kept since startup or the last reset.
+ */
+public interface QueryStatistics {
+    /**
+     * Record an execution of a named query
+     *
+     * @param queryName   name of the named query
+     * @param elapsedNanos
+     * @param rows        rows returned or updated
+     */
+    void recordQuery(String queryName, long elapsedNanos, int rows);
+
+    /**
+     * Record an invocation of a DAO method
+     *
+     * @param methodName  DAO interface and method, ie. UserDao.findUsers
+     * @param elapsedNanos
+     * @param rows        size of the returned collection, 1 for a single object
+     */
+    void recordDaoMethod(String methodName, long elapsedNanos, int rows);
+
+    /**
+     * Timings of the named queries, slowest total time first
+     *
+     * @return
+     */
+    List<QueryTiming> getQueryTimings();
+
+    /**
+     * Timings of the DAO methods, slowest total time first
+     *
+     * @return
+     */
+    List<QueryTiming> getDaoMethodTimings();
+
+    /**
+     * Executions taking at least this long are logged as slow queries, 0 disables the log
+     *
+     * @return
+     */
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long slowQueryThresholdMillis);
+
+    void reset();
+}
@@ -0,0 +1,235 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.stats;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free query statistics, a timer per named query and DAO method is created on its first
+ * execution. Timers are updated with atomics only so recording doesn't contend between
+ * concurrent requests; a snapshot may therefore be off by the executions in flight.
+ */
+@Repository("queryStatistics")
+public class QueryStatisticsImpl implements QueryStatistics, QueryStatisticsMXBean, InitializingBean, DisposableBean {
+    private static final Logger LOGGER = Logger.getLogger(QueryStatisticsImpl.class);
+
+    static final long[] HISTOGRAM_LIMITS_MILLIS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    private static final String OBJECT_NAME = "net.rrm.ehour:type=QueryStatistics";
+
+    private static final Comparator<QueryTiming> SLOWEST_FIRST = new Comparator<QueryTiming>() {
+        @Override
+        public int compare(QueryTiming o1, QueryTiming o2) {
+            if (o1.getTotalMillis() != o2.getTotalMillis()) {
+                return o1.getTotalMillis() > o2.getTotalMillis() ? -1 : 1;
+            }
+
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private final ConcurrentMap<String, Timer> queryTimers = new ConcurrentHashMap<String, Timer>();
+    private final ConcurrentMap<String, Timer> daoMethodTimers = new ConcurrentHashMap<String, Timer>();
+
+    private final boolean jmxEnabled;
+    private volatile long slowQueryThresholdMillis;
+
+    private ObjectName registeredName;
+
+    @Autowired
+    public QueryStatisticsImpl(@Value("${ehour.persistence.slowQueryMillis:1000}") long slowQueryThresholdMillis,
+                               @Value("${ehour.persistence.queryStatistics.jmx:true}") boolean jmxEnabled) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (jmxEnabled) {
+            registerMBean();
+        }
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            server.registerMBean(this, name);
+            registeredName = name;
+        } catch (InstanceAlreadyExistsException e) {
+            // another application context in the same VM got there first
+            LOGGER.info(OBJECT_NAME + " is already registered, query statistics of this context are not exported");
+        } catch (JMException e) {
+            LOGGER.warn("Failed to export the query statistics over JMX", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (registeredName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            } catch (JMException e) {
+                LOGGER.warn("Failed to unregister " + registeredName, e);
+            }
+
+            registeredName = null;
+        }
+    }
+
+    @Override
+    public void recordQuery(String queryName, long elapsedNanos, int rows) {
+        getTimer(queryTimers, queryName).record(elapsedNanos, rows);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+
+        if (slowQueryThresholdMillis > 0 && elapsedMillis >= slowQueryThresholdMillis) {
+            LOGGER.warn("Slow query " + queryName + " took " + elapsedMillis + "ms for " + rows + " rows");
+        }
+    }
+
+    @Override
+    public void recordDaoMethod(String methodName, long elapsedNanos, int rows) {
+        getTimer(daoMethodTimers, methodName).record(elapsedNanos, rows);
+    }
+
+    private static Timer getTimer(ConcurrentMap<String, Timer> timers, String name) {
+        Timer timer = timers.get(name);
+
+        if (timer == null) {
+            Timer newTimer = new Timer();
+            timer = timers.putIfAbsent(name, newTimer);
+
+            if (timer == null) {
+                timer = newTimer;
+            }
+        }
+
+        return timer;
+    }
+
+    @Override
+    public List<QueryTiming> getQueryTimings() {
+        return snapshot(queryTimers);
+    }
+
+    @Override
+    public List<QueryTiming> getDaoMethodTimings() {
+        return snapshot(daoMethodTimers);
+    }
+
+    private static List<QueryTiming> snapshot(ConcurrentMap<String, Timer> timers) {
+        List<QueryTiming> timings = new ArrayList<QueryTiming>(timers.size());
+
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            timings.add(entry.getValue().snapshot(entry.getKey()));
+        }
+
+        Collections.sort(timings, SLOWEST_FIRST);
+
+        return timings;
+    }
+
+    @Override
+    public long[] getHistogramLimitsMillis() {
+        return HISTOGRAM_LIMITS_MILLIS.clone();
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    @Override
+    public void reset() {
+        queryTimers.clear();
+        daoMethodTimers.clear();
+    }
+
+    static int getHistogramBucket(long elapsedMillis) {
+        int bucket = 0;
+
+        while (bucket < HISTOGRAM_LIMITS_MILLIS.length && elapsedMillis >= HISTOGRAM_LIMITS_MILLIS[bucket]) {
+            bucket++;
+        }
+
+        return bucket;
+    }
+
+    private static class Timer {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_LIMITS_MILLIS.length + 1);
+
+        void record(long elapsedNanos, int rowCount) {
+            calls.incrementAndGet();
+            rows.addAndGet(rowCount);
+            totalNanos.addAndGet(elapsedNanos);
+            histogram.incrementAndGet(getHistogramBucket(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+
+            long max = maxNanos.get();
+
+            while (elapsedNanos > max && !maxNanos.compareAndSet(max, elapsedNanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        QueryTiming snapshot(String name) {
+            long[] buckets = new long[histogram.length()];
+
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = histogram.get(i);
+            }
+
+            return new QueryTiming(name,
+                    calls.get(),
+                    rows.get(),
+                    TimeUnit.NANOSECONDS.toMillis(totalNanos.get()),
+                    TimeUnit.NANOSECONDS.toMillis(maxNanos.get()),
+                    buckets);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.stats;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * Snapshot of the statistics of a single named query or DAO method
+ */
+public class QueryTiming implements Serializable {
+    private static final long serialVersionUID = -2968129043786713212L;
+
+    private final String name;
+    private final long calls;
+    private final long rows;
+    private final long totalMillis;
+    private final long maxMillis;
+    private final long[] histogram;
+
+    @ConstructorProperties({"name", "calls", "rows", "totalMillis", "maxMillis", "histogram"})
+    public QueryTiming(String name, long calls, long rows, long totalMillis, long maxMillis, long[] histogram) {
+        this.name = name;
+        this.calls = calls;
+        this.rows = rows;
+        this.totalMillis = totalMillis;
+        this.maxMillis = maxMillis;
+        this.histogram = histogram;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public float getAverageMillis() {
+        return calls == 0 ? 0 : (float) totalMillis / calls;
+    }
+
+    public float getAverageRows() {
+        return calls == 0 ? 0 : (float) rows / calls;
+    }
+
+    /**
+     * Number of calls per latency bucket, see QueryStatisticsImpl.HISTOGRAM_LIMITS_MILLIS for the bounds
+     *
+     * @return
+     */
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.stats;
+
+import org.hibernate.EmptyInterceptor;
+
+/**
+ * Counts the SQL statements Hibernate prepares per thread. Entities served from the session
+ * or the second level cache don't prepare a statement, so the difference in count before
+ * and after a service call is the number of round trips the call took.
+ */
+public class StatementCountingInterceptor extends EmptyInterceptor {
+    private static final long serialVersionUID = 4418931745294571108L;
+
+    private static final ThreadLocal<long[]> STATEMENT_COUNT = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    @Override
+    public String onPrepareStatement(String sql) {
+        STATEMENT_COUNT.get()[0]++;
+
+        return super.onPrepareStatement(sql);
+    }
+
+    /**
+     * Statements prepared by the current thread since it started
+     *
+     * @return
+     */
+    public static long getStatementCount() {
+        return STATEMENT_COUNT.get()[0];
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+
+package net.rrm.ehour.persistence.timesheet.dao;
+
+import net.rrm.ehour.timesheet.dto.BookedDay;
+import org.hibernate.transform.BasicTransformerAdapter;
+
+import java.util.Date;
+
+/**
+ * Creates BookedDays from (date, hours) tuples rather than through a
+ * reflective HQL constructor expression.
+ */
+public final class BookedDayTransformer extends BasicTransformerAdapter {
+    private static final long serialVersionUID = 5318271570637318766L;
+
+    public static final BookedDayTransformer INSTANCE = new BookedDayTransformer();
+
+    private BookedDayTransformer() {
+    }
+
+    @Override
+    public Object transformTuple(Object[] tuple, String[] aliases) {
+        return new BookedDay((Date) tuple[0], (Number) tuple[1]);
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+}
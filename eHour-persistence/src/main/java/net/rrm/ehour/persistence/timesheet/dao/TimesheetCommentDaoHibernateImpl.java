@@ -43,6 +43,6 @@ public class TimesheetCommentDaoHibernateImpl
 		Query query = session.getNamedQuery("TimesheetComment.deleteUserId");
 		query.setParameter("userId", userId);
 		
-		return query.executeUpdate();
+		return executeUpdate("TimesheetComment.deleteUserId", query);
 	}	
 }
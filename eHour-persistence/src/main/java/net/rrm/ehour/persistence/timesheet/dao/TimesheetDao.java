@@ -24,8 +24,10 @@ import net.rrm.ehour.persistence.dao.GenericDao;
 import net.rrm.ehour.timesheet.dto.BookedDay;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 public interface TimesheetDao extends GenericDao<TimesheetEntry, TimesheetEntryId>
 {
@@ -37,6 +39,16 @@ public interface TimesheetDao extends GenericDao<TimesheetEntry, TimesheetEntryI
 	 * @return List with TimesheetEntry domain objects
 	 */
 	public List<TimesheetEntry> getTimesheetEntriesInRange(Integer userId, DateRange dateRange);
+
+    /**
+     * Get timesheet entries within date range for a user, the project assignment of the entries
+     * is fetched in the same query together with its project, customer and assignment type
+     *
+     * @param userId
+     * @param dateRange
+     * @return
+     */
+    public List<TimesheetEntry> getTimesheetEntriesWithAssignmentInRange(Integer userId, DateRange dateRange);
 	
 	/**
 	 * Get timesheet entries within date range for an assignment
@@ -46,6 +58,15 @@ public interface TimesheetDao extends GenericDao<TimesheetEntry, TimesheetEntryI
 	 */
 	public List<TimesheetEntry> getTimesheetEntriesInRange(ProjectAssignment assignment, DateRange dateRange);
 
+    /**
+     * Get timesheet entries within date range for a number of assignments in one query
+     *
+     * @param assignments
+     * @param dateRange
+     * @return
+     */
+    public List<TimesheetEntry> getTimesheetEntriesInRangeForAssignments(Collection<ProjectAssignment> assignments, DateRange dateRange);
+
     /**
      * Get timesheet entries within date range
      *
@@ -71,6 +92,13 @@ public interface TimesheetDao extends GenericDao<TimesheetEntry, TimesheetEntryI
 	 * @return
 	 */
 	public List<TimesheetEntry> getTimesheetEntriesAfter(ProjectAssignment assignment, Date date);
+
+	/**
+	 * Get the first and last booked date per assignment with one grouped query
+	 * @param assignments
+	 * @return booked date range per assignment id, assignments without entries are left out
+	 */
+	public Map<Integer, DateRange> getBookedDateRangePerAssignment(Collection<ProjectAssignment> assignments);
 	
 	/**
 	 * Get cumulated hours per day for a date range
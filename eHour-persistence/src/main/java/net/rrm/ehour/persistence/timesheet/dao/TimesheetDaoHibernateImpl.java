@@ -16,6 +16,7 @@
 
 package net.rrm.ehour.persistence.timesheet.dao;
 
+import com.google.common.collect.Lists;
 import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.domain.ProjectAssignment;
 import net.rrm.ehour.domain.TimesheetEntry;
@@ -29,13 +30,14 @@ import org.springframework.orm.hibernate3.HibernateCallback;
 import org.springframework.stereotype.Repository;
 
 import java.io.Serializable;
-import java.util.Date;
-import java.util.List;
+import java.util.*;
 
 @Repository("timesheetDAO")
 public class TimesheetDaoHibernateImpl
         extends AbstractGenericDaoHibernateImpl<TimesheetEntry, TimesheetEntryId>
         implements TimesheetDao {
+    private static final int MAX_ASSIGNMENTS_PER_QUERY = 500;
+
     /**
      * @todo fix this a bit better
      */
@@ -55,6 +57,11 @@ public class TimesheetDaoHibernateImpl
         return getSheetOnUserIdAndRange(userId, dateRange, "Timesheet.getEntriesBetweenDateForUserId");
     }
 
+    @Override
+    public List<TimesheetEntry> getTimesheetEntriesWithAssignmentInRange(Integer userId, DateRange dateRange) {
+        return getSheetOnUserIdAndRange(userId, dateRange, "Timesheet.getEntriesWithAssignmentBetweenDateForUserId");
+    }
+
     @SuppressWarnings("unchecked")
     public List<TimesheetEntry> getTimesheetEntriesInRange(ProjectAssignment assignment, DateRange dateRange) {
         String[] keys = new String[]{"dateStart", "dateEnd", "assignment"};
@@ -64,6 +71,20 @@ public class TimesheetDaoHibernateImpl
         return getHibernateTemplate().findByNamedQueryAndNamedParam(hql, keys, params);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<TimesheetEntry> getTimesheetEntriesInRangeForAssignments(Collection<ProjectAssignment> assignments, DateRange dateRange) {
+        if (assignments.isEmpty()) {
+            return new ArrayList<TimesheetEntry>();
+        }
+
+        String[] keys = new String[]{"dateStart", "dateEnd", "assignments"};
+        Object[] params = new Object[]{dateRange.getDateStart(), dateRange.getDateEnd(), assignments};
+        String hql = "Timesheet.getEntriesBetweenDateForAssignments";
+
+        return getHibernateTemplate().findByNamedQueryAndNamedParam(hql, keys, params);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public List<TimesheetEntry> getTimesheetEntriesInRange(DateRange dateRange) {
@@ -83,7 +104,10 @@ public class TimesheetDaoHibernateImpl
      * @return List with key values -> key = date, value = hours booked
      */
     public List<BookedDay> getBookedHoursperDayInRange(Integer userId, DateRange dateRange) {
-        return getSheetOnUserIdAndRange(userId, dateRange, "Timesheet.getBookedDaysInRangeForUserId");
+        String[] keys = new String[]{"dateStart", "dateEnd", "userId"};
+        Object[] params = new Object[]{dateRange.getDateStart(), dateRange.getDateEnd(), userId};
+
+        return findByNamedQueryAndNamedParam("Timesheet.getBookedDaysInRangeForUserId", keys, params, BookedDayTransformer.INSTANCE);
     }
 
     /**
@@ -115,7 +139,7 @@ public class TimesheetDaoHibernateImpl
 
                         queryObject.setInteger("assignmentId", assignmentId);
                         queryObject.setMaxResults(1);
-                        results = (List<TimesheetEntry>) queryObject.list();
+                        results = list("Timesheet.getLatestEntryForAssignmentId", queryObject);
 
                         return ((results != null && results.size() > 0) ? results.get(0) : null);
                     }
@@ -131,7 +155,7 @@ public class TimesheetDaoHibernateImpl
         Query query = session.getNamedQuery("Timesheet.deleteOnAssignmentIds");
         query.setParameterList("assignmentIds", assignmentIds);
 
-        return query.executeUpdate();
+        return executeUpdate("Timesheet.deleteOnAssignmentIds", query);
     }
 
     /*
@@ -157,4 +181,20 @@ public class TimesheetDaoHibernateImpl
 
         return getHibernateTemplate().findByNamedQueryAndNamedParam("Timesheet.getEntriesBeforeDateForAssignment", keys, params);
     }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Integer, DateRange> getBookedDateRangePerAssignment(Collection<ProjectAssignment> assignments) {
+        Map<Integer, DateRange> ranges = new HashMap<Integer, DateRange>();
+
+        for (List<ProjectAssignment> partition : Lists.partition(new ArrayList<ProjectAssignment>(assignments), MAX_ASSIGNMENTS_PER_QUERY)) {
+            List<Object[]> results = getHibernateTemplate().findByNamedQueryAndNamedParam("Timesheet.getBookedDateRangeForAssignments", "assignments", partition);
+
+            for (Object[] result : results) {
+                ranges.put((Integer) result[0], new DateRange((Date) result[1], (Date) result[2]));
+            }
+        }
+
+        return ranges;
+    }
 }
@@ -73,6 +73,6 @@ public class UserDaoHibernateImpl extends AbstractGenericDaoHibernateImpl<User,
 
     public void deletePmWithoutProject() {
         Query q = getSession().getNamedQuery("User.deletePMsWithoutProject");
-        q.executeUpdate();
+        executeUpdate("User.deletePMsWithoutProject", q);
     }
 }
@@ -3,6 +3,7 @@ package net.rrm.ehour.persistence.project.dao
 import net.rrm.ehour.data.DateRange
 import net.rrm.ehour.domain.*
 import net.rrm.ehour.persistence.dao.AbstractAnnotationDaoTest
+import net.rrm.ehour.persistence.stats.StatementCountingInterceptor
 import net.rrm.ehour.util.EhourConstants
 import org.junit.Test
 import org.springframework.beans.factory.annotation.Autowired
@@ -83,6 +84,20 @@ class ProjectAssignmentDaoHibernateImplTest extends AbstractAnnotationDaoTest {
         assertEquals(5, results.size())
     }
 
+    @Test
+    void shouldFindProjectAssignmentsWithProjectForUserInRangeInOneStatement() {
+        DateRange range = new DateRange(new Date(2006 - 1900, 10 - 1, 24), new Date(2007 - 1900, 1 - 1, 10))
+
+        long statementsBefore = StatementCountingInterceptor.statementCount
+
+        def results = projectAssignmentDAO.findProjectAssignmentsWithProjectForUser(1, range)
+
+        results.each { it.project.customer.name; it.assignmentType.assignmentType; it.user.userDepartment.name }
+
+        assertEquals(1, StatementCountingInterceptor.statementCount - statementsBefore)
+        assertEquals(projectAssignmentDAO.findProjectAssignmentsForUser(1, range) as Set, results as Set)
+    }
+
     @Test
     void shouldFindProjectAssignmentsForCustomer() {
         DateRange range = new DateRange(new Date(2006 - 1900, 8 - 1, 24), new Date(2007 - 1900, 1 - 1, 10))
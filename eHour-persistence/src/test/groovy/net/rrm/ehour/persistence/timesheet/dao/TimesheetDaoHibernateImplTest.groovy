@@ -3,10 +3,13 @@ package net.rrm.ehour.persistence.timesheet.dao
 import net.rrm.ehour.data.DateRange
 import net.rrm.ehour.domain.ProjectAssignment
 import net.rrm.ehour.persistence.dao.AbstractAnnotationDaoTest
+import net.rrm.ehour.persistence.stats.StatementCountingInterceptor
+import org.joda.time.LocalDate
 import org.junit.Test
 import org.springframework.beans.factory.annotation.Autowired
 
 import static org.junit.Assert.assertEquals
+import static org.junit.Assert.assertTrue
 
 /**
  * @author thies (Thies Edeling - thies@te-con.nl)
@@ -31,6 +34,22 @@ class TimesheetDaoHibernateImplTest extends AbstractAnnotationDaoTest {
         assertEquals(9, results.size());
     }
 
+    @Test
+    void shouldGetTimesheetEntriesWithAssignmentInRangeForUserInOneStatement() {
+        Calendar dateStart = new GregorianCalendar(2006, 10 - 1, 1);
+        Calendar dateEnd = new GregorianCalendar(2006, 11 - 1, 1);
+        DateRange dateRange = new DateRange(dateStart.getTime(), dateEnd.getTime());
+
+        long statementsBefore = StatementCountingInterceptor.statementCount
+
+        def results = timesheetDAO.getTimesheetEntriesWithAssignmentInRange(1, dateRange);
+
+        results.each { it.entryId.projectAssignment.project.customer.name }
+
+        assertEquals(1, StatementCountingInterceptor.statementCount - statementsBefore)
+        assertEquals(9, results.size());
+    }
+
     @Test
     void shouldGetTimesheetEntriesInRangeForAssignment() {
         Calendar dateStart = new GregorianCalendar(2006, 10 - 1, 1);
@@ -42,6 +61,19 @@ class TimesheetDaoHibernateImplTest extends AbstractAnnotationDaoTest {
         assertEquals(2, results.size());
     }
 
+    @Test
+    void shouldGetTimesheetEntriesInRangeForAssignments() {
+        Calendar dateStart = new GregorianCalendar(2006, 10 - 1, 1);
+        Calendar dateEnd = new GregorianCalendar(2006, 11 - 1, 1);
+        DateRange dateRange = new DateRange(dateStart.getTime(), dateEnd.getTime());
+
+        def results = timesheetDAO.getTimesheetEntriesInRangeForAssignments([new ProjectAssignment(1), new ProjectAssignment(2)], dateRange);
+
+        def forAssignmentOne = timesheetDAO.getTimesheetEntriesInRange(new ProjectAssignment(1), dateRange);
+
+        assertEquals(forAssignmentOne.size() + 2, results.size());
+    }
+
     @Test
     void shouldGetTimesheetEntriesInRange() {
         Calendar dateStart = new GregorianCalendar(2006, 10 - 1, 1);
@@ -74,6 +106,15 @@ class TimesheetDaoHibernateImplTest extends AbstractAnnotationDaoTest {
         assertEquals(1, res.size());
     }
 
+    @Test
+    void shouldGetBookedDateRangePerAssignment() {
+        def ranges = timesheetDAO.getBookedDateRangePerAssignment([new ProjectAssignment(1), new ProjectAssignment(2)]);
+
+        assertEquals(2, ranges.size());
+        assertEquals(new LocalDate(2006, 10, 2), new LocalDate(ranges[1].dateStart));
+        assertTrue(ranges[1].dateEnd.after(new Date(2006 - 1900, 10 - 1, 4)));
+    }
+
     @Test
     void shouldGetTimesheetEntriesAfter() {
         def res = timesheetDAO.getTimesheetEntriesAfter(new ProjectAssignment(1), new Date(2006 - 1900, 10 - 1, 4));
@@ -0,0 +1,120 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.report.dao;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.AssignmentMonthRollup;
+import net.rrm.ehour.domain.AssignmentMonthRollupId;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.persistence.dao.AbstractAnnotationDaoTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"deprecation"})
+public class AssignmentRollupDaoTest extends AbstractAnnotationDaoTest {
+    @Autowired
+    private AssignmentRollupDao assignmentRollupDao;
+
+    public AssignmentRollupDaoTest() {
+        super("dataset-reportaggregated.xml");
+    }
+
+    @Test
+    public void shouldRollupAllPerMonth() {
+        assignmentRollupDao.deleteAll();
+
+        assertTrue(assignmentRollupDao.rollupAll() > 0);
+
+        for (AssignmentMonthRollup rollup : assignmentRollupDao.findAll()) {
+            assertEquals(1, rollup.getRollupId().getMonthStart().getDate());
+        }
+
+        assertRollupEqualsRaw();
+    }
+
+    @Test
+    public void shouldRollupAssignments() {
+        assignmentRollupDao.deleteForAssignments(Arrays.asList(5, 7));
+
+        assertEquals(3, assignmentRollupDao.rollupAssignments(Arrays.asList(5, 7)));
+
+        assertRollupEqualsRaw();
+    }
+
+    @Test
+    public void shouldRecalculateMonthOfAssignment() {
+        ProjectAssignment assignment = new ProjectAssignment(1);
+        DateRange october = new DateRange(new Date(2006 - 1900, 10 - 1, 1), new Date(2006 - 1900, 10 - 1, 31));
+
+        assignmentRollupDao.lockAssignment(assignment);
+
+        assertEquals(1, assignmentRollupDao.deleteForAssignmentInRange(assignment, october));
+        assertEquals(1, assignmentRollupDao.rollupAssignmentInRange(assignment, october));
+
+        AssignmentMonthRollup rollup = assignmentRollupDao.findById(new AssignmentMonthRollupId(october.getDateStart(), assignment));
+
+        assertEquals(38.7f, rollup.getHours(), 0.01);
+    }
+
+    @Test
+    public void shouldHaveEqualTotalsForRawAndRollup() {
+        assertRollupEqualsRaw();
+    }
+
+    private void assertRollupEqualsRaw() {
+        Map<Integer, Number> raw = assignmentRollupDao.getRawHoursPerAssignment();
+        Map<Integer, Number> rolledUp = assignmentRollupDao.getRolledUpHoursPerAssignment();
+
+        assertEquals(raw.keySet(), rolledUp.keySet());
+
+        for (Integer assignmentId : raw.keySet()) {
+            assertEquals(raw.get(assignmentId).floatValue(), rolledUp.get(assignmentId).floatValue(), 0.01);
+        }
+    }
+
+    @Test
+    public void shouldOnlyMissRollupWhenEmpty() {
+        assertFalse(assignmentRollupDao.isRollupMissing());
+
+        assignmentRollupDao.deleteAll();
+
+        assertTrue(assignmentRollupDao.isRollupMissing());
+    }
+
+    @Test
+    public void shouldDeleteForAssignments() {
+        int deleted = assignmentRollupDao.deleteForAssignments(Arrays.asList(5, 7));
+
+        assertEquals(3, deleted);
+        assertFalse(assignmentRollupDao.getRolledUpHoursPerAssignment().containsKey(5));
+    }
+
+    @Test
+    public void shouldNotBeAvailableWhileRebuilding() {
+        assignmentRollupDao.setRebuilding(true);
+        assertFalse(assignmentRollupDao.isAvailable());
+
+        assignmentRollupDao.setRebuilding(false);
+        assertTrue(assignmentRollupDao.isAvailable());
+    }
+}
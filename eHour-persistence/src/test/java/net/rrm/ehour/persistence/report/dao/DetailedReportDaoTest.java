@@ -18,7 +18,10 @@ package net.rrm.ehour.persistence.report.dao;
 
 import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.persistence.dao.AbstractAnnotationDaoTest;
+import net.rrm.ehour.persistence.stats.QueryStatistics;
+import net.rrm.ehour.persistence.stats.QueryTiming;
 import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -28,6 +31,7 @@ import java.util.Date;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 @SuppressWarnings({"deprecation"})
@@ -35,6 +39,9 @@ public class DetailedReportDaoTest extends AbstractAnnotationDaoTest
 {
 	@Autowired
 	private	DetailedReportDao detailedReportDao;
+
+	@Autowired
+	private QueryStatistics queryStatistics;
 	
 	public DetailedReportDaoTest()
 	{
@@ -111,4 +118,87 @@ public class DetailedReportDaoTest extends AbstractAnnotationDaoTest
 
 		assertEquals(12, results.size());
 	}	
+
+	@Test
+	public void shouldRecordStreamedQuery()
+	{
+		DateRange dateRange = new DateRange(new Date(2006 - 1900, 5 - 1, 1),
+			    new Date(2008 - 1900, 1, 3));
+
+		queryStatistics.reset();
+
+		detailedReportDao.streamHoursPerDay(dateRange, new ReportElementHandler<FlatReportElement>()
+		{
+			@Override
+			public void handle(FlatReportElement element)
+			{
+			}
+		});
+
+		QueryTiming timing = queryStatistics.getQueryTimings().get(0);
+
+		assertEquals("Report.getHoursPerDay", timing.getName());
+		assertEquals(1, timing.getCalls());
+		assertEquals(12, timing.getRows());
+	}
+
+	@Test
+	public void shouldStreamHoursPerDayInDateOrder()
+	{
+		DateRange dateRange = new DateRange(new Date(2006 - 1900, 5 - 1, 1),
+			    new Date(2008 - 1900, 1, 3));
+
+		final List<FlatReportElement> results = new ArrayList<FlatReportElement>();
+
+		detailedReportDao.streamHoursPerDay(dateRange, new ReportElementHandler<FlatReportElement>()
+		{
+			@Override
+			public void handle(FlatReportElement element)
+			{
+				results.add(element);
+			}
+		});
+
+		assertEquals(12, results.size());
+
+		for (int i = 1; i < results.size(); i++)
+		{
+			assertFalse(results.get(i).getDayDate().before(results.get(i - 1).getDayDate()));
+		}
+	}
+
+	@Test
+	public void shouldStreamSameElementsAsListForProjectsAndUsers()
+	{
+		DateRange dateRange = new DateRange(new Date(2006 - 1900, 5 - 1, 1),
+			    new Date(2008 - 1900, 1, 3));
+		List<Serializable> projectIds = new ArrayList<Serializable>();
+		projectIds.add(2);
+		List<Serializable> userIds = new ArrayList<Serializable>();
+		userIds.add(1);
+
+		final List<FlatReportElement> results = new ArrayList<FlatReportElement>();
+
+		detailedReportDao.streamHoursPerDayForProjectsAndUsers(projectIds, userIds, dateRange, new ReportElementHandler<FlatReportElement>()
+		{
+			@Override
+			public void handle(FlatReportElement element)
+			{
+				results.add(element);
+			}
+		});
+
+		List<FlatReportElement> expected = detailedReportDao.getHoursPerDayForProjectsAndUsers(projectIds, userIds, dateRange);
+
+		assertEquals(expected.size(), results.size());
+
+		for (int i = 0; i < expected.size(); i++)
+		{
+			assertEquals(expected.get(i).getAssignmentId(), results.get(i).getAssignmentId());
+			assertEquals(expected.get(i).getDayDate(), results.get(i).getDayDate());
+			assertEquals(expected.get(i).getTotalHours(), results.get(i).getTotalHours());
+			assertEquals(expected.get(i).getProjectName(), results.get(i).getProjectName());
+			assertEquals(expected.get(i).getUserLastName(), results.get(i).getUserLastName());
+		}
+	}
 }
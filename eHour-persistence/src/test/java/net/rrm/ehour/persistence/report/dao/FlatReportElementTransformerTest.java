@@ -0,0 +1,50 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+
+package net.rrm.ehour.persistence.report.dao;
+
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import org.hibernate.HibernateException;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class FlatReportElementTransformerTest {
+    @Test
+    public void shouldMapColumnsOnAlias() {
+        FlatReportElementTransformer transformer = new FlatReportElementTransformer();
+        String[] aliases = {"projectId", "totalHours", "dayDate", "userLastName"};
+        Date date = new Date();
+
+        FlatReportElement first = (FlatReportElement) transformer.transformTuple(new Object[]{1, 8f, date, "Edeling"}, aliases);
+        FlatReportElement second = (FlatReportElement) transformer.transformTuple(new Object[]{2, 4f, date, "Jansen"}, aliases);
+
+        assertEquals(1, first.getProjectId().intValue());
+        assertEquals(8f, first.getTotalHours().floatValue(), 0.01);
+        assertEquals(date, first.getDayDate());
+        assertEquals("Edeling", first.getUserLastName());
+        assertEquals(2, second.getProjectId().intValue());
+        assertEquals("Jansen", second.getUserLastName());
+    }
+
+    @Test(expected = HibernateException.class)
+    public void shouldFailOnUnknownAlias() {
+        new FlatReportElementTransformer().transformTuple(new Object[]{1}, new String[]{"unknown"});
+    }
+}
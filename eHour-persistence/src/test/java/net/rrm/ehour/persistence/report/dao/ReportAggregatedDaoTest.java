@@ -36,6 +36,9 @@ public class ReportAggregatedDaoTest extends AbstractAnnotationDaoTest
 	@Autowired
 	private ReportAggregatedDao reportAggregatedDAO;
 
+	@Autowired
+	private AssignmentRollupDao assignmentRollupDao;
+
 	public ReportAggregatedDaoTest()
 	{
 		super("dataset-reportaggregated.xml");
@@ -186,4 +189,38 @@ public class ReportAggregatedDaoTest extends AbstractAnnotationDaoTest
 		assertEquals(2, results.size());
 	}
 
+	@Test
+	public void shouldCombineRollupAndRawEntriesWhenRangeSpansMonths()
+	{
+		DateRange dateRange = new DateRange(new Date(2006 - 1900, 10 - 1, 3), new Date(2007 - 1900, 2 - 1, 28));
+
+		List<AssignmentAggregateReportElement> results = reportAggregatedDAO.getCumulatedHoursPerAssignment(dateRange);
+
+		assertEquals(5, results.size());
+		assertEquals(30.7f, results.get(0).getHours().floatValue(), 0.01);
+		assertEquals(-7f, results.get(1).getHours().floatValue(), 0.01);
+		assertEquals(17.2f, results.get(2).getHours().floatValue(), 0.01);
+		assertEquals(8f, results.get(3).getHours().floatValue(), 0.01);
+	}
+
+	@Test
+	public void shouldUseRawEntriesWhileRollupIsRebuilding()
+	{
+		DateRange dateRange = new DateRange(new Date(2006 - 1900, 10 - 1, 1), new Date(2007 - 1900, 2 - 1, 28));
+
+		assignmentRollupDao.setRebuilding(true);
+
+		try
+		{
+			assignmentRollupDao.deleteAll();
+
+			List<AssignmentAggregateReportElement> results = reportAggregatedDAO.getCumulatedHoursPerAssignment(dateRange);
+
+			assertEquals(5, results.size());
+			assertEquals(38.7f, results.get(0).getHours().floatValue(), 0.01);
+		} finally
+		{
+			assignmentRollupDao.setRebuilding(false);
+		}
+	}
 }
@@ -0,0 +1,129 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.report.dao;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.persistence.dao.AbstractAnnotationDaoTest;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.Serializable;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings({"deprecation"})
+public class TimesheetFactStoreImplTest extends AbstractAnnotationDaoTest {
+    private static final DateRange RANGE = new DateRange(new Date(2006 - 1900, 10 - 1, 1), new Date(2007 - 1900, 10 - 1, 4));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReportAggregatedDao reportAggregatedDao;
+
+    @Autowired
+    private DetailedReportDao detailedReportDao;
+
+    // the queries leave the order of entries of the same day, project and user undefined
+    private static final Comparator<FlatReportElement> DAY_ASSIGNMENT_ORDER = new Comparator<FlatReportElement>() {
+        @Override
+        public int compare(FlatReportElement o1, FlatReportElement o2) {
+            int compare = o1.getDayDate().compareTo(o2.getDayDate());
+            return compare != 0 ? compare : o1.getAssignmentId().compareTo(o2.getAssignmentId());
+        }
+    };
+
+    private TimesheetFactStoreImpl factStore;
+
+    public TimesheetFactStoreImplTest() {
+        super("dataset-reportaggregated.xml");
+    }
+
+    @Before
+    public void setUp() {
+        factStore = new TimesheetFactStoreImpl(jdbcTemplate, true, 30);
+        factStore.load();
+    }
+
+    @Test
+    public void shouldAggregateSameHoursAsDatabase() {
+        List<AssignmentAggregateReportElement> expected = reportAggregatedDao.getCumulatedHoursPerAssignmentForUsers(Arrays.asList(new User(1)), RANGE);
+        List<AssignmentAggregateReportElement> results = factStore.getHoursPerAssignment(FactRestriction.forUsers(Arrays.asList(1)), RANGE);
+
+        assertTrue(factStore.isAvailable());
+        assertEquals(expected.size(), results.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getProjectAssignment().getAssignmentId(), results.get(i).getProjectAssignment().getAssignmentId());
+            assertEquals(expected.get(i).getHours().floatValue(), results.get(i).getHours().floatValue(), 0.001);
+        }
+    }
+
+    @Test
+    public void shouldGetSameHoursPerDayAsDatabase() {
+        List<Serializable> projectIds = Arrays.<Serializable>asList(1, 2);
+
+        List<FlatReportElement> expected = new ArrayList<FlatReportElement>(detailedReportDao.getHoursPerDayForProjects(projectIds, RANGE));
+        List<FlatReportElement> results = new ArrayList<FlatReportElement>(factStore.getHoursPerDay(FactRestriction.forProjects(projectIds), RANGE));
+
+        Collections.sort(expected, DAY_ASSIGNMENT_ORDER);
+        Collections.sort(results, DAY_ASSIGNMENT_ORDER);
+
+        assertEquals(expected.size(), results.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getAssignmentId(), results.get(i).getAssignmentId());
+            assertEquals(expected.get(i).getDayDate(), results.get(i).getDayDate());
+            assertEquals(expected.get(i).getTotalHours().floatValue(), results.get(i).getTotalHours().floatValue(), 0.001);
+        }
+    }
+
+    @Test
+    public void shouldConvertBetweenDatesAndDays() {
+        Date date = new Date(2007 - 1900, 2 - 1, 2);
+
+        assertEquals(date, TimesheetFactStoreImpl.toDate(TimesheetFactStoreImpl.toDay(date)));
+        assertEquals(TimesheetFactStoreImpl.toDay(date) + 1, TimesheetFactStoreImpl.toDay(new Date(2007 - 1900, 2 - 1, 3, 23, 59)));
+    }
+
+    @Test
+    public void shouldFindRowsMovedByRemove() {
+        TimesheetFactStoreImpl.Facts facts = new TimesheetFactStoreImpl.Facts();
+        facts.add(1, 10, 8, null);
+        facts.add(1, 11, 8, null);
+        facts.add(2, 10, 8, null);
+
+        // the last row takes the place of the removed row
+        facts.remove(1, 10);
+        facts.put(2, 10, 4, null);
+        facts.put(1, 11, 4, null);
+
+        assertEquals(2, facts.size());
+
+        facts.remove(2, 10);
+        facts.remove(1, 11);
+
+        assertEquals(0, facts.size());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.persistence.stats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QueryStatisticsImplTest {
+    private QueryStatisticsImpl statistics;
+
+    @Before
+    public void setUp() {
+        statistics = new QueryStatisticsImpl(1000, false);
+    }
+
+    @Test
+    public void shouldAccumulatePerQuery() {
+        statistics.recordQuery("Report.getHoursPerDay", TimeUnit.MILLISECONDS.toNanos(20), 10);
+        statistics.recordQuery("Report.getHoursPerDay", TimeUnit.MILLISECONDS.toNanos(60), 30);
+        statistics.recordQuery("User.findUsers", TimeUnit.MILLISECONDS.toNanos(2), 1);
+
+        List<QueryTiming> timings = statistics.getQueryTimings();
+
+        assertEquals(2, timings.size());
+
+        QueryTiming timing = timings.get(0);
+        assertEquals("Report.getHoursPerDay", timing.getName());
+        assertEquals(2, timing.getCalls());
+        assertEquals(40, timing.getRows());
+        assertEquals(80, timing.getTotalMillis());
+        assertEquals(60, timing.getMaxMillis());
+        assertEquals(40f, timing.getAverageMillis(), 0.001f);
+        assertArrayEquals(new long[]{0, 0, 0, 1, 1, 0, 0, 0, 0}, timing.getHistogram());
+
+        assertEquals("User.findUsers", timings.get(1).getName());
+        assertTrue(statistics.getDaoMethodTimings().isEmpty());
+    }
+
+    @Test
+    public void shouldKeepDaoMethodsSeparate() {
+        statistics.recordDaoMethod("UserDaoHibernateImpl.findUsers", TimeUnit.MILLISECONDS.toNanos(3), 5);
+
+        assertTrue(statistics.getQueryTimings().isEmpty());
+        assertEquals("UserDaoHibernateImpl.findUsers", statistics.getDaoMethodTimings().get(0).getName());
+    }
+
+    @Test
+    public void shouldPutSlowQueriesInLastBucket() {
+        assertEquals(0, QueryStatisticsImpl.getHistogramBucket(0));
+        assertEquals(1, QueryStatisticsImpl.getHistogramBucket(1));
+        assertEquals(7, QueryStatisticsImpl.getHistogramBucket(4999));
+        assertEquals(8, QueryStatisticsImpl.getHistogramBucket(60000));
+    }
+
+    @Test
+    public void shouldReset() {
+        statistics.recordQuery("Report.getHoursPerDay", 1, 1);
+        statistics.recordDaoMethod("DetailedReportDaoHibernateImpl.getHoursPerDay", 1, 1);
+
+        statistics.reset();
+
+        assertTrue(statistics.getQueryTimings().isEmpty());
+        assertTrue(statistics.getDaoMethodTimings().isEmpty());
+    }
+}
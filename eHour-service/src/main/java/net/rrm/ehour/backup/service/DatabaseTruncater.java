@@ -1,5 +1,6 @@
 package net.rrm.ehour.backup.service;
 
+import net.rrm.ehour.domain.AssignmentMonthRollup;
 import net.rrm.ehour.domain.BinaryConfiguration;
 import net.rrm.ehour.domain.Configuration;
 import net.rrm.ehour.domain.MailLog;
@@ -25,6 +26,9 @@ public class DatabaseTruncater
     @Transactional
     public void truncateDatabase()
     {
+        // derived from the timesheet entries, not part of the backup
+        restoreDao.delete(AssignmentMonthRollup.class);
+
         List<BackupEntityType> types = BackupEntityType.reverseOrderedValues();
 
         for (BackupEntityType type : types)
@@ -3,6 +3,12 @@ package net.rrm.ehour.backup.service;
 import net.rrm.ehour.backup.service.restore.*;
 import net.rrm.ehour.config.EhourConfig;
 import net.rrm.ehour.persistence.config.dao.ConfigurationDao;
+import net.rrm.ehour.persistence.report.dao.TimesheetFactStore;
+import net.rrm.ehour.project.status.AssignmentBudgetLedger;
+import net.rrm.ehour.report.service.AssignmentRollupService;
+import net.rrm.ehour.report.service.BookingDateRangeService;
+import net.rrm.ehour.report.service.ReportDataCache;
+import net.rrm.ehour.timesheet.service.MonthOverviewCache;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -37,6 +43,24 @@ public class RestoreServiceImpl implements RestoreService {
     @Autowired
     private EhourConfig ehourConfig;
 
+    @Autowired
+    private AssignmentRollupService assignmentRollupService;
+
+    @Autowired
+    private ReportDataCache reportDataCache;
+
+    @Autowired
+    private BookingDateRangeService bookingDateRangeService;
+
+    @Autowired
+    private TimesheetFactStore timesheetFactStore;
+
+    @Autowired
+    private AssignmentBudgetLedger assignmentBudgetLedger;
+
+    @Autowired
+    private MonthOverviewCache monthOverviewCache;
+
     @Override
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public ParseSession importDatabase(ParseSession session) {
@@ -58,6 +82,13 @@ public class RestoreServiceImpl implements RestoreService {
                         .build();
 
                 importer.importXml(session, eventReader);
+
+                assignmentRollupService.rebuild();
+                reportDataCache.invalidateAll();
+                bookingDateRangeService.invalidateAll();
+                assignmentBudgetLedger.invalidateAll();
+                monthOverviewCache.invalidateAll();
+                timesheetFactStore.reload();
             }
         } catch (Exception e) {
             session.setGlobalError(true);
@@ -118,4 +149,8 @@ public class RestoreServiceImpl implements RestoreService {
     public void setDatabaseTruncater(DatabaseTruncater databaseTruncater) {
         this.databaseTruncater = databaseTruncater;
     }
+
+    public void setAssignmentRollupService(AssignmentRollupService assignmentRollupService) {
+        this.assignmentRollupService = assignmentRollupService;
+    }
 }
@@ -22,6 +22,7 @@ import net.rrm.ehour.domain.Customer;
 import net.rrm.ehour.exception.ObjectNotUniqueException;
 import net.rrm.ehour.exception.ParentChildConstraintException;
 import net.rrm.ehour.persistence.customer.dao.CustomerDao;
+import net.rrm.ehour.report.service.ReportDataCache;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -38,6 +39,9 @@ public class CustomerServiceImpl implements CustomerService {
     @Autowired
     private CustomerDao customerDAO;
 
+    @Autowired
+    private ReportDataCache reportDataCache;
+
     private static final Logger LOGGER = Logger.getLogger(CustomerServiceImpl.class);
 
     public CustomerServiceImpl() {
@@ -62,6 +66,7 @@ public class CustomerServiceImpl implements CustomerService {
             } else {
                 try {
                     customerDAO.delete(customer);
+                    reportDataCache.invalidateAll();
                 } catch (DataIntegrityViolationException cve) {
                     throw new ParentChildConstraintException(cve);
                 }
@@ -105,6 +110,9 @@ public class CustomerServiceImpl implements CustomerService {
             throw new ObjectNotUniqueException(cve);
         }
 
+        // active/billable flags decide which reports include the customer's projects
+        reportDataCache.invalidateAll();
+
         return customer;
     }
 
@@ -116,4 +124,8 @@ public class CustomerServiceImpl implements CustomerService {
     public void setCustomerDAO(CustomerDao customerDAO) {
         this.customerDAO = customerDAO;
     }
+
+    public void setReportDataCache(ReportDataCache reportDataCache) {
+        this.reportDataCache = reportDataCache;
+    }
 }
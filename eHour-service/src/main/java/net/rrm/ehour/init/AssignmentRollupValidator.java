@@ -0,0 +1,49 @@
+package net.rrm.ehour.init;
+
+import net.rrm.ehour.report.service.AssignmentRollupService;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * The assignment/month rollup is empty after upgrading from a version without it, in which case
+ * it is rebuilt on startup. The rollup can also drift when timesheet entries are modified outside
+ * of eHour, comparing it with all timesheet entries is expensive so that check only runs on startup
+ * when ehour.rollup.verifyOnStartup is set.
+ */
+@Service
+public class AssignmentRollupValidator {
+    private static final Logger LOGGER = Logger.getLogger(AssignmentRollupValidator.class);
+
+    private final AssignmentRollupService assignmentRollupService;
+
+    private final boolean verifyOnStartup;
+
+    @Autowired
+    public AssignmentRollupValidator(AssignmentRollupService assignmentRollupService,
+                                     @Value("${ehour.rollup.verifyOnStartup:false}") boolean verifyOnStartup) {
+        this.assignmentRollupService = assignmentRollupService;
+        this.verifyOnStartup = verifyOnStartup;
+    }
+
+    @PostConstruct
+    public void validateRollup() {
+        if (assignmentRollupService.isRollupMissing()) {
+            LOGGER.warn("Assignment rollup is empty, rebuilding from the timesheet entries");
+            assignmentRollupService.rebuild();
+        } else if (verifyOnStartup) {
+            LOGGER.info("Verifying the assignment rollup against the timesheet entries...");
+
+            List<Integer> inconsistentAssignmentIds = assignmentRollupService.findInconsistentAssignments();
+
+            if (!inconsistentAssignmentIds.isEmpty()) {
+                LOGGER.warn(String.format("Assignment rollup out of sync for %d assignments, rebuilding", inconsistentAssignmentIds.size()));
+                assignmentRollupService.rebuild(inconsistentAssignmentIds);
+            }
+        }
+    }
+}
@@ -4,6 +4,9 @@ import net.rrm.ehour.audit.annot.Auditable;
 import net.rrm.ehour.domain.*;
 import net.rrm.ehour.persistence.project.dao.ProjectAssignmentDao;
 import net.rrm.ehour.persistence.project.dao.ProjectDao;
+import net.rrm.ehour.persistence.report.dao.TimesheetFactStore;
+import net.rrm.ehour.report.service.ReportDataCache;
+import net.rrm.ehour.timesheet.service.MonthOverviewCache;
 import net.rrm.ehour.user.service.UserService;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +29,15 @@ public class ProjectAssignmentManagementServiceImpl implements ProjectAssignment
     @Autowired
     private ProjectAssignmentDao projectAssignmentDAO;
 
+    @Autowired
+    private ReportDataCache reportDataCache;
+
+    @Autowired
+    private TimesheetFactStore timesheetFactStore;
+
+    @Autowired
+    private MonthOverviewCache monthOverviewCache;
+
     @Transactional
     @Auditable(actionType = AuditActionType.CREATE)
     public void assignAllUsersToProject(Project project) {
@@ -113,11 +125,17 @@ public class ProjectAssignmentManagementServiceImpl implements ProjectAssignment
     @Auditable(actionType = AuditActionType.DELETE)
     public void deleteProjectAssignment(ProjectAssignment assignment) {
         projectAssignmentDAO.delete(assignment);
+        reportDataCache.invalidateAssignment(assignment);
+        monthOverviewCache.invalidateUser(assignment.getUser().getUserId());
+        timesheetFactStore.dimensionsChanged();
     }
 
     @Transactional
     public void updateProjectAssignment(ProjectAssignment assignment) {
         projectAssignmentDAO.persist(assignment);
+        reportDataCache.invalidateAssignment(assignment);
+        monthOverviewCache.invalidateUser(assignment.getUser().getUserId());
+        timesheetFactStore.dimensionsChanged();
     }
 
  public void setProjectDAO(ProjectDao projectDAO) {
@@ -128,4 +146,16 @@ public class ProjectAssignmentManagementServiceImpl implements ProjectAssignment
         this.projectAssignmentDAO = projectAssignmentDAO;
     }
 
+    public void setReportDataCache(ReportDataCache reportDataCache) {
+        this.reportDataCache = reportDataCache;
+    }
+
+    public void setTimesheetFactStore(TimesheetFactStore timesheetFactStore) {
+        this.timesheetFactStore = timesheetFactStore;
+    }
+
+    public void setMonthOverviewCache(MonthOverviewCache monthOverviewCache) {
+        this.monthOverviewCache = monthOverviewCache;
+    }
+
 }
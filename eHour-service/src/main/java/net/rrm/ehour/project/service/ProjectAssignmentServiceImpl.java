@@ -26,6 +26,7 @@ import net.rrm.ehour.domain.User;
 import net.rrm.ehour.exception.ObjectNotFoundException;
 import net.rrm.ehour.persistence.project.dao.ProjectAssignmentDao;
 import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao;
+import net.rrm.ehour.project.status.ProjectAssignmentStatus;
 import net.rrm.ehour.project.status.ProjectAssignmentStatusService;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
 import net.rrm.ehour.report.reports.util.ReportUtil;
@@ -62,8 +63,10 @@ public class ProjectAssignmentServiceImpl implements ProjectAssignmentService {
 
         assignments = projectAssignmentDAO.findProjectAssignmentsForUser(userId, dateRange);
 
+        Map<Integer, ProjectAssignmentStatus> statusses = projectAssignmentStatusService.getAssignmentStatusses(assignments, dateRange);
+
         for (ProjectAssignment assignment : assignments) {
-            if (projectAssignmentStatusService.getAssignmentStatus(assignment, dateRange).isAssignmentBookable()) {
+            if (statusses.get(assignment.getAssignmentId()).isAssignmentBookable()) {
                 validAssignments.add(assignment);
             }
         }
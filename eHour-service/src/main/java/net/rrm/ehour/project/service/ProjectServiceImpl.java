@@ -27,6 +27,7 @@ import net.rrm.ehour.persistence.project.dao.ProjectDao;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
 import net.rrm.ehour.report.reports.util.ReportUtil;
 import net.rrm.ehour.report.service.AggregateReportService;
+import net.rrm.ehour.report.service.ReportDataCache;
 import net.rrm.ehour.user.service.UserService;
 import net.rrm.ehour.util.EhourUtil;
 import org.apache.log4j.Logger;
@@ -51,12 +52,15 @@ public class ProjectServiceImpl implements ProjectService {
 
     private UserService userService;
 
+    private ReportDataCache reportDataCache;
+
     @Autowired
-    public ProjectServiceImpl(ProjectDao projectDAO, ProjectAssignmentManagementService projectAssignmentManagementService, AggregateReportService aggregateReportService, UserService userService) {
+    public ProjectServiceImpl(ProjectDao projectDAO, ProjectAssignmentManagementService projectAssignmentManagementService, AggregateReportService aggregateReportService, UserService userService, ReportDataCache reportDataCache) {
         this.projectDAO = projectDAO;
         this.projectAssignmentManagementService = projectAssignmentManagementService;
         this.aggregateReportService = aggregateReportService;
         this.userService = userService;
+        this.reportDataCache = reportDataCache;
     }
 
     @Override
@@ -106,6 +110,9 @@ public class ProjectServiceImpl implements ProjectService {
     public Project updateProject(Project project) {
         projectDAO.persist(project);
 
+        // project manager and active/billable flags decide which reports include the project
+        reportDataCache.invalidateAll();
+
         validatePMRoles(project);
         assignUsersToDefaultProject(project);
 
@@ -134,6 +141,8 @@ public class ProjectServiceImpl implements ProjectService {
         deleteEmptyAssignments(project);
         LOGGER.debug("Deleting project " + project);
         projectDAO.delete(project);
+
+        reportDataCache.invalidateAll();
     }
 
     private void deleteEmptyAssignments(Project project) throws ParentChildConstraintException {
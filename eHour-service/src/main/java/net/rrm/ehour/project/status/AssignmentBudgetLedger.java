@@ -0,0 +1,64 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.project.status;
+
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Running total of the booked hours per assignment, used for the budget checks of fixed
+ * and flex assignments. Totals are loaded once, kept up to date by the timesheet writes and
+ * periodically reconciled with the database.
+ */
+public interface AssignmentBudgetLedger {
+    /**
+     * Booked hours of an assignment
+     *
+     * @param assignment
+     * @return null when nothing was booked on the assignment
+     */
+    AssignmentAggregateReportElement getAggregate(ProjectAssignment assignment);
+
+    /**
+     * Booked hours of the assignments, totals which aren't in memory yet are loaded in one go
+     *
+     * @param assignments
+     * @return aggregates keyed by assignment id, assignments without bookings are left out
+     */
+    Map<Integer, AssignmentAggregateReportElement> getAggregates(Collection<ProjectAssignment> assignments);
+
+    /**
+     * Bookings of an assignment were changed, the running total is updated once the
+     * transaction commits. Reads in the same transaction see the uncommitted change.
+     *
+     * @param assignment
+     * @param hoursDelta booked hours added, negative when hours were removed
+     */
+    void bookingsChanged(ProjectAssignment assignment, double hoursDelta);
+
+    void invalidate(Collection<Integer> assignmentIds);
+
+    void invalidateAll();
+
+    /**
+     * Compare the totals in memory with the database and correct them where they drifted
+     */
+    void reconcile();
+}
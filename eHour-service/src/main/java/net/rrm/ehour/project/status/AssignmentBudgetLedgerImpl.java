@@ -0,0 +1,451 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.project.status;
+
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+import net.rrm.ehour.timesheet.service.BookingsChange;
+import net.rrm.ehour.timesheet.service.BookingsListener;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Totals are read without locking. Loads and updates of an assignment are guarded by one of
+ * a fixed set of locks picked on the assignment id, each lock keeps a generation which is
+ * bumped on every update so a total loaded while another transaction committed is not kept.
+ * From just before a transaction commits until its changes are applied the assignments it
+ * booked on are marked as committing, a total loaded in between may already include the
+ * changes and is not kept either.
+ */
+@Service("assignmentBudgetLedger")
+public class AssignmentBudgetLedgerImpl implements AssignmentBudgetLedger, BookingsListener {
+    private static final Logger LOGGER = Logger.getLogger(AssignmentBudgetLedgerImpl.class);
+
+    private static final int STRIPES = 64;
+
+    // hours are stored as floats, allow for rounding differences between the two sums
+    private static final double TOLERANCE = 0.01;
+
+    private static final long RECONCILE_INTERVAL = 15 * 60 * 1000;
+
+    private final ReportAggregatedDao reportAggregatedDAO;
+
+    private final Map<Integer, BookedHours> bookedHours = new ConcurrentHashMap<Integer, BookedHours>();
+
+    private final Object[] locks = new Object[STRIPES];
+
+    // guarded by the lock with the same index
+    private final long[] generations = new long[STRIPES];
+
+    // number of transactions committing bookings per assignment, updated under the assignment's lock
+    private final Map<Integer, Integer> committing = new ConcurrentHashMap<Integer, Integer>();
+
+    @Autowired
+    public AssignmentBudgetLedgerImpl(ReportAggregatedDao reportAggregatedDAO) {
+        this.reportAggregatedDAO = reportAggregatedDAO;
+
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public AssignmentAggregateReportElement getAggregate(ProjectAssignment assignment) {
+        Integer assignmentId = assignment.getAssignmentId();
+
+        if (assignmentId == null || isChangedInTransaction(assignmentId)) {
+            // the query sees the flushed, uncommitted entries of this transaction
+            return reportAggregatedDAO.getCumulatedHoursForAssignment(assignment);
+        }
+
+        BookedHours hours = bookedHours.get(assignmentId);
+
+        if (hours != null) {
+            return hours.toAggregate(assignment);
+        }
+
+        long generation = getGeneration(assignmentId);
+
+        AssignmentAggregateReportElement aggregate = reportAggregatedDAO.getCumulatedHoursForAssignment(assignment);
+
+        store(assignmentId, generation, aggregate);
+
+        return aggregate;
+    }
+
+    @Override
+    public Map<Integer, AssignmentAggregateReportElement> getAggregates(Collection<ProjectAssignment> assignments) {
+        Map<Integer, AssignmentAggregateReportElement> aggregates = new HashMap<Integer, AssignmentAggregateReportElement>();
+
+        // generation at the start of the load, null when the loaded total can't be kept
+        Map<Integer, Long> loadGenerations = new HashMap<Integer, Long>();
+
+        for (ProjectAssignment assignment : assignments) {
+            Integer assignmentId = assignment.getAssignmentId();
+
+            if (assignmentId == null) {
+                continue;
+            }
+
+            if (isChangedInTransaction(assignmentId)) {
+                loadGenerations.put(assignmentId, null);
+                continue;
+            }
+
+            BookedHours hours = bookedHours.get(assignmentId);
+
+            if (hours != null) {
+                AssignmentAggregateReportElement aggregate = hours.toAggregate(assignment);
+
+                if (aggregate != null) {
+                    aggregates.put(assignmentId, aggregate);
+                }
+            } else {
+                loadGenerations.put(assignmentId, getGeneration(assignmentId));
+            }
+        }
+
+        if (!loadGenerations.isEmpty()) {
+            Map<Integer, AssignmentAggregateReportElement> loaded = load(loadGenerations.keySet());
+
+            for (Map.Entry<Integer, Long> load : loadGenerations.entrySet()) {
+                AssignmentAggregateReportElement aggregate = loaded.get(load.getKey());
+
+                if (load.getValue() != null) {
+                    store(load.getKey(), load.getValue(), aggregate);
+                }
+
+                if (aggregate != null) {
+                    aggregates.put(load.getKey(), aggregate);
+                }
+            }
+        }
+
+        return aggregates;
+    }
+
+    private Map<Integer, AssignmentAggregateReportElement> load(Collection<Integer> assignmentIds) {
+        Map<Integer, AssignmentAggregateReportElement> aggregates = new HashMap<Integer, AssignmentAggregateReportElement>();
+
+        for (AssignmentAggregateReportElement aggregate : reportAggregatedDAO.getCumulatedHoursPerAssignmentForAssignments(new ArrayList<Integer>(assignmentIds))) {
+            aggregates.put(aggregate.getProjectAssignment().getAssignmentId(), aggregate);
+        }
+
+        return aggregates;
+    }
+
+    private long getGeneration(Integer assignmentId) {
+        int stripe = getStripe(assignmentId);
+
+        synchronized (locks[stripe]) {
+            return generations[stripe];
+        }
+    }
+
+    private void store(Integer assignmentId, long loadGeneration, AssignmentAggregateReportElement aggregate) {
+        int stripe = getStripe(assignmentId);
+
+        synchronized (locks[stripe]) {
+            if (generations[stripe] == loadGeneration && !committing.containsKey(assignmentId) && !bookedHours.containsKey(assignmentId)) {
+                bookedHours.put(assignmentId, BookedHours.of(aggregate));
+            }
+        }
+    }
+
+    @Override
+    public void bookingsChanged(ProjectAssignment assignment, double hoursDelta) {
+        Integer assignmentId = assignment.getAssignmentId();
+
+        if (assignmentId == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingBookings pendingBookings = getPendingBookings();
+
+            if (pendingBookings == null) {
+                pendingBookings = new PendingBookings();
+                TransactionSynchronizationManager.registerSynchronization(pendingBookings);
+            }
+
+            pendingBookings.add(assignmentId, hoursDelta);
+        } else {
+            apply(assignmentId, hoursDelta);
+        }
+    }
+
+    private void startCommit(Collection<Integer> assignmentIds) {
+        for (Integer assignmentId : assignmentIds) {
+            int stripe = getStripe(assignmentId);
+
+            synchronized (locks[stripe]) {
+                generations[stripe]++;
+
+                Integer transactions = committing.get(assignmentId);
+                committing.put(assignmentId, transactions == null ? 1 : transactions + 1);
+            }
+        }
+    }
+
+    private void endCommit(Map<Integer, Double> hoursDeltas, boolean committed) {
+        for (Map.Entry<Integer, Double> hoursDelta : hoursDeltas.entrySet()) {
+            Integer assignmentId = hoursDelta.getKey();
+            int stripe = getStripe(assignmentId);
+
+            synchronized (locks[stripe]) {
+                if (committed) {
+                    apply(assignmentId, hoursDelta.getValue());
+                } else {
+                    generations[stripe]++;
+                }
+
+                Integer transactions = committing.get(assignmentId);
+
+                if (transactions == null || transactions <= 1) {
+                    committing.remove(assignmentId);
+                } else {
+                    committing.put(assignmentId, transactions - 1);
+                }
+            }
+        }
+    }
+
+    private void apply(Integer assignmentId, double hoursDelta) {
+        int stripe = getStripe(assignmentId);
+
+        synchronized (locks[stripe]) {
+            generations[stripe]++;
+
+            BookedHours hours = bookedHours.get(assignmentId);
+
+            if (hours != null) {
+                double newHours = hours.hours + hoursDelta;
+
+                // whether anything is still booked isn't known, load again when needed
+                if (Math.abs(newHours) < TOLERANCE) {
+                    bookedHours.remove(assignmentId);
+                } else {
+                    bookedHours.put(assignmentId, new BookedHours(newHours, true));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onBookingsChanged(BookingsChange change) {
+        if (change.isEntriesChanged()) {
+            bookingsChanged(change.getAssignment(), change.getHoursDelta());
+        }
+    }
+
+    @Override
+    public void onBookingsRemoved(User user, List<Integer> assignmentIds) {
+        invalidate(assignmentIds);
+    }
+
+    @Override
+    public void invalidate(final Collection<Integer> assignmentIds) {
+        remove(assignmentIds);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(assignmentIds);
+                }
+            });
+        }
+    }
+
+    private void remove(Collection<Integer> assignmentIds) {
+        for (Integer assignmentId : assignmentIds) {
+            int stripe = getStripe(assignmentId);
+
+            synchronized (locks[stripe]) {
+                generations[stripe]++;
+                bookedHours.remove(assignmentId);
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        clear();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    private void clear() {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            synchronized (locks[stripe]) {
+                generations[stripe]++;
+            }
+        }
+
+        bookedHours.clear();
+    }
+
+    @Override
+    @Scheduled(fixedDelay = RECONCILE_INTERVAL, initialDelay = RECONCILE_INTERVAL)
+    @Transactional(readOnly = true)
+    public void reconcile() {
+        Map<Integer, Long> loadGenerations = new HashMap<Integer, Long>();
+
+        for (Integer assignmentId : bookedHours.keySet()) {
+            loadGenerations.put(assignmentId, getGeneration(assignmentId));
+        }
+
+        if (loadGenerations.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, AssignmentAggregateReportElement> loaded = load(loadGenerations.keySet());
+
+        int corrected = 0;
+
+        for (Map.Entry<Integer, Long> load : loadGenerations.entrySet()) {
+            Integer assignmentId = load.getKey();
+            int stripe = getStripe(assignmentId);
+            BookedHours actualHours = BookedHours.of(loaded.get(assignmentId));
+
+            synchronized (locks[stripe]) {
+                BookedHours hours = bookedHours.get(assignmentId);
+
+                if (generations[stripe] == load.getValue() && !committing.containsKey(assignmentId) && hours != null && !hours.matches(actualHours)) {
+                    bookedHours.put(assignmentId, actualHours);
+                    corrected++;
+                }
+            }
+        }
+
+        if (corrected > 0) {
+            LOGGER.warn("Corrected the booked hours of " + corrected + " assignments in the budget ledger");
+        }
+    }
+
+    private boolean isChangedInTransaction(Integer assignmentId) {
+        PendingBookings pendingBookings = getPendingBookings();
+
+        return pendingBookings != null && pendingBookings.contains(assignmentId);
+    }
+
+    private PendingBookings getPendingBookings() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        // synchronizations are suspended along with their transaction, inner transactions get their own
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingBookings && ((PendingBookings) synchronization).isFor(this)) {
+                return (PendingBookings) synchronization;
+            }
+        }
+
+        return null;
+    }
+
+    private static int getStripe(Integer assignmentId) {
+        return (assignmentId.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    /**
+     * Total hours of an assignment. Entries adding up to 0 hours are not the same as no entries
+     * at all, the query returns no aggregate for the latter
+     */
+    private static final class BookedHours {
+        private final double hours;
+
+        private final boolean booked;
+
+        BookedHours(double hours, boolean booked) {
+            this.hours = hours;
+            this.booked = booked;
+        }
+
+        static BookedHours of(AssignmentAggregateReportElement aggregate) {
+            if (aggregate == null) {
+                return new BookedHours(0, false);
+            }
+
+            return new BookedHours(aggregate.getHours() == null ? 0 : aggregate.getHours().doubleValue(), true);
+        }
+
+        AssignmentAggregateReportElement toAggregate(ProjectAssignment assignment) {
+            return booked ? new AssignmentAggregateReportElement(assignment, hours) : null;
+        }
+
+        boolean matches(BookedHours other) {
+            return booked == other.booked && Math.abs(hours - other.hours) <= TOLERANCE;
+        }
+    }
+
+    private class PendingBookings extends TransactionSynchronizationAdapter {
+        private final Map<Integer, Double> hoursDeltas = new HashMap<Integer, Double>();
+
+        private boolean commitStarted;
+
+        void add(Integer assignmentId, double hoursDelta) {
+            Double hours = hoursDeltas.get(assignmentId);
+            hoursDeltas.put(assignmentId, (hours == null ? 0 : hours) + hoursDelta);
+        }
+
+        boolean contains(Integer assignmentId) {
+            return hoursDeltas.containsKey(assignmentId);
+        }
+
+        boolean isFor(AssignmentBudgetLedgerImpl ledger) {
+            return ledger == AssignmentBudgetLedgerImpl.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            commitStarted = true;
+            startCommit(hoursDeltas.keySet());
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            boolean committed = status == TransactionSynchronization.STATUS_COMMITTED;
+
+            if (commitStarted) {
+                endCommit(hoursDeltas, committed);
+            } else if (committed) {
+                for (Map.Entry<Integer, Double> hoursDelta : hoursDeltas.entrySet()) {
+                    apply(hoursDelta.getKey(), hoursDelta.getValue());
+                }
+            }
+        }
+    }
+}
@@ -18,6 +18,10 @@ package net.rrm.ehour.project.status;
 
 import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Status service
@@ -39,4 +43,37 @@ public interface ProjectAssignmentStatusService
 	 * @return
 	 */
 	public ProjectAssignmentStatus getAssignmentStatus(ProjectAssignment assignment, DateRange period);
+
+	/**
+	 * Get overall assignment status of assignments, the booked hours and whether anything is
+	 * booked outside the assignment's range are queried for all at once
+	 * @param assignments
+	 * @return status per assignment id
+	 */
+	public Map<Integer, ProjectAssignmentStatus> getAssignmentStatusses(Collection<ProjectAssignment> assignments);
+
+	/**
+	 * Get assignment status of assignments for a period, the booked hours are queried for all at once
+	 * @param assignments
+	 * @param period
+	 * @return status per assignment id
+	 */
+	public Map<Integer, ProjectAssignmentStatus> getAssignmentStatusses(Collection<ProjectAssignment> assignments, DateRange period);
+
+	/**
+	 * Get the allotted status (fixed and flex assignments) of assignments with one query for all.
+	 * Deadline statuses are not included
+	 * @param assignments
+	 * @return allotted status per assignment id
+	 */
+	public Map<Integer, ProjectAssignmentStatus> getAllottedStatusses(Collection<ProjectAssignment> assignments);
+
+	/**
+	 * Get the allotted status of an assignment for already known booked hours, without querying.
+	 * Deadline statuses are not included
+	 * @param assignment
+	 * @param aggregate booked hours of the assignment, null when nothing is booked
+	 * @return
+	 */
+	public ProjectAssignmentStatus getAllottedStatus(ProjectAssignment assignment, AssignmentAggregateReportElement aggregate);
 }
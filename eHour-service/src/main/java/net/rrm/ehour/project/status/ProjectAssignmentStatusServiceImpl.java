@@ -18,16 +18,15 @@ package net.rrm.ehour.project.status;
 
 import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.domain.ProjectAssignment;
-import net.rrm.ehour.domain.TimesheetEntry;
-import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao;
 import net.rrm.ehour.persistence.timesheet.dao.TimesheetDao;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
 import net.rrm.ehour.util.DateUtil;
 import net.rrm.ehour.util.EhourConstants;
+import org.joda.time.LocalDate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * Time allotted util class
@@ -36,7 +35,7 @@ import java.util.List;
 public class ProjectAssignmentStatusServiceImpl implements ProjectAssignmentStatusService
 {
 	@Autowired
-	private	ReportAggregatedDao	reportAggregatedDAO;
+	private	AssignmentBudgetLedger	assignmentBudgetLedger;
 	@Autowired
 	private TimesheetDao		timesheetDAO;
 
@@ -61,10 +60,53 @@ public class ProjectAssignmentStatusServiceImpl implements ProjectAssignmentStat
 	{
 		ProjectAssignmentStatus status = getAllottedStatus(assignment);
 		
-		addDeadlineStatusBasedOnEntries(assignment, status);
+		DateRange bookedRange = null;
+
+		if (assignment.getDateStart() != null || assignment.getDateEnd() != null)
+		{
+			bookedRange = timesheetDAO.getBookedDateRangePerAssignment(Arrays.asList(assignment)).get(assignment.getAssignmentId());
+		}
+
+		addDeadlineStatusBasedOnEntries(assignment, status, bookedRange);
 		
 		return status;
 	}
+
+	public Map<Integer, ProjectAssignmentStatus> getAssignmentStatusses(Collection<ProjectAssignment> assignments)
+	{
+		Map<Integer, ProjectAssignmentStatus> statusses = getAllottedStatusses(assignments);
+
+		List<ProjectAssignment> deadlineAssignments = new ArrayList<ProjectAssignment>();
+
+		for (ProjectAssignment assignment : assignments)
+		{
+			if (assignment.getDateStart() != null || assignment.getDateEnd() != null)
+			{
+				deadlineAssignments.add(assignment);
+			}
+		}
+
+		Map<Integer, DateRange> bookedRanges = deadlineAssignments.isEmpty() ? new HashMap<Integer, DateRange>() : timesheetDAO.getBookedDateRangePerAssignment(deadlineAssignments);
+
+		for (ProjectAssignment assignment : assignments)
+		{
+			addDeadlineStatusBasedOnEntries(assignment, statusses.get(assignment.getAssignmentId()), bookedRanges.get(assignment.getAssignmentId()));
+		}
+
+		return statusses;
+	}
+
+	public Map<Integer, ProjectAssignmentStatus> getAssignmentStatusses(Collection<ProjectAssignment> assignments, DateRange period)
+	{
+		Map<Integer, ProjectAssignmentStatus> statusses = getAllottedStatusses(assignments);
+
+		for (ProjectAssignment assignment : assignments)
+		{
+			addDeadlineStatusBasedOnDate(assignment, statusses.get(assignment.getAssignmentId()), period);
+		}
+
+		return statusses;
+	}
 	
 	/**
 	 * Get status for allotted assignments
@@ -72,16 +114,36 @@ public class ProjectAssignmentStatusServiceImpl implements ProjectAssignmentStat
 	 * @return
 	 */
 	private ProjectAssignmentStatus getAllottedStatus(ProjectAssignment assignment)
+	{
+		AssignmentAggregateReportElement aggregate = assignmentBudgetLedger.getAggregate(assignment);
+
+		return getAllottedStatus(assignment, aggregate);
+	}
+
+	public ProjectAssignmentStatus getAllottedStatus(ProjectAssignment assignment, AssignmentAggregateReportElement aggregate)
 	{
 		ProjectAssignmentStatus	status = new ProjectAssignmentStatus();
-		AssignmentAggregateReportElement aggregate = reportAggregatedDAO.getCumulatedHoursForAssignment(assignment);
 		status.setAggregate(aggregate);
 
 		addStatusForAssignmentType(assignment, status);
-		
+
 		return status;
 	}
 
+	public Map<Integer, ProjectAssignmentStatus> getAllottedStatusses(Collection<ProjectAssignment> assignments)
+	{
+		Map<Integer, AssignmentAggregateReportElement> aggregates = assignmentBudgetLedger.getAggregates(assignments);
+
+		Map<Integer, ProjectAssignmentStatus> statusses = new HashMap<Integer, ProjectAssignmentStatus>();
+
+		for (ProjectAssignment assignment : assignments)
+		{
+			statusses.put(assignment.getAssignmentId(), getAllottedStatus(assignment, aggregates.get(assignment.getAssignmentId())));
+		}
+
+		return statusses;
+	}
+
 	private void addStatusForAssignmentType(ProjectAssignment assignment, ProjectAssignmentStatus status)
 	{
 		int assignmentTypeId = assignment.getAssignmentType().getAssignmentTypeId();
@@ -97,28 +159,23 @@ public class ProjectAssignmentStatusServiceImpl implements ProjectAssignmentStat
 	}
 
 	/**
-	 * Add status based on date
+	 * Add status based on the booked entries
 	 * @param assignment
 	 * @param status
+	 * @param bookedRange first and last booked date, null when nothing is booked
 	 */
-	private void addDeadlineStatusBasedOnEntries(ProjectAssignment assignment, ProjectAssignmentStatus status)
+	private void addDeadlineStatusBasedOnEntries(ProjectAssignment assignment, ProjectAssignmentStatus status, DateRange bookedRange)
 	{
-		if (assignment.getDateStart() != null)
+		// entries are booked on days, the booked range is widened to whole days
+		if (bookedRange != null)
 		{
-			List<TimesheetEntry> entries = timesheetDAO.getTimesheetEntriesBefore(assignment, assignment.getDateStart());
-			
-			if (entries != null && entries.size() > 0)
+			if (assignment.getDateStart() != null && new LocalDate(bookedRange.getDateStart()).isBefore(new LocalDate(assignment.getDateStart())))
 			{
 				status.addStatus(ProjectAssignmentStatus.Status.BEFORE_START);
 				return;
 			}
-		}
 
-		if (assignment.getDateEnd() != null)
-		{
-			List<TimesheetEntry> entries = timesheetDAO.getTimesheetEntriesAfter(assignment, assignment.getDateEnd());
-			
-			if (entries != null && entries.size() > 0)
+			if (assignment.getDateEnd() != null && new LocalDate(bookedRange.getDateEnd()).isAfter(new LocalDate(assignment.getDateEnd())))
 			{
 				status.addStatus(ProjectAssignmentStatus.Status.AFTER_DEADLINE);
 				return;
@@ -238,11 +295,11 @@ public class ProjectAssignmentStatusServiceImpl implements ProjectAssignmentStat
 	}
 	
 	/**
-	 * @param reportAggregatedDAO the reportAggregatedDAO to set
+	 * @param assignmentBudgetLedger the assignmentBudgetLedger to set
 	 */
-	public void setReportAggregatedDAO(ReportAggregatedDao reportAggregatedDAO)
+	public void setAssignmentBudgetLedger(AssignmentBudgetLedger assignmentBudgetLedger)
 	{
-		this.reportAggregatedDAO = reportAggregatedDAO;
+		this.assignmentBudgetLedger = assignmentBudgetLedger;
 	}
 
 	/**
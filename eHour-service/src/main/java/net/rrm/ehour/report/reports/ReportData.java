@@ -16,12 +16,11 @@
 
 package net.rrm.ehour.report.reports;
 
-import com.google.common.collect.Lists;
 import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.data.LockedDays;
 import net.rrm.ehour.report.reports.element.ReportElement;
 
 import java.io.Serializable;
-import java.util.Date;
 import java.util.List;
 
 /**
@@ -31,21 +30,21 @@ import java.util.List;
 public class ReportData implements Serializable {
     private static final long serialVersionUID = -6344570520998830487L;
 
-    private List<Date> lockedDays;
+    private LockedDays lockedDays;
     private List<? extends ReportElement> reportElements;
     private DateRange reportRange;
 
     public ReportData(List<? extends ReportElement> reportElements, DateRange reportRange) {
-        this(Lists.<Date>newArrayList(), reportElements, reportRange);
+        this(LockedDays.NONE, reportElements, reportRange);
     }
 
-    public ReportData(List<Date> lockedDays, List<? extends ReportElement> reportElements, DateRange reportRange) {
+    public ReportData(LockedDays lockedDays, List<? extends ReportElement> reportElements, DateRange reportRange) {
         this.lockedDays = lockedDays;
         this.reportElements = reportElements;
         this.reportRange = reportRange;
     }
 
-    public List<Date> getLockedDays() {
+    public LockedDays getLockedDays() {
         return lockedDays;
     }
 
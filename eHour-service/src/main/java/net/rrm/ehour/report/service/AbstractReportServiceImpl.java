@@ -18,6 +18,7 @@ package net.rrm.ehour.report.service;
 
 import com.google.common.collect.Lists;
 import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.data.LockedDays;
 import net.rrm.ehour.domain.Project;
 import net.rrm.ehour.domain.User;
 import net.rrm.ehour.persistence.project.dao.ProjectDao;
@@ -26,13 +27,13 @@ import net.rrm.ehour.report.criteria.ReportCriteria;
 import net.rrm.ehour.report.criteria.UserSelectedCriteria;
 import net.rrm.ehour.report.reports.ReportData;
 import net.rrm.ehour.report.reports.element.ProjectStructuredReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
+import net.rrm.ehour.report.service.ChunkedReportExecutor.ChunkQuery;
+import net.rrm.ehour.report.service.ChunkedReportExecutor.ReportChunk;
 import net.rrm.ehour.timesheet.service.TimesheetLockService;
-import net.rrm.ehour.timesheet.service.TimesheetLockService$;
-import org.joda.time.Interval;
-import scala.collection.Seq;
+import net.rrm.ehour.util.EhourUtil;
 
-import java.util.Date;
-import java.util.List;
+import java.util.*;
 
 /**
  * Abstract report service provides utility methods for dealing
@@ -46,83 +47,176 @@ public abstract class AbstractReportServiceImpl<RE extends ProjectStructuredRepo
 
     private TimesheetLockService lockService;
 
+    private ReportDataCache reportDataCache;
+
+    private ChunkedReportExecutor chunkedReportExecutor;
+
     AbstractReportServiceImpl() {
     }
 
-    protected AbstractReportServiceImpl(UserDao userDAO, ProjectDao projectDAO, TimesheetLockService lockService) {
+    protected AbstractReportServiceImpl(UserDao userDAO, ProjectDao projectDAO, TimesheetLockService lockService, ReportDataCache reportDataCache, ChunkedReportExecutor chunkedReportExecutor) {
         this.userDAO = userDAO;
         this.projectDAO = projectDAO;
         this.lockService = lockService;
+        this.reportDataCache = reportDataCache;
+        this.chunkedReportExecutor = chunkedReportExecutor;
     }
 
     /**
-     * Get report data for criteria
+     * Get report data for criteria, served from the cache when the same report was generated before
      *
      * @param reportCriteria
      * @return
      */
-    protected ReportData getReportData(ReportCriteria reportCriteria) {
+    protected ReportData getReportData(final ReportCriteria reportCriteria) {
+        ReportDataCacheKey key = ReportDataCacheKey.forCriteria(getClass().getName(), reportCriteria);
+
+        return reportDataCache.get(key, new ReportDataCache.Loader() {
+            @Override
+            public ReportData load() {
+                return generateReportData(reportCriteria);
+            }
+        });
+    }
+
+    private ReportData generateReportData(ReportCriteria reportCriteria) {
         UserSelectedCriteria userSelectedCriteria = reportCriteria.getUserSelectedCriteria();
 
         DateRange reportRange = reportCriteria.getReportRange();
 
-        Seq<Interval> lockedDatesAsIntervals = lockService.findLockedDatesInRange(reportRange.getDateStart(), reportRange.getDateEnd());
-        List<Date> lockedDates = TimesheetLockService$.MODULE$.intervalToJavaList(lockedDatesAsIntervals);
+        LockedDays lockedDays = getLockedDays(reportRange);
 
-        List<RE> allReportElements  = generateReport(userSelectedCriteria, lockedDates, reportRange);
+        List<RE> reportElements = generateReport(userSelectedCriteria, lockedDays, reportRange);
 
-        if (userSelectedCriteria.isForPm()) {
-            List<ProjectStructuredReportElement> elem = evictNonPmReportElements(userSelectedCriteria, allReportElements);
-            return new ReportData(lockedDates, elem, reportRange);
-        } else {
-            return new ReportData(lockedDates, allReportElements, reportRange);
-        }
+        return new ReportData(lockedDays, reportElements, reportRange);
     }
 
-    private List<ProjectStructuredReportElement> evictNonPmReportElements(UserSelectedCriteria userSelectedCriteria, List<RE> allReportElements) {
-        List<Integer> projectIds = fetchAllowedProjectIds(userSelectedCriteria);
+    /**
+     * Stream report data for criteria to the handler, one element at a time.
+     * Chunked reports are buffered per date range only
+     *
+     * @param reportCriteria
+     * @param reportHandler
+     */
+    protected void streamReportData(ReportCriteria reportCriteria, ReportElementHandler<RE> reportHandler) {
+        UserSelectedCriteria userSelectedCriteria = reportCriteria.getUserSelectedCriteria();
 
-        List<ProjectStructuredReportElement> allowedElements = Lists.newArrayList();
+        DateRange reportRange = reportCriteria.getReportRange();
+
+        LockedDays lockedDays = getLockedDays(reportRange);
 
-        for (ProjectStructuredReportElement reportElement : allReportElements) {
-            if (projectIds.contains(reportElement.getProjectId())) {
-                allowedElements.add(reportElement);
+        List<User> users = getUsers(userSelectedCriteria);
+        List<Project> projects = getReportProjects(userSelectedCriteria);
+
+        if (isEmptyRestriction(users, projects)) {
+            return;
+        }
+
+        for (DateRange range : splitReportRange(reportRange)) {
+            List<ReportChunk> chunks = chunkedReportExecutor.split(users, projects, range);
+
+            if (chunks.size() == 1) {
+                streamReportElements(users, projects, lockedDays, range, reportHandler);
+            } else {
+                for (RE reportElement : chunkedReportExecutor.execute(chunks, createChunkQuery(lockedDays), getReportElementOrdering())) {
+                    reportHandler.handle(reportElement);
+                }
             }
         }
-        return allowedElements;
     }
 
-    private List<Integer> fetchAllowedProjectIds(UserSelectedCriteria userSelectedCriteria) {
-        List<Project> allowedProjects = projectDAO.findActiveProjectsWhereUserIsPM(userSelectedCriteria.getPm());
+    private LockedDays getLockedDays(DateRange reportRange) {
+        return lockService.findLockedDays(reportRange.getDateStart(), reportRange.getDateEnd());
+    }
 
-        List<Integer> projectIds = Lists.newArrayList();
+    /**
+     * Projects to restrict the report queries to. PM reports only include the active
+     * projects of the PM, that restriction is part of the queries rather than filtered
+     * from the results
+     *
+     * @param userSelectedCriteria
+     * @return null when the report is not restricted on projects
+     */
+    private List<Project> getReportProjects(UserSelectedCriteria userSelectedCriteria) {
+        List<Project> projects = getProjects(userSelectedCriteria);
 
-        for (Project allowedProject : allowedProjects) {
-            projectIds.add(allowedProject.getProjectId());
+        if (!userSelectedCriteria.isForPm()) {
+            return projects;
         }
-        return projectIds;
-    }
 
+        List<Project> pmProjects = projectDAO.findActiveProjectsWhereUserIsPM(userSelectedCriteria.getPm());
+
+        if (projects == null) {
+            return pmProjects;
+        }
 
-    private List<RE> generateReport(UserSelectedCriteria userSelectedCriteria, List<Date> lockedDates, DateRange reportRange) {
-        boolean noUserRestrictionProvided = userSelectedCriteria.isEmptyDepartments() && userSelectedCriteria.isEmptyUsers();
-        boolean noProjectRestrictionProvided = userSelectedCriteria.isEmptyCustomers() && userSelectedCriteria.isEmptyProjects();
+        Set<Integer> selectedProjectIds = new HashSet<Integer>(EhourUtil.getIdsFromDomainObjects(projects));
 
-        List<Project> projects = null;
-        List<User> users = null;
+        List<Project> allowedProjects = Lists.newArrayList();
 
-        if (!noProjectRestrictionProvided || !noUserRestrictionProvided) {
-            if (noProjectRestrictionProvided) {
-                users = getUsers(userSelectedCriteria);
-            } else if (noUserRestrictionProvided) {
-                projects = getProjects(userSelectedCriteria);
-            } else {
-                users = getUsers(userSelectedCriteria);
-                projects = getProjects(userSelectedCriteria);
+        for (Project pmProject : pmProjects) {
+            if (selectedProjectIds.contains(pmProject.getProjectId())) {
+                allowedProjects.add(pmProject);
             }
         }
 
-        return getReportElements(users, projects, lockedDates, reportRange);
+        return allowedProjects;
+    }
+
+    private static boolean isEmptyRestriction(List<User> users, List<Project> projects) {
+        return (users != null && users.isEmpty()) || (projects != null && projects.isEmpty());
+    }
+
+
+    private List<RE> generateReport(UserSelectedCriteria userSelectedCriteria, LockedDays lockedDays, DateRange reportRange) {
+        // getUsers & getProjects return null when no restriction is provided
+        List<User> users = getUsers(userSelectedCriteria);
+        List<Project> projects = getReportProjects(userSelectedCriteria);
+
+        if (isEmptyRestriction(users, projects)) {
+            return Lists.newArrayList();
+        }
+
+        List<ReportChunk> chunks = Lists.newArrayList();
+
+        for (DateRange range : splitReportRange(reportRange)) {
+            chunks.addAll(chunkedReportExecutor.split(users, projects, range));
+        }
+
+        return chunkedReportExecutor.execute(chunks, createChunkQuery(lockedDays), getReportElementOrdering());
+    }
+
+    private List<DateRange> splitReportRange(DateRange reportRange) {
+        return isSplitOnReportRange() ? chunkedReportExecutor.splitDateRange(reportRange) : Collections.singletonList(reportRange);
+    }
+
+    private ChunkQuery<RE> createChunkQuery(final LockedDays lockedDays) {
+        return new ChunkQuery<RE>() {
+            @Override
+            public List<RE> query(ReportChunk chunk) {
+                return getReportElements(chunk.getUsers(), chunk.getProjects(), lockedDays, chunk.getDateRange());
+            }
+        };
+    }
+
+    /**
+     * Whether the elements of consecutive parts of the report range can simply be concatenated,
+     * allowing long report ranges to be queried in chunks. False by default
+     *
+     * @return
+     */
+    protected boolean isSplitOnReportRange() {
+        return false;
+    }
+
+    /**
+     * Order of the report elements as returned by getReportElements, used to merge chunked
+     * results. Null when the order is not significant
+     *
+     * @return
+     */
+    protected Comparator<? super RE> getReportElementOrdering() {
+        return null;
     }
 
     /**
@@ -135,9 +229,29 @@ public abstract class AbstractReportServiceImpl<RE extends ProjectStructuredRepo
      */
     protected abstract List<RE> getReportElements(List<User> users,
                                                   List<Project> projects,
-                                                  List<Date> lockedDates,
+                                                  LockedDays lockedDays,
                                                   DateRange reportRange);
 
+    /**
+     * Stream the actual data to the handler. Defaults to walking the list
+     * of getReportElements, override when the data can be streamed from the source
+     *
+     * @param users
+     * @param projects
+     * @param lockedDays
+     * @param reportRange
+     * @param handler
+     */
+    protected void streamReportElements(List<User> users,
+                                        List<Project> projects,
+                                        LockedDays lockedDays,
+                                        DateRange reportRange,
+                                        ReportElementHandler<RE> handler) {
+        for (RE reportElement : getReportElements(users, projects, lockedDays, reportRange)) {
+            handler.handle(reportElement);
+        }
+    }
+
     /**
      * Get project id's based on selected customers
      *
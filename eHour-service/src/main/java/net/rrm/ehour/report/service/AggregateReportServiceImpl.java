@@ -17,6 +17,7 @@
 package net.rrm.ehour.report.service;
 
 import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.data.LockedDays;
 import net.rrm.ehour.domain.Project;
 import net.rrm.ehour.domain.ProjectAssignment;
 import net.rrm.ehour.domain.User;
@@ -47,15 +48,18 @@ public class AggregateReportServiceImpl extends AbstractReportServiceImpl<Assign
 
     private ProjectAssignmentService projectAssignmentService;
 
+    private BookingDateRangeService bookingDateRangeService;
+
     AggregateReportServiceImpl() {
         super();
     }
 
     @Autowired
-    public AggregateReportServiceImpl(ReportAggregatedDao reportAggregatedDAO, ProjectAssignmentService projectAssignmentService, UserDao userDao, ProjectDao projectDao, TimesheetLockService lockService) {
-        super(userDao, projectDao, lockService);
+    public AggregateReportServiceImpl(ReportAggregatedDao reportAggregatedDAO, ProjectAssignmentService projectAssignmentService, BookingDateRangeService bookingDateRangeService, UserDao userDao, ProjectDao projectDao, TimesheetLockService lockService, ReportDataCache reportDataCache, ChunkedReportExecutor chunkedReportExecutor) {
+        super(userDao, projectDao, lockService, reportDataCache, chunkedReportExecutor);
         this.reportAggregatedDAO = reportAggregatedDAO;
         this.projectAssignmentService = projectAssignmentService;
+        this.bookingDateRangeService = bookingDateRangeService;
     }
 
     public List<AssignmentAggregateReportElement> getHoursPerAssignment(List<? extends Serializable> projectAssignmentIds) {
@@ -85,7 +89,7 @@ public class AggregateReportServiceImpl extends AbstractReportServiceImpl<Assign
     }
 
     @Override
-    protected List<AssignmentAggregateReportElement> getReportElements(List<User> users, List<Project> projects, List<Date> lockedDates, DateRange reportRange) {
+    protected List<AssignmentAggregateReportElement> getReportElements(List<User> users, List<Project> projects, LockedDays lockedDays, DateRange reportRange) {
         List<AssignmentAggregateReportElement> aggregates = new ArrayList<AssignmentAggregateReportElement>();
 
         if (users == null && projects == null) {
@@ -147,7 +151,6 @@ public class AggregateReportServiceImpl extends AbstractReportServiceImpl<Assign
     }
 
     private DateRange getReportRangeForProject(Project project) {
-        DateRange minMaxRange = reportAggregatedDAO.getMinMaxDateTimesheetEntry(project);
-        return new DateRange(minMaxRange.getDateStart(), minMaxRange.getDateEnd());
+        return bookingDateRangeService.getBookingRange(project);
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import net.rrm.ehour.domain.ProjectAssignment;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Keeps the assignment/month rollup used by the aggregate reports in sync with the timesheet entries
+ */
+public interface AssignmentRollupService {
+    /**
+     * Recalculate the rollup of an assignment for every month in which one of the dates falls
+     *
+     * @param assignment
+     * @param dates
+     */
+    void updateRollup(ProjectAssignment assignment, Collection<Date> dates);
+
+    /**
+     * Remove the rollup of assignments whose timesheet entries were deleted
+     *
+     * @param assignmentIds
+     */
+    void deleteRollup(List<? extends Serializable> assignmentIds);
+
+    /**
+     * Rebuild the complete rollup from the timesheet entries. Aggregate reports
+     * are summed from the timesheet entries until the rebuild is committed.
+     */
+    void rebuild();
+
+    /**
+     * Rebuild the rollup of specific assignments
+     *
+     * @param assignmentIds
+     */
+    void rebuild(Collection<Integer> assignmentIds);
+
+    /**
+     * Whether there are timesheet entries but no rollup at all, as after an upgrade
+     *
+     * @return
+     */
+    boolean isRollupMissing();
+
+    /**
+     * Consistency check comparing the total hours per assignment of the rollup with the timesheet entries
+     *
+     * @return id's of the assignments for which the rollup is out of sync
+     */
+    List<Integer> findInconsistentAssignments();
+}
@@ -0,0 +1,176 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.persistence.report.dao.AssignmentRollupDao;
+import org.apache.log4j.Logger;
+import org.joda.time.LocalDate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.util.*;
+
+@Service("assignmentRollupService")
+public class AssignmentRollupServiceImpl implements AssignmentRollupService {
+    private static final Logger LOGGER = Logger.getLogger(AssignmentRollupServiceImpl.class);
+
+    // hours are stored as floats, allow for rounding differences between the two sums
+    private static final double TOLERANCE = 0.01;
+
+    private AssignmentRollupDao assignmentRollupDao;
+
+    @Autowired
+    public AssignmentRollupServiceImpl(AssignmentRollupDao assignmentRollupDao) {
+        this.assignmentRollupDao = assignmentRollupDao;
+    }
+
+    @Override
+    @Transactional
+    public void updateRollup(ProjectAssignment assignment, Collection<Date> dates) {
+        Set<LocalDate> months = new TreeSet<LocalDate>();
+
+        for (Date date : dates) {
+            if (date != null) {
+                months.add(new LocalDate(date).withDayOfMonth(1));
+            }
+        }
+
+        if (months.isEmpty()) {
+            return;
+        }
+
+        // concurrent saves of the same assignment would otherwise both insert the same month
+        assignmentRollupDao.lockAssignment(assignment);
+
+        for (LocalDate monthStart : months) {
+            DateRange month = new DateRange(monthStart.toDate(), monthStart.dayOfMonth().withMaximumValue().toDate());
+
+            assignmentRollupDao.deleteForAssignmentInRange(assignment, month);
+            assignmentRollupDao.rollupAssignmentInRange(assignment, month);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void deleteRollup(List<? extends Serializable> assignmentIds) {
+        if (!assignmentIds.isEmpty()) {
+            assignmentRollupDao.deleteForAssignments(assignmentIds);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void rebuild() {
+        boolean resetOnCompletion = startRebuild();
+
+        try {
+            LOGGER.info("Rebuilding assignment rollup");
+
+            assignmentRollupDao.deleteAll();
+            assignmentRollupDao.rollupAll();
+        } finally {
+            if (!resetOnCompletion) {
+                assignmentRollupDao.setRebuilding(false);
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void rebuild(Collection<Integer> assignmentIds) {
+        if (assignmentIds.isEmpty()) {
+            return;
+        }
+
+        boolean resetOnCompletion = startRebuild();
+
+        try {
+            LOGGER.info("Rebuilding assignment rollup for " + assignmentIds.size() + " assignments");
+
+            List<Integer> ids = new ArrayList<Integer>(assignmentIds);
+
+            assignmentRollupDao.deleteForAssignments(ids);
+            assignmentRollupDao.rollupAssignments(ids);
+        } finally {
+            if (!resetOnCompletion) {
+                assignmentRollupDao.setRebuilding(false);
+            }
+        }
+    }
+
+    /**
+     * Flag the rollup as unavailable. When running in a transaction the flag is only
+     * cleared after the rebuilt rollup is committed (or rolled back)
+     *
+     * @return true when the flag is cleared by the transaction
+     */
+    private boolean startRebuild() {
+        assignmentRollupDao.setRebuilding(true);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    assignmentRollupDao.setRebuilding(false);
+                }
+            });
+
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isRollupMissing() {
+        return assignmentRollupDao.isRollupMissing();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Integer> findInconsistentAssignments() {
+        Map<Integer, Number> rawHours = assignmentRollupDao.getRawHoursPerAssignment();
+        Map<Integer, Number> rolledUpHours = assignmentRollupDao.getRolledUpHoursPerAssignment();
+
+        Set<Integer> assignmentIds = new TreeSet<Integer>(rawHours.keySet());
+        assignmentIds.addAll(rolledUpHours.keySet());
+
+        List<Integer> inconsistentIds = new ArrayList<Integer>();
+
+        for (Integer assignmentId : assignmentIds) {
+            double raw = toDouble(rawHours.get(assignmentId));
+            double rolledUp = toDouble(rolledUpHours.get(assignmentId));
+
+            if (Math.abs(raw - rolledUp) > TOLERANCE) {
+                inconsistentIds.add(assignmentId);
+            }
+        }
+
+        return inconsistentIds;
+    }
+
+    private double toDouble(Number hours) {
+        return hours == null ? 0 : hours.doubleValue();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.Project;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.domain.User;
+
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * First and last booked date, overall and per user and project. The bounds are kept
+ * in memory and maintained on timesheet writes rather than queried for every report.
+ */
+public interface BookingDateRangeService {
+    /**
+     * Range between the first and last booked date, empty when nothing was booked
+     *
+     * @return
+     */
+    DateRange getBookingRange();
+
+    DateRange getBookingRange(User user);
+
+    DateRange getBookingRange(Project project);
+
+    /**
+     * Hours were booked on an assignment, widen the bounds once the transaction commits
+     *
+     * @param assignment
+     * @param dates
+     */
+    void addBookings(ProjectAssignment assignment, Collection<Date> dates);
+
+    /**
+     * Bookings of an assignment were removed, bounds on one of the dates are reloaded
+     *
+     * @param assignment
+     * @param dates
+     */
+    void removeBookings(ProjectAssignment assignment, Collection<Date> dates);
+
+    void invalidateAll();
+}
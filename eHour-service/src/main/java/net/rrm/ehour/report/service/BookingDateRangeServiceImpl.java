@@ -0,0 +1,288 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.Project;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao;
+import net.rrm.ehour.timesheet.service.BookingsChange;
+import net.rrm.ehour.timesheet.service.BookingsListener;
+import org.apache.commons.lang.time.DateUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Bounds are loaded with the min/max queries the first time they're asked for and kept
+ * until a booking on the first or last date is removed. New bookings only widen bounds
+ * which are already known, so a write never costs a query.
+ */
+@Service("bookingDateRangeService")
+public class BookingDateRangeServiceImpl implements BookingDateRangeService, BookingsListener {
+    private final ReportAggregatedDao reportAggregatedDAO;
+
+    private final Map<BoundsKey, DateRange> bounds = new HashMap<BoundsKey, DateRange>();
+
+    // bumped on every change, bounds loaded before that may be stale and are not kept
+    private long generation;
+
+    @Autowired
+    public BookingDateRangeServiceImpl(ReportAggregatedDao reportAggregatedDAO) {
+        this.reportAggregatedDAO = reportAggregatedDAO;
+    }
+
+    @Override
+    public DateRange getBookingRange() {
+        return get(BoundsKey.ALL, new Loader() {
+            @Override
+            public DateRange load() {
+                return reportAggregatedDAO.getMinMaxDateTimesheetEntry();
+            }
+        });
+    }
+
+    @Override
+    public DateRange getBookingRange(final User user) {
+        return get(BoundsKey.forUser(user.getUserId()), new Loader() {
+            @Override
+            public DateRange load() {
+                return reportAggregatedDAO.getMinMaxDateTimesheetEntry(user);
+            }
+        });
+    }
+
+    @Override
+    public DateRange getBookingRange(final Project project) {
+        return get(BoundsKey.forProject(project.getProjectId()), new Loader() {
+            @Override
+            public DateRange load() {
+                return reportAggregatedDAO.getMinMaxDateTimesheetEntry(project);
+            }
+        });
+    }
+
+    private DateRange get(BoundsKey key, Loader loader) {
+        long loadGeneration;
+
+        synchronized (this) {
+            DateRange range = bounds.get(key);
+
+            if (range != null) {
+                return copy(range);
+            }
+
+            loadGeneration = generation;
+        }
+
+        DateRange range = loader.load();
+
+        if (range == null) {
+            range = new DateRange();
+        }
+
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                bounds.put(key, copy(range));
+            }
+        }
+
+        return copy(range);
+    }
+
+    @Override
+    public void addBookings(ProjectAssignment assignment, Collection<Date> dates) {
+        if (dates.isEmpty()) {
+            return;
+        }
+
+        final List<BoundsKey> keys = getKeys(assignment);
+        final Date first = Collections.min(dates);
+        final Date last = Collections.max(dates);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                        widen(keys, first, last);
+                    } else {
+                        discardLoads();
+                    }
+                }
+            });
+        } else {
+            widen(keys, first, last);
+        }
+    }
+
+    private synchronized void widen(List<BoundsKey> keys, Date first, Date last) {
+        generation++;
+
+        for (BoundsKey key : keys) {
+            DateRange range = bounds.get(key);
+
+            if (range == null) {
+                continue;
+            }
+
+            if (range.isEmpty()) {
+                bounds.put(key, new DateRange(first, last));
+            } else {
+                bounds.put(key, new DateRange(first.before(range.getDateStart()) ? first : range.getDateStart(),
+                                              last.after(range.getDateEnd()) ? last : range.getDateEnd()));
+            }
+        }
+    }
+
+    private synchronized void discardLoads() {
+        generation++;
+    }
+
+    @Override
+    public void removeBookings(ProjectAssignment assignment, Collection<Date> dates) {
+        if (dates.isEmpty()) {
+            return;
+        }
+
+        final List<BoundsKey> keys = getKeys(assignment);
+        final List<Date> removedDates = new ArrayList<Date>(dates);
+
+        // remove right away and once more when the transaction completes, bounds
+        // loaded while the transaction was running still include the removed dates
+        removeBounds(keys, removedDates);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    removeBounds(keys, removedDates);
+                }
+            });
+        }
+    }
+
+    private synchronized void removeBounds(List<BoundsKey> keys, List<Date> removedDates) {
+        generation++;
+
+        for (BoundsKey key : keys) {
+            DateRange range = bounds.get(key);
+
+            if (range != null && isOnBound(range, removedDates)) {
+                bounds.remove(key);
+            }
+        }
+    }
+
+    private static boolean isOnBound(DateRange range, List<Date> dates) {
+        if (range.isEmpty()) {
+            return false;
+        }
+
+        for (Date date : dates) {
+            if (DateUtils.isSameDay(date, range.getDateStart()) || DateUtils.isSameDay(date, range.getDateEnd())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void onBookingsChanged(BookingsChange change) {
+        addBookings(change.getAssignment(), change.getBookedDates());
+        removeBookings(change.getAssignment(), change.getRemovedDates());
+    }
+
+    @Override
+    public void onBookingsRemoved(User user, List<Integer> assignmentIds) {
+        invalidateAll();
+    }
+
+    @Override
+    public void invalidateAll() {
+        clear();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    private synchronized void clear() {
+        generation++;
+        bounds.clear();
+    }
+
+    private static List<BoundsKey> getKeys(ProjectAssignment assignment) {
+        return Arrays.asList(BoundsKey.ALL,
+                BoundsKey.forUser(assignment.getUser().getUserId()),
+                BoundsKey.forProject(assignment.getProject().getProjectId()));
+    }
+
+    private static DateRange copy(DateRange range) {
+        return new DateRange(range.getDateStart(), range.getDateEnd());
+    }
+
+    private interface Loader {
+        DateRange load();
+    }
+
+    private static final class BoundsKey {
+        private static final BoundsKey ALL = new BoundsKey('A', null);
+
+        private final char type;
+        private final Integer id;
+
+        private BoundsKey(char type, Integer id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        static BoundsKey forUser(Integer userId) {
+            return new BoundsKey('U', userId);
+        }
+
+        static BoundsKey forProject(Integer projectId) {
+            return new BoundsKey('P', projectId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BoundsKey)) {
+                return false;
+            }
+
+            BoundsKey other = (BoundsKey) o;
+            return type == other.type && (id == null ? other.id == null : id.equals(other.id));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type + (id == null ? 0 : id.hashCode());
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.Project;
+import net.rrm.ehour.domain.User;
+import org.apache.log4j.Logger;
+import org.joda.time.LocalDate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Splits report queries with long user/project lists or long date ranges into chunks
+ * which are queried concurrently, each in its own read-only transaction. Keeps the
+ * IN lists within database parameter limits.
+ * <p/>
+ * The calling thread keeps its connection while it waits for the chunks. To keep those
+ * waiting callers from taking all connections the chunk threads need, only maxConcurrentReports
+ * reports fan out at a time, keep it below the size of the datasource pool. Other reports
+ * query their chunks one after the other on the calling thread. Chunks run on the calling
+ * thread because the queue is full join its transaction rather than taking a second connection.
+ */
+@Service("chunkedReportExecutor")
+public class ChunkedReportExecutor implements DisposableBean {
+    private static final Logger LOGGER = Logger.getLogger(ChunkedReportExecutor.class);
+
+    private final int maxIds;
+    private final int maxDays;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore fanOutPermits;
+    private final ThreadLocal<ProgressListener> progressListener = new ThreadLocal<ProgressListener>();
+
+    @Autowired
+    public ChunkedReportExecutor(PlatformTransactionManager transactionManager,
+                                 @Value("${ehour.report.chunk.maxIds:500}") int maxIds,
+                                 @Value("${ehour.report.chunk.maxDays:92}") int maxDays,
+                                 @Value("${ehour.report.chunk.threads:4}") int threads,
+                                 @Value("${ehour.report.chunk.maxConcurrentReports:2}") int maxConcurrentReports) {
+        this.maxIds = maxIds;
+        this.maxDays = maxDays;
+
+        // the chunk threads never run in a transaction, on the calling thread the chunk joins the caller's
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+
+        fanOutPermits = new Semaphore(maxConcurrentReports);
+
+        // a full queue runs the chunk on the calling thread rather than queueing without bounds
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 16),
+                new ThreadFactoryBuilder().setNameFormat("ehour-report-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Split the date range in consecutive ranges of at most maxDays. Open ended ranges are not split
+     *
+     * @param dateRange
+     * @return
+     */
+    public List<DateRange> splitDateRange(DateRange dateRange) {
+        if (dateRange.getDateStart() == null || dateRange.getDateEnd() == null) {
+            return Collections.singletonList(dateRange);
+        }
+
+        List<DateRange> ranges = new ArrayList<DateRange>();
+
+        LocalDate start = new LocalDate(dateRange.getDateStart());
+        LocalDate end = new LocalDate(dateRange.getDateEnd());
+
+        while (!start.plusDays(maxDays).isAfter(end)) {
+            LocalDate next = start.plusDays(maxDays);
+            ranges.add(new DateRange(start.toDate(), next.minusDays(1).toDate()));
+            start = next;
+        }
+
+        // the last range keeps the original end date
+        if (!start.isAfter(end)) {
+            ranges.add(new DateRange(start.toDate(), dateRange.getDateEnd()));
+        }
+
+        return ranges;
+    }
+
+    /**
+     * Split the users and projects in chunks of at most maxIds and combine them.
+     * A null list (no restriction) or an empty list is passed on as is
+     *
+     * @param users
+     * @param projects
+     * @param dateRange
+     * @return
+     */
+    public List<ReportChunk> split(List<User> users, List<Project> projects, DateRange dateRange) {
+        List<ReportChunk> chunks = new ArrayList<ReportChunk>();
+
+        for (List<User> userChunk : partition(users)) {
+            for (List<Project> projectChunk : partition(projects)) {
+                chunks.add(new ReportChunk(userChunk, projectChunk, dateRange));
+            }
+        }
+
+        return chunks;
+    }
+
+    private <T> List<List<T>> partition(List<T> list) {
+        if (list == null || list.size() <= maxIds) {
+            return Collections.singletonList(list);
+        }
+
+        return Lists.partition(list, maxIds);
+    }
+
+    /**
+     * Report the progress of chunked queries run on the current thread to the listener
+     *
+     * @param listener null to stop reporting
+     */
+    public void setProgressListener(ProgressListener listener) {
+        if (listener == null) {
+            progressListener.remove();
+        } else {
+            progressListener.set(listener);
+        }
+    }
+
+    /**
+     * Query the chunks and merge the results in the order of the chunks. A single chunk
+     * is queried on the calling thread in the current transaction, as are all chunks when
+     * too many reports are fanned out already. When an ordering is given, the merged results
+     * are sorted on it
+     *
+     * @param chunks
+     * @param query
+     * @param ordering may be null
+     * @return
+     */
+    public <E> List<E> execute(List<ReportChunk> chunks, final ChunkQuery<E> query, Comparator<? super E> ordering) {
+        if (chunks.size() == 1) {
+            return query.query(chunks.get(0));
+        }
+
+        List<E> results;
+
+        if (fanOutPermits.tryAcquire()) {
+            try {
+                results = queryConcurrently(chunks, query);
+            } finally {
+                fanOutPermits.release();
+            }
+        } else {
+            results = querySequentially(chunks, query);
+        }
+
+        if (ordering != null) {
+            // the chunks are sorted already, which the merge sort picks up on
+            Collections.sort(results, ordering);
+        }
+
+        return results;
+    }
+
+    private <E> List<E> querySequentially(List<ReportChunk> chunks, ChunkQuery<E> query) {
+        LOGGER.debug("Querying report in " + chunks.size() + " chunks on the calling thread");
+
+        List<E> results = new ArrayList<E>();
+
+        for (int i = 0; i < chunks.size(); i++) {
+            results.addAll(query.query(chunks.get(i)));
+            chunkDone(i + 1, chunks.size());
+        }
+
+        return results;
+    }
+
+    private <E> List<E> queryConcurrently(List<ReportChunk> chunks, final ChunkQuery<E> query) {
+        LOGGER.debug("Querying report in " + chunks.size() + " concurrent chunks");
+
+        List<Future<List<E>>> futures = new ArrayList<Future<List<E>>>(chunks.size());
+
+        try {
+            for (final ReportChunk chunk : chunks) {
+                futures.add(executor.submit(new Callable<List<E>>() {
+                    @Override
+                    public List<E> call() throws Exception {
+                        return transactionTemplate.execute(new TransactionCallback<List<E>>() {
+                            @Override
+                            public List<E> doInTransaction(TransactionStatus status) {
+                                return query.query(chunk);
+                            }
+                        });
+                    }
+                }));
+            }
+
+            List<E> results = new ArrayList<E>();
+
+            for (int i = 0; i < futures.size(); i++) {
+                results.addAll(futures.get(i).get());
+                chunkDone(i + 1, futures.size());
+            }
+
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for report chunks", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException(cause);
+            }
+        } finally {
+            for (Future<List<E>> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void chunkDone(int done, int total) {
+        ProgressListener listener = progressListener.get();
+
+        if (listener != null) {
+            listener.chunksDone(done, total);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Progress of a chunked report
+     */
+    public interface ProgressListener {
+        void chunksDone(int done, int total);
+    }
+
+    /**
+     * Query for one chunk of the report
+     */
+    public interface ChunkQuery<E> {
+        List<E> query(ReportChunk chunk);
+    }
+
+    /**
+     * Users, projects and date range of one chunk. The users and projects are null when not restricted
+     */
+    public static class ReportChunk {
+        private final List<User> users;
+        private final List<Project> projects;
+        private final DateRange dateRange;
+
+        ReportChunk(List<User> users, List<Project> projects, DateRange dateRange) {
+            this.users = users;
+            this.projects = projects;
+            this.dateRange = dateRange;
+        }
+
+        public List<User> getUsers() {
+            return users;
+        }
+
+        public List<Project> getProjects() {
+            return projects;
+        }
+
+        public DateRange getDateRange() {
+            return dateRange;
+        }
+    }
+}
@@ -18,6 +18,8 @@ package net.rrm.ehour.report.service;
 
 import net.rrm.ehour.report.criteria.ReportCriteria;
 import net.rrm.ehour.report.reports.ReportData;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
 
 /**
  * Report service for detailed reports
@@ -32,4 +34,12 @@ public interface DetailedReportService
 	 * @return
 	 */
 	ReportData getDetailedReportData(ReportCriteria criteria);
+
+	/**
+	 * Stream the detailed report elements for the criteria to the handler
+	 * without collecting them first, ordered by date
+	 * @param criteria
+	 * @param handler
+	 */
+	void streamDetailedReportData(ReportCriteria criteria, ReportElementHandler<FlatReportElement> handler);
 }
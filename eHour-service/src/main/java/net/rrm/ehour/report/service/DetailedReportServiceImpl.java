@@ -17,6 +17,7 @@
 package net.rrm.ehour.report.service;
 
 import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.data.LockedDays;
 import net.rrm.ehour.domain.Project;
 import net.rrm.ehour.domain.User;
 import net.rrm.ehour.persistence.project.dao.ProjectDao;
@@ -26,11 +27,15 @@ import net.rrm.ehour.report.criteria.ReportCriteria;
 import net.rrm.ehour.report.reports.ReportData;
 import net.rrm.ehour.report.reports.element.FlatReportElement;
 import net.rrm.ehour.report.reports.element.LockableDate;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
 import net.rrm.ehour.timesheet.service.TimesheetLockService;
 import net.rrm.ehour.util.EhourUtil;
+import org.apache.commons.lang.builder.CompareToBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 
@@ -39,14 +44,27 @@ import java.util.List;
  */
 @Service("detailedReportService")
 public class DetailedReportServiceImpl extends AbstractReportServiceImpl<FlatReportElement> implements DetailedReportService {
+    // same order as the Report.getHoursPerDay* queries
+    private static final Comparator<FlatReportElement> QUERY_ORDERING = new Comparator<FlatReportElement>() {
+        @Override
+        public int compare(FlatReportElement o1, FlatReportElement o2) {
+            return new CompareToBuilder()
+                    .append(o1.getDayDate(), o2.getDayDate())
+                    .append(o1.getCustomerId(), o2.getCustomerId())
+                    .append(o1.getProjectId(), o2.getProjectId())
+                    .append(o1.getUserId(), o2.getUserId())
+                    .toComparison();
+        }
+    };
+
     private DetailedReportDao detailedReportDAO;
 
     DetailedReportServiceImpl() {
     }
 
     @Autowired
-    public DetailedReportServiceImpl(DetailedReportDao detailedReportDAO, UserDao userDao, ProjectDao projectDao, TimesheetLockService lockService) {
-        super(userDao, projectDao, lockService);
+    public DetailedReportServiceImpl(DetailedReportDao detailedReportDAO, UserDao userDao, ProjectDao projectDao, TimesheetLockService lockService, ReportDataCache reportDataCache, ChunkedReportExecutor chunkedReportExecutor) {
+        super(userDao, projectDao, lockService, reportDataCache, chunkedReportExecutor);
         this.detailedReportDAO = detailedReportDAO;
     }
 
@@ -54,21 +72,69 @@ public class DetailedReportServiceImpl extends AbstractReportServiceImpl<FlatRep
         return getReportData(reportCriteria);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamDetailedReportData(ReportCriteria reportCriteria, ReportElementHandler<FlatReportElement> handler) {
+        streamReportData(reportCriteria, handler);
+    }
+
+    @Override
+    protected boolean isSplitOnReportRange() {
+        return true;
+    }
+
+    @Override
+    protected Comparator<FlatReportElement> getReportElementOrdering() {
+        return QUERY_ORDERING;
+    }
+
     @Override
     protected List<FlatReportElement> getReportElements(List<User> users,
                                                         List<Project> projects,
-                                                        List<Date> lockedDates,
+                                                        LockedDays lockedDays,
                                                         DateRange reportRange) {
         List<FlatReportElement> elements = getElements(users, projects, reportRange);
 
         for (FlatReportElement element : elements) {
-            Date date = element.getDayDate();
-            element.setLockableDate(new LockableDate(date, lockedDates.contains(date)));
+            setLockableDate(element, lockedDays);
         }
 
         return elements;
     }
 
+    @Override
+    protected void streamReportElements(List<User> users,
+                                        List<Project> projects,
+                                        final LockedDays lockedDays,
+                                        DateRange reportRange,
+                                        final ReportElementHandler<FlatReportElement> handler) {
+        ReportElementHandler<FlatReportElement> lockingHandler = new ReportElementHandler<FlatReportElement>() {
+            @Override
+            public void handle(FlatReportElement element) {
+                setLockableDate(element, lockedDays);
+                handler.handle(element);
+            }
+        };
+
+        if (users == null && projects == null) {
+            detailedReportDAO.streamHoursPerDay(reportRange, lockingHandler);
+        } else if (projects == null) {
+            detailedReportDAO.streamHoursPerDayForUsers(EhourUtil.getIdsFromDomainObjects(users), reportRange, lockingHandler);
+        } else if (users == null) {
+            detailedReportDAO.streamHoursPerDayForProjects(EhourUtil.getIdsFromDomainObjects(projects), reportRange, lockingHandler);
+        } else {
+            detailedReportDAO.streamHoursPerDayForProjectsAndUsers(EhourUtil.getIdsFromDomainObjects(projects),
+                    EhourUtil.getIdsFromDomainObjects(users),
+                    reportRange,
+                    lockingHandler);
+        }
+    }
+
+    private void setLockableDate(FlatReportElement element, LockedDays lockedDays) {
+        Date date = element.getDayDate();
+        element.setLockableDate(new LockableDate(date, lockedDays.isLocked(date)));
+    }
+
     private List<FlatReportElement> getElements(List<User> users, List<Project> projects, DateRange reportRange) {
         List<FlatReportElement> elements;
 
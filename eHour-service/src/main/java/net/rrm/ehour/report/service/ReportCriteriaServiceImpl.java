@@ -19,7 +19,6 @@ package net.rrm.ehour.report.service;
 import com.google.common.collect.Lists;
 import net.rrm.ehour.audit.annot.NonAuditable;
 import net.rrm.ehour.domain.*;
-import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao;
 import net.rrm.ehour.report.criteria.AvailableCriteria;
 import net.rrm.ehour.report.criteria.ReportCriteria;
 import net.rrm.ehour.report.criteria.ReportCriteriaUpdateType;
@@ -38,7 +37,7 @@ import java.util.List;
 @NonAuditable
 @Service("reportCriteriaService")
 public class ReportCriteriaServiceImpl implements ReportCriteriaService {
-    private ReportAggregatedDao reportAggregatedDAO;
+    private BookingDateRangeService bookingDateRangeService;
 
     private CustomerAndProjectCriteriaFilter customerAndProjectCriteriaFilter;
 
@@ -51,12 +50,12 @@ public class ReportCriteriaServiceImpl implements ReportCriteriaService {
     }
 
     @Autowired
-    public ReportCriteriaServiceImpl(ReportAggregatedDao reportAggregatedDAO,
+    public ReportCriteriaServiceImpl(BookingDateRangeService bookingDateRangeService,
                                      CustomerAndProjectCriteriaFilter customerAndProjectCriteriaFilter,
                                      UserAndDepartmentCriteriaFilter userAndDepartmentCriteriaFilter,
                                      IndividualUserCriteriaSync individualUserCriteriaSync,
                                      TimesheetLockService lockService) {
-        this.reportAggregatedDAO = reportAggregatedDAO;
+        this.bookingDateRangeService = bookingDateRangeService;
         this.customerAndProjectCriteriaFilter = customerAndProjectCriteriaFilter;
         this.userAndDepartmentCriteriaFilter = userAndDepartmentCriteriaFilter;
         this.individualUserCriteriaSync = individualUserCriteriaSync;
@@ -119,7 +118,7 @@ public class ReportCriteriaServiceImpl implements ReportCriteriaService {
             }
 
             if (updateType == ReportCriteriaUpdateType.UPDATE_ALL) {
-                availCriteria.setReportRange(reportAggregatedDAO.getMinMaxDateTimesheetEntry());
+                availCriteria.setReportRange(bookingDateRangeService.getBookingRange());
             }
         } else {
             individualUserCriteriaSync.syncCriteriaForIndividualUser(reportCriteria);
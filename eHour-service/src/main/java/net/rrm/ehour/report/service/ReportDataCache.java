@@ -0,0 +1,78 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.report.reports.ReportData;
+
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Bounded cache of generated report data. Writes which could change a report
+ * invalidate the matching entries, both immediately and once the transaction completes.
+ */
+public interface ReportDataCache {
+    /**
+     * Get the cached report data or load and cache it. Every caller gets its own
+     * list of report elements, the elements themselves are shared and should not be modified
+     *
+     * @param key
+     * @param loader
+     * @return
+     */
+    ReportData get(ReportDataCacheKey key, Loader loader);
+
+    /**
+     * Hours were booked on an assignment
+     *
+     * @param assignment
+     * @param dates
+     */
+    void invalidateBookings(ProjectAssignment assignment, Collection<Date> dates);
+
+    /**
+     * All timesheet data of a user was removed
+     *
+     * @param user
+     */
+    void invalidateUser(User user);
+
+    /**
+     * An assignment was changed (rate, role) or removed
+     *
+     * @param assignment
+     */
+    void invalidateAssignment(ProjectAssignment assignment);
+
+    /**
+     * Locked days within the range changed
+     *
+     * @param dateRange
+     */
+    void invalidateRange(DateRange dateRange);
+
+    void invalidateAll();
+
+    ReportDataCacheStatistics getStatistics();
+
+    interface Loader {
+        ReportData load();
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import com.google.common.base.Predicate;
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.report.reports.ReportData;
+import net.rrm.ehour.report.reports.element.ReportElement;
+import net.rrm.ehour.timesheet.service.BookingsChange;
+import net.rrm.ehour.timesheet.service.BookingsListener;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * LRU cache bounded by the total number of report elements it holds rather than
+ * the number of reports. Keys hold the criteria rather than the resolved projects and
+ * users, so changes to customers, projects, users and departments (project manager,
+ * active and billable flags, department) invalidate everything. Entries also expire
+ * after a while as a safety net.
+ */
+@Service("reportDataCache")
+public class ReportDataCacheImpl implements ReportDataCache, BookingsListener {
+    private static final Logger LOGGER = Logger.getLogger(ReportDataCacheImpl.class);
+
+    private final long maxSize;
+    private final long maxAgeMillis;
+
+    private final LinkedHashMap<ReportDataCacheKey, Entry> entries = new LinkedHashMap<ReportDataCacheKey, Entry>(16, 0.75f, true);
+
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    // bumped on every invalidation, data loaded before that may be stale and is not cached
+    private long generation;
+
+    @Autowired
+    public ReportDataCacheImpl(@Value("${ehour.reportCache.maxSize:250000}") long maxSize,
+                               @Value("${ehour.reportCache.maxAgeMinutes:30}") long maxAgeMinutes) {
+        this.maxSize = maxSize;
+        this.maxAgeMillis = maxAgeMinutes * 60 * 1000;
+    }
+
+    @Override
+    public ReportData get(ReportDataCacheKey key, Loader loader) {
+        long loadGeneration;
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+
+            if (entry != null && !entry.isExpired()) {
+                hits++;
+                return copyOf(entry.reportData);
+            }
+
+            if (entry != null) {
+                remove(key);
+            }
+
+            misses++;
+            loadGeneration = generation;
+        }
+
+        ReportData reportData = loader.load();
+
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                put(key, copyOf(reportData));
+            }
+        }
+
+        return reportData;
+    }
+
+    /**
+     * Callers sort the report elements in place, every caller gets its own list.
+     * The elements themselves are shared
+     */
+    private static ReportData copyOf(ReportData reportData) {
+        if (reportData.getReportElements() == null) {
+            return reportData;
+        }
+
+        List<ReportElement> reportElements = new ArrayList<ReportElement>(reportData.getReportElements());
+
+        return new ReportData(reportData.getLockedDays(), reportElements, reportData.getReportRange());
+    }
+
+    private void put(ReportDataCacheKey key, ReportData reportData) {
+        long weight = weigh(reportData);
+
+        if (weight > maxSize) {
+            return;
+        }
+
+        remove(key);
+
+        entries.put(key, new Entry(reportData, weight));
+        size += weight;
+
+        Iterator<Map.Entry<ReportDataCacheKey, Entry>> iterator = entries.entrySet().iterator();
+
+        while (size > maxSize && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+
+            size -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    private void remove(ReportDataCacheKey key) {
+        Entry entry = entries.remove(key);
+
+        if (entry != null) {
+            size -= entry.weight;
+        }
+    }
+
+    private static long weigh(ReportData reportData) {
+        long weight = 1;
+
+        if (reportData.getReportElements() != null) {
+            weight += reportData.getReportElements().size();
+        }
+
+        return weight;
+    }
+
+    @Override
+    public void invalidateBookings(final ProjectAssignment assignment, final Collection<Date> dates) {
+        final List<Date> modifiedDates = new ArrayList<Date>(dates);
+
+        invalidate(new Predicate<ReportDataCacheKey>() {
+            @Override
+            public boolean apply(ReportDataCacheKey key) {
+                return key.isInRange(modifiedDates) && key.includes(assignment);
+            }
+        });
+    }
+
+    @Override
+    public void invalidateUser(final User user) {
+        invalidate(new Predicate<ReportDataCacheKey>() {
+            @Override
+            public boolean apply(ReportDataCacheKey key) {
+                return key.includes(user);
+            }
+        });
+    }
+
+    @Override
+    public void invalidateAssignment(final ProjectAssignment assignment) {
+        invalidate(new Predicate<ReportDataCacheKey>() {
+            @Override
+            public boolean apply(ReportDataCacheKey key) {
+                return key.includes(assignment);
+            }
+        });
+    }
+
+    @Override
+    public void invalidateRange(final DateRange dateRange) {
+        invalidate(new Predicate<ReportDataCacheKey>() {
+            @Override
+            public boolean apply(ReportDataCacheKey key) {
+                return key.overlaps(dateRange);
+            }
+        });
+    }
+
+    @Override
+    public void onBookingsChanged(BookingsChange change) {
+        invalidateBookings(change.getAssignment(), change.getDates());
+    }
+
+    @Override
+    public void onBookingsRemoved(User user, List<Integer> assignmentIds) {
+        invalidateUser(user);
+    }
+
+    @Override
+    public void invalidateAll() {
+        invalidate(new Predicate<ReportDataCacheKey>() {
+            @Override
+            public boolean apply(ReportDataCacheKey key) {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Remove the matching entries right away and once more when the transaction
+     * completes, so reports generated while the transaction was running are dropped as well
+     */
+    private void invalidate(final Predicate<ReportDataCacheKey> predicate) {
+        removeMatching(predicate);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    removeMatching(predicate);
+                }
+            });
+        }
+    }
+
+    private synchronized void removeMatching(Predicate<ReportDataCacheKey> predicate) {
+        generation++;
+
+        Iterator<Map.Entry<ReportDataCacheKey, Entry>> iterator = entries.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<ReportDataCacheKey, Entry> entry = iterator.next();
+
+            if (predicate.apply(entry.getKey())) {
+                LOGGER.debug("Invalidating cached report " + entry.getKey());
+
+                iterator.remove();
+                size -= entry.getValue().weight;
+                invalidations++;
+            }
+        }
+    }
+
+    @Override
+    public synchronized ReportDataCacheStatistics getStatistics() {
+        return new ReportDataCacheStatistics(hits, misses, evictions, invalidations, entries.size(), size);
+    }
+
+    private class Entry {
+        private final ReportData reportData;
+        private final long weight;
+        private final long created = System.currentTimeMillis();
+
+        private Entry(ReportData reportData, long weight) {
+            this.reportData = reportData;
+            this.weight = weight;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - created > maxAgeMillis;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.*;
+import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.report.criteria.UserSelectedCriteria;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.joda.time.LocalDate;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Canonical form of the report criteria which determine the report data. Selections
+ * are reduced to sorted id's so the order in which they were picked doesn't matter.
+ */
+public final class ReportDataCacheKey implements Serializable {
+    private static final long serialVersionUID = -2318842624512069522L;
+
+    private final String reportName;
+    private final LocalDate dateStart;
+    private final LocalDate dateEnd;
+    private final SortedSet<Integer> userIds;
+    private final SortedSet<Integer> departmentIds;
+    private final SortedSet<Integer> projectIds;
+    private final SortedSet<Integer> customerIds;
+    private final boolean onlyActiveUsers;
+    private final boolean onlyActiveProjects;
+    private final boolean onlyActiveCustomers;
+    private final boolean onlyBillableProjects;
+    private final UserSelectedCriteria.ReportType reportType;
+    private final Integer pmId;
+
+    private ReportDataCacheKey(String reportName, DateRange reportRange, UserSelectedCriteria criteria) {
+        this.reportName = reportName;
+        this.dateStart = reportRange.getDateStart() == null ? null : new LocalDate(reportRange.getDateStart());
+        this.dateEnd = reportRange.getDateEnd() == null ? null : new LocalDate(reportRange.getDateEnd());
+        this.userIds = toIds(criteria.getUsers());
+        this.departmentIds = toIds(criteria.getDepartments());
+        this.projectIds = toIds(criteria.getProjects());
+        this.customerIds = toIds(criteria.getCustomers());
+        this.onlyActiveUsers = criteria.isOnlyActiveUsers();
+        this.onlyActiveProjects = criteria.isOnlyActiveProjects();
+        this.onlyActiveCustomers = criteria.isOnlyActiveCustomers();
+        this.onlyBillableProjects = criteria.isOnlyBillableProjects();
+        this.reportType = criteria.getSelectedReportType();
+        this.pmId = criteria.getPm() == null ? null : criteria.getPm().getUserId();
+    }
+
+    public static ReportDataCacheKey forCriteria(String reportName, ReportCriteria reportCriteria) {
+        return new ReportDataCacheKey(reportName, reportCriteria.getReportRange(), reportCriteria.getUserSelectedCriteria());
+    }
+
+    private static SortedSet<Integer> toIds(Collection<? extends DomainObject<Integer, ?>> domainObjects) {
+        SortedSet<Integer> ids = new TreeSet<Integer>();
+
+        if (domainObjects != null) {
+            for (DomainObject<Integer, ?> domainObject : domainObjects) {
+                ids.add(domainObject.getPK());
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Does the report range include any of the dates
+     */
+    boolean isInRange(Collection<Date> dates) {
+        for (Date date : dates) {
+            if (date != null && isInRange(new LocalDate(date))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isInRange(LocalDate date) {
+        return (dateStart == null || !date.isBefore(dateStart)) && (dateEnd == null || !date.isAfter(dateEnd));
+    }
+
+    /**
+     * Does the report range overlap with the range
+     */
+    boolean overlaps(DateRange range) {
+        boolean startsBeforeEnd = range.getDateStart() == null || dateEnd == null || !new LocalDate(range.getDateStart()).isAfter(dateEnd);
+        boolean endsAfterStart = range.getDateEnd() == null || dateStart == null || !new LocalDate(range.getDateEnd()).isBefore(dateStart);
+
+        return startsBeforeEnd && endsAfterStart;
+    }
+
+    /**
+     * Could hours booked on the assignment be part of the report. Users take precedence
+     * over departments and projects over customers, just like when the report is generated.
+     * Anything which can't be determined is considered a match
+     */
+    boolean includes(ProjectAssignment assignment) {
+        return includes(assignment.getUser()) && includes(assignment.getProject());
+    }
+
+    boolean includes(User user) {
+        if (!userIds.isEmpty()) {
+            return user == null || userIds.contains(user.getUserId());
+        } else if (!departmentIds.isEmpty()) {
+            return user == null || user.getUserDepartment() == null || departmentIds.contains(user.getUserDepartment().getDepartmentId());
+        } else {
+            return true;
+        }
+    }
+
+    private boolean includes(Project project) {
+        if (!projectIds.isEmpty()) {
+            return project == null || projectIds.contains(project.getProjectId());
+        } else if (!customerIds.isEmpty()) {
+            return project == null || project.getCustomer() == null || customerIds.contains(project.getCustomer().getCustomerId());
+        } else {
+            return true;
+        }
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof ReportDataCacheKey)) {
+            return false;
+        }
+
+        ReportDataCacheKey other = (ReportDataCacheKey) object;
+
+        return new EqualsBuilder()
+                .append(reportName, other.reportName)
+                .append(dateStart, other.dateStart)
+                .append(dateEnd, other.dateEnd)
+                .append(userIds, other.userIds)
+                .append(departmentIds, other.departmentIds)
+                .append(projectIds, other.projectIds)
+                .append(customerIds, other.customerIds)
+                .append(onlyActiveUsers, other.onlyActiveUsers)
+                .append(onlyActiveProjects, other.onlyActiveProjects)
+                .append(onlyActiveCustomers, other.onlyActiveCustomers)
+                .append(onlyBillableProjects, other.onlyBillableProjects)
+                .append(reportType, other.reportType)
+                .append(pmId, other.pmId)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(reportName)
+                .append(dateStart)
+                .append(dateEnd)
+                .append(userIds)
+                .append(departmentIds)
+                .append(projectIds)
+                .append(customerIds)
+                .append(onlyActiveUsers)
+                .append(onlyActiveProjects)
+                .append(onlyActiveCustomers)
+                .append(onlyBillableProjects)
+                .append(reportType)
+                .append(pmId)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("reportName", reportName)
+                .append("dateStart", dateStart)
+                .append("dateEnd", dateEnd)
+                .append("userIds", userIds)
+                .append("projectIds", projectIds)
+                .toString();
+    }
+}
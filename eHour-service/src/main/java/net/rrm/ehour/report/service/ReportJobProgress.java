@@ -0,0 +1,35 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+/**
+ * Progress of a running report job
+ */
+public interface ReportJobProgress {
+    /**
+     * @param done  steps done
+     * @param total total steps of the job
+     */
+    void setProgress(int done, int total);
+
+    /**
+     * Long running jobs should check this between steps and stop when cancelled
+     *
+     * @return
+     */
+    boolean isCancelled();
+}
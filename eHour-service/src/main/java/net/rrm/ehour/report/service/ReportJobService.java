@@ -0,0 +1,54 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import java.io.Serializable;
+
+/**
+ * Runs report jobs in the background on a bounded worker pool, so large reports don't
+ * tie up request threads. Finished results are kept for a while in a bounded store.
+ */
+public interface ReportJobService {
+    /**
+     * Submit a job for a user
+     *
+     * @param userId user requesting the report, the number of unfinished jobs per user is limited
+     * @param job
+     * @return job id to poll the status and fetch the result with
+     * @throws ReportJobRejectedException when the user has too many unfinished jobs or the queue is full
+     */
+    String submit(Integer userId, ReportJob<?> job) throws ReportJobRejectedException;
+
+    /**
+     * @param jobId
+     * @return status of the job, null when unknown or expired
+     */
+    ReportJobStatus getStatus(String jobId);
+
+    /**
+     * @param jobId
+     * @return result of a finished job, null when not finished, failed, cancelled or evicted from the store
+     */
+    <T extends Serializable> T getResult(String jobId);
+
+    /**
+     * Cancel a queued or running job
+     *
+     * @param jobId
+     */
+    void cancel(String jobId);
+}
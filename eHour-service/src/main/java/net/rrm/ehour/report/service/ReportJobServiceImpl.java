@@ -0,0 +1,274 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Report jobs run on their own fixed pool with a bounded queue, apart from the request threads
+ * and with a slightly lower priority so timesheet entry stays responsive. Each job runs in a
+ * read-only transaction which keeps the session open while the report is built, like the
+ * request does.
+ * <p/>
+ * Finished jobs are kept until their result is not accessed for resultMinutes or until more
+ * than maxResults jobs are finished, the least recently accessed go first.
+ */
+@Service("reportJobService")
+public class ReportJobServiceImpl implements ReportJobService, DisposableBean {
+    private static final Logger LOGGER = Logger.getLogger(ReportJobServiceImpl.class);
+
+    private final int maxJobsPerUser;
+    private final int maxResults;
+    private final long resultTimeToLive;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final ChunkedReportExecutor chunkedReportExecutor;
+
+    // guarded by this, in order of last access
+    private final LinkedHashMap<String, Job> jobs = new LinkedHashMap<String, Job>(16, 0.75f, true);
+
+    @Autowired
+    public ReportJobServiceImpl(PlatformTransactionManager transactionManager,
+                                ChunkedReportExecutor chunkedReportExecutor,
+                                @Value("${ehour.report.job.threads:2}") int threads,
+                                @Value("${ehour.report.job.queueSize:20}") int queueSize,
+                                @Value("${ehour.report.job.maxPerUser:2}") int maxJobsPerUser,
+                                @Value("${ehour.report.job.maxResults:20}") int maxResults,
+                                @Value("${ehour.report.job.resultMinutes:30}") int resultMinutes) {
+        this.chunkedReportExecutor = chunkedReportExecutor;
+        this.maxJobsPerUser = maxJobsPerUser;
+        this.maxResults = maxResults;
+        this.resultTimeToLive = TimeUnit.MINUTES.toMillis(resultMinutes);
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize),
+                new ThreadFactoryBuilder().setNameFormat("ehour-report-job-%d").setDaemon(true).setPriority(Thread.NORM_PRIORITY - 1).build());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public String submit(Integer userId, ReportJob<?> reportJob) throws ReportJobRejectedException {
+        Job job = new Job(UUID.randomUUID().toString(), userId, reportJob);
+
+        synchronized (this) {
+            expire();
+
+            if (countUnfinishedJobs(userId) >= maxJobsPerUser) {
+                throw new ReportJobRejectedException("User " + userId + " has " + maxJobsPerUser + " report jobs running already");
+            }
+
+            jobs.put(job.jobId, job);
+        }
+
+        try {
+            job.future = executor.submit(job);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                jobs.remove(job.jobId);
+            }
+
+            throw new ReportJobRejectedException("Report job queue is full");
+        }
+
+        LOGGER.debug("Report job " + job.jobId + " submitted for user " + userId);
+
+        return job.jobId;
+    }
+
+    private int countUnfinishedJobs(Integer userId) {
+        int count = 0;
+
+        for (Job job : jobs.values()) {
+            if (job.userId.equals(userId) && !job.state.isFinished()) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    @Override
+    public ReportJobStatus getStatus(String jobId) {
+        Job job = getJob(jobId);
+
+        return job == null ? null : job.getStatus();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Serializable> T getResult(String jobId) {
+        Job job = getJob(jobId);
+
+        return job == null ? null : (T) job.result;
+    }
+
+    @Override
+    public void cancel(String jobId) {
+        Job job = getJob(jobId);
+
+        if (job != null && !job.state.isFinished()) {
+            job.state = ReportJobStatus.State.CANCELLED;
+
+            Future<?> future = job.future;
+
+            if (future != null) {
+                future.cancel(true);
+            }
+
+            LOGGER.debug("Report job " + jobId + " cancelled");
+        }
+    }
+
+    private synchronized Job getJob(String jobId) {
+        expire();
+
+        Job job = jobs.get(jobId);
+
+        if (job != null) {
+            job.lastAccess = System.currentTimeMillis();
+        }
+
+        return job;
+    }
+
+    private synchronized void finished(Job job) {
+        job.lastAccess = System.currentTimeMillis();
+
+        expire();
+    }
+
+    /**
+     * Remove expired finished jobs and the least recently accessed ones above maxResults
+     */
+    private void expire() {
+        long expireBefore = System.currentTimeMillis() - resultTimeToLive;
+
+        int finishedJobs = 0;
+
+        for (Job job : jobs.values()) {
+            if (job.state.isFinished()) {
+                finishedJobs++;
+            }
+        }
+
+        Iterator<Job> iterator = jobs.values().iterator();
+
+        while (iterator.hasNext()) {
+            Job job = iterator.next();
+
+            if (job.state.isFinished() && (finishedJobs > maxResults || job.lastAccess < expireBefore)) {
+                iterator.remove();
+                finishedJobs--;
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private class Job implements Runnable, ReportJobProgress {
+        private final String jobId;
+        private final Integer userId;
+        private final ReportJob<?> reportJob;
+
+        private volatile ReportJobStatus.State state = ReportJobStatus.State.QUEUED;
+        private volatile int done;
+        private volatile int total;
+        private volatile String error;
+        private volatile Serializable result;
+        private volatile Future<?> future;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Job(String jobId, Integer userId, ReportJob<?> reportJob) {
+            this.jobId = jobId;
+            this.userId = userId;
+            this.reportJob = reportJob;
+        }
+
+        @Override
+        public void run() {
+            if (isCancelled()) {
+                return;
+            }
+
+            state = ReportJobStatus.State.RUNNING;
+            // chunked report queries deep down report their progress to the job
+            chunkedReportExecutor.setProgressListener(new ChunkedReportExecutor.ProgressListener() {
+                @Override
+                public void chunksDone(int done, int total) {
+                    setProgress(done, total);
+                }
+            });
+
+            try {
+                Serializable jobResult = transactionTemplate.execute(new TransactionCallback<Serializable>() {
+                    @Override
+                    public Serializable doInTransaction(TransactionStatus status) {
+                        return reportJob.run(Job.this);
+                    }
+                });
+
+                if (!isCancelled()) {
+                    result = jobResult;
+                    state = ReportJobStatus.State.DONE;
+                }
+            } catch (RuntimeException e) {
+                if (!isCancelled()) {
+                    LOGGER.error("Report job " + jobId + " failed", e);
+                    error = e.getMessage();
+                    state = ReportJobStatus.State.FAILED;
+                }
+            } finally {
+                chunkedReportExecutor.setProgressListener(null);
+                finished(this);
+            }
+        }
+
+        @Override
+        public void setProgress(int done, int total) {
+            this.done = done;
+            this.total = total;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == ReportJobStatus.State.CANCELLED;
+        }
+
+        ReportJobStatus getStatus() {
+            return new ReportJobStatus(jobId, state, done, total, error);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the state and progress of a report job
+ */
+public class ReportJobStatus implements Serializable {
+    private static final long serialVersionUID = -2210745062353461532L;
+
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == DONE || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String jobId;
+    private final State state;
+    private final int done;
+    private final int total;
+    private final String error;
+
+    public ReportJobStatus(String jobId, State state, int done, int total, String error) {
+        this.jobId = jobId;
+        this.state = state;
+        this.done = done;
+        this.total = total;
+        this.error = error;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getDone() {
+        return done;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return percentage done, 0 as long as the job didn't report any progress
+     */
+    public int getPercentage() {
+        if (state == State.DONE) {
+            return 100;
+        }
+
+        return total <= 0 ? 0 : Math.min(100, (done * 100) / total);
+    }
+
+    /**
+     * @return message of the exception which failed the job, null when not failed
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.timesheet.service;
+
+import net.rrm.ehour.domain.ProjectAssignment;
+
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Change of the timesheet entries of one assignment
+ */
+public class BookingsChange {
+    private final ProjectAssignment assignment;
+    private final Collection<Date> dates;
+    private final Collection<Date> bookedDates;
+    private final Collection<Date> removedDates;
+    private final double hoursDelta;
+
+    public BookingsChange(ProjectAssignment assignment, Collection<Date> dates, Collection<Date> bookedDates, Collection<Date> removedDates, double hoursDelta) {
+        this.assignment = assignment;
+        this.dates = dates;
+        this.bookedDates = bookedDates;
+        this.removedDates = removedDates;
+        this.hoursDelta = hoursDelta;
+    }
+
+    public ProjectAssignment getAssignment() {
+        return assignment;
+    }
+
+    /**
+     * @return all dates of which the entries were written, including unchanged ones
+     */
+    public Collection<Date> getDates() {
+        return dates;
+    }
+
+    /**
+     * @return dates with a saved entry
+     */
+    public Collection<Date> getBookedDates() {
+        return bookedDates;
+    }
+
+    /**
+     * @return dates of which the entry was removed
+     */
+    public Collection<Date> getRemovedDates() {
+        return removedDates;
+    }
+
+    /**
+     * @return change of the total hours booked on the assignment
+     */
+    public double getHoursDelta() {
+        return hoursDelta;
+    }
+
+    public boolean isEntriesChanged() {
+        return !bookedDates.isEmpty() || !removedDates.isEmpty();
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.timesheet.service;
+
+import net.rrm.ehour.domain.User;
+
+import java.util.List;
+
+/**
+ * Notified by the timesheet persister of every change to the timesheet entries. Implemented by the
+ * caches derived from the entries, every bean implementing it is notified. Called within the
+ * transaction writing the entries, listeners which only act once the transaction completed
+ * register a synchronization themselves.
+ */
+public interface BookingsListener {
+    /**
+     * Entries of an assignment were booked or removed
+     *
+     * @param change
+     */
+    void onBookingsChanged(BookingsChange change);
+
+    /**
+     * All timesheet data of a user was removed
+     *
+     * @param user
+     * @param assignmentIds the user's assignments
+     */
+    void onBookingsRemoved(User user, List<Integer> assignmentIds);
+}
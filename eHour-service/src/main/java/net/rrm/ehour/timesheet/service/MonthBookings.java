@@ -0,0 +1,45 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.timesheet.service;
+
+import net.rrm.ehour.domain.TimesheetEntry;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hours booked per assignment and the timesheet entries of a user's month, the part of
+ * the timesheet overview which only changes when that month is booked
+ */
+public class MonthBookings {
+    private final List<AssignmentAggregateReportElement> aggregates;
+    private final List<TimesheetEntry> timesheetEntries;
+
+    public MonthBookings(List<AssignmentAggregateReportElement> aggregates, List<TimesheetEntry> timesheetEntries) {
+        this.aggregates = Collections.unmodifiableList(aggregates);
+        this.timesheetEntries = Collections.unmodifiableList(timesheetEntries);
+    }
+
+    public List<AssignmentAggregateReportElement> getAggregates() {
+        return aggregates;
+    }
+
+    public List<TimesheetEntry> getTimesheetEntries() {
+        return timesheetEntries;
+    }
+}
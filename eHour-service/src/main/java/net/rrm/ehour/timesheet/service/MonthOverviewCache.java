@@ -0,0 +1,66 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.timesheet.service;
+
+import net.rrm.ehour.timesheet.dto.BookedDay;
+import org.joda.time.LocalDate;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Per user and month cache of the data behind the month overview and the calendar. Timesheet
+ * writes invalidate the months of the dates written, both immediately and once the transaction
+ * completes. Months adjacent to a requested month are loaded in the background.
+ */
+public interface MonthOverviewCache {
+    /**
+     * Get the hours per assignment and timesheet entries of a user's month, loaded when not cached
+     *
+     * @param userId
+     * @param month  any day of the month
+     * @return
+     */
+    MonthBookings getMonthBookings(Integer userId, LocalDate month);
+
+    /**
+     * Get the booked hours per day of a user's month, loaded when not cached
+     *
+     * @param userId
+     * @param month  any day of the month
+     * @return
+     */
+    List<BookedDay> getBookedDays(Integer userId, LocalDate month);
+
+    /**
+     * Hours were booked or removed by a user on the dates
+     *
+     * @param userId
+     * @param dates
+     */
+    void invalidateBookings(Integer userId, Collection<Date> dates);
+
+    /**
+     * All timesheet data of a user was removed or one of the user's assignments changed
+     *
+     * @param userId
+     */
+    void invalidateUser(Integer userId);
+
+    void invalidateAll();
+}
@@ -0,0 +1,361 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.timesheet.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.persistence.timesheet.dao.TimesheetDao;
+import net.rrm.ehour.report.service.AggregateReportService;
+import net.rrm.ehour.timesheet.dto.BookedDay;
+import net.rrm.ehour.util.DateUtil;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.log4j.Logger;
+import org.joda.time.LocalDate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LRU cache of month bookings and booked days keyed by user and month. Entries also expire
+ * after a while as changes to customers and projects (names, codes) are not tracked.
+ * <p/>
+ * Every request for a month queues the load of the previous and next month of the same kind
+ * on a single low priority thread, in a read-only transaction like the request has. Prefetches
+ * are dropped when the queue is full.
+ */
+@Service("monthOverviewCache")
+public class MonthOverviewCacheImpl implements MonthOverviewCache, BookingsListener, DisposableBean {
+    private static final Logger LOGGER = Logger.getLogger(MonthOverviewCacheImpl.class);
+
+    private static final int PREFETCH_QUEUE_SIZE = 100;
+
+    private enum Kind {
+        BOOKINGS,
+        BOOKED_DAYS
+    }
+
+    private final TimesheetDao timesheetDAO;
+    private final AggregateReportService aggregateReportService;
+    private final long maxAgeMillis;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor prefetchExecutor;
+
+    // guarded by this, in order of last access
+    private final LinkedHashMap<Key, Entry> entries;
+    private final Set<Key> prefetching = new HashSet<Key>();
+
+    // bumped on invalidation, months loaded before that may be stale and are not cached
+    private final Map<Integer, Long> userGenerations = new HashMap<Integer, Long>();
+    private long generation;
+
+    @Autowired
+    public MonthOverviewCacheImpl(TimesheetDao timesheetDAO,
+                                  AggregateReportService aggregateReportService,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${ehour.monthCache.maxMonths:10000}") final int maxMonths,
+                                  @Value("${ehour.monthCache.maxAgeMinutes:30}") long maxAgeMinutes,
+                                  @Value("${ehour.monthCache.prefetch:true}") boolean prefetch) {
+        this.timesheetDAO = timesheetDAO;
+        this.aggregateReportService = aggregateReportService;
+        this.maxAgeMillis = TimeUnit.MINUTES.toMillis(maxAgeMinutes);
+
+        entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxMonths;
+            }
+        };
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        if (prefetch) {
+            prefetchExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(PREFETCH_QUEUE_SIZE),
+                    new ThreadFactoryBuilder().setNameFormat("ehour-month-prefetch-%d").setDaemon(true).setPriority(Thread.NORM_PRIORITY - 1).build());
+            prefetchExecutor.allowCoreThreadTimeOut(true);
+        } else {
+            prefetchExecutor = null;
+        }
+    }
+
+    @Override
+    public MonthBookings getMonthBookings(Integer userId, LocalDate month) {
+        return (MonthBookings) get(new Key(Kind.BOOKINGS, userId, month), true);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<BookedDay> getBookedDays(Integer userId, LocalDate month) {
+        return (List<BookedDay>) get(new Key(Kind.BOOKED_DAYS, userId, month), true);
+    }
+
+    private Object get(Key key, boolean prefetchAdjacent) {
+        if (prefetchAdjacent) {
+            prefetch(key.plusMonths(-1));
+            prefetch(key.plusMonths(1));
+        }
+
+        long loadGeneration;
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+
+            if (entry != null && !entry.isExpired()) {
+                return entry.value;
+            }
+
+            entries.remove(key);
+            loadGeneration = getGeneration(key.userId);
+        }
+
+        Object value = load(key);
+
+        synchronized (this) {
+            if (loadGeneration == getGeneration(key.userId)) {
+                entries.put(key, new Entry(value));
+            }
+        }
+
+        return value;
+    }
+
+    private Object load(Key key) {
+        DateRange monthRange = DateUtil.calendarToMonthRange(key.month.toDateTimeAtStartOfDay().toGregorianCalendar());
+
+        if (key.kind == Kind.BOOKINGS) {
+            return new MonthBookings(aggregateReportService.getHoursPerAssignmentInRange(key.userId, monthRange),
+                    timesheetDAO.getTimesheetEntriesInRange(key.userId, monthRange));
+        } else {
+            return timesheetDAO.getBookedHoursperDayInRange(key.userId, monthRange);
+        }
+    }
+
+    private void prefetch(final Key key) {
+        if (prefetchExecutor == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (entries.containsKey(key) || !prefetching.add(key)) {
+                return;
+            }
+        }
+
+        try {
+            prefetchExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        transactionTemplate.execute(new TransactionCallback<Object>() {
+                            @Override
+                            public Object doInTransaction(TransactionStatus status) {
+                                return get(key, false);
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Failed to prefetch " + key, e);
+                    } finally {
+                        donePrefetching(key);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            donePrefetching(key);
+        }
+    }
+
+    private synchronized void donePrefetching(Key key) {
+        prefetching.remove(key);
+    }
+
+    /**
+     * Whether months are queued or loading in the background
+     *
+     * @return
+     */
+    synchronized boolean isPrefetching() {
+        return !prefetching.isEmpty();
+    }
+
+    // both counters only increase so their sum changes whenever either of them does
+    private long getGeneration(Integer userId) {
+        Long userGeneration = userGenerations.get(userId);
+
+        return generation + (userGeneration == null ? 0 : userGeneration);
+    }
+
+    @Override
+    public void invalidateBookings(Integer userId, Collection<Date> dates) {
+        Set<LocalDate> months = new HashSet<LocalDate>();
+
+        for (Date date : dates) {
+            months.add(toMonth(new LocalDate(date)));
+        }
+
+        if (!months.isEmpty()) {
+            invalidate(userId, months);
+        }
+    }
+
+    @Override
+    public void invalidateUser(Integer userId) {
+        invalidate(userId, null);
+    }
+
+    @Override
+    public void onBookingsChanged(BookingsChange change) {
+        invalidateBookings(change.getAssignment().getUser().getUserId(), change.getDates());
+    }
+
+    @Override
+    public void onBookingsRemoved(User user, List<Integer> assignmentIds) {
+        invalidateUser(user.getUserId());
+    }
+
+    @Override
+    public void invalidateAll() {
+        invalidate(null, null);
+    }
+
+    /**
+     * Remove the matching months right away and once more when the transaction
+     * completes, so months loaded while the transaction was running are dropped as well
+     *
+     * @param userId null for all users
+     * @param months null for all months
+     */
+    private void invalidate(final Integer userId, final Set<LocalDate> months) {
+        removeMatching(userId, months);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    removeMatching(userId, months);
+                }
+            });
+        }
+    }
+
+    private synchronized void removeMatching(Integer userId, Set<LocalDate> months) {
+        if (userId == null) {
+            generation++;
+            entries.clear();
+            return;
+        }
+
+        Long userGeneration = userGenerations.get(userId);
+        userGenerations.put(userId, userGeneration == null ? 1 : userGeneration + 1);
+
+        Iterator<Key> iterator = entries.keySet().iterator();
+
+        while (iterator.hasNext()) {
+            Key key = iterator.next();
+
+            if (key.userId.equals(userId) && (months == null || months.contains(key.month))) {
+                LOGGER.debug("Invalidating cached " + key);
+
+                iterator.remove();
+            }
+        }
+    }
+
+    private static LocalDate toMonth(LocalDate date) {
+        return date.withDayOfMonth(1);
+    }
+
+    @Override
+    public void destroy() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+    }
+
+    private static final class Key {
+        private final Kind kind;
+        private final Integer userId;
+        private final LocalDate month;
+
+        private Key(Kind kind, Integer userId, LocalDate month) {
+            this.kind = kind;
+            this.userId = userId;
+            this.month = toMonth(month);
+        }
+
+        private Key plusMonths(int months) {
+            return new Key(kind, userId, month.plusMonths(months));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) other;
+
+            return new EqualsBuilder()
+                    .append(kind, key.kind)
+                    .append(userId, key.userId)
+                    .append(month, key.month)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(kind)
+                    .append(userId)
+                    .append(month)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return kind + " of user " + userId + " for " + month.toString("yyyy-MM");
+        }
+    }
+
+    private class Entry {
+        private final Object value;
+        private final long created = System.currentTimeMillis();
+
+        private Entry(Object value) {
+            this.value = value;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - created > maxAgeMillis;
+        }
+    }
+}
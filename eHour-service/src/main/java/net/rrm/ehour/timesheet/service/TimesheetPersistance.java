@@ -24,15 +24,19 @@ import net.rrm.ehour.domain.TimesheetEntry;
 import net.rrm.ehour.domain.User;
 import net.rrm.ehour.exception.OverBudgetException;
 import net.rrm.ehour.mail.service.MailService;
+import net.rrm.ehour.persistence.report.dao.TimesheetFactStore;
 import net.rrm.ehour.persistence.timesheet.dao.TimesheetCommentDao;
 import net.rrm.ehour.persistence.timesheet.dao.TimesheetDao;
 import net.rrm.ehour.project.status.ProjectAssignmentStatus;
 import net.rrm.ehour.project.status.ProjectAssignmentStatusService;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+import net.rrm.ehour.report.service.AssignmentRollupService;
 import net.rrm.ehour.util.EhourConstants;
 import net.rrm.ehour.util.EhourUtil;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -48,23 +52,41 @@ public class TimesheetPersistance implements IPersistTimesheet, IDeleteTimesheet
     private TimesheetCommentDao timesheetCommentDAO;
     private ProjectAssignmentStatusService projectAssignmentStatusService;
     private MailService mailService;
+    private AssignmentRollupService assignmentRollupService;
+    private TimesheetFactStore timesheetFactStore;
+    private List<BookingsListener> bookingsListeners;
     private ApplicationContext context;
+    private boolean batchedSave;
 
     @Autowired
-    public TimesheetPersistance(TimesheetDao timesheetDAO, TimesheetCommentDao timesheetCommentDAO, ProjectAssignmentStatusService projectAssignmentStatusService, MailService mailService, ApplicationContext context) {
+    public TimesheetPersistance(TimesheetDao timesheetDAO, TimesheetCommentDao timesheetCommentDAO, ProjectAssignmentStatusService projectAssignmentStatusService, MailService mailService, AssignmentRollupService assignmentRollupService, TimesheetFactStore timesheetFactStore, List<BookingsListener> bookingsListeners, ApplicationContext context,
+                                @Value("${ehour.timesheet.batchedSave:true}") boolean batchedSave) {
         this.timesheetDAO = timesheetDAO;
         this.timesheetCommentDAO = timesheetCommentDAO;
         this.projectAssignmentStatusService = projectAssignmentStatusService;
         this.mailService = mailService;
+        this.assignmentRollupService = assignmentRollupService;
+        this.timesheetFactStore = timesheetFactStore;
+        this.bookingsListeners = bookingsListeners;
         this.context = context;
+        this.batchedSave = batchedSave;
     }
 
     @Transactional
     public void deleteAllTimesheetDataForUser(User user) {
         timesheetCommentDAO.deleteCommentsForUser(user.getUserId());
 
+        List<Integer> assignmentIds = new ArrayList<Integer>();
+
         if (user.getProjectAssignments() != null && user.getProjectAssignments().size() > 0) {
-            timesheetDAO.deleteTimesheetEntries(EhourUtil.getIdsFromDomainObjects(user.getProjectAssignments()));
+            assignmentIds = EhourUtil.getIdsFromDomainObjects(user.getProjectAssignments());
+            timesheetDAO.deleteTimesheetEntries(assignmentIds);
+            assignmentRollupService.deleteRollup(assignmentIds);
+            timesheetFactStore.assignmentsRemoved(assignmentIds);
+        }
+
+        for (BookingsListener listener : bookingsListeners) {
+            listener.onBookingsRemoved(user, assignmentIds);
         }
     }
 
@@ -74,13 +96,19 @@ public class TimesheetPersistance implements IPersistTimesheet, IDeleteTimesheet
                                                               DateRange weekRange) {
         Map<ProjectAssignment, List<TimesheetEntry>> timesheetRows = getTimesheetAsRows(timesheetEntries);
 
-        List<ProjectAssignmentStatus> errorStatusses = new ArrayList<ProjectAssignmentStatus>();
+        List<ProjectAssignmentStatus> errorStatusses;
 
-        for (Map.Entry<ProjectAssignment, List<TimesheetEntry>> entry : timesheetRows.entrySet()) {
-            try {
-                getSpringProxy().validateAndPersist(entry.getKey(), entry.getValue(), weekRange);
-            } catch (OverBudgetException e) {
-                errorStatusses.add(e.getStatus());
+        if (batchedSave) {
+            errorStatusses = validateAndPersistBatched(timesheetRows, weekRange);
+        } else {
+            errorStatusses = new ArrayList<ProjectAssignmentStatus>();
+
+            for (Map.Entry<ProjectAssignment, List<TimesheetEntry>> entry : timesheetRows.entrySet()) {
+                try {
+                    getSpringProxy().validateAndPersist(entry.getKey(), entry.getValue(), weekRange);
+                } catch (OverBudgetException e) {
+                    errorStatusses.add(e.getStatus());
+                }
             }
         }
 
@@ -91,6 +119,143 @@ public class TimesheetPersistance implements IPersistTimesheet, IDeleteTimesheet
         return errorStatusses;
     }
 
+    /**
+     * Same outcome as validateAndPersist per row, but within the caller's transaction: the previous
+     * entries of the week are fetched in one query, the budget of all fixed and flex assignments in
+     * another and the after status is derived from the booked hours rather than queried again. Rows
+     * which would end up over budget are never written so nothing has to be rolled back, the writes
+     * of the other rows are flushed together at commit (see hibernate.jdbc.batch_size).
+     */
+    private List<ProjectAssignmentStatus> validateAndPersistBatched(Map<ProjectAssignment, List<TimesheetEntry>> timesheetRows, DateRange weekRange) {
+        List<ProjectAssignmentStatus> errorStatusses = new ArrayList<ProjectAssignmentStatus>();
+
+        if (timesheetRows.isEmpty()) {
+            return errorStatusses;
+        }
+
+        Map<Integer, List<TimesheetEntry>> previousEntries = getEntriesPerAssignment(timesheetDAO.getTimesheetEntriesInRangeForAssignments(timesheetRows.keySet(), weekRange));
+        Map<Integer, ProjectAssignmentStatus> beforeStatusses = projectAssignmentStatusService.getAllottedStatusses(getAllottedAssignments(timesheetRows.keySet()));
+
+        for (Map.Entry<ProjectAssignment, List<TimesheetEntry>> row : timesheetRows.entrySet()) {
+            ProjectAssignment assignment = row.getKey();
+            List<TimesheetEntry> assignmentPreviousEntries = previousEntries.containsKey(assignment.getAssignmentId())
+                    ? previousEntries.get(assignment.getAssignmentId())
+                    : new ArrayList<TimesheetEntry>();
+
+            ProjectAssignmentStatus beforeStatus = beforeStatusses.get(assignment.getAssignmentId());
+
+            if (beforeStatus == null) {
+                // no budget to check
+                persistRow(assignment, row.getValue(), assignmentPreviousEntries, false);
+                continue;
+            }
+
+            ProjectAssignmentStatus afterStatus = getStatusAfterPersist(assignment, row.getValue(), assignmentPreviousEntries, beforeStatus);
+
+            if (!afterStatus.isValid() && (beforeStatus.isValid() || isIncreasingBookings(row.getValue(), assignmentPreviousEntries))) {
+                errorStatusses.add(afterStatus);
+            } else {
+                persistRow(assignment, row.getValue(), assignmentPreviousEntries, !beforeStatus.isValid());
+
+                if (!beforeStatus.equals(afterStatus) && canNotifyPm(assignment)) {
+                    notifyPm(assignment, afterStatus);
+                }
+            }
+        }
+
+        return errorStatusses;
+    }
+
+    private void persistRow(ProjectAssignment assignment, List<TimesheetEntry> entries, List<TimesheetEntry> previousEntries, boolean onlyLessThanExisting) {
+        try {
+            persistEntries(assignment, entries, previousEntries, onlyLessThanExisting);
+        } catch (OverBudgetException e) {
+            // only thrown at the first increase on an assignment already over budget. The caller checked that the
+            // status after the entries before the increase is valid, validateAndPersist keeps those entries as well
+            LOGGER.debug("Kept the entries of " + assignment + " up to the first increase, it is over budget");
+        }
+    }
+
+    /**
+     * The status as getAssignmentStatus would return it after persistEntries. When only decreases
+     * are allowed the entries up to the first increase are taken into account
+     */
+    private ProjectAssignmentStatus getStatusAfterPersist(ProjectAssignment assignment, List<TimesheetEntry> entries, List<TimesheetEntry> previousEntries, ProjectAssignmentStatus beforeStatus) {
+        AssignmentAggregateReportElement beforeAggregate = beforeStatus.getAggregate();
+        double hours = (beforeAggregate == null || beforeAggregate.getHours() == null) ? 0 : beforeAggregate.getHours().doubleValue();
+
+        List<TimesheetEntry> remainingEntries = new ArrayList<TimesheetEntry>(previousEntries);
+        boolean increased = false;
+
+        for (TimesheetEntry entry : entries) {
+            TimesheetEntry existingEntry = getEntry(remainingEntries, entry);
+            float existingHours = getHours(existingEntry);
+
+            if (entry.isEmptyEntry()) {
+                hours -= existingHours;
+            } else if (!beforeStatus.isValid() && isIncrease(entry, existingEntry)) {
+                increased = true;
+                break;
+            } else {
+                hours += entry.getHours() - existingHours;
+            }
+
+            remainingEntries.remove(entry);
+        }
+
+        if (!increased) {
+            for (TimesheetEntry removedEntry : remainingEntries) {
+                hours -= getHours(removedEntry);
+            }
+        }
+
+        return projectAssignmentStatusService.getAllottedStatus(assignment, new AssignmentAggregateReportElement(assignment, hours));
+    }
+
+    private boolean isIncreasingBookings(List<TimesheetEntry> entries, List<TimesheetEntry> previousEntries) {
+        for (TimesheetEntry entry : entries) {
+            if (!entry.isEmptyEntry() && isIncrease(entry, getEntry(previousEntries, entry))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isIncrease(TimesheetEntry newEntry, TimesheetEntry existingEntry) {
+        return existingEntry == null || newEntry.getHours().compareTo(existingEntry.getHours()) > 0;
+    }
+
+    private List<ProjectAssignment> getAllottedAssignments(Collection<ProjectAssignment> assignments) {
+        List<ProjectAssignment> allottedAssignments = new ArrayList<ProjectAssignment>();
+
+        for (ProjectAssignment assignment : assignments) {
+            int assignmentTypeId = assignment.getAssignmentType().getAssignmentTypeId();
+
+            if (assignmentTypeId == EhourConstants.ASSIGNMENT_TIME_ALLOTTED_FIXED || assignmentTypeId == EhourConstants.ASSIGNMENT_TIME_ALLOTTED_FLEX) {
+                allottedAssignments.add(assignment);
+            }
+        }
+
+        return allottedAssignments;
+    }
+
+    private Map<Integer, List<TimesheetEntry>> getEntriesPerAssignment(List<TimesheetEntry> entries) {
+        Map<Integer, List<TimesheetEntry>> entriesPerAssignment = new HashMap<Integer, List<TimesheetEntry>>();
+
+        for (TimesheetEntry entry : entries) {
+            Integer assignmentId = entry.getEntryId().getProjectAssignment().getAssignmentId();
+
+            if (!entriesPerAssignment.containsKey(assignmentId)) {
+                entriesPerAssignment.put(assignmentId, new ArrayList<TimesheetEntry>());
+            }
+
+            entriesPerAssignment.get(assignmentId).add(entry);
+        }
+
+        return entriesPerAssignment;
+    }
+
     private IPersistTimesheet getSpringProxy() {
         return context.getBean(IPersistTimesheet.class);
     }
@@ -123,7 +288,7 @@ public class TimesheetPersistance implements IPersistTimesheet, IDeleteTimesheet
         boolean checkAfterStatus = beforeStatus.isValid();
 
         try {
-            persistEntries(assignment, entries, weekRange, !beforeStatus.isValid());
+            persistEntries(assignment, entries, timesheetDAO.getTimesheetEntriesInRange(assignment, weekRange), !beforeStatus.isValid());
         } catch (OverBudgetException obe) {
             // make sure it's retrown by checking the after status
             checkAfterStatus = true;
@@ -138,25 +303,70 @@ public class TimesheetPersistance implements IPersistTimesheet, IDeleteTimesheet
         }
     }
 
-    private void persistEntries(ProjectAssignment assignment, List<TimesheetEntry> entries, DateRange weekRange, boolean onlyLessThanExisting) throws OverBudgetException {
-        List<TimesheetEntry> previousEntries = timesheetDAO.getTimesheetEntriesInRange(assignment, weekRange);
+    private void persistEntries(ProjectAssignment assignment, List<TimesheetEntry> entries, List<TimesheetEntry> previousEntries, boolean onlyLessThanExisting) throws OverBudgetException {
+        List<Date> modifiedDates = getEntryDates(previousEntries);
+        List<TimesheetEntry> savedEntries = new ArrayList<TimesheetEntry>();
+        List<Date> removedDates = new ArrayList<Date>();
+        double hoursDelta = 0;
 
-        for (TimesheetEntry entry : entries) {
-            if (!entry.getEntryId().getProjectAssignment().equals(assignment)) {
-                LOGGER.error("Invalid entry in assignment list, skipping: " + entry);
-                continue;
+        try {
+            for (TimesheetEntry entry : entries) {
+                if (!entry.getEntryId().getProjectAssignment().equals(assignment)) {
+                    LOGGER.error("Invalid entry in assignment list, skipping: " + entry);
+                    continue;
+                }
+
+                Date entryDate = entry.getEntryId().getEntryDate();
+
+                TimesheetEntry existingEntry = getEntry(previousEntries, entry);
+
+                if (entry.isEmptyEntry()) {
+                    if (deleteEntry(existingEntry)) {
+                        removedDates.add(entryDate);
+                        hoursDelta -= getHours(existingEntry);
+                    }
+                } else {
+                    persistEntry(onlyLessThanExisting, entry, existingEntry);
+                    savedEntries.add(entry);
+                    hoursDelta += getHours(entry) - getHours(existingEntry);
+                }
+
+                modifiedDates.add(entryDate);
+                previousEntries.remove(entry);
             }
 
-            if (entry.isEmptyEntry()) {
-                deleteEntry(getEntry(previousEntries, entry));
-            } else {
-                persistEntry(onlyLessThanExisting, entry, getEntry(previousEntries, entry));
+            removeOldEntries(previousEntries);
+            removedDates.addAll(getEntryDates(previousEntries));
+
+            for (TimesheetEntry removedEntry : previousEntries) {
+                hoursDelta -= getHours(removedEntry);
             }
+        } finally {
+            // also when over budget, the entries persisted so far may still be committed
+            assignmentRollupService.updateRollup(assignment, modifiedDates);
+            // before the listeners, reports cached after the commit must see the new facts
+            timesheetFactStore.entriesChanged(assignment, savedEntries, removedDates);
 
-            previousEntries.remove(entry);
+            BookingsChange change = new BookingsChange(assignment, modifiedDates, getEntryDates(savedEntries), removedDates, hoursDelta);
+
+            for (BookingsListener listener : bookingsListeners) {
+                listener.onBookingsChanged(change);
+            }
+        }
+    }
+
+    private static float getHours(TimesheetEntry entry) {
+        return entry == null || entry.getHours() == null ? 0 : entry.getHours();
+    }
+
+    private List<Date> getEntryDates(List<TimesheetEntry> entries) {
+        List<Date> dates = new ArrayList<Date>();
+
+        for (TimesheetEntry entry : entries) {
+            dates.add(entry.getEntryId().getEntryDate());
         }
 
-        removeOldEntries(previousEntries);
+        return dates;
     }
 
     private void removeOldEntries(List<TimesheetEntry> previousEntries) {
@@ -165,16 +375,17 @@ public class TimesheetPersistance implements IPersistTimesheet, IDeleteTimesheet
         }
     }
 
-    private void deleteEntry(TimesheetEntry existingEntry) {
+    private boolean deleteEntry(TimesheetEntry existingEntry) {
         if (existingEntry != null) {
             timesheetDAO.delete(existingEntry);
+            return true;
         }
+
+        return false;
     }
 
     private void persistEntry(boolean onlyLessThanExisting, TimesheetEntry newEntry, TimesheetEntry existingEntry) throws OverBudgetException {
-        if (onlyLessThanExisting &&
-                (existingEntry == null ||
-                        (newEntry.getHours().compareTo(existingEntry.getHours()) > 0))) {
+        if (onlyLessThanExisting && isIncrease(newEntry, existingEntry)) {
             throw new OverBudgetException();
         }
 
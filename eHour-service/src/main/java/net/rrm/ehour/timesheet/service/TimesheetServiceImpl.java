@@ -20,23 +20,17 @@ import net.rrm.ehour.config.EhourConfig;
 import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.domain.*;
 import net.rrm.ehour.exception.ObjectNotFoundException;
-import net.rrm.ehour.persistence.timesheet.dao.TimesheetCommentDao;
-import net.rrm.ehour.persistence.timesheet.dao.TimesheetDao;
-import net.rrm.ehour.project.service.ProjectAssignmentService;
+import net.rrm.ehour.project.status.AssignmentBudgetLedger;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
-import net.rrm.ehour.report.service.AggregateReportService;
 import net.rrm.ehour.timesheet.dto.BookedDay;
 import net.rrm.ehour.timesheet.dto.TimesheetOverview;
 import net.rrm.ehour.timesheet.dto.UserProjectStatus;
 import net.rrm.ehour.timesheet.dto.WeekOverview;
 import net.rrm.ehour.util.DateUtil;
-import org.joda.time.Interval;
 import org.joda.time.LocalDate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import scala.collection.Seq;
 
-import java.io.Serializable;
 import java.util.*;
 
 /**
@@ -47,36 +41,29 @@ import java.util.*;
  */
 @Service("timesheetService")
 public class TimesheetServiceImpl implements IOverviewTimesheet {
-    private TimesheetDao timesheetDAO;
+    private MonthOverviewCache monthOverviewCache;
 
-    private TimesheetCommentDao timesheetCommentDAO;
+    private AssignmentBudgetLedger assignmentBudgetLedger;
 
-    private TimesheetLockService timesheetLockService;
-
-    private AggregateReportService aggregateReportService;
-
-    private ProjectAssignmentService projectAssignmentService;
+    private WeekOverviewLoader weekOverviewLoader;
 
     private EhourConfig configuration;
 
     @Autowired
-    public TimesheetServiceImpl(TimesheetDao timesheetDAO,
-                                TimesheetCommentDao timesheetCommentDAO,
-                                TimesheetLockService timesheetLockService,
-                                AggregateReportService aggregateReportService,
-                                ProjectAssignmentService projectAssignmentService,
+    public TimesheetServiceImpl(MonthOverviewCache monthOverviewCache,
+                                AssignmentBudgetLedger assignmentBudgetLedger,
+                                WeekOverviewLoader weekOverviewLoader,
                                 EhourConfig configuration) {
-        this.timesheetDAO = timesheetDAO;
-        this.timesheetCommentDAO = timesheetCommentDAO;
-        this.timesheetLockService = timesheetLockService;
-        this.aggregateReportService = aggregateReportService;
-        this.projectAssignmentService = projectAssignmentService;
+        this.monthOverviewCache = monthOverviewCache;
+        this.assignmentBudgetLedger = assignmentBudgetLedger;
+        this.weekOverviewLoader = weekOverviewLoader;
         this.configuration = configuration;
     }
 
     /**
      * Fetch the timesheet overview for a user. This returns an object containing the project assignments for the
-     * requested month and a list with all timesheet entries for that month.
+     * requested month and a list with all timesheet entries for that month. The month's bookings come from
+     * the month overview cache, the total hours of flex and fixed assignments from the budget ledger.
      *
      * @param userId
      * @param requestedMonth only the month and year of the calendar is used
@@ -86,50 +73,47 @@ public class TimesheetServiceImpl implements IOverviewTimesheet {
     public TimesheetOverview getTimesheetOverview(User user, Calendar requestedMonth) {
         TimesheetOverview overview = new TimesheetOverview();
 
-        DateRange monthRange = DateUtil.calendarToMonthRange(requestedMonth);
-        overview.setProjectStatus(getProjectStatus(user.getUserId(), monthRange));
-
-        List<TimesheetEntry> timesheetEntries = timesheetDAO.getTimesheetEntriesInRange(user.getUserId(), monthRange);
+        MonthBookings monthBookings = monthOverviewCache.getMonthBookings(user.getUserId(), LocalDate.fromCalendarFields(requestedMonth));
+        overview.setProjectStatus(getProjectStatus(monthBookings.getAggregates()));
 
-        Map<Integer, List<TimesheetEntry>> calendarMap = entriesToCalendarMap(timesheetEntries);
+        Map<Integer, List<TimesheetEntry>> calendarMap = entriesToCalendarMap(monthBookings.getTimesheetEntries());
         overview.setTimesheetEntries(calendarMap);
 
         return overview;
     }
 
     /**
-     * Get project status for user
+     * Get project status for the hours booked per assignment in a month
      *
-     * @param userId
-     * @param monthRange
+     * @param aggregates
      * @return
      */
-    private SortedSet<UserProjectStatus> getProjectStatus(Integer userId, DateRange monthRange) {
-        List<Serializable> assignmentIds = new ArrayList<Serializable>();
+    private SortedSet<UserProjectStatus> getProjectStatus(List<AssignmentAggregateReportElement> aggregates) {
+        List<ProjectAssignment> allottedAssignments = new ArrayList<ProjectAssignment>();
         SortedSet<UserProjectStatus> userProjectStatus = new TreeSet<UserProjectStatus>();
         Map<Integer, AssignmentAggregateReportElement> originalAggregates = new HashMap<Integer, AssignmentAggregateReportElement>();
 
-        List<AssignmentAggregateReportElement> aggregates = aggregateReportService.getHoursPerAssignmentInRange(userId, monthRange);
-
         // only flex & fixed needed, others can already be added to the returned list
         for (AssignmentAggregateReportElement aggregate : aggregates) {
             if (aggregate.getProjectAssignment().getAssignmentType().isFixedAllottedType() ||
                     aggregate.getProjectAssignment().getAssignmentType().isFlexAllottedType()) {
-                Integer assignmentId = aggregate.getProjectAssignment().getAssignmentId();
-                assignmentIds.add(assignmentId);
-                originalAggregates.put(assignmentId, aggregate);
+                allottedAssignments.add(aggregate.getProjectAssignment());
+                originalAggregates.put(aggregate.getProjectAssignment().getAssignmentId(), aggregate);
             } else {
                 userProjectStatus.add(new UserProjectStatus(aggregate));
             }
         }
 
-        // fetch total hours for flex/fixed assignments
-        if (assignmentIds.size() > 0) {
-            List<AssignmentAggregateReportElement> timeAllottedAggregates = aggregateReportService.getHoursPerAssignment(assignmentIds);
+        // total hours for flex/fixed assignments
+        if (allottedAssignments.size() > 0) {
+            Map<Integer, AssignmentAggregateReportElement> totals = assignmentBudgetLedger.getAggregates(allottedAssignments);
 
-            for (AssignmentAggregateReportElement aggregate : timeAllottedAggregates) {
-                userProjectStatus.add(new UserProjectStatus(originalAggregates.get(aggregate.getProjectAssignment().getAssignmentId()),
-                        aggregate.getHours()));
+            for (ProjectAssignment assignment : allottedAssignments) {
+                AssignmentAggregateReportElement total = totals.get(assignment.getAssignmentId());
+
+                if (total != null) {
+                    userProjectStatus.add(new UserProjectStatus(originalAggregates.get(assignment.getAssignmentId()), total.getHours()));
+                }
             }
         }
 
@@ -145,9 +129,7 @@ public class TimesheetServiceImpl implements IOverviewTimesheet {
      * @return List with Integers of complete booked days
      */
     public List<LocalDate> getBookedDaysMonthOverview(Integer userId, Calendar requestedMonth) {
-        DateRange monthRange = DateUtil.calendarToMonthRange(requestedMonth);
-
-        List<BookedDay> bookedDays = timesheetDAO.getBookedHoursperDayInRange(userId, monthRange);
+        List<BookedDay> bookedDays = monthOverviewCache.getBookedDays(userId, LocalDate.fromCalendarFields(requestedMonth));
         List<LocalDate> fullyBookedDays = new ArrayList<LocalDate>();
 
         for (BookedDay bookedDay : bookedDays) {
@@ -214,13 +196,6 @@ public class TimesheetServiceImpl implements IOverviewTimesheet {
 
         DateRange range = DateUtil.getDateRangeForWeek(reqWeek);
 
-        List<TimesheetEntry> timesheetEntries = timesheetDAO.getTimesheetEntriesInRange(user.getUserId(), range);
-        TimesheetComment comment = timesheetCommentDAO.findById(new TimesheetCommentId(user.getUserId(), range.getDateStart()));
-        List<ProjectAssignment> assignments = projectAssignmentService.getProjectAssignmentsForUser(user.getUserId(), range);
-
-        Seq<Interval> lockedDatesAsIntervals = timesheetLockService.findLockedDatesInRange(range.getDateStart(), range.getDateEnd());
-        List<Date> lockedDates = TimesheetLockService$.MODULE$.intervalToJavaList(lockedDatesAsIntervals);
-
-        return new WeekOverview(timesheetEntries, comment, assignments, range, user, lockedDates);
+        return weekOverviewLoader.load(user, range);
     }
 }
@@ -0,0 +1,36 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.timesheet.service;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.timesheet.dto.WeekOverview;
+
+/**
+ * Loads everything the week overview shows in as few round trips to the database as possible
+ */
+public interface WeekOverviewLoader {
+    /**
+     * Load the entries, bookable assignments, comment and locked days of a user's week. The
+     * assignments come with their project, customer and assignment type initialized
+     *
+     * @param user
+     * @param weekRange
+     * @return
+     */
+    WeekOverview load(User user, DateRange weekRange);
+}
@@ -0,0 +1,117 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.timesheet.service;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.data.LockedDays;
+import net.rrm.ehour.domain.*;
+import net.rrm.ehour.persistence.project.dao.ProjectAssignmentDao;
+import net.rrm.ehour.persistence.stats.StatementCountingInterceptor;
+import net.rrm.ehour.persistence.timesheet.dao.TimesheetCommentDao;
+import net.rrm.ehour.persistence.timesheet.dao.TimesheetDao;
+import net.rrm.ehour.project.status.ProjectAssignmentStatus;
+import net.rrm.ehour.project.status.ProjectAssignmentStatusService;
+import net.rrm.ehour.timesheet.dto.WeekOverview;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Week overview loader taking one statement each for the assignments, the entries and the comment.
+ * The assignments and the assignments of the entries are fetched with their project, customer and
+ * type so nothing is loaded lazily afterwards. Booked hours for the assignment statusses come from
+ * the assignment budget ledger and the locked days from the in-memory lock index; a cold ledger
+ * adds one grouped query.
+ * <p/>
+ * The number of statements of every load is logged on debug level, loads exceeding the
+ * ehour.timesheet.weekOverview.maxStatements target are logged as a warning.
+ */
+@Service("weekOverviewLoader")
+public class WeekOverviewLoaderImpl implements WeekOverviewLoader {
+    private static final Logger LOGGER = Logger.getLogger(WeekOverviewLoaderImpl.class);
+
+    private final TimesheetDao timesheetDAO;
+    private final TimesheetCommentDao timesheetCommentDAO;
+    private final ProjectAssignmentDao projectAssignmentDAO;
+    private final ProjectAssignmentStatusService projectAssignmentStatusService;
+    private final TimesheetLockService timesheetLockService;
+    private final int maxStatements;
+
+    @Autowired
+    public WeekOverviewLoaderImpl(TimesheetDao timesheetDAO,
+                                  TimesheetCommentDao timesheetCommentDAO,
+                                  ProjectAssignmentDao projectAssignmentDAO,
+                                  ProjectAssignmentStatusService projectAssignmentStatusService,
+                                  TimesheetLockService timesheetLockService,
+                                  @Value("${ehour.timesheet.weekOverview.maxStatements:3}") int maxStatements) {
+        this.timesheetDAO = timesheetDAO;
+        this.timesheetCommentDAO = timesheetCommentDAO;
+        this.projectAssignmentDAO = projectAssignmentDAO;
+        this.projectAssignmentStatusService = projectAssignmentStatusService;
+        this.timesheetLockService = timesheetLockService;
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public WeekOverview load(User user, DateRange weekRange) {
+        long statementsBefore = StatementCountingInterceptor.getStatementCount();
+
+        // assignments first, entries on those resolve their assignment from the session
+        List<ProjectAssignment> assignments = getBookableAssignments(user.getUserId(), weekRange);
+        List<TimesheetEntry> timesheetEntries = timesheetDAO.getTimesheetEntriesWithAssignmentInRange(user.getUserId(), weekRange);
+        TimesheetComment comment = timesheetCommentDAO.findById(new TimesheetCommentId(user.getUserId(), weekRange.getDateStart()));
+
+        LockedDays lockedDays = timesheetLockService.findLockedDays(weekRange.getDateStart(), weekRange.getDateEnd());
+
+        WeekOverview overview = new WeekOverview(timesheetEntries, comment, assignments, weekRange, user, lockedDays);
+
+        reportStatements(user, weekRange, StatementCountingInterceptor.getStatementCount() - statementsBefore);
+
+        return overview;
+    }
+
+    private List<ProjectAssignment> getBookableAssignments(Integer userId, DateRange weekRange) {
+        List<ProjectAssignment> assignments = projectAssignmentDAO.findProjectAssignmentsWithProjectForUser(userId, weekRange);
+
+        Map<Integer, ProjectAssignmentStatus> statusses = projectAssignmentStatusService.getAssignmentStatusses(assignments, weekRange);
+
+        List<ProjectAssignment> bookableAssignments = new ArrayList<ProjectAssignment>();
+
+        for (ProjectAssignment assignment : assignments) {
+            if (statusses.get(assignment.getAssignmentId()).isAssignmentBookable()) {
+                bookableAssignments.add(assignment);
+            }
+        }
+
+        return bookableAssignments;
+    }
+
+    private void reportStatements(User user, DateRange weekRange, long statements) {
+        if (statements > maxStatements) {
+            LOGGER.warn("Week overview of user " + user.getUserId() + " (" + weekRange + ") took " + statements + " statements, target is " + maxStatements);
+        } else if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Week overview of user " + user.getUserId() + " (" + weekRange + ") took " + statements + " statements");
+        }
+    }
+}
@@ -30,6 +30,7 @@ import net.rrm.ehour.project.service.ProjectAssignmentManagementService;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
 import net.rrm.ehour.report.reports.util.ReportUtil;
 import net.rrm.ehour.report.service.AggregateReportService;
+import net.rrm.ehour.report.service.ReportDataCache;
 import net.rrm.ehour.timesheet.service.IDeleteTimesheetEntry;
 import net.rrm.ehour.util.DateUtil;
 import net.rrm.ehour.util.EhourUtil;
@@ -62,6 +63,8 @@ public class UserServiceImpl implements UserService {
     private AggregateReportService aggregateReportService;
     @Autowired
     private IDeleteTimesheetEntry deleteTimesheetEntryService;
+    @Autowired
+    private ReportDataCache reportDataCache;
 
     @Autowired
     private MessageDigestPasswordEncoder passwordEncoder;
@@ -156,6 +159,8 @@ public class UserServiceImpl implements UserService {
             throw new ObjectNotUniqueException("name/code not unique");
         }
 
+        reportDataCache.invalidateAll();
+
         return department;
 
     }
@@ -227,6 +232,9 @@ public class UserServiceImpl implements UserService {
 
         userDAO.persist(dbUser);
 
+        // department and active flag decide which reports include the user
+        reportDataCache.invalidateAll();
+
         return dbUser;
     }
 
@@ -389,6 +397,8 @@ public class UserServiceImpl implements UserService {
         }
 
         userDepartmentDAO.delete(department);
+
+        reportDataCache.invalidateAll();
     }
 
     public void setPasswordEncoder(MessageDigestPasswordEncoder passwordEncoder) {
@@ -398,4 +408,8 @@ public class UserServiceImpl implements UserService {
     public void setProjectAssignmentManagementService(ProjectAssignmentManagementService projectAssignmentManagementService) {
         this.projectAssignmentManagementService = projectAssignmentManagementService;
     }
+
+    public void setReportDataCache(ReportDataCache reportDataCache) {
+        this.reportDataCache = reportDataCache;
+    }
 }
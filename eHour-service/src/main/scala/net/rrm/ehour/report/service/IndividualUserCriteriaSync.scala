@@ -5,12 +5,11 @@ import org.springframework.stereotype.Service
 import org.springframework.beans.factory.annotation.Autowired
 import net.rrm.ehour.persistence.user.dao.UserDepartmentDao
 import net.rrm.ehour.persistence.project.dao.ProjectAssignmentDao
-import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao
 import net.rrm.ehour.util._
 
 
 @Service
-class IndividualUserCriteriaSync @Autowired()(userDepartmentDAO: UserDepartmentDao, projectAssignmentDAO: ProjectAssignmentDao, reportAggregatedDAO: ReportAggregatedDao) {
+class IndividualUserCriteriaSync @Autowired()(userDepartmentDAO: UserDepartmentDao, projectAssignmentDAO: ProjectAssignmentDao, bookingDateRangeService: BookingDateRangeService) {
   def syncCriteriaForIndividualUser(reportCriteria: ReportCriteria) {
     val availCriteria = reportCriteria.getAvailableCriteria
     val user = reportCriteria.getUserSelectedCriteria.getUsers.get(0)
@@ -21,6 +20,6 @@ class IndividualUserCriteriaSync @Autowired()(userDepartmentDAO: UserDepartmentD
 
     availCriteria.setCustomers(customers)
     availCriteria.setProjects(projects)
-    availCriteria.setReportRange(reportAggregatedDAO.getMinMaxDateTimesheetEntry(user))
+    availCriteria.setReportRange(bookingDateRangeService.getBookingRange(user))
   }
 }
@@ -12,9 +12,11 @@ import com.github.nscala_time.time.Imports._
 import com.github.nscala_time.time.TypeImports.DateTime
 import com.github.nscala_time.time.TypeImports.Interval
 import net.rrm.ehour.persistence.timesheet.dao.TimesheetDao
-import net.rrm.ehour.data.DateRange
+import net.rrm.ehour.data.{LockedDays, DateRange}
 import net.rrm.ehour.util._
 import org.joda.time.Days
+import net.rrm.ehour.report.service.ReportDataCache
+import org.springframework.transaction.support.{TransactionSynchronizationAdapter, TransactionSynchronizationManager}
 
 trait TimesheetLockService {
   def createNew(name: Option[String] = None, startDate: Date, endDate: Date): TimesheetLock
@@ -29,44 +31,101 @@ trait TimesheetLockService {
 
   def findLockedDatesInRange(startDate: Date, endDate: Date): Seq[Interval]
 
+  def findLockedDays(startDate: Date, endDate: Date): LockedDays
+
   def findAffectedUsers(startDate: Date, endDate: Date): Seq[AffectedUser]
 }
 
 object TimesheetLockService {
   def timesheetLockToLockedTimesheetList(xs: ju.List[TimesheetLock]): List[TimesheetLock] = toScala(xs)
 
-  def intervalToJavaList(xs: Seq[Interval]): ju.List[Date] = {
-    def inc(d: DateTime, i: Interval, l: List[Date]): List[Date] =
-      if (d.isBefore(i.getEnd) || d.isEqual(i.getEnd))
-        inc(d.plusDays(1), i, d.toDate :: l)
-      else
-        l.reverse
-
-    toJava(xs.map(i => inc(i.start, i, Nil)).flatten)
-  }
+  def intervalToJavaList(xs: Seq[Interval]): ju.List[Date] = LockedDays.forRanges(toJava(xs.map(new DateRange(_)))).getDates
 }
 
 @Service("timesheetLockService")
-class TimesheetLockServiceSpringImpl @Autowired()(lockDao: TimesheetLockDao, timesheetDao: TimesheetDao) extends TimesheetLockService {
+class TimesheetLockServiceSpringImpl @Autowired()(lockDao: TimesheetLockDao, timesheetDao: TimesheetDao, reportDataCache: ReportDataCache) extends TimesheetLockService {
+
+  // all locked days, loaded on first use after a lock changed
+  private var lockIndex: Option[LockedDays] = None
+  private var lockIndexGeneration = 0L
 
   @Transactional
-  override def createNew(name: Option[String] = None, startDate: Date, endDate: Date): TimesheetLock = lockDao.persist(name match {
-    case Some(n) => new TimesheetLock(startDate, endDate, n)
-    case None => new TimesheetLock(startDate, endDate)
-  })
+  override def createNew(name: Option[String] = None, startDate: Date, endDate: Date): TimesheetLock = {
+    reportDataCache.invalidateRange(new DateRange(startDate, endDate))
+    rebuildLockIndex()
+
+    lockDao.persist(name match {
+      case Some(n) => new TimesheetLock(startDate, endDate, n)
+      case None => new TimesheetLock(startDate, endDate)
+    })
+  }
 
 
   @Transactional
   override def updateExisting(id: Int, startDate: Date, endDate: Date, name: String) {
+    invalidateLockedRange(id)
+    reportDataCache.invalidateRange(new DateRange(startDate, endDate))
+    rebuildLockIndex()
+
     val lock = new TimesheetLock(id, startDate, endDate, name)
     lockDao.persist(lock)
   }
 
   @Transactional
   def deleteLock(id: Int) {
+    invalidateLockedRange(id)
+    rebuildLockIndex()
+
     lockDao.delete(id)
   }
 
+  private def invalidateLockedRange(id: Int) {
+    find(id) match {
+      case Some(lock) => reportDataCache.invalidateRange(new DateRange(lock.getDateStart, lock.getDateEnd))
+      case None =>
+    }
+  }
+
+  /**
+   * Drop the lock index now and once more when the transaction completes, so an index
+   * loaded from uncommitted data is not kept. It's loaded again on the next lookup
+   */
+  private def rebuildLockIndex() {
+    invalidateLockIndex()
+
+    if (TransactionSynchronizationManager.isSynchronizationActive) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter {
+        override def afterCompletion(status: Int) {
+          invalidateLockIndex()
+        }
+      })
+    }
+  }
+
+  private def invalidateLockIndex() {
+    synchronized {
+      lockIndex = None
+      lockIndexGeneration += 1
+    }
+  }
+
+  private def lockedDays: LockedDays = {
+    val (index, generation) = synchronized((lockIndex, lockIndexGeneration))
+
+    index getOrElse {
+      val locks = lockDao.findAll().map(l => new DateRange(l.getDateStart, l.getDateEnd))
+      val loadedIndex = LockedDays.forRanges(toJava(locks))
+
+      synchronized {
+        if (generation == lockIndexGeneration) {
+          lockIndex = Some(loadedIndex)
+        }
+      }
+
+      loadedIndex
+    }
+  }
+
   private[service] def determineName(startDate: Date, endDate: Date):String = {
     val start = new DateTime(startDate)
     val end = new DateTime(endDate)
@@ -87,42 +146,12 @@ class TimesheetLockServiceSpringImpl @Autowired()(lockDao: TimesheetLockDao, tim
     case null => None
   }
 
-  override def findLockedDatesInRange(startDate: Date, endDate: Date): Seq[Interval] = {
-    implicit def dateToDateTime(d: Date): DateTime = LocalDate.fromDateFields(d).toDateTimeAtStartOfDay
-
-    def overlapsAtEdges(i: Interval, r: Interval) = {
-      def isOverlappingAtStart = r.start equals i.end
-      def overlapsAtStart = if (isOverlappingAtStart) Some(new Interval(r.start, r.start)) else None
+  override def findLockedDays(startDate: Date, endDate: Date): LockedDays = lockedDays.within(startDate, endDate)
 
-      def isOverlappingAtEnd = r.end equals i.start
-      def overlapsAtEnd = if (isOverlappingAtEnd) Some(new Interval(r.end, r.end)) else None
-
-      overlapsAtStart orElse overlapsAtEnd
-    }
-
-    val requestedInterval = new Interval(startDate, endDate)
-    val lockIntervals = lockDao.findMatchingLock(startDate, endDate).map(l => new Interval(l.getDateStart, l.getDateEnd)).toList
-
-    def intervalsThatOverlap = lockIntervals.map(i => requestedInterval overlap i match {
-      case o: Interval => Some(o)
-      case null => overlapsAtEdges(i, requestedInterval)
-    }).flatten
-
-    val overlaps = intervalsThatOverlap
-
-
-    def mergeIntervals(current: Interval, stack: Seq[Interval], merged: Seq[Interval]): Seq[Interval] = {
-      stack match {
-        case (x :: xs) if x.overlaps(current) || x.abuts(current) => mergeIntervals(new Interval(current.start, x.end), xs, merged)
-        case (x :: xs) => mergeIntervals(x, xs, current +: merged)
-        case Nil => current +: merged
-      }
-    }
+  override def findLockedDatesInRange(startDate: Date, endDate: Date): Seq[Interval] = {
+    def toDateTime(d: Date): DateTime = LocalDate.fromDateFields(d).toDateTimeAtStartOfDay
 
-    (overlaps.sortWith(_.start isBefore _.start) match {
-      case (x :: xs) => mergeIntervals(x, xs, Seq())
-      case (xs) => xs
-    }).reverse
+    findLockedDays(startDate, endDate).getRanges.map(r => new Interval(toDateTime(r.getDateStart), toDateTime(r.getDateEnd))).toList
   }
 
   def findAffectedUsers(startDate: Date, endDate: Date): Seq[AffectedUser] = {
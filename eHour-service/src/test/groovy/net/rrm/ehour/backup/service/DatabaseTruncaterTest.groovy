@@ -35,7 +35,7 @@ class DatabaseTruncaterTest
   {
     truncater.truncateDatabase()
 
-    verify(importDao, times(BackupEntityType.reverseOrderedValues()[0].order + 4)).delete anyObject()
+    verify(importDao, times(BackupEntityType.reverseOrderedValues()[0].order + 5)).delete anyObject()
 
   }
 }
@@ -6,6 +6,12 @@ import net.rrm.ehour.backup.service.restore.UserRoleParserDaoValidatorImpl
 import net.rrm.ehour.config.EhourConfigStub
 import net.rrm.ehour.domain.Configuration
 import net.rrm.ehour.persistence.config.dao.ConfigurationDao
+import net.rrm.ehour.persistence.report.dao.TimesheetFactStore
+import net.rrm.ehour.project.status.AssignmentBudgetLedger
+import net.rrm.ehour.report.service.AssignmentRollupService
+import net.rrm.ehour.report.service.BookingDateRangeService
+import net.rrm.ehour.report.service.ReportDataCache
+import net.rrm.ehour.timesheet.service.MonthOverviewCache
 import org.apache.commons.io.FileUtils
 import org.junit.Before
 import org.junit.Test
@@ -14,6 +20,8 @@ import org.mockito.MockitoAnnotations
 
 import static org.junit.Assert.assertFalse
 import static org.junit.Assert.assertTrue
+import static org.mockito.Mockito.never
+import static org.mockito.Mockito.verify
 import static org.mockito.Mockito.when
 
 /**
@@ -33,6 +41,24 @@ class ImportServiceImplTest
   @Mock
   ConfigurationParserDao configurationParserDao
 
+  @Mock
+  AssignmentRollupService assignmentRollupService
+
+  @Mock
+  ReportDataCache reportDataCache
+
+  @Mock
+  BookingDateRangeService bookingDateRangeService
+
+  @Mock
+  TimesheetFactStore timesheetFactStore
+
+  @Mock
+  AssignmentBudgetLedger assignmentBudgetLedger
+
+  @Mock
+  MonthOverviewCache monthOverviewCache
+
   @Before
   void setUp()
   {
@@ -41,6 +67,12 @@ class ImportServiceImplTest
     importService = new RestoreServiceImpl()
     importService.configurationDao = configurationDao
     importService.databaseTruncater = truncater
+    importService.assignmentRollupService = assignmentRollupService
+    importService.reportDataCache = reportDataCache
+    importService.bookingDateRangeService = bookingDateRangeService
+    importService.timesheetFactStore = timesheetFactStore
+    importService.assignmentBudgetLedger = assignmentBudgetLedger
+    importService.monthOverviewCache = monthOverviewCache
   }
 
   @Test
@@ -100,6 +132,7 @@ class ImportServiceImplTest
 
     assertFalse destFile.exists()
     assert userVal.findUserCount == 6
+    verify(assignmentRollupService).rebuild()
   }
 
     @Test
@@ -131,5 +164,6 @@ class ImportServiceImplTest
 
         assertFalse destFile.exists()
         assert userVal.findUserCount == 0
+        verify(assignmentRollupService, never()).rebuild()
     }
 }
@@ -22,6 +22,7 @@ import net.rrm.ehour.exception.ObjectNotFoundException;
 import net.rrm.ehour.exception.ObjectNotUniqueException;
 import net.rrm.ehour.exception.ParentChildConstraintException;
 import net.rrm.ehour.persistence.customer.dao.CustomerDao;
+import net.rrm.ehour.report.service.ReportDataCache;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -35,6 +36,7 @@ public class CustomerServiceTest
 {
 	private	CustomerService	customerService;
 	private	CustomerDao		customerDAO;
+	private	ReportDataCache	reportDataCache;
 
     @Before
 	public void setUp()
@@ -43,6 +45,9 @@ public class CustomerServiceTest
 
 		customerDAO = createMock(CustomerDao.class);
 		((CustomerServiceImpl)customerService).setCustomerDAO(customerDAO);
+
+		reportDataCache = createMock(ReportDataCache.class);
+		((CustomerServiceImpl)customerService).setReportDataCache(reportDataCache);
 	}
 
     @Test
@@ -84,12 +89,14 @@ public class CustomerServiceTest
 		expectLastCall().andReturn(cust);
 		
 		customerDAO.delete(cust);
+
+		reportDataCache.invalidateAll();
 		
-		replay(customerDAO);
+		replay(customerDAO, reportDataCache);
 		
 		customerService.deleteCustomer(1);
 		
-		verify(customerDAO);
+		verify(customerDAO, reportDataCache);
 	}
 
 
@@ -140,12 +147,14 @@ public class CustomerServiceTest
 		
 		customerDAO.persist(cust);
 		expectLastCall().andReturn(cust);
+
+		reportDataCache.invalidateAll();
 		
-		replay(customerDAO);
+		replay(customerDAO, reportDataCache);
 		
 		customerService.persistCustomer(cust);
 		
-		verify(customerDAO);
+		verify(customerDAO, reportDataCache);
 	}
 
 }
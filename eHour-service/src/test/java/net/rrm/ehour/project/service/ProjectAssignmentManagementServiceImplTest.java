@@ -4,6 +4,9 @@ import net.rrm.ehour.domain.*;
 import net.rrm.ehour.exception.ProjectAlreadyAssignedException;
 import net.rrm.ehour.persistence.project.dao.ProjectAssignmentDao;
 import net.rrm.ehour.persistence.project.dao.ProjectDao;
+import net.rrm.ehour.persistence.report.dao.TimesheetFactStore;
+import net.rrm.ehour.report.service.ReportDataCache;
+import net.rrm.ehour.timesheet.service.MonthOverviewCache;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -27,6 +30,15 @@ public class ProjectAssignmentManagementServiceImplTest {
     @Mock
     private ProjectDao projectDao;
 
+    @Mock
+    private ReportDataCache reportDataCache;
+
+    @Mock
+    private TimesheetFactStore timesheetFactStore;
+
+    @Mock
+    private MonthOverviewCache monthOverviewCache;
+
     @Before
     public void setUp() {
         service = new ProjectAssignmentManagementServiceImpl();
@@ -35,6 +47,9 @@ public class ProjectAssignmentManagementServiceImplTest {
 
         service.setProjectAssignmentDAO(projectAssignmentDao);
         service.setProjectDAO(projectDao);
+        service.setReportDataCache(reportDataCache);
+        service.setTimesheetFactStore(timesheetFactStore);
+        service.setMonthOverviewCache(monthOverviewCache);
     }
 
     @Test
@@ -83,4 +98,15 @@ public class ProjectAssignmentManagementServiceImplTest {
         assertEquals(userA, assignment.getUser());
         assertEquals(5f, assignment.getAllottedHours(), 0);
     }
+
+    @Test
+    public void shouldInvalidateCachedReportsWhenAssignmentIsUpdated() {
+        ProjectAssignment assignment = ProjectAssignmentObjectMother.createProjectAssignment(1);
+
+        service.updateProjectAssignment(assignment);
+
+        verify(projectAssignmentDao).persist(assignment);
+        verify(reportDataCache).invalidateAssignment(assignment);
+        verify(monthOverviewCache).invalidateUser(assignment.getUser().getUserId());
+    }
 }
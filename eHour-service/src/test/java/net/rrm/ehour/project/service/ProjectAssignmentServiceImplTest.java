@@ -17,6 +17,7 @@
 package net.rrm.ehour.project.service;
 
 import com.google.common.collect.Lists;
+import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.domain.Project;
 import net.rrm.ehour.domain.ProjectAssignment;
 import net.rrm.ehour.domain.ProjectAssignmentObjectMother;
@@ -24,17 +25,17 @@ import net.rrm.ehour.domain.ProjectObjectMother;
 import net.rrm.ehour.exception.ObjectNotFoundException;
 import net.rrm.ehour.persistence.project.dao.ProjectAssignmentDao;
 import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao;
+import net.rrm.ehour.project.status.ProjectAssignmentStatus;
 import net.rrm.ehour.project.status.ProjectAssignmentStatusService;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
 
 import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -98,4 +99,32 @@ public class ProjectAssignmentServiceImplTest {
         verify(reportAggregatedDAO);
     }
 
+    @Test
+    public void should_only_return_bookable_assignments_for_user_with_one_status_lookup() {
+        DateRange range = new DateRange();
+
+        ProjectAssignment bookableAssignment = ProjectAssignmentObjectMother.createProjectAssignment(1);
+        ProjectAssignment overBudgetAssignment = ProjectAssignmentObjectMother.createProjectAssignment(2);
+        List<ProjectAssignment> assignments = Arrays.asList(bookableAssignment, overBudgetAssignment);
+
+        ProjectAssignmentStatus bookableStatus = new ProjectAssignmentStatus();
+        bookableStatus.addStatus(ProjectAssignmentStatus.Status.IN_ALLOTTED);
+
+        ProjectAssignmentStatus overBudgetStatus = new ProjectAssignmentStatus();
+        overBudgetStatus.addStatus(ProjectAssignmentStatus.Status.OVER_ALLOTTED);
+
+        Map<Integer, ProjectAssignmentStatus> statusses = new HashMap<Integer, ProjectAssignmentStatus>();
+        statusses.put(bookableAssignment.getAssignmentId(), bookableStatus);
+        statusses.put(overBudgetAssignment.getAssignmentId(), overBudgetStatus);
+
+        expect(projectAssignmentDAO.findProjectAssignmentsForUser(1, range)).andReturn(assignments);
+        expect(statusService.getAssignmentStatusses(assignments, range)).andReturn(statusses);
+
+        replay(projectAssignmentDAO, statusService);
+
+        List<ProjectAssignment> bookableAssignments = projectAssignmentService.getProjectAssignmentsForUser(1, range);
+
+        assertEquals(Arrays.asList(bookableAssignment), bookableAssignments);
+        verify(projectAssignmentDAO, statusService);
+    }
 }
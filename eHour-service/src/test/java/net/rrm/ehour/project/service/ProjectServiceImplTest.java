@@ -22,6 +22,7 @@ import net.rrm.ehour.domain.ProjectAssignmentObjectMother;
 import net.rrm.ehour.exception.ObjectNotFoundException;
 import net.rrm.ehour.persistence.project.dao.ProjectDao;
 import net.rrm.ehour.report.service.AggregateReportService;
+import net.rrm.ehour.report.service.ReportDataCache;
 import net.rrm.ehour.user.service.UserService;
 import org.junit.Before;
 import org.junit.Test;
@@ -36,6 +37,7 @@ public class ProjectServiceImplTest {
     private UserService userService;
     private AggregateReportService aggregateReportService;
     private ProjectAssignmentManagementService projectAssignmentManagementService;
+    private ReportDataCache reportDataCache;
 
     @Before
     public void setUp() {
@@ -43,8 +45,9 @@ public class ProjectServiceImplTest {
         userService = createMock(UserService.class);
         aggregateReportService = createMock(AggregateReportService.class);
         projectAssignmentManagementService = createMock(ProjectAssignmentManagementService.class);
+        reportDataCache = createMock(ReportDataCache.class);
 
-        projectService = new ProjectServiceImpl(projectDao, projectAssignmentManagementService, aggregateReportService, userService);
+        projectService = new ProjectServiceImpl(projectDao, projectAssignmentManagementService, aggregateReportService, userService, reportDataCache);
     }
 
     @Test
@@ -86,8 +89,9 @@ public class ProjectServiceImplTest {
 
         expect(projectDao.persist(project)).andReturn(project);
         expect(userService.validateProjectManagementRoles(null)).andReturn(null);
+        reportDataCache.invalidateAll();
 
-        replay(userService, projectDao);
+        replay(userService, projectDao, reportDataCache);
 
         ProjectAssignment assignment = ProjectAssignmentObjectMother.createProjectAssignment(1);
         assignment.setProject(null);
@@ -96,6 +100,7 @@ public class ProjectServiceImplTest {
 
         verify(userService);
         verify(projectDao);
+        verify(reportDataCache);
     }
 
     @Test
@@ -104,8 +109,9 @@ public class ProjectServiceImplTest {
 
         expect(projectDao.persist(project)).andReturn(project);
         expect(userService.validateProjectManagementRoles(null)).andReturn(null);
+        reportDataCache.invalidateAll();
 
-        replay(userService, projectDao);
+        replay(userService, projectDao, reportDataCache);
 
         ProjectAssignment assignment = ProjectAssignmentObjectMother.createProjectAssignment(1);
         assignment.setProject(project);
@@ -114,6 +120,7 @@ public class ProjectServiceImplTest {
 
         verify(userService);
         verify(projectDao);
+        verify(reportDataCache);
     }
 
 }
@@ -0,0 +1,197 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.project.status;
+
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.domain.ProjectAssignmentObjectMother;
+import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao;
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class AssignmentBudgetLedgerImplTest {
+    private AssignmentBudgetLedgerImpl ledger;
+    private ReportAggregatedDao reportAggregatedDao;
+    private ProjectAssignment assignment;
+
+    @Before
+    public void setUp() {
+        reportAggregatedDao = createMock(ReportAggregatedDao.class);
+        ledger = new AssignmentBudgetLedgerImpl(reportAggregatedDao);
+
+        assignment = ProjectAssignmentObjectMother.createProjectAssignment(1);
+    }
+
+    @Test
+    public void shouldLoadBookedHoursOnce() {
+        expect(reportAggregatedDao.getCumulatedHoursForAssignment(assignment)).andReturn(new AssignmentAggregateReportElement(assignment, 10d));
+        replay(reportAggregatedDao);
+
+        ledger.getAggregate(assignment);
+        AssignmentAggregateReportElement aggregate = ledger.getAggregate(assignment);
+
+        assertEquals(10d, aggregate.getHours().doubleValue(), 0.001);
+        verify(reportAggregatedDao);
+    }
+
+    @Test
+    public void shouldKeepAssignmentWithoutBookings() {
+        expect(reportAggregatedDao.getCumulatedHoursForAssignment(assignment)).andReturn(null);
+        replay(reportAggregatedDao);
+
+        ledger.getAggregate(assignment);
+
+        assertNull(ledger.getAggregate(assignment));
+        verify(reportAggregatedDao);
+    }
+
+    @Test
+    public void shouldKeepZeroHoursApartFromNoBookings() {
+        expect(reportAggregatedDao.getCumulatedHoursForAssignment(assignment)).andReturn(new AssignmentAggregateReportElement(assignment, 0d));
+        replay(reportAggregatedDao);
+
+        ledger.getAggregate(assignment);
+        AssignmentAggregateReportElement aggregate = ledger.getAggregate(assignment);
+
+        assertNotNull(aggregate);
+        assertEquals(0d, aggregate.getHours().doubleValue(), 0.001);
+        verify(reportAggregatedDao);
+    }
+
+    @Test
+    public void shouldAddFirstBookingsToAssignmentWithoutBookings() {
+        expect(reportAggregatedDao.getCumulatedHoursForAssignment(assignment)).andReturn(null);
+        replay(reportAggregatedDao);
+
+        ledger.getAggregate(assignment);
+        ledger.bookingsChanged(assignment, 4);
+
+        assertEquals(4d, ledger.getAggregate(assignment).getHours().doubleValue(), 0.001);
+        verify(reportAggregatedDao);
+    }
+
+    @Test
+    public void shouldAddChangedHoursToLoadedTotal() {
+        expect(reportAggregatedDao.getCumulatedHoursForAssignment(assignment)).andReturn(new AssignmentAggregateReportElement(assignment, 10d));
+        replay(reportAggregatedDao);
+
+        ledger.getAggregate(assignment);
+        ledger.bookingsChanged(assignment, 6);
+        ledger.bookingsChanged(assignment, -2);
+
+        assertEquals(14d, ledger.getAggregate(assignment).getHours().doubleValue(), 0.001);
+        verify(reportAggregatedDao);
+    }
+
+    @Test
+    public void shouldLoadAgainWhenAllHoursAreRemoved() {
+        expect(reportAggregatedDao.getCumulatedHoursForAssignment(assignment)).andReturn(new AssignmentAggregateReportElement(assignment, 10d));
+        expect(reportAggregatedDao.getCumulatedHoursForAssignment(assignment)).andReturn(null);
+        replay(reportAggregatedDao);
+
+        ledger.getAggregate(assignment);
+        ledger.bookingsChanged(assignment, -10);
+
+        assertNull(ledger.getAggregate(assignment));
+        verify(reportAggregatedDao);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldOnlyLoadMissingTotalsInBulk() {
+        ProjectAssignment other = ProjectAssignmentObjectMother.createProjectAssignment(2);
+
+        expect(reportAggregatedDao.getCumulatedHoursForAssignment(assignment)).andReturn(new AssignmentAggregateReportElement(assignment, 10d));
+        expect(reportAggregatedDao.getCumulatedHoursPerAssignmentForAssignments((List<Integer>) eq(Arrays.asList(other.getAssignmentId()))))
+                .andReturn(Arrays.asList(new AssignmentAggregateReportElement(other, 4d)));
+        replay(reportAggregatedDao);
+
+        ledger.getAggregate(assignment);
+        Map<Integer, AssignmentAggregateReportElement> aggregates = ledger.getAggregates(Arrays.asList(assignment, other));
+
+        assertEquals(10d, aggregates.get(assignment.getAssignmentId()).getHours().doubleValue(), 0.001);
+        assertEquals(4d, aggregates.get(other.getAssignmentId()).getHours().doubleValue(), 0.001);
+        verify(reportAggregatedDao);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldCorrectDriftedTotalOnReconcile() {
+        expect(reportAggregatedDao.getCumulatedHoursForAssignment(assignment)).andReturn(new AssignmentAggregateReportElement(assignment, 10d));
+        expect(reportAggregatedDao.getCumulatedHoursPerAssignmentForAssignments((List<Integer>) eq(Arrays.asList(assignment.getAssignmentId()))))
+                .andReturn(Arrays.asList(new AssignmentAggregateReportElement(assignment, 12d)));
+        replay(reportAggregatedDao);
+
+        ledger.getAggregate(assignment);
+        ledger.reconcile();
+
+        assertEquals(12d, ledger.getAggregate(assignment).getHours().doubleValue(), 0.001);
+        verify(reportAggregatedDao);
+    }
+
+    @Test
+    public void shouldLoadAgainAfterInvalidate() {
+        expect(reportAggregatedDao.getCumulatedHoursForAssignment(assignment)).andReturn(new AssignmentAggregateReportElement(assignment, 10d)).times(2);
+        replay(reportAggregatedDao);
+
+        ledger.getAggregate(assignment);
+        ledger.invalidate(Arrays.asList(assignment.getAssignmentId()));
+        ledger.getAggregate(assignment);
+
+        verify(reportAggregatedDao);
+    }
+
+    @Test
+    public void shouldNotKeepTotalLoadedBetweenCommitAndCompletion() throws InterruptedException {
+        expect(reportAggregatedDao.getCumulatedHoursForAssignment(assignment)).andReturn(new AssignmentAggregateReportElement(assignment, 16d)).times(2);
+        replay(reportAggregatedDao);
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            ledger.bookingsChanged(assignment, 6);
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+
+            // another thread loads the committed total before the synchronization completes
+            Thread reader = new Thread() {
+                @Override
+                public void run() {
+                    ledger.getAggregate(assignment);
+                }
+            };
+            reader.start();
+            reader.join();
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(16d, ledger.getAggregate(assignment).getHours().doubleValue(), 0.001);
+        verify(reportAggregatedDao);
+    }
+}
@@ -16,10 +16,10 @@
 
 package net.rrm.ehour.project.status;
 
+import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.domain.ProjectAssignment;
 import net.rrm.ehour.domain.ProjectAssignmentObjectMother;
 import net.rrm.ehour.domain.ProjectAssignmentType;
-import net.rrm.ehour.domain.TimesheetEntry;
 import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao;
 import net.rrm.ehour.persistence.timesheet.dao.TimesheetDao;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
@@ -47,7 +47,7 @@ public class ProjectAssignmentStatusServiceTest
 		raDAO = createMock(ReportAggregatedDao.class);
 		timesheetDAO = createMock(TimesheetDao.class);
 		util.setTimesheetDAO(timesheetDAO);
-		util.setReportAggregatedDAO(raDAO);
+		util.setAssignmentBudgetLedger(new AssignmentBudgetLedgerImpl(raDAO));
 	}
 
 	@Test
@@ -70,11 +70,8 @@ public class ProjectAssignmentStatusServiceTest
 		Date endDate = endCal.getTime();
 		assignment.setDateEnd(endDate);
 
-		expect(timesheetDAO.getTimesheetEntriesBefore(assignment, startDate))
-			.andReturn(new ArrayList<TimesheetEntry>());
-
-		expect(timesheetDAO.getTimesheetEntriesAfter(assignment, endDate))
-			.andReturn(new ArrayList<TimesheetEntry>());
+		expect(timesheetDAO.getBookedDateRangePerAssignment(Arrays.asList(assignment)))
+			.andReturn(new HashMap<Integer, DateRange>());
 		
 		replay(timesheetDAO);
 		ProjectAssignmentStatus status = util.getAssignmentStatus(assignment);
@@ -103,13 +100,11 @@ public class ProjectAssignmentStatusServiceTest
 		assignment.setDateEnd(endCal.getTime());
 		Date end = endCal.getTime();
 		
-		expect(timesheetDAO.getTimesheetEntriesBefore(assignment, start))
-		.andReturn(new ArrayList<TimesheetEntry>());
+		Calendar bookedCal = new GregorianCalendar();
+		bookedCal.add(Calendar.DAY_OF_YEAR, -1);
 
-		List<TimesheetEntry> entry = new ArrayList<TimesheetEntry>();
-		entry.add(new TimesheetEntry());
-		expect(timesheetDAO.getTimesheetEntriesAfter(assignment, end))
-			.andReturn(entry);
+		expect(timesheetDAO.getBookedDateRangePerAssignment(Arrays.asList(assignment)))
+			.andReturn(Collections.singletonMap(assignment.getAssignmentId(), new DateRange(start, bookedCal.getTime())));
 
 		replay(timesheetDAO);
 		ProjectAssignmentStatus status = util.getAssignmentStatus(assignment);
@@ -261,4 +256,37 @@ public class ProjectAssignmentStatusServiceTest
 //		
 //	}
 
+	@Test
+	public final void shouldGetStatussesOfAssignmentsWithOneQueryForBookedRanges()
+	{
+		ProjectAssignment running = ProjectAssignmentObjectMother.createProjectAssignment(1);
+		running.setAssignmentType(new ProjectAssignmentType(EhourConstants.ASSIGNMENT_DATE));
+
+		ProjectAssignment bookedBeforeStart = ProjectAssignmentObjectMother.createProjectAssignment(2);
+		bookedBeforeStart.setAssignmentType(new ProjectAssignmentType(EhourConstants.ASSIGNMENT_DATE));
+
+		Calendar startCal = new GregorianCalendar();
+		startCal.add(Calendar.DAY_OF_YEAR, -5);
+		running.setDateStart(startCal.getTime());
+		bookedBeforeStart.setDateStart(startCal.getTime());
+
+		Calendar bookedCal = new GregorianCalendar();
+		bookedCal.add(Calendar.DAY_OF_YEAR, -10);
+
+		List<ProjectAssignment> assignments = Arrays.asList(running, bookedBeforeStart);
+
+		expect(raDAO.getCumulatedHoursPerAssignmentForAssignments(Arrays.asList(running.getAssignmentId(), bookedBeforeStart.getAssignmentId())))
+			.andReturn(new ArrayList<AssignmentAggregateReportElement>());
+		expect(timesheetDAO.getBookedDateRangePerAssignment(assignments))
+			.andReturn(Collections.singletonMap(bookedBeforeStart.getAssignmentId(), new DateRange(bookedCal.getTime(), new Date())));
+
+		replay(raDAO, timesheetDAO);
+
+		Map<Integer, ProjectAssignmentStatus> statusses = util.getAssignmentStatusses(assignments);
+
+		verify(raDAO, timesheetDAO);
+
+		assertTrue(statusses.get(running.getAssignmentId()).getStatusses().contains(ProjectAssignmentStatus.Status.RUNNING));
+		assertTrue(statusses.get(bookedBeforeStart.getAssignmentId()).getStatusses().contains(ProjectAssignmentStatus.Status.BEFORE_START));
+	}
 }
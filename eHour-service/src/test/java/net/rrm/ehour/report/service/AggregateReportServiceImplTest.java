@@ -18,6 +18,7 @@ package net.rrm.ehour.report.service;
 
 import com.google.common.collect.Lists;
 import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.data.LockedDays;
 import net.rrm.ehour.domain.*;
 import net.rrm.ehour.persistence.project.dao.ProjectDao;
 import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao;
@@ -30,17 +31,20 @@ import net.rrm.ehour.report.reports.ReportData;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElementMother;
 import net.rrm.ehour.timesheet.service.TimesheetLockService;
-import org.joda.time.Interval;
+import net.rrm.ehour.util.EhourUtil;
+import org.easymock.Capture;
 import org.junit.Before;
 import org.junit.Test;
-import scala.collection.convert.WrapAsScala$;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
 import static org.easymock.EasyMock.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @SuppressWarnings("unchecked")
 public class AggregateReportServiceImplTest {
@@ -59,10 +63,11 @@ public class AggregateReportServiceImplTest {
         userDao = createMock(UserDao.class);
         timesheetLockService = createMock(TimesheetLockService.class);
 
-        aggregateReportService = new AggregateReportServiceImpl(reportAggregatedDao, assignmentService, userDao, projectDao, timesheetLockService);
+        aggregateReportService = new AggregateReportServiceImpl(reportAggregatedDao, assignmentService, new BookingDateRangeServiceImpl(reportAggregatedDao), userDao, projectDao, timesheetLockService, new ReportDataCacheImpl(1000, 30),
+                new ChunkedReportExecutor(createMock(PlatformTransactionManager.class), 500, 92, 2, 2));
 
-        expect(timesheetLockService.findLockedDatesInRange(anyObject(Date.class), anyObject(Date.class)))
-                .andReturn(WrapAsScala$.MODULE$.<Interval>asScalaBuffer(Lists.<Interval>newArrayList()));
+        expect(timesheetLockService.findLockedDays(anyObject(Date.class), anyObject(Date.class)))
+                .andReturn(LockedDays.NONE);
         replay(timesheetLockService);
     }
 
@@ -172,6 +177,70 @@ public class AggregateReportServiceImplTest {
         verify(projectDao);
     }
 
+    @Test
+    public void should_restrict_pm_report_to_projects_of_pm() {
+        User pm = new User(5);
+        List<Project> pmProjects = Arrays.asList(new Project(1), new Project(2));
+
+        UserSelectedCriteria uc = new UserSelectedCriteria();
+        uc.setReportRange(new DateRange());
+        uc.setReportTypeToPM(pm);
+
+        Capture<List<Project>> queriedProjects = new Capture<List<Project>>();
+
+        expect(projectDao.findActiveProjectsWhereUserIsPM(pm)).andReturn(pmProjects);
+        expect(reportAggregatedDao.getCumulatedHoursPerAssignmentForProjects(capture(queriedProjects), isA(DateRange.class)))
+                .andReturn(new ArrayList<AssignmentAggregateReportElement>());
+
+        replay(reportAggregatedDao, projectDao);
+
+        aggregateReportService.getAggregateReportData(new ReportCriteria(uc));
+
+        verify(reportAggregatedDao, projectDao);
+        assertEquals(Arrays.asList(1, 2), EhourUtil.getIdsFromDomainObjects(queriedProjects.getValue()));
+    }
+
+    @Test
+    public void should_only_query_selected_projects_of_pm() {
+        User pm = new User(5);
+
+        UserSelectedCriteria uc = new UserSelectedCriteria();
+        uc.setReportRange(new DateRange());
+        uc.setReportTypeToPM(pm);
+        uc.setProjects(Arrays.asList(new Project(2), new Project(3)));
+
+        Capture<List<Project>> queriedProjects = new Capture<List<Project>>();
+
+        expect(projectDao.findActiveProjectsWhereUserIsPM(pm)).andReturn(Arrays.asList(new Project(1), new Project(2)));
+        expect(reportAggregatedDao.getCumulatedHoursPerAssignmentForProjects(capture(queriedProjects), isA(DateRange.class)))
+                .andReturn(new ArrayList<AssignmentAggregateReportElement>());
+
+        replay(reportAggregatedDao, projectDao);
+
+        aggregateReportService.getAggregateReportData(new ReportCriteria(uc));
+
+        verify(reportAggregatedDao, projectDao);
+        assertEquals(Arrays.asList(2), EhourUtil.getIdsFromDomainObjects(queriedProjects.getValue()));
+    }
+
+    @Test
+    public void should_not_query_for_pm_without_projects() {
+        User pm = new User(5);
+
+        UserSelectedCriteria uc = new UserSelectedCriteria();
+        uc.setReportRange(new DateRange());
+        uc.setReportTypeToPM(pm);
+
+        expect(projectDao.findActiveProjectsWhereUserIsPM(pm)).andReturn(new ArrayList<Project>());
+
+        replay(reportAggregatedDao, projectDao);
+
+        ReportData reportData = aggregateReportService.getAggregateReportData(new ReportCriteria(uc));
+
+        assertTrue(reportData.getReportElements().isEmpty());
+        verify(reportAggregatedDao, projectDao);
+    }
+
     @Test
     public void should_create_pm_detailed_report() {
         Project project = new Project(1);
@@ -240,10 +309,8 @@ public class AggregateReportServiceImplTest {
         AssignmentAggregateReportElement aggregate = AssignmentAggregateReportElementMother.createProjectAssignmentAggregate(1, 1, 1);
         aggregate.getProjectAssignment().setProject(pmProject);
         elements.add(aggregate);
-        elements.add(AssignmentAggregateReportElementMother.createProjectAssignmentAggregate(2, 2, 2));
-        elements.add(AssignmentAggregateReportElementMother.createProjectAssignmentAggregate(3, 3, 3));
 
-        expect(reportAggregatedDao.getCumulatedHoursPerAssignmentForUsers(isA(List.class), isA(DateRange.class))).andReturn(elements);
+        expect(reportAggregatedDao.getCumulatedHoursPerAssignmentForUsers(eq(users), eq(Lists.newArrayList(pmProject)), isA(DateRange.class))).andReturn(elements);
 
         replay(reportAggregatedDao, userDao, projectDao);
 
@@ -0,0 +1,140 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.persistence.report.dao.AssignmentRollupDao;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
+
+@SuppressWarnings({"deprecation"})
+public class AssignmentRollupServiceImplTest {
+    private AssignmentRollupDao rollupDao;
+    private AssignmentRollupServiceImpl rollupService;
+    private ProjectAssignment assignment;
+
+    @Before
+    public void setUp() {
+        rollupDao = createMock(AssignmentRollupDao.class);
+        rollupService = new AssignmentRollupServiceImpl(rollupDao);
+        assignment = new ProjectAssignment(1);
+    }
+
+    @Test
+    public void shouldRecalculateEachTouchedMonthOnce() {
+        Date endOfMarch = new Date(2013 - 1900, 3 - 1, 31);
+        Date firstOfApril = new Date(2013 - 1900, 4 - 1, 1);
+        Date secondOfApril = new Date(2013 - 1900, 4 - 1, 2);
+
+        DateRange march = new DateRange(new Date(2013 - 1900, 3 - 1, 1), endOfMarch);
+        DateRange april = new DateRange(firstOfApril, new Date(2013 - 1900, 4 - 1, 30));
+
+        rollupDao.lockAssignment(assignment);
+        expect(rollupDao.deleteForAssignmentInRange(assignment, march)).andReturn(0);
+        expect(rollupDao.rollupAssignmentInRange(assignment, march)).andReturn(1);
+        expect(rollupDao.deleteForAssignmentInRange(assignment, april)).andReturn(1);
+        expect(rollupDao.rollupAssignmentInRange(assignment, april)).andReturn(1);
+
+        replay(rollupDao);
+
+        rollupService.updateRollup(assignment, Arrays.asList(endOfMarch, firstOfApril, secondOfApril));
+
+        verify(rollupDao);
+    }
+
+    @Test
+    public void shouldLockAssignmentBeforeRecalculating() {
+        Date firstOfApril = new Date(2013 - 1900, 4 - 1, 1);
+
+        rollupDao = createStrictMock(AssignmentRollupDao.class);
+        rollupService = new AssignmentRollupServiceImpl(rollupDao);
+
+        rollupDao.lockAssignment(assignment);
+        expect(rollupDao.deleteForAssignmentInRange(eq(assignment), isA(DateRange.class))).andReturn(1);
+        expect(rollupDao.rollupAssignmentInRange(eq(assignment), isA(DateRange.class))).andReturn(0);
+
+        replay(rollupDao);
+
+        rollupService.updateRollup(assignment, Arrays.asList(firstOfApril));
+
+        verify(rollupDao);
+    }
+
+    @Test
+    public void shouldNotLockWithoutDates() {
+        replay(rollupDao);
+
+        rollupService.updateRollup(assignment, Arrays.asList((Date) null));
+
+        verify(rollupDao);
+    }
+
+    @Test
+    public void shouldRebuildInSingleStatement() {
+        rollupDao.setRebuilding(true);
+        expect(rollupDao.deleteAll()).andReturn(3);
+        expect(rollupDao.rollupAll()).andReturn(2);
+        rollupDao.setRebuilding(false);
+
+        replay(rollupDao);
+
+        rollupService.rebuild();
+
+        verify(rollupDao);
+    }
+
+    @Test
+    public void shouldRebuildAssignments() {
+        rollupDao.setRebuilding(true);
+        expect(rollupDao.deleteForAssignments(Arrays.asList(1, 2))).andReturn(3);
+        expect(rollupDao.rollupAssignments(Arrays.asList(1, 2))).andReturn(2);
+        rollupDao.setRebuilding(false);
+
+        replay(rollupDao);
+
+        rollupService.rebuild(new TreeSet<Integer>(Arrays.asList(1, 2)));
+
+        verify(rollupDao);
+    }
+
+    @Test
+    public void shouldFindInconsistentAssignments() {
+        Map<Integer, Number> raw = new HashMap<Integer, Number>();
+        raw.put(1, 8.0);
+        raw.put(2, 16.0);
+        raw.put(3, 4.0);
+
+        Map<Integer, Number> rolledUp = new HashMap<Integer, Number>();
+        rolledUp.put(1, 8.0f);
+        rolledUp.put(2, 12.0f);
+        rolledUp.put(4, 1.0f);
+
+        expect(rollupDao.getRawHoursPerAssignment()).andReturn(raw);
+        expect(rollupDao.getRolledUpHoursPerAssignment()).andReturn(rolledUp);
+        replay(rollupDao);
+
+        List<Integer> inconsistent = rollupService.findInconsistentAssignments();
+
+        assertEquals(Arrays.asList(2, 3, 4), inconsistent);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.Project;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.domain.ProjectAssignmentObjectMother;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BookingDateRangeServiceImplTest {
+    private static final DateRange JANUARY = range(new LocalDate(2013, 1, 1), new LocalDate(2013, 1, 31));
+
+    @Mock
+    private ReportAggregatedDao reportAggregatedDao;
+
+    private BookingDateRangeServiceImpl service;
+
+    private ProjectAssignment assignment;
+
+    @Before
+    public void setUp() {
+        service = new BookingDateRangeServiceImpl(reportAggregatedDao);
+        assignment = ProjectAssignmentObjectMother.createProjectAssignment(1);
+
+        when(reportAggregatedDao.getMinMaxDateTimesheetEntry()).thenReturn(JANUARY);
+        when(reportAggregatedDao.getMinMaxDateTimesheetEntry(any(User.class))).thenReturn(JANUARY);
+        when(reportAggregatedDao.getMinMaxDateTimesheetEntry(any(Project.class))).thenReturn(JANUARY);
+    }
+
+    @Test
+    public void shouldQueryBoundsOnce() {
+        service.getBookingRange();
+        service.getBookingRange(new User(1));
+        service.getBookingRange(new User(1));
+
+        assertEquals(JANUARY, service.getBookingRange());
+        verify(reportAggregatedDao, times(1)).getMinMaxDateTimesheetEntry();
+        verify(reportAggregatedDao, times(1)).getMinMaxDateTimesheetEntry(any(User.class));
+    }
+
+    @Test
+    public void shouldWidenKnownBoundsOnBooking() {
+        service.getBookingRange();
+        service.getBookingRange(assignment.getProject());
+
+        service.addBookings(assignment, Arrays.asList(new LocalDate(2013, 2, 10).toDate(), new LocalDate(2013, 1, 5).toDate()));
+
+        DateRange expected = range(new LocalDate(2013, 1, 1), new LocalDate(2013, 2, 10));
+        assertEquals(expected, service.getBookingRange());
+        assertEquals(expected, service.getBookingRange(assignment.getProject()));
+        // bounds of the user weren't known yet, they come from the query
+        assertEquals(JANUARY, service.getBookingRange(assignment.getUser()));
+
+        verify(reportAggregatedDao, times(1)).getMinMaxDateTimesheetEntry();
+        verify(reportAggregatedDao, times(1)).getMinMaxDateTimesheetEntry(any(Project.class));
+    }
+
+    @Test
+    public void shouldStartEmptyBoundsWithFirstBooking() {
+        when(reportAggregatedDao.getMinMaxDateTimesheetEntry(any(User.class))).thenReturn(new DateRange());
+        assertTrue(service.getBookingRange(assignment.getUser()).isEmpty());
+
+        service.addBookings(assignment, Arrays.asList(new LocalDate(2013, 3, 4).toDate()));
+
+        assertEquals(range(new LocalDate(2013, 3, 4), new LocalDate(2013, 3, 4)), service.getBookingRange(assignment.getUser()));
+    }
+
+    @Test
+    public void shouldReloadWhenBookingOnBoundIsRemoved() {
+        service.getBookingRange(assignment.getUser());
+
+        service.removeBookings(assignment, Arrays.asList(new LocalDate(2013, 1, 31).toDate()));
+        service.getBookingRange(assignment.getUser());
+
+        verify(reportAggregatedDao, times(2)).getMinMaxDateTimesheetEntry(any(User.class));
+    }
+
+    @Test
+    public void shouldKeepBoundsWhenBookingWithinIsRemoved() {
+        service.getBookingRange(assignment.getUser());
+
+        service.removeBookings(assignment, Arrays.asList(new LocalDate(2013, 1, 15).toDate()));
+        service.getBookingRange(assignment.getUser());
+
+        verify(reportAggregatedDao, times(1)).getMinMaxDateTimesheetEntry(any(User.class));
+    }
+
+    @Test
+    public void shouldNotShareRangeWithCaller() {
+        service.getBookingRange().setDateStart(new LocalDate(2000, 1, 1).toDate());
+
+        assertEquals(JANUARY, service.getBookingRange());
+    }
+
+    @Test
+    public void shouldReloadAfterInvalidateAll() {
+        service.getBookingRange();
+        service.invalidateAll();
+        service.getBookingRange();
+
+        verify(reportAggregatedDao, times(2)).getMinMaxDateTimesheetEntry();
+    }
+
+    private static DateRange range(LocalDate start, LocalDate end) {
+        return new DateRange(start.toDate(), end.toDate());
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import com.google.common.collect.Lists;
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.Project;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.report.service.ChunkedReportExecutor.ChunkQuery;
+import net.rrm.ehour.report.service.ChunkedReportExecutor.ReportChunk;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class ChunkedReportExecutorTest {
+    private ChunkedReportExecutor executor;
+    private PlatformTransactionManager transactionManager;
+
+    @Before
+    public void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        executor = new ChunkedReportExecutor(transactionManager, 2, 10, 2, 1);
+    }
+
+    @After
+    public void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    public void shouldNotSplitShortRange() {
+        DateRange range = new DateRange(new LocalDate(2013, 1, 1).toDate(), new LocalDate(2013, 1, 10).toDate());
+
+        assertEquals(Arrays.asList(range), executor.splitDateRange(range));
+    }
+
+    @Test
+    public void shouldSplitLongRangeInConsecutiveRanges() {
+        DateRange range = new DateRange(new LocalDate(2013, 1, 1).toDate(), new LocalDate(2013, 1, 25).toDate());
+
+        List<DateRange> ranges = executor.splitDateRange(range);
+
+        assertEquals(3, ranges.size());
+        assertEquals(new LocalDate(2013, 1, 10), new LocalDate(ranges.get(0).getDateEnd()));
+        assertEquals(new LocalDate(2013, 1, 11), new LocalDate(ranges.get(1).getDateStart()));
+        assertEquals(new LocalDate(2013, 1, 21), new LocalDate(ranges.get(2).getDateStart()));
+        assertEquals(range.getDateEnd(), ranges.get(2).getDateEnd());
+    }
+
+    @Test
+    public void shouldNotSplitOpenEndedRange() {
+        DateRange range = new DateRange(new LocalDate(2013, 1, 1).toDate(), null);
+
+        assertEquals(Arrays.asList(range), executor.splitDateRange(range));
+    }
+
+    @Test
+    public void shouldCombineUserAndProjectChunks() {
+        List<User> users = Arrays.asList(new User(1), new User(2), new User(3));
+        List<Project> projects = Arrays.asList(new Project(1), new Project(2));
+
+        List<ReportChunk> chunks = executor.split(users, projects, new DateRange());
+
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(0).getUsers().size());
+        assertEquals(1, chunks.get(1).getUsers().size());
+        assertEquals(Integer.valueOf(3), chunks.get(1).getUsers().get(0).getUserId());
+        assertEquals(projects, chunks.get(1).getProjects());
+    }
+
+    @Test
+    public void shouldKeepUnrestrictedListsAsNull() {
+        List<ReportChunk> chunks = executor.split(null, null, new DateRange());
+
+        assertEquals(1, chunks.size());
+        assertNull(chunks.get(0).getUsers());
+        assertNull(chunks.get(0).getProjects());
+    }
+
+    @Test
+    public void shouldQuerySingleChunkInCurrentTransaction() {
+        List<ReportChunk> chunks = executor.split(Arrays.asList(new User(1)), null, new DateRange());
+
+        List<Integer> results = executor.execute(chunks, new UserIdQuery(), null);
+
+        assertEquals(Arrays.asList(1), results);
+        verifyZeroInteractions(transactionManager);
+    }
+
+    @Test
+    public void shouldMergeChunksInOrder() {
+        List<User> users = Lists.newArrayList();
+
+        for (int i = 7; i > 0; i--) {
+            users.add(new User(i));
+        }
+
+        List<ReportChunk> chunks = executor.split(users, null, new DateRange());
+
+        assertEquals(Arrays.asList(7, 6, 5, 4, 3, 2, 1), executor.execute(chunks, new UserIdQuery(), null));
+        verify(transactionManager, times(4)).getTransaction(any(TransactionDefinition.class));
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), executor.execute(chunks, new UserIdQuery(), new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return o1.compareTo(o2);
+            }
+        }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRethrowFailureOfChunk() {
+        List<ReportChunk> chunks = executor.split(Arrays.asList(new User(1), new User(2), new User(3)), null, new DateRange());
+
+        executor.execute(chunks, new ChunkQuery<Integer>() {
+            @Override
+            public List<Integer> query(ReportChunk chunk) {
+                throw new IllegalArgumentException();
+            }
+        }, null);
+    }
+
+    @Test
+    public void shouldQueryOnCallingThreadWhenAnotherReportFansOut() throws Exception {
+        final CountDownLatch fannedOut = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final List<ReportChunk> chunks = executor.split(Arrays.asList(new User(1), new User(2), new User(3)), null, new DateRange());
+
+        Thread otherReport = new Thread() {
+            @Override
+            public void run() {
+                executor.execute(chunks, new ChunkQuery<Integer>() {
+                    @Override
+                    public List<Integer> query(ReportChunk chunk) {
+                        fannedOut.countDown();
+                        awaitQuietly(release);
+                        return Collections.emptyList();
+                    }
+                }, null);
+            }
+        };
+        otherReport.start();
+
+        try {
+            assertTrue(fannedOut.await(5, TimeUnit.SECONDS));
+
+            final Thread caller = Thread.currentThread();
+            final List<Thread> queryThreads = new CopyOnWriteArrayList<Thread>();
+
+            List<Integer> results = executor.execute(chunks, new UserIdQuery() {
+                @Override
+                public List<Integer> query(ReportChunk chunk) {
+                    queryThreads.add(Thread.currentThread());
+                    return super.query(chunk);
+                }
+            }, null);
+
+            assertEquals(Arrays.asList(1, 2, 3), results);
+            assertEquals(Arrays.asList(caller, caller), queryThreads);
+        } finally {
+            release.countDown();
+            otherReport.join();
+        }
+    }
+
+    @Test
+    public void shouldReportProgressToListenerOfCallingThread() {
+        ChunkedReportExecutor.ProgressListener listener = mock(ChunkedReportExecutor.ProgressListener.class);
+        executor.setProgressListener(listener);
+
+        List<ReportChunk> chunks = executor.split(Arrays.asList(new User(1), new User(2), new User(3)), null, new DateRange());
+
+        try {
+            executor.execute(chunks, new UserIdQuery(), null);
+        } finally {
+            executor.setProgressListener(null);
+        }
+
+        verify(listener).chunksDone(1, 2);
+        verify(listener).chunksDone(2, 2);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class UserIdQuery implements ChunkQuery<Integer> {
+        @Override
+        public List<Integer> query(ReportChunk chunk) {
+            List<Integer> ids = Lists.newArrayList();
+
+            for (User user : chunk.getUsers()) {
+                ids.add(user.getUserId());
+            }
+
+            return ids;
+        }
+    }
+}
@@ -16,8 +16,8 @@
 
 package net.rrm.ehour.report.service;
 
-import com.google.common.collect.Lists;
 import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.data.LockedDays;
 import net.rrm.ehour.domain.Project;
 import net.rrm.ehour.domain.User;
 import net.rrm.ehour.domain.UserDepartment;
@@ -28,12 +28,13 @@ import net.rrm.ehour.report.criteria.ReportCriteria;
 import net.rrm.ehour.report.criteria.UserSelectedCriteria;
 import net.rrm.ehour.report.reports.ReportData;
 import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
 import net.rrm.ehour.timesheet.service.TimesheetLockService;
 import org.joda.time.DateTime;
-import org.joda.time.Interval;
+import org.easymock.IAnswer;
 import org.junit.Before;
 import org.junit.Test;
-import scala.collection.convert.WrapAsScala$;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -41,6 +42,7 @@ import java.util.Date;
 import java.util.List;
 
 import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -53,12 +55,13 @@ public class DetailedReportServiceImplTest {
     private ReportCriteria reportCriteria;
     private UserSelectedCriteria userSelectedCriteria;
     private UserDao userDao;
+    private ProjectDao projectDao;
     private TimesheetLockService timesheetLockService;
 
     @Before
     public void setUp() throws Exception {
         detailedReportDao = createMock(DetailedReportDao.class);
-        ProjectDao projectDao = createMock(ProjectDao.class);
+        projectDao = createMock(ProjectDao.class);
         userDao = createMock(UserDao.class);
 
         userSelectedCriteria = new UserSelectedCriteria();
@@ -66,12 +69,13 @@ public class DetailedReportServiceImplTest {
 
         timesheetLockService = createMock(TimesheetLockService.class);
 
-        detailedReportService = new DetailedReportServiceImpl(detailedReportDao, userDao, projectDao, timesheetLockService);
+        detailedReportService = new DetailedReportServiceImpl(detailedReportDao, userDao, projectDao, timesheetLockService, new ReportDataCacheImpl(1000, 30),
+                new ChunkedReportExecutor(createMock(PlatformTransactionManager.class), 500, 92, 2, 2));
     }
 
     private void provideNoLocks() {
-        expect(timesheetLockService.findLockedDatesInRange(anyObject(Date.class), anyObject(Date.class)))
-                .andReturn(WrapAsScala$.MODULE$.<Interval>asScalaBuffer(Lists.<Interval>newArrayList()));
+        expect(timesheetLockService.findLockedDays(anyObject(Date.class), anyObject(Date.class)))
+                .andReturn(LockedDays.NONE);
         replay(timesheetLockService);
     }
 
@@ -152,10 +156,10 @@ public class DetailedReportServiceImplTest {
     @Test
     public void testGetDetailedReportDataWithLockedDays() {
         DateTime dateTime = new DateTime(reportCriteria.getReportRange().getDateStart());
-        Interval interval = new Interval(dateTime, dateTime);
+        LockedDays lockedDays = LockedDays.forRanges(Arrays.asList(new DateRange(dateTime.toDate(), dateTime.toDate())));
 
-        expect(timesheetLockService.findLockedDatesInRange(anyObject(Date.class), anyObject(Date.class)))
-                .andReturn(WrapAsScala$.MODULE$.<Interval>asScalaBuffer(Lists.newArrayList(interval)));
+        expect(timesheetLockService.findLockedDays(anyObject(Date.class), anyObject(Date.class)))
+                .andReturn(lockedDays);
         replay(timesheetLockService);
 
         FlatReportElement reportElement = new FlatReportElement();
@@ -173,4 +177,86 @@ public class DetailedReportServiceImplTest {
         verify(detailedReportDao, userDao, timesheetLockService);
     }
 
+    @Test
+    public void shouldStreamDetailedReportDataWithLockedDays() {
+        DateTime dateTime = new DateTime(reportCriteria.getReportRange().getDateStart());
+        LockedDays lockedDays = LockedDays.forRanges(Arrays.asList(new DateRange(dateTime.toDate(), dateTime.toDate())));
+
+        expect(timesheetLockService.findLockedDays(anyObject(Date.class), anyObject(Date.class)))
+                .andReturn(lockedDays);
+        replay(timesheetLockService);
+
+        FlatReportElement reportElement = new FlatReportElement();
+        reportElement.setDayDate(dateTime.toDate());
+
+        detailedReportDao.streamHoursPerDay(isA(DateRange.class), isA(ReportElementHandler.class));
+        expectLastCall().andAnswer(new StreamAnswer(reportElement));
+        replay(detailedReportDao);
+
+        List<FlatReportElement> streamed = streamDetailedReportData();
+
+        assertEquals(1, streamed.size());
+        assertTrue(streamed.get(0).getLockableDate().isLocked());
+
+        verify(detailedReportDao, timesheetLockService);
+    }
+
+    @Test
+    public void shouldOnlyStreamPmProjects() {
+        provideNoLocks();
+
+        User pm = new User(5);
+        userSelectedCriteria.setReportTypeToPM(pm);
+
+        Project pmProject = new Project(1);
+        expect(projectDao.findActiveProjectsWhereUserIsPM(pm)).andReturn(Arrays.asList(pmProject));
+
+        FlatReportElement pmElement = new FlatReportElement();
+        pmElement.setProjectId(1);
+        pmElement.setDayDate(new Date());
+
+        detailedReportDao.streamHoursPerDayForProjects(eq(Arrays.asList(1)), isA(DateRange.class), isA(ReportElementHandler.class));
+        expectLastCall().andAnswer(new StreamAnswer(pmElement));
+        replay(detailedReportDao, projectDao);
+
+        List<FlatReportElement> streamed = streamDetailedReportData();
+
+        assertEquals(1, streamed.size());
+        assertEquals(1, streamed.get(0).getProjectId().intValue());
+
+        verify(detailedReportDao, projectDao);
+    }
+
+    private List<FlatReportElement> streamDetailedReportData() {
+        final List<FlatReportElement> streamed = new ArrayList<FlatReportElement>();
+
+        detailedReportService.streamDetailedReportData(reportCriteria, new ReportElementHandler<FlatReportElement>() {
+            @Override
+            public void handle(FlatReportElement element) {
+                streamed.add(element);
+            }
+        });
+
+        return streamed;
+    }
+
+    private static class StreamAnswer implements IAnswer<Object> {
+        private final FlatReportElement[] elements;
+
+        StreamAnswer(FlatReportElement... elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public Object answer() throws Throwable {
+            Object[] arguments = getCurrentArguments();
+            ReportElementHandler<FlatReportElement> handler = (ReportElementHandler<FlatReportElement>) arguments[arguments.length - 1];
+
+            for (FlatReportElement element : elements) {
+                handler.handle(element);
+            }
+
+            return null;
+        }
+    }
 }
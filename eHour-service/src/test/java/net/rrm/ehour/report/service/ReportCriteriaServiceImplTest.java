@@ -18,7 +18,6 @@ package net.rrm.ehour.report.service;
 
 import com.google.common.collect.Lists;
 import net.rrm.ehour.domain.*;
-import net.rrm.ehour.persistence.report.dao.ReportAggregatedDao;
 import net.rrm.ehour.persistence.user.dao.UserDepartmentDao;
 import net.rrm.ehour.report.criteria.ReportCriteria;
 import net.rrm.ehour.report.criteria.ReportCriteriaUpdateType;
@@ -43,7 +42,7 @@ public class ReportCriteriaServiceImplTest {
     private ReportCriteriaServiceImpl reportCriteriaService;
 
     @Mock
-    private ReportAggregatedDao reportAggregatedDAO;
+    private BookingDateRangeService bookingDateRangeService;
 
     @Mock
     private UserDepartmentDao userDepartmentDAO;
@@ -62,7 +61,7 @@ public class ReportCriteriaServiceImplTest {
 
     @Before
     public void setup() {
-        reportCriteriaService = new ReportCriteriaServiceImpl(reportAggregatedDAO, customerAndProjectCriteriaFilter, userAndDepartmentCriteriaFilter, individualUserCriteriaSync, timesheetLockService);
+        reportCriteriaService = new ReportCriteriaServiceImpl(bookingDateRangeService, customerAndProjectCriteriaFilter, userAndDepartmentCriteriaFilter, individualUserCriteriaSync, timesheetLockService);
 
         when(timesheetLockService.findAll()).thenReturn(List$.MODULE$.<TimesheetLock>empty());
     }
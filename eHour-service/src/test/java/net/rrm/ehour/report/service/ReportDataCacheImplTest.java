@@ -0,0 +1,175 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import com.google.common.collect.Lists;
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.domain.ProjectAssignmentObjectMother;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.report.criteria.UserSelectedCriteria;
+import net.rrm.ehour.report.reports.ReportData;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElement;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReportDataCacheImplTest {
+    private static final DateRange JANUARY = new DateRange(new LocalDate(2013, 1, 1).toDate(), new LocalDate(2013, 1, 31).toDate());
+
+    private ReportDataCacheImpl cache;
+    private CountingLoader loader;
+
+    @Before
+    public void setUp() {
+        cache = new ReportDataCacheImpl(10, 30);
+        loader = new CountingLoader(2);
+    }
+
+    @Test
+    public void shouldServeSameCriteriaFromCache() {
+        cache.get(keyForUsers(1, 2), loader);
+        cache.get(keyForUsers(2, 1), loader);
+
+        assertEquals(1, loader.loads);
+        assertEquals(1, cache.getStatistics().getHits());
+        assertEquals(1, cache.getStatistics().getMisses());
+    }
+
+    @Test
+    public void shouldInvalidateOnBookingForIncludedUserInRange() {
+        cache.get(keyForUsers(1), loader);
+
+        ProjectAssignment assignment = ProjectAssignmentObjectMother.createProjectAssignment(1);
+        cache.invalidateBookings(assignment, Arrays.asList(new LocalDate(2013, 1, 15).toDate()));
+
+        cache.get(keyForUsers(1), loader);
+
+        assertEquals(2, loader.loads);
+        assertEquals(1, cache.getStatistics().getInvalidations());
+    }
+
+    @Test
+    public void shouldKeepReportsOfOtherUsersAndDates() {
+        cache.get(keyForUsers(1), loader);
+
+        cache.invalidateBookings(ProjectAssignmentObjectMother.createProjectAssignment(2), Arrays.asList(new LocalDate(2013, 1, 15).toDate()));
+        cache.invalidateBookings(ProjectAssignmentObjectMother.createProjectAssignment(1), Arrays.asList(new LocalDate(2013, 2, 1).toDate()));
+
+        cache.get(keyForUsers(1), loader);
+
+        assertEquals(1, loader.loads);
+    }
+
+    @Test
+    public void shouldInvalidateOnOverlappingLock() {
+        cache.get(keyForUsers(1), loader);
+
+        cache.invalidateRange(new DateRange(new LocalDate(2012, 12, 24).toDate(), new LocalDate(2013, 1, 1).toDate()));
+        cache.get(keyForUsers(1), loader);
+
+        assertEquals(2, loader.loads);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedWhenFull() {
+        cache.get(keyForUsers(1), loader);
+        cache.get(keyForUsers(2), loader);
+        cache.get(keyForUsers(1), loader);
+        cache.get(keyForUsers(3), loader);
+        cache.get(keyForUsers(4), loader);
+
+        ReportDataCacheStatistics statistics = cache.getStatistics();
+        assertEquals(3, statistics.getEntries());
+        assertEquals(9, statistics.getSize());
+        assertEquals(1, statistics.getEvictions());
+
+        cache.get(keyForUsers(1), loader);
+        assertEquals(4, loader.loads);
+    }
+
+    @Test
+    public void shouldNotCacheReportLoadedWhileInvalidated() {
+        cache.get(keyForUsers(1), new ReportDataCache.Loader() {
+            @Override
+            public ReportData load() {
+                cache.invalidateAll();
+                return loader.load();
+            }
+        });
+
+        cache.get(keyForUsers(1), loader);
+
+        assertEquals(2, loader.loads);
+    }
+
+    @Test
+    public void shouldGiveEveryCallerItsOwnListOfElements() {
+        ReportData loaded = cache.get(keyForUsers(1), loader);
+        loaded.getReportElements().clear();
+
+        ReportData cached = cache.get(keyForUsers(1), loader);
+        assertEquals(2, cached.getReportElements().size());
+        cached.getReportElements().remove(0);
+
+        assertEquals(2, cache.get(keyForUsers(1), loader).getReportElements().size());
+        assertEquals(1, loader.loads);
+    }
+
+    private ReportDataCacheKey keyForUsers(Integer... userIds) {
+        List<User> users = Lists.newArrayList();
+
+        for (Integer userId : userIds) {
+            users.add(new User(userId));
+        }
+
+        UserSelectedCriteria criteria = new UserSelectedCriteria();
+        criteria.setReportRange(JANUARY);
+        criteria.setUsers(users);
+
+        return ReportDataCacheKey.forCriteria("test", new ReportCriteria(criteria));
+    }
+
+    private static class CountingLoader implements ReportDataCache.Loader {
+        private final int elements;
+        private int loads;
+
+        private CountingLoader(int elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public ReportData load() {
+            loads++;
+
+            List<ReportElement> reportElements = Lists.newArrayList();
+
+            for (int i = 0; i < elements; i++) {
+                reportElements.add(new FlatReportElement());
+            }
+
+            return new ReportData(reportElements, JANUARY);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.report.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class ReportJobServiceImplTest {
+    private ReportJobServiceImpl service;
+
+    @Before
+    public void setUp() {
+        service = createService(10);
+    }
+
+    private static ReportJobServiceImpl createService(int maxResults) {
+        return new ReportJobServiceImpl(mock(PlatformTransactionManager.class), new ChunkedReportExecutor(mock(PlatformTransactionManager.class), 500, 92, 2, 2), 2, 2, 1, maxResults, 30);
+    }
+
+    @After
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    public void shouldRunJobAndKeepResult() throws Exception {
+        String jobId = service.submit(1, new ReportJob<String>() {
+            @Override
+            public String run(ReportJobProgress progress) {
+                progress.setProgress(1, 2);
+                return "report";
+            }
+        });
+
+        ReportJobStatus status = awaitFinished(jobId);
+
+        assertEquals(ReportJobStatus.State.DONE, status.getState());
+        assertEquals(100, status.getPercentage());
+        assertEquals("report", service.getResult(jobId));
+    }
+
+    @Test
+    public void shouldRejectJobsAboveUserLimit() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        String jobId = service.submit(1, new BlockingJob(latch));
+
+        try {
+            service.submit(1, new BlockingJob(latch));
+            fail("second job of the same user accepted");
+        } catch (ReportJobRejectedException e) {
+            // expected
+        }
+
+        String otherUserJobId = service.submit(2, new BlockingJob(latch));
+
+        latch.countDown();
+
+        assertEquals(ReportJobStatus.State.DONE, awaitFinished(jobId).getState());
+        assertEquals(ReportJobStatus.State.DONE, awaitFinished(otherUserJobId).getState());
+
+        // finished jobs don't count
+        awaitFinished(service.submit(1, new BlockingJob(latch)));
+    }
+
+    @Test
+    public void shouldCancelRunningJob() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        String jobId = service.submit(1, new BlockingJob(latch));
+
+        service.cancel(jobId);
+
+        assertEquals(ReportJobStatus.State.CANCELLED, service.getStatus(jobId).getState());
+        assertNull(service.getResult(jobId));
+    }
+
+    @Test
+    public void shouldReportFailure() throws Exception {
+        String jobId = service.submit(1, new ReportJob<String>() {
+            @Override
+            public String run(ReportJobProgress progress) {
+                throw new IllegalStateException("broken");
+            }
+        });
+
+        ReportJobStatus status = awaitFinished(jobId);
+
+        assertEquals(ReportJobStatus.State.FAILED, status.getState());
+        assertEquals("broken", status.getError());
+        assertNull(service.getResult(jobId));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyAccessedResult() throws Exception {
+        service.destroy();
+        service = createService(1);
+
+        CountDownLatch latch = new CountDownLatch(0);
+
+        String firstJobId = service.submit(1, new BlockingJob(latch));
+        awaitFinished(firstJobId);
+
+        String secondJobId = service.submit(1, new BlockingJob(latch));
+        awaitFinished(secondJobId);
+
+        assertNull(service.getStatus(firstJobId));
+        assertEquals("done", service.getResult(secondJobId));
+    }
+
+    private ReportJobStatus awaitFinished(String jobId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ReportJobStatus status = service.getStatus(jobId);
+
+            if (status.getState().isFinished()) {
+                return status;
+            }
+
+            Thread.sleep(10);
+        }
+
+        throw new AssertionError("Job " + jobId + " did not finish");
+    }
+
+    private static class BlockingJob implements ReportJob<String> {
+        private final CountDownLatch latch;
+
+        BlockingJob(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public String run(ReportJobProgress progress) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return "done";
+        }
+    }
+}
@@ -26,16 +26,19 @@ import net.rrm.ehour.project.status.ProjectAssignmentStatus;
 import net.rrm.ehour.project.status.ProjectAssignmentStatus.Status;
 import net.rrm.ehour.project.status.ProjectAssignmentStatusService;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
+import net.rrm.ehour.report.service.AssignmentRollupService;
+import net.rrm.ehour.persistence.report.dao.TimesheetFactStore;
 import net.rrm.ehour.util.EhourConstants;
+import org.easymock.Capture;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.context.ApplicationContext;
 
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.util.*;
 
 import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -51,6 +54,9 @@ public class IPersistTimesheetDAOTest {
     private List<TimesheetEntry> existingEntries;
     private ApplicationContext context;
     private TimesheetCommentDao commentDao;
+    private AssignmentRollupService rollupService;
+    private TimesheetFactStore timesheetFactStore;
+    private BookingsListener bookingsListener;
 
     @Before
     public void setUp() {
@@ -59,8 +65,12 @@ public class IPersistTimesheetDAOTest {
         mailService = createMock(MailService.class);
         context = createMock(ApplicationContext.class);
         commentDao = createMock(TimesheetCommentDao.class);
+        rollupService = createNiceMock(AssignmentRollupService.class);
+        timesheetFactStore = createNiceMock(TimesheetFactStore.class);
+        bookingsListener = createNiceMock(BookingsListener.class);
+        replay(rollupService, timesheetFactStore, bookingsListener);
 
-        persister = new TimesheetPersistance(timesheetDAO, commentDao, statusService, mailService, context);
+        persister = new TimesheetPersistance(timesheetDAO, commentDao, statusService, mailService, rollupService, timesheetFactStore, Arrays.asList(bookingsListener), context, false);
 
         initData();
     }
@@ -141,6 +151,37 @@ public class IPersistTimesheetDAOTest {
         verify(statusService);
     }
 
+    @Test
+    public void shouldNotifyListenersOfBookedAndRemovedDates() throws OverBudgetException {
+        DateRange dateRange = new DateRange();
+
+        timesheetDAO.delete(isA(TimesheetEntry.class));
+        expect(timesheetDAO.merge(isA(TimesheetEntry.class))).andReturn(null);
+        expect(timesheetDAO.getTimesheetEntriesInRange(assignment, dateRange)).andReturn(existingEntries);
+        expect(statusService.getAssignmentStatus(assignment)).andReturn(new ProjectAssignmentStatus()).times(2);
+
+        Capture<BookingsChange> change = new Capture<BookingsChange>();
+
+        reset(bookingsListener);
+        bookingsListener.onBookingsChanged(capture(change));
+
+        replay(statusService, timesheetDAO, bookingsListener);
+
+        persister.validateAndPersist(assignment, newEntries, dateRange);
+
+        verify(bookingsListener);
+
+        Date dateA = newEntries.get(0).getEntryId().getEntryDate();
+        Date dateB = newEntries.get(1).getEntryId().getEntryDate();
+
+        assertEquals(assignment, change.getValue().getAssignment());
+        assertEquals(Arrays.asList(dateA), change.getValue().getBookedDates());
+        assertEquals(Arrays.asList(dateB), change.getValue().getRemovedDates());
+        assertTrue(change.getValue().getDates().containsAll(Arrays.asList(dateA, dateB)));
+        // 5 -> 8 hours and 5 -> 0 hours
+        assertEquals(-2d, change.getValue().getHoursDelta(), 0.001);
+    }
+
     @Test
     public void testPersistInvalidTimesheet() {
         timesheetDAO.delete(isA(TimesheetEntry.class));
@@ -289,6 +330,213 @@ public class IPersistTimesheetDAOTest {
         verify(mailService);
     }
 
-//    public void should
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldUpdateRollupForPersistedAndRemovedDates() throws OverBudgetException {
+        reset(rollupService);
+
+        timesheetDAO.delete(isA(TimesheetEntry.class));
+        expect(timesheetDAO.merge(isA(TimesheetEntry.class))).andReturn(null);
+        expect(timesheetDAO.getTimesheetEntriesInRange(isA(ProjectAssignment.class), isA(DateRange.class))).andReturn(existingEntries);
+        expect(statusService.getAssignmentStatus(assignment)).andReturn(new ProjectAssignmentStatus()).times(2);
+
+        rollupService.updateRollup(eq(assignment), (Collection<Date>) anyObject());
+
+        replay(statusService, timesheetDAO, rollupService);
+
+        persister.validateAndPersist(assignment, newEntries, new DateRange());
+
+        verify(timesheetDAO, statusService, rollupService);
+    }
+
+    @Test
+    public void shouldDeleteRollupWhenDeletingAllTimesheetDataForUser() {
+        User user = UserObjectMother.createUser();
+        user.setProjectAssignments(new HashSet<ProjectAssignment>(Arrays.asList(assignment)));
+
+        reset(rollupService);
+
+        expect(commentDao.deleteCommentsForUser(user.getUserId())).andReturn(1);
+        expect(timesheetDAO.deleteTimesheetEntries(isA(List.class))).andReturn(1);
+        rollupService.deleteRollup(isA(List.class));
+
+        replay(commentDao, timesheetDAO, rollupService);
+
+        persister.deleteAllTimesheetDataForUser(user);
+
+        verify(commentDao, timesheetDAO, rollupService);
+    }
+
+    @Test
+    public void shouldNotifyListenersWhenDeletingAllTimesheetDataForUser() {
+        User user = UserObjectMother.createUser();
+        user.setProjectAssignments(new HashSet<ProjectAssignment>(Arrays.asList(assignment)));
+
+        reset(bookingsListener);
+
+        expect(commentDao.deleteCommentsForUser(user.getUserId())).andReturn(1);
+        expect(timesheetDAO.deleteTimesheetEntries(isA(List.class))).andReturn(1);
+        bookingsListener.onBookingsRemoved(user, Arrays.asList(assignment.getAssignmentId()));
+
+        replay(commentDao, timesheetDAO, bookingsListener);
+
+        persister.deleteAllTimesheetDataForUser(user);
+
+        verify(bookingsListener);
+    }
+
+    @Test
+    public void shouldPersistBatchedWeekWithoutQueryingPerAssignment() {
+        TimesheetPersistance batchedPersister = createBatchedPersister();
+
+        ProjectAssignmentStatus beforeStatus = new ProjectAssignmentStatus();
+        beforeStatus.setAggregate(new AssignmentAggregateReportElement(assignment, 10f));
+
+        Capture<AssignmentAggregateReportElement> afterAggregate = new Capture<AssignmentAggregateReportElement>();
+
+        expect(timesheetDAO.getTimesheetEntriesInRangeForAssignments(isA(Collection.class), isA(DateRange.class))).andReturn(existingEntries);
+        timesheetDAO.delete(isA(TimesheetEntry.class));
+        expect(timesheetDAO.merge(isA(TimesheetEntry.class))).andReturn(null);
+        expect(statusService.getAllottedStatusses(isA(Collection.class))).andReturn(Collections.singletonMap(assignment.getAssignmentId(), beforeStatus));
+        expect(statusService.getAllottedStatus(eq(assignment), capture(afterAggregate))).andReturn(new ProjectAssignmentStatus());
+
+        replay(statusService, timesheetDAO);
+
+        List<ProjectAssignmentStatus> errors = batchedPersister.persistTimesheetWeek(newEntries, createExistingComment(), new DateRange());
+
+        assertTrue(errors.isEmpty());
+        assertEquals(8f, afterAggregate.getValue().getHours().floatValue(), 0.01f);
+        verify(timesheetDAO, statusService);
+    }
+
+    @Test
+    public void shouldNotWriteBatchedRowWhichGoesOverBudget() {
+        TimesheetPersistance batchedPersister = createBatchedPersister();
+
+        ProjectAssignmentStatus afterStatus = new ProjectAssignmentStatus();
+        afterStatus.addStatus(Status.OVER_OVERRUN);
+        afterStatus.setValid(false);
+
+        expect(timesheetDAO.getTimesheetEntriesInRangeForAssignments(isA(Collection.class), isA(DateRange.class))).andReturn(existingEntries);
+        expect(statusService.getAllottedStatusses(isA(Collection.class))).andReturn(Collections.singletonMap(assignment.getAssignmentId(), new ProjectAssignmentStatus()));
+        expect(statusService.getAllottedStatus(eq(assignment), isA(AssignmentAggregateReportElement.class))).andReturn(afterStatus);
+
+        replay(statusService, timesheetDAO);
+
+        List<ProjectAssignmentStatus> errors = batchedPersister.persistTimesheetWeek(newEntries, createExistingComment(), new DateRange());
+
+        assertEquals(Arrays.asList(afterStatus), errors);
+        verify(timesheetDAO, statusService);
+    }
+
+    @Test
+    public void shouldPersistBatchedDecreaseOfRowAlreadyOverBudget() {
+        TimesheetPersistance batchedPersister = createBatchedPersister();
+
+        newEntries.get(0).setHours(4f);
+        newEntries.get(1).setHours(5f);
+
+        ProjectAssignmentStatus beforeStatus = new ProjectAssignmentStatus();
+        beforeStatus.addStatus(Status.OVER_OVERRUN);
+        beforeStatus.setValid(false);
+
+        ProjectAssignmentStatus afterStatus = new ProjectAssignmentStatus();
+        afterStatus.addStatus(Status.OVER_OVERRUN);
+        afterStatus.setValid(false);
+
+        expect(timesheetDAO.getTimesheetEntriesInRangeForAssignments(isA(Collection.class), isA(DateRange.class))).andReturn(existingEntries);
+        expect(timesheetDAO.merge(isA(TimesheetEntry.class))).andReturn(null).times(2);
+        expect(statusService.getAllottedStatusses(isA(Collection.class))).andReturn(Collections.singletonMap(assignment.getAssignmentId(), beforeStatus));
+        expect(statusService.getAllottedStatus(eq(assignment), isA(AssignmentAggregateReportElement.class))).andReturn(afterStatus);
+
+        replay(statusService, timesheetDAO);
+
+        List<ProjectAssignmentStatus> errors = batchedPersister.persistTimesheetWeek(newEntries, createExistingComment(), new DateRange());
+
+        assertTrue(errors.isEmpty());
+        verify(timesheetDAO, statusService);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void shouldReportBatchedRowOverBudgetAndPersistOtherRows() {
+        TimesheetPersistance batchedPersister = createBatchedPersister();
+
+        ProjectAssignment otherAssignment = ProjectAssignmentObjectMother.createProjectAssignment(2);
+
+        TimesheetEntry otherEntry = new TimesheetEntry();
+        TimesheetEntryId otherId = new TimesheetEntryId();
+        otherId.setProjectAssignment(otherAssignment);
+        otherId.setEntryDate(new Date(2008 - 1900, 4 - 1, 1));
+        otherEntry.setEntryId(otherId);
+        otherEntry.setHours(4f);
+
+        List<TimesheetEntry> weekEntries = new ArrayList<TimesheetEntry>(newEntries);
+        weekEntries.add(otherEntry);
+
+        ProjectAssignmentStatus afterStatus = new ProjectAssignmentStatus();
+        afterStatus.addStatus(Status.OVER_OVERRUN);
+        afterStatus.setValid(false);
+
+        Capture<BookingsChange> change = new Capture<BookingsChange>();
+
+        expect(timesheetDAO.getTimesheetEntriesInRangeForAssignments(isA(Collection.class), isA(DateRange.class))).andReturn(existingEntries);
+        expect(timesheetDAO.persist(otherEntry)).andReturn(otherEntry);
+        expect(statusService.getAllottedStatusses(Arrays.asList(assignment))).andReturn(Collections.singletonMap(assignment.getAssignmentId(), new ProjectAssignmentStatus()));
+        expect(statusService.getAllottedStatus(eq(assignment), isA(AssignmentAggregateReportElement.class))).andReturn(afterStatus);
+
+        reset(bookingsListener);
+        bookingsListener.onBookingsChanged(capture(change));
+
+        replay(statusService, timesheetDAO, bookingsListener);
+
+        List<ProjectAssignmentStatus> errors = batchedPersister.persistTimesheetWeek(weekEntries, createExistingComment(), new DateRange());
+
+        // the row over budget is neither merged nor deleted
+        assertEquals(Arrays.asList(afterStatus), errors);
+        verify(timesheetDAO, statusService, bookingsListener);
+        assertEquals(otherAssignment, change.getValue().getAssignment());
+    }
+
+    @Test
+    public void shouldKeepBatchedEntriesUpToIncreaseOfRowAlreadyOverBudget() {
+        TimesheetPersistance batchedPersister = createBatchedPersister();
+
+        assignment.setNotifyPm(false);
+
+        // 5 -> 4 hours, then 5 -> 6 hours
+        newEntries.get(0).setHours(4f);
+        newEntries.get(1).setHours(6f);
+
+        ProjectAssignmentStatus beforeStatus = new ProjectAssignmentStatus();
+        beforeStatus.addStatus(Status.OVER_OVERRUN);
+        beforeStatus.setValid(false);
+
+        Capture<AssignmentAggregateReportElement> afterAggregate = new Capture<AssignmentAggregateReportElement>();
+
+        expect(timesheetDAO.getTimesheetEntriesInRangeForAssignments(isA(Collection.class), isA(DateRange.class))).andReturn(existingEntries);
+        expect(timesheetDAO.merge(newEntries.get(0))).andReturn(null);
+        expect(statusService.getAllottedStatusses(isA(Collection.class))).andReturn(Collections.singletonMap(assignment.getAssignmentId(), beforeStatus));
+        expect(statusService.getAllottedStatus(eq(assignment), capture(afterAggregate))).andReturn(new ProjectAssignmentStatus());
+
+        replay(statusService, timesheetDAO);
+
+        List<ProjectAssignmentStatus> errors = batchedPersister.persistTimesheetWeek(newEntries, createExistingComment(), new DateRange());
+
+        // as validateAndPersist: valid once the decrease is saved, the increase is dropped
+        assertTrue(errors.isEmpty());
+        assertEquals(-1f, afterAggregate.getValue().getHours().floatValue(), 0.01f);
+        verify(timesheetDAO, statusService);
+    }
+
+    private TimesheetPersistance createBatchedPersister() {
+        return new TimesheetPersistance(timesheetDAO, commentDao, statusService, mailService, rollupService, timesheetFactStore, Arrays.asList(bookingsListener), context, true);
+    }
+
+    private TimesheetComment createExistingComment() {
+        TimesheetComment comment = new TimesheetComment();
+        comment.setNewComment(Boolean.TRUE);
+        return comment;
+    }
 }
 
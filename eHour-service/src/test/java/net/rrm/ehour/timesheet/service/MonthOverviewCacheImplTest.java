@@ -0,0 +1,160 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.timesheet.service;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.persistence.timesheet.dao.TimesheetDao;
+import net.rrm.ehour.report.service.AggregateReportService;
+import net.rrm.ehour.timesheet.dto.BookedDay;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class MonthOverviewCacheImplTest {
+    private static final DateRange JANUARY = new DateRange(new LocalDate(2013, 1, 1).toDate(), new LocalDate(2013, 1, 31).toDate());
+    private static final DateRange FEBRUARY = new DateRange(new LocalDate(2013, 2, 1).toDate(), new LocalDate(2013, 2, 28).toDate());
+    private static final DateRange MARCH = new DateRange(new LocalDate(2013, 3, 1).toDate(), new LocalDate(2013, 3, 31).toDate());
+
+    private MonthOverviewCacheImpl cache;
+    private TimesheetDao timesheetDao;
+    private AggregateReportService aggregateReportService;
+    private PlatformTransactionManager transactionManager;
+
+    @Before
+    public void setUp() {
+        timesheetDao = mock(TimesheetDao.class);
+        aggregateReportService = mock(AggregateReportService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+
+        when(timesheetDao.getBookedHoursperDayInRange(anyInt(), any(DateRange.class))).thenReturn(new ArrayList<BookedDay>());
+
+        cache = createCache(false);
+    }
+
+    @After
+    public void tearDown() {
+        cache.destroy();
+    }
+
+    private MonthOverviewCacheImpl createCache(boolean prefetch) {
+        return new MonthOverviewCacheImpl(timesheetDao, aggregateReportService, transactionManager, 100, 30, prefetch);
+    }
+
+    @Test
+    public void shouldServeAnyDayOfMonthFromCache() {
+        cache.getBookedDays(1, new LocalDate(2013, 1, 5));
+        cache.getBookedDays(1, new LocalDate(2013, 1, 20));
+
+        verify(timesheetDao, times(1)).getBookedHoursperDayInRange(1, JANUARY);
+    }
+
+    @Test
+    public void shouldLoadMonthBookingsOnce() {
+        cache.getMonthBookings(1, new LocalDate(2013, 1, 5));
+        cache.getMonthBookings(1, new LocalDate(2013, 1, 20));
+
+        verify(aggregateReportService, times(1)).getHoursPerAssignmentInRange(1, JANUARY);
+        verify(timesheetDao, times(1)).getTimesheetEntriesInRange(1, JANUARY);
+    }
+
+    @Test
+    public void shouldInvalidateOnlyBookedMonthOfUser() {
+        cache.getBookedDays(1, new LocalDate(2013, 1, 1));
+        cache.getBookedDays(1, new LocalDate(2013, 2, 1));
+        cache.getBookedDays(2, new LocalDate(2013, 1, 1));
+
+        cache.invalidateBookings(1, Arrays.asList(new LocalDate(2013, 1, 15).toDate()));
+
+        cache.getBookedDays(1, new LocalDate(2013, 1, 1));
+        cache.getBookedDays(1, new LocalDate(2013, 2, 1));
+        cache.getBookedDays(2, new LocalDate(2013, 1, 1));
+
+        verify(timesheetDao, times(2)).getBookedHoursperDayInRange(1, JANUARY);
+        verify(timesheetDao, times(1)).getBookedHoursperDayInRange(1, FEBRUARY);
+        verify(timesheetDao, times(1)).getBookedHoursperDayInRange(2, JANUARY);
+    }
+
+    @Test
+    public void shouldInvalidateAllMonthsOfUser() {
+        cache.getBookedDays(1, new LocalDate(2013, 1, 1));
+        cache.getMonthBookings(1, new LocalDate(2013, 2, 1));
+
+        cache.invalidateUser(1);
+
+        cache.getBookedDays(1, new LocalDate(2013, 1, 1));
+        cache.getMonthBookings(1, new LocalDate(2013, 2, 1));
+
+        verify(timesheetDao, times(2)).getBookedHoursperDayInRange(1, JANUARY);
+        verify(timesheetDao, times(2)).getTimesheetEntriesInRange(1, FEBRUARY);
+    }
+
+    @Test
+    public void shouldNotCacheMonthLoadedWhileInvalidated() {
+        when(timesheetDao.getBookedHoursperDayInRange(1, JANUARY)).thenAnswer(new Answer<List<BookedDay>>() {
+            @Override
+            public List<BookedDay> answer(InvocationOnMock invocation) {
+                cache.invalidateBookings(1, Arrays.asList(new LocalDate(2013, 1, 15).toDate()));
+                return new ArrayList<BookedDay>();
+            }
+        });
+
+        cache.getBookedDays(1, new LocalDate(2013, 1, 1));
+        cache.getBookedDays(1, new LocalDate(2013, 1, 1));
+
+        verify(timesheetDao, times(2)).getBookedHoursperDayInRange(1, JANUARY);
+    }
+
+    @Test
+    public void shouldPrefetchAdjacentMonths() throws InterruptedException {
+        cache.destroy();
+        cache = createCache(true);
+
+        cache.getBookedDays(1, new LocalDate(2013, 2, 10));
+
+        awaitPrefetches();
+
+        cache.getBookedDays(1, new LocalDate(2013, 1, 1));
+        cache.getBookedDays(1, new LocalDate(2013, 3, 1));
+
+        verify(timesheetDao, times(1)).getBookedHoursperDayInRange(1, JANUARY);
+        verify(timesheetDao, times(1)).getBookedHoursperDayInRange(1, FEBRUARY);
+        verify(timesheetDao, times(1)).getBookedHoursperDayInRange(1, MARCH);
+        verify(timesheetDao, never()).getTimesheetEntriesInRange(eq(1), any(DateRange.class));
+    }
+
+    private void awaitPrefetches() throws InterruptedException {
+        for (int i = 0; i < 500 && cache.isPrefetching(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertFalse(cache.isPrefetching());
+    }
+}
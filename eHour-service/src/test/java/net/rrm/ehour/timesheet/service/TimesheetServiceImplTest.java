@@ -18,49 +18,44 @@ package net.rrm.ehour.timesheet.service;
 
 import net.rrm.ehour.config.EhourConfig;
 import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.data.LockedDays;
 import net.rrm.ehour.domain.*;
-import net.rrm.ehour.persistence.timesheet.dao.TimesheetCommentDao;
-import net.rrm.ehour.persistence.timesheet.dao.TimesheetDao;
-import net.rrm.ehour.project.service.ProjectAssignmentService;
+import net.rrm.ehour.project.status.AssignmentBudgetLedger;
 import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement;
-import net.rrm.ehour.report.service.AggregateReportService;
 import net.rrm.ehour.timesheet.dto.BookedDay;
-import net.rrm.ehour.util.DateUtil;
-import org.joda.time.Interval;
+import net.rrm.ehour.timesheet.dto.TimesheetOverview;
+import net.rrm.ehour.timesheet.dto.UserProjectStatus;
+import net.rrm.ehour.timesheet.dto.WeekOverview;
+import net.rrm.ehour.util.EhourConstants;
 import org.joda.time.LocalDate;
 import org.junit.Before;
 import org.junit.Test;
-import scala.collection.immutable.Vector;
 
 import java.util.*;
 
 import static org.easymock.EasyMock.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 @SuppressWarnings( { "deprecation" })
 public class TimesheetServiceImplTest
 {
 	private TimesheetServiceImpl timesheetService;
-	private TimesheetDao timesheetDAO;
-	private TimesheetCommentDao timesheetCommentDAO;
+	private MonthOverviewCache monthOverviewCache;
+	private AssignmentBudgetLedger assignmentBudgetLedger;
 	private EhourConfig config;
-	private AggregateReportService aggregateReportService;
-	private ProjectAssignmentService projectAssignmentService;
-    private TimesheetLockService timesheetLockService;
+    private WeekOverviewLoader weekOverviewLoader;
 
 	@Before
 	public void setUp()
 	{
 
 		config = createMock(EhourConfig.class);
-		timesheetDAO = createMock(TimesheetDao.class);
-		aggregateReportService = createMock(AggregateReportService.class);
-		timesheetCommentDAO = createMock(TimesheetCommentDao.class);
-		projectAssignmentService = createMock(ProjectAssignmentService.class);
-        timesheetLockService = createMock(TimesheetLockService.class);
-
-        timesheetService = new TimesheetServiceImpl(timesheetDAO, timesheetCommentDAO, timesheetLockService,
-                                                    aggregateReportService, projectAssignmentService, config);
+		monthOverviewCache = createMock(MonthOverviewCache.class);
+		assignmentBudgetLedger = createMock(AssignmentBudgetLedger.class);
+        weekOverviewLoader = createMock(WeekOverviewLoader.class);
+
+        timesheetService = new TimesheetServiceImpl(monthOverviewCache, assignmentBudgetLedger, weekOverviewLoader, config);
 	}
 
 	@Test
@@ -76,16 +71,16 @@ public class TimesheetServiceImplTest
 		dayB.setDate(new Date(2006 - 1900, 10, 2));
 		dayB.setHours((float) 8);
 
-		expect(timesheetDAO.getBookedHoursperDayInRange(1, DateUtil.calendarToMonthRange(cal))).andReturn(Arrays.asList(dayA, dayB));
+		expect(monthOverviewCache.getBookedDays(1, new LocalDate(2006, 11, 5))).andReturn(Arrays.asList(dayA, dayB));
 		expect(config.getCompleteDayHours()).andReturn(8f).times(2);
 
 		replay(config);
 
-		replay(timesheetDAO);
+		replay(monthOverviewCache);
 
         List<LocalDate> results = timesheetService.getBookedDaysMonthOverview(1, cal);
 
-        verify(timesheetDAO);
+        verify(monthOverviewCache);
 		verify(config);
 
         assertEquals(1, results.size());
@@ -119,17 +114,45 @@ public class TimesheetServiceImplTest
 		agg.setProjectAssignment(pa);
 		reportResults.add(agg);
 
-		expect(timesheetDAO.getTimesheetEntriesInRange(1, DateUtil.calendarToMonthRange(cal))).andReturn(daoResults);
+		expect(monthOverviewCache.getMonthBookings(1, LocalDate.fromCalendarFields(cal))).andReturn(new MonthBookings(reportResults, daoResults));
+
+		replay(monthOverviewCache, assignmentBudgetLedger);
+
+		TimesheetOverview overview = timesheetService.getTimesheetOverview(new User(1), cal);
+
+		verify(monthOverviewCache, assignmentBudgetLedger);
+
+		assertEquals(1, overview.getProjectStatus().size());
+		assertEquals(2, overview.getTimesheetEntries().size());
+	}
+
+	@Test
+	public void should_get_total_hours_of_allotted_assignments_from_budget_ledger()
+	{
+		Calendar cal = new GregorianCalendar(2006, 10 - 1, 1);
+
+		ProjectAssignment pa = ProjectAssignmentObjectMother.createProjectAssignment(1);
+		pa.setAssignmentType(new ProjectAssignmentType(EhourConstants.ASSIGNMENT_TIME_ALLOTTED_FIXED));
+		pa.setAllottedHours(100f);
+
+		AssignmentAggregateReportElement monthAggregate = new AssignmentAggregateReportElement(pa, 8f);
+		AssignmentAggregateReportElement totalAggregate = new AssignmentAggregateReportElement(pa, 40f);
+
+		expect(monthOverviewCache.getMonthBookings(1, LocalDate.fromCalendarFields(cal)))
+				.andReturn(new MonthBookings(Arrays.asList(monthAggregate), new ArrayList<TimesheetEntry>()));
+		expect(assignmentBudgetLedger.getAggregates(Arrays.asList(pa)))
+				.andReturn(Collections.singletonMap(pa.getAssignmentId(), totalAggregate));
 
-		expect(aggregateReportService.getHoursPerAssignmentInRange(1, DateUtil.calendarToMonthRange(cal))).andReturn(reportResults);
+		replay(monthOverviewCache, assignmentBudgetLedger);
 
-		replay(timesheetDAO);
-		replay(aggregateReportService);
+		TimesheetOverview overview = timesheetService.getTimesheetOverview(new User(1), cal);
 
-		timesheetService.getTimesheetOverview(new User(1), cal);
+		verify(monthOverviewCache, assignmentBudgetLedger);
 
-		verify(timesheetDAO);
-		verify(aggregateReportService);
+		UserProjectStatus status = overview.getProjectStatus().first();
+		assertEquals(8f, status.getHours().floatValue(), 0.001f);
+		assertEquals(40f, status.getTotalBookedHours().floatValue(), 0.001f);
+		assertEquals(60f, status.getFixedHoursRemaining(), 0.001f);
 	}
 
 	@Test
@@ -139,22 +162,17 @@ public class TimesheetServiceImplTest
 		Date db = new Date(2007 - 1900, 1 - 1, 6);
 		DateRange range = new DateRange(da, db);
 
-		DateRange rangeB = new DateRange(new Date(2006 - 1900, 12 - 1, 31), new Date(2007 - 1900, 1 - 1, 6));
+		User user = new User(1);
+		WeekOverview overview = new WeekOverview(new ArrayList<TimesheetEntry>(), new TimesheetComment(), new ArrayList<ProjectAssignment>(), range, user, LockedDays.NONE);
 
-		expect(timesheetDAO.getTimesheetEntriesInRange(1, range)).andReturn(new ArrayList<TimesheetEntry>());
-		expect(timesheetCommentDAO.findById(new TimesheetCommentId(1, range.getDateStart()))).andReturn(new TimesheetComment());
-		expect(projectAssignmentService.getProjectAssignmentsForUser(1, rangeB)).andReturn(new ArrayList<ProjectAssignment>());
+		expect(weekOverviewLoader.load(user, range)).andReturn(overview);
         expect(config.getFirstDayOfWeek()).andReturn(1);
-        expect(timesheetLockService.findLockedDatesInRange(anyObject(Date.class), anyObject(Date.class))).andReturn(new Vector<Interval>(0, 0, 1));
 
-		replay(timesheetDAO, timesheetCommentDAO, projectAssignmentService, config, timesheetLockService);
+		replay(weekOverviewLoader, config);
 
-		timesheetService.getWeekOverview(new User(1), new GregorianCalendar(2007, 1 - 1, 1));
+		assertSame(overview, timesheetService.getWeekOverview(user, new GregorianCalendar(2007, 1 - 1, 1)));
 
-		verify(timesheetDAO);
-		verify(timesheetCommentDAO);
-		verify(projectAssignmentService);
+		verify(weekOverviewLoader);
         verify(config);
-        verify(timesheetLockService);
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.timesheet.service;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.data.LockedDays;
+import net.rrm.ehour.domain.*;
+import net.rrm.ehour.persistence.project.dao.ProjectAssignmentDao;
+import net.rrm.ehour.persistence.timesheet.dao.TimesheetCommentDao;
+import net.rrm.ehour.persistence.timesheet.dao.TimesheetDao;
+import net.rrm.ehour.project.status.ProjectAssignmentStatus;
+import net.rrm.ehour.project.status.ProjectAssignmentStatusService;
+import net.rrm.ehour.timesheet.dto.WeekOverview;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class WeekOverviewLoaderImplTest {
+    private WeekOverviewLoaderImpl loader;
+    private TimesheetDao timesheetDAO;
+    private TimesheetCommentDao timesheetCommentDAO;
+    private ProjectAssignmentDao projectAssignmentDAO;
+    private ProjectAssignmentStatusService statusService;
+    private TimesheetLockService timesheetLockService;
+
+    @Before
+    public void setUp() {
+        timesheetDAO = createMock(TimesheetDao.class);
+        timesheetCommentDAO = createMock(TimesheetCommentDao.class);
+        projectAssignmentDAO = createMock(ProjectAssignmentDao.class);
+        statusService = createMock(ProjectAssignmentStatusService.class);
+        timesheetLockService = createMock(TimesheetLockService.class);
+
+        loader = new WeekOverviewLoaderImpl(timesheetDAO, timesheetCommentDAO, projectAssignmentDAO, statusService, timesheetLockService, 3);
+    }
+
+    @Test
+    public void should_load_week_with_fetched_assignments_and_only_bookable_assignments() {
+        User user = new User(1);
+        DateRange range = new DateRange(new GregorianCalendar(2007, Calendar.JANUARY, 1).getTime(), new GregorianCalendar(2007, Calendar.JANUARY, 7).getTime());
+
+        ProjectAssignment bookableAssignment = ProjectAssignmentObjectMother.createProjectAssignment(1);
+        ProjectAssignment overBudgetAssignment = ProjectAssignmentObjectMother.createProjectAssignment(2);
+        List<ProjectAssignment> assignments = Arrays.asList(bookableAssignment, overBudgetAssignment);
+
+        ProjectAssignmentStatus bookableStatus = new ProjectAssignmentStatus();
+        bookableStatus.addStatus(ProjectAssignmentStatus.Status.IN_ALLOTTED);
+
+        ProjectAssignmentStatus overBudgetStatus = new ProjectAssignmentStatus();
+        overBudgetStatus.addStatus(ProjectAssignmentStatus.Status.OVER_ALLOTTED);
+
+        Map<Integer, ProjectAssignmentStatus> statusses = new HashMap<Integer, ProjectAssignmentStatus>();
+        statusses.put(bookableAssignment.getAssignmentId(), bookableStatus);
+        statusses.put(overBudgetAssignment.getAssignmentId(), overBudgetStatus);
+
+        TimesheetEntry entry = new TimesheetEntry();
+        entry.setEntryId(new TimesheetEntryId(range.getDateStart(), bookableAssignment));
+        entry.setHours(8f);
+
+        TimesheetComment comment = new TimesheetComment();
+
+        expect(projectAssignmentDAO.findProjectAssignmentsWithProjectForUser(1, range)).andReturn(assignments);
+        expect(statusService.getAssignmentStatusses(assignments, range)).andReturn(statusses);
+        expect(timesheetDAO.getTimesheetEntriesWithAssignmentInRange(1, range)).andReturn(Arrays.asList(entry));
+        expect(timesheetCommentDAO.findById(new TimesheetCommentId(1, range.getDateStart()))).andReturn(comment);
+        expect(timesheetLockService.findLockedDays(range.getDateStart(), range.getDateEnd())).andReturn(LockedDays.NONE);
+
+        replay(timesheetDAO, timesheetCommentDAO, projectAssignmentDAO, statusService, timesheetLockService);
+
+        WeekOverview overview = loader.load(user, range);
+
+        verify(timesheetDAO, timesheetCommentDAO, projectAssignmentDAO, statusService, timesheetLockService);
+
+        assertEquals(Arrays.asList(bookableAssignment), overview.getProjectAssignments());
+        assertEquals(Arrays.asList(entry), overview.getTimesheetEntries());
+        assertEquals(1, overview.getAssignmentMap().size());
+        assertSame(comment, overview.getComment());
+        assertSame(user, overview.getUser());
+        assertSame(LockedDays.NONE, overview.getLockedDays());
+    }
+}
@@ -23,6 +23,7 @@ import net.rrm.ehour.persistence.user.dao.UserDao;
 import net.rrm.ehour.persistence.user.dao.UserDepartmentDao;
 import net.rrm.ehour.persistence.user.dao.UserRoleDao;
 import net.rrm.ehour.project.service.ProjectAssignmentManagementService;
+import net.rrm.ehour.report.service.ReportDataCache;
 import org.easymock.Capture;
 import org.junit.Before;
 import org.junit.Test;
@@ -39,6 +40,7 @@ public class UserServiceImplTest {
     private UserDepartmentDao userDepartmentDAO;
     private UserRoleDao userRoleDAO;
     private ProjectAssignmentManagementService assignmentService;
+    private ReportDataCache reportDataCache;
 
     @Before
     public void setUp() {
@@ -47,12 +49,14 @@ public class UserServiceImplTest {
         userDepartmentDAO = createMock(UserDepartmentDao.class);
         userRoleDAO = createMock(UserRoleDao.class);
         assignmentService = createMock(ProjectAssignmentManagementService.class);
+        reportDataCache = createMock(ReportDataCache.class);
 
 
         userService.setUserDAO(userDAO);
         userService.setUserDepartmentDAO(userDepartmentDAO);
         userService.setUserRoleDAO(userRoleDAO);
         userService.setProjectAssignmentManagementService(assignmentService);
+        userService.setReportDataCache(reportDataCache);
 
         userService.setPasswordEncoder(new ShaPasswordEncoder(1));
     }
@@ -234,11 +238,12 @@ public class UserServiceImplTest {
         expect(userDAO.findByUsername(user.getUsername())).andReturn(null);
         expect(userDAO.findById(user.getUserId())).andReturn(persistedUser);
         expect(userDAO.persist(persistedUser)).andReturn(persistedUser);
+        reportDataCache.invalidateAll();
 
-        replay(userDAO, assignmentService);
+        replay(userDAO, assignmentService, reportDataCache);
 
         userService.editUser(user);
 
-        verify(userDAO, assignmentService);
+        verify(userDAO, assignmentService, reportDataCache);
     }
 }
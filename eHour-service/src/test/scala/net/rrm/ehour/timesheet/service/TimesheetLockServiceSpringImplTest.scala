@@ -15,13 +15,16 @@ import com.github.nscala_time.time.Imports._
 import net.rrm.ehour.persistence.timesheet.dao.TimesheetDao
 import java.util.Date
 import net.rrm.ehour.data.DateRange
+import net.rrm.ehour.report.service.ReportDataCache
 
 @RunWith(classOf[JUnitRunner])
 class TimesheetLockServiceSpringImplTest extends WordSpec with Matchers with MockitoSugar with BeforeAndAfterEach {
   val lockDao = mock[TimesheetLockDao]
   val timesheetDao = mock[TimesheetDao]
   
-  val service = new TimesheetLockServiceSpringImpl(lockDao, timesheetDao)
+  val reportDataCache = mock[ReportDataCache]
+
+  val service = new TimesheetLockServiceSpringImpl(lockDao, timesheetDao, reportDataCache)
 
   val endDate = new LocalDate()
   val startDate = new LocalDate()
@@ -39,6 +42,7 @@ class TimesheetLockServiceSpringImplTest extends WordSpec with Matchers with Moc
       val timesheet = service.createNew(None, startDate.toDate, endDate.toDate)
 
       timesheet.getDateStart should be(startDate.toDate)
+      verify(reportDataCache).invalidateRange(new DateRange(startDate.toDate, endDate.toDate))
     }
 
     "find all" in {
@@ -100,11 +104,33 @@ class TimesheetLockServiceSpringImplTest extends WordSpec with Matchers with Moc
       val endDate = LocalDate.parse("2013-01-08")
 
       def findLockedDatesInRange(response: ju.List[TimesheetLock]) = {
-        when(lockDao.findMatchingLock(startDate.toDate, endDate.toDate)).thenReturn(response)
-        val l = service.findLockedDatesInRange(startDate.toDate, endDate.toDate)
-        verify(lockDao).findMatchingLock(startDate.toDate, endDate.toDate)
+        when(lockDao.findAll()).thenReturn(response)
+
+        new TimesheetLockServiceSpringImpl(lockDao, timesheetDao, reportDataCache).findLockedDatesInRange(startDate.toDate, endDate.toDate)
+      }
+
+      "load the locks once until a lock changes" in {
+        when(lockDao.findAll()).thenReturn(ju.Arrays.asList(new TimesheetLock(startDate.toDate, startDate.plusDays(2).toDate)))
+        when(lockDao.persist(any(classOf[TimesheetLock]))).thenReturn(lock)
+
+        val lockService = new TimesheetLockServiceSpringImpl(lockDao, timesheetDao, reportDataCache)
+
+        lockService.findLockedDays(startDate.toDate, endDate.toDate).size should be(3)
+        lockService.findLockedDays(startDate.toDate, startDate.toDate).size should be(1)
+        verify(lockDao, times(1)).findAll()
+
+        lockService.createNew(None, endDate.toDate, endDate.toDate)
+        lockService.findLockedDays(startDate.toDate, endDate.toDate)
+        verify(lockDao, times(2)).findAll()
+      }
+
+      "find a day as locked in the locked days" in {
+        when(lockDao.findAll()).thenReturn(ju.Arrays.asList(new TimesheetLock(startDate.toDate, startDate.plusDays(2).toDate)))
+
+        val lockedDays = new TimesheetLockServiceSpringImpl(lockDao, timesheetDao, reportDataCache).findLockedDays(startDate.toDate, endDate.toDate)
 
-        l
+        lockedDays.isLocked((startDate + 1.days).toDate) should be(true)
+        lockedDays.isLocked((startDate + 3.days).toDate) should be(false)
       }
 
       "find first 2 days as locked with lock matching requested range" in {
@@ -34,6 +34,7 @@ import net.rrm.ehour.ui.login.page.Login;
 import net.rrm.ehour.ui.login.page.Logout;
 import net.rrm.ehour.ui.login.page.SessionExpiredPage;
 import net.rrm.ehour.ui.pm.ProjectManagementPage;
+import net.rrm.ehour.ui.report.export.DetailedReportExportResource;
 import net.rrm.ehour.ui.report.page.ReportPage;
 import net.rrm.ehour.ui.report.summary.ProjectSummaryPage;
 import net.rrm.ehour.ui.timesheet.export.TimesheetExportPage;
@@ -176,6 +177,7 @@ public class EhourWebApplication extends AuthenticatedWebApplication {
 
         mountPage("/report", ReportPage.class);
         mountPage("/report/summary/project", ProjectSummaryPage.class);
+        mountResource("/report/export/detailed/${" + DetailedReportExportResource.FORMAT_PARAM + "}", DetailedReportExportResource.REFERENCE);
 
         mountPage("/audit", AuditReportPage.class);
 
@@ -26,7 +26,6 @@ import net.rrm.ehour.report.reports.element.FlatReportElement;
 import net.rrm.ehour.ui.admin.config.dto.MainConfigBackingBean;
 import net.rrm.ehour.ui.common.form.ImageUploadForm;
 import net.rrm.ehour.ui.common.report.excel.ExcelRequestHandler;
-import net.rrm.ehour.ui.common.util.Function;
 import net.rrm.ehour.ui.common.util.WebGeo;
 import net.rrm.ehour.ui.timesheet.export.TimesheetExcelExport;
 import net.rrm.ehour.ui.timesheet.export.TimesheetExportParameter;
@@ -122,19 +121,14 @@ public class SkinConfigPanel extends AbstractConfigPanel {
     }
 
     private void createDummyExcelExport() {
-        final UserSelectedCriteria userSelectedCriteria = new UserSelectedCriteria();
+        UserSelectedCriteria userSelectedCriteria = new UserSelectedCriteria();
         userSelectedCriteria.getCustomParameters().put(TimesheetExportParameter.INCL_SIGN_OFF.name(), Boolean.TRUE);
         userSelectedCriteria.setReportRange(TimesheetExportDummyDataGenerator.getDateRangeForCurrentMonth());
-        final ReportCriteria criteria = new ReportCriteria(userSelectedCriteria);
+        ReportCriteria criteria = new ReportCriteria(userSelectedCriteria);
 
-        final TimesheetExcelExport timesheetExcelExport = new TimesheetExcelExport();
+        TimesheetExcelExport timesheetExcelExport = new TimesheetExcelExport();
 
-        getRequestCycle().scheduleRequestHandlerAfterCurrent(new ExcelRequestHandler(timesheetExcelExport.getFilename(), new Function<byte[]>() {
-            @Override
-            public byte[] apply() {
-                return timesheetExcelExport.getExcelData(criteria);
-            }
-        }));
+        getRequestCycle().scheduleRequestHandlerAfterCurrent(new ExcelRequestHandler(timesheetExcelExport.getFilename(), timesheetExcelExport, criteria));
     }
 
     public static class TimesheetExportDummyDataGenerator {
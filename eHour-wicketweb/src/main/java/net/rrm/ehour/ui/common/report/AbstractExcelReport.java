@@ -22,18 +22,20 @@ import net.rrm.ehour.ui.common.report.excel.CellStyle;
 import net.rrm.ehour.ui.common.report.excel.ExcelWorkbook;
 import net.rrm.ehour.ui.report.TreeReportElement;
 import org.apache.log4j.Logger;
-import org.apache.poi.hssf.usermodel.HSSFRow;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.ResourceModel;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.List;
 
 /**
- * Abstract aggregate excel report
+ * Abstract aggregate excel report. Reports are written as streaming .xlsx workbooks,
+ * only a window of rows is kept in memory while the sheet is filled
  */
 public abstract class AbstractExcelReport implements ExcelReport {
     private static final long serialVersionUID = 1L;
@@ -58,15 +60,30 @@ public abstract class AbstractExcelReport implements ExcelReport {
         }
     }
 
+    @Override
+    public final void write(ReportCriteria reportCriteria, OutputStream output) throws IOException {
+        write(createReport(reportCriteria), output);
+    }
+
+    protected void write(Report report, OutputStream output) throws IOException {
+        ExcelWorkbook workbook = createWorkbook(report);
+
+        try {
+            workbook.write(output);
+        } finally {
+            workbook.dispose();
+        }
+    }
+
     protected abstract Report createReport(ReportCriteria reportCriteria);
 
     /**
      * Create the workbook
      */
     protected ExcelWorkbook createWorkbook(Report treeReport) {
-        ExcelWorkbook wb = new ExcelWorkbook();
+        ExcelWorkbook wb = ExcelWorkbook.createStreamingWorkbook();
 
-        HSSFSheet sheet = wb.createSheet(getExcelReportName().getObject());
+        Sheet sheet = wb.createSheet(getExcelReportName().getObject());
         int rowNumber = 0;
         short column;
 
@@ -91,8 +108,8 @@ public abstract class AbstractExcelReport implements ExcelReport {
 
     protected abstract IModel<String> getHeaderReportName();
 
-    private int addColumnHeaders(int rowNumber, HSSFSheet sheet, ExcelWorkbook workbook) {
-        HSSFRow row;
+    private int addColumnHeaders(int rowNumber, Sheet sheet, ExcelWorkbook workbook) {
+        Row row;
         int cellNumber = 0;
         IModel<String> headerModel;
 
@@ -110,10 +127,10 @@ public abstract class AbstractExcelReport implements ExcelReport {
     }
 
     @SuppressWarnings("unchecked")
-    protected void fillReportSheet(Report reportData, HSSFSheet sheet, int rowNumber, ExcelWorkbook workbook) {
+    protected void fillReportSheet(Report reportData, Sheet sheet, int rowNumber, ExcelWorkbook workbook) {
         List<TreeReportElement> matrix = (List<TreeReportElement>) reportData.getReportData().getReportElements();
         ReportColumn[] columnHeaders = reportConfig.getReportColumns();
-        HSSFRow row;
+        Row row;
 
         for (TreeReportElement element : matrix) {
             row = sheet.createRow(rowNumber++);
@@ -122,7 +139,7 @@ public abstract class AbstractExcelReport implements ExcelReport {
         }
     }
 
-    private void addColumns(ExcelWorkbook workbook, ReportColumn[] columnHeaders, HSSFRow row, TreeReportElement element) {
+    protected void addColumns(ExcelWorkbook workbook, ReportColumn[] columnHeaders, Row row, TreeReportElement element) {
         int i = 0;
         int cellNumber = 0;
 
@@ -156,12 +173,12 @@ public abstract class AbstractExcelReport implements ExcelReport {
 
     @Override
     public String getFilename() {
-        return getExcelReportName().getObject().toLowerCase().replace(' ', '_') + ".xls";
+        return getExcelReportName().getObject().toLowerCase().replace(' ', '_') + ".xlsx";
     }
 
 
-    protected int createHeaders(int rowNumber, HSSFSheet sheet, Report report, ExcelWorkbook workbook) {
-        HSSFRow row;
+    protected int createHeaders(int rowNumber, Sheet sheet, Report report, ExcelWorkbook workbook) {
+        Row row;
 
         row = sheet.createRow(rowNumber++);
         CellFactory.createCell(row, 0, getHeaderReportName(), workbook, CellStyle.BOLD_FONT);
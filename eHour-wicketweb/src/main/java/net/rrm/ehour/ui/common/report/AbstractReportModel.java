@@ -19,6 +19,7 @@ package net.rrm.ehour.ui.common.report;
 import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.report.criteria.ReportCriteria;
 import net.rrm.ehour.report.reports.ReportData;
+import net.rrm.ehour.report.service.ReportJobService;
 import org.apache.wicket.model.LoadableDetachableModel;
 
 /**
@@ -29,6 +30,9 @@ public abstract class AbstractReportModel extends LoadableDetachableModel<Report
     private static final long serialVersionUID = -8583320436270110287L;
     private ReportCriteria criteria;
 
+    private ReportJobService reportJobService;
+    private String reportJobId;
+
     public AbstractReportModel(ReportCriteria criteria) {
         this.criteria = criteria;
     }
@@ -41,8 +45,38 @@ public abstract class AbstractReportModel extends LoadableDetachableModel<Report
         return criteria;
     }
 
+    /**
+     * Use the result of a finished report job rather than creating the report data on load.
+     * The data is created again when the result is no longer in the job result store
+     *
+     * @param reportJobService injected service proxy of the component which ran the job
+     * @param reportJobId
+     */
+    public void setReportJob(ReportJobService reportJobService, String reportJobId) {
+        this.reportJobService = reportJobService;
+        this.reportJobId = reportJobId;
+        detach();
+    }
+
     @Override
     protected final ReportData load() {
+        if (reportJobId != null) {
+            ReportData reportData = reportJobService.getResult(reportJobId);
+
+            if (reportData != null) {
+                return reportData;
+            }
+        }
+
+        return createReportData();
+    }
+
+    /**
+     * Create the report data without attaching it to the model, as done by report jobs
+     *
+     * @return
+     */
+    public final ReportData createReportData() {
         return getReportData(getReportCriteria());
     }
 
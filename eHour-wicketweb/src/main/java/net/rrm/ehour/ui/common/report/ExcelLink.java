@@ -2,7 +2,6 @@ package net.rrm.ehour.ui.common.report;
 
 import net.rrm.ehour.report.criteria.ReportCriteria;
 import net.rrm.ehour.ui.common.report.excel.ExcelRequestHandler;
-import net.rrm.ehour.ui.common.util.Function;
 import org.apache.wicket.markup.html.link.Link;
 
 public abstract class ExcelLink extends Link<Void> {
@@ -16,12 +15,9 @@ public abstract class ExcelLink extends Link<Void> {
 
     @Override
     public void onClick() {
-        getRequestCycle().scheduleRequestHandlerAfterCurrent(new ExcelRequestHandler(createReportBuilder().getFilename(), new Function<byte[]>() {
-            @Override
-            public byte[] apply() {
-                return createReportBuilder().getExcelData(reportCriteria);
-            }
-        }));
+        ExcelReport excelReport = createReportBuilder();
+
+        getRequestCycle().scheduleRequestHandlerAfterCurrent(new ExcelRequestHandler(excelReport.getFilename(), excelReport, reportCriteria));
     }
 
     protected abstract ExcelReport createReportBuilder();
@@ -3,8 +3,16 @@ package net.rrm.ehour.ui.common.report;
 import net.rrm.ehour.report.criteria.ReportCriteria;
 import org.apache.wicket.util.io.IClusterable;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 public interface ExcelReport extends IClusterable{
     byte[] getExcelData(ReportCriteria reportCriteria);
 
+    /**
+     * Write the workbook to the output while it's being created
+     */
+    void write(ReportCriteria reportCriteria, OutputStream output) throws IOException;
+
     String getFilename();
 }
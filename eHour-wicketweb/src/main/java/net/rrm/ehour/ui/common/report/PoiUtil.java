@@ -18,7 +18,7 @@
 package net.rrm.ehour.ui.common.report;
 
 import net.rrm.ehour.ui.common.report.excel.ExcelWorkbook;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -28,8 +28,16 @@ public class PoiUtil
 	public static byte[] getWorkbookAsBytes(ExcelWorkbook workbook) throws IOException
 	{
 		ByteArrayOutputStream output = new ByteArrayOutputStream();
-		workbook.write(output);
-		
+
+		try
+		{
+			workbook.write(output);
+		}
+		finally
+		{
+			workbook.dispose();
+		}
+
 		return output.toByteArray();
 	}
 	
@@ -37,11 +45,11 @@ public class PoiUtil
 	{
 		if (type.equalsIgnoreCase("png"))
 		{
-			return HSSFWorkbook.PICTURE_TYPE_PNG;
+			return Workbook.PICTURE_TYPE_PNG;
 		}
 		else
 		{
-			return HSSFWorkbook.PICTURE_TYPE_JPEG;
+			return Workbook.PICTURE_TYPE_JPEG;
 		}
 	}
 }
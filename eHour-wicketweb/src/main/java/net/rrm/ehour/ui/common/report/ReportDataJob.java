@@ -0,0 +1,52 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.ui.common.report;
+
+import net.rrm.ehour.report.reports.ReportData;
+import net.rrm.ehour.report.service.ReportJob;
+import net.rrm.ehour.report.service.ReportJobProgress;
+import org.apache.wicket.Application;
+import org.apache.wicket.Session;
+import org.apache.wicket.ThreadContext;
+
+/**
+ * Creates the data of a report model on the report job pool. The report models
+ * need the application and session of the request which submitted the job.
+ */
+public class ReportDataJob implements ReportJob<ReportData> {
+    private final AbstractReportModel reportModel;
+    private final Application application;
+    private final Session session;
+
+    public ReportDataJob(AbstractReportModel reportModel) {
+        this.reportModel = reportModel;
+        this.application = Application.get();
+        this.session = Session.get();
+    }
+
+    @Override
+    public ReportData run(ReportJobProgress progress) {
+        ThreadContext.setApplication(application);
+        ThreadContext.setSession(session);
+
+        try {
+            return reportModel.createReportData();
+        } finally {
+            ThreadContext.detach();
+        }
+    }
+}
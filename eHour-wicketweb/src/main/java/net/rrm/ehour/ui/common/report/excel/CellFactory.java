@@ -17,9 +17,8 @@
 package net.rrm.ehour.ui.common.report.excel;
 
 import net.rrm.ehour.ui.common.util.WebUtils;
-import org.apache.poi.hssf.usermodel.HSSFCell;
-import org.apache.poi.hssf.usermodel.HSSFRichTextString;
-import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.wicket.model.IModel;
 
 /**
@@ -28,31 +27,31 @@ import org.apache.wicket.model.IModel;
  * @author Thies Edeling (thies@te-con.nl)
  */
 public class CellFactory {
-    public static HSSFCell createCell(HSSFRow row, int column, String value, ExcelWorkbook workbook) {
+    public static Cell createCell(Row row, int column, String value, ExcelWorkbook workbook) {
         return CellFactory.createCell(row, column, value, workbook, CellStyle.NORMAL_FONT);
     }
 
-    public static HSSFCell createCell(HSSFRow row, int column, IModel<String> valueModel, ExcelWorkbook workbook) {
+    public static Cell createCell(Row row, int column, IModel<String> valueModel, ExcelWorkbook workbook) {
         return CellFactory.createCell(row, column, valueModel, workbook, CellStyle.NORMAL_FONT);
     }
 
-    public static HSSFCell createCell(HSSFRow row, int column, ExcelWorkbook workbook, CellStyle cellStyle) {
+    public static Cell createCell(Row row, int column, ExcelWorkbook workbook, CellStyle cellStyle) {
         return createCell(row, column, "", workbook, cellStyle);
     }
 
-    public static HSSFCell createCell(HSSFRow row, int column, IModel<String> valueModel, ExcelWorkbook workbook, CellStyle cellStyle) {
+    public static Cell createCell(Row row, int column, IModel<String> valueModel, ExcelWorkbook workbook, CellStyle cellStyle) {
         return createCell(row, column, WebUtils.getResourceModelString(valueModel), workbook, cellStyle);
     }
 
-    public static HSSFCell createCell(HSSFRow row, int column, Object value, ExcelWorkbook workbook, CellStyle cellStyle) {
-        HSSFCell cell = row.createCell(column);
+    public static Cell createCell(Row row, int column, Object value, ExcelWorkbook workbook, CellStyle cellStyle) {
+        Cell cell = row.createCell(column);
 
         if (value instanceof Float) {
             cell.setCellValue((Float) value);
         } else if (value instanceof Number) {
             cell.setCellValue(((Number) value).doubleValue());
         } else {
-            cell.setCellValue(new HSSFRichTextString(value.toString()));
+            cell.setCellValue(value.toString());
         }
 
         cell.setCellStyle(workbook.getCellStyle(cellStyle));
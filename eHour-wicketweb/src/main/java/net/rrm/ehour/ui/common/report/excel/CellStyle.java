@@ -1,11 +1,9 @@
 package net.rrm.ehour.ui.common.report.excel;
 
 import net.rrm.ehour.ui.common.session.EhourWebSession;
-import org.apache.poi.hssf.usermodel.HSSFCellStyle;
-import org.apache.poi.hssf.usermodel.HSSFDataFormat;
-import org.apache.poi.hssf.usermodel.HSSFFont;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.hssf.util.HSSFColor;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Workbook;
 
 import java.util.Currency;
 import java.util.Locale;
@@ -13,111 +11,101 @@ import java.util.Locale;
 public enum CellStyle {
     NORMAL_FONT {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
         }
     },
     BOLD_FONT {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
-            HSSFFont font = cellStyle.getFont(workbook);
-            font.setBoldweight(HSSFFont.BOLDWEIGHT_BOLD);
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
+            Font font = workbook.getFontAt(cellStyle.getFontIndex());
+            font.setBoldweight(Font.BOLDWEIGHT_BOLD);
             cellStyle.setFont(font);
         }
     },
     DATE {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
             cellStyle.setDataFormat((short) 0xf);
         }
     },
     BOLD_DATE {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
             BOLD_FONT.apply(workbook, cellStyle);
             DATE.apply(workbook, cellStyle);
         }
     },
     DIGIT {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
             cellStyle.setDataFormat((short) 2);
         }
     },
     CURRENCY {
-        private short dataFormat = -1;
-
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
-            if (dataFormat == -1) {
-                init(workbook);
-            }
-
-            cellStyle.setDataFormat(dataFormat);
-        }
-
-        private void init(HSSFWorkbook workbook) {
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
+            // the format index differs per workbook so it can't be kept in the enum
             Locale currencyLocale = EhourWebSession.getEhourConfig().getCurrency();
             Currency currency = Currency.getInstance(currencyLocale);
             String currencySymbol = currency.getSymbol(currencyLocale);
 
             String format = "$#,##0.00;[Red]($#,##0.00)".replace("$", currencySymbol);
 
-            HSSFDataFormat dataFormat = workbook.createDataFormat();
-            this.dataFormat = dataFormat.getFormat(format);
+            cellStyle.setDataFormat(workbook.createDataFormat().getFormat(format));
         }
     },
     BORDER_SOUTH {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
-            cellStyle.setBorderBottom(HSSFCellStyle.BORDER_MEDIUM);
-            cellStyle.setBottomBorderColor(HSSFColor.BLACK.index);
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
+            cellStyle.setBorderBottom(org.apache.poi.ss.usermodel.CellStyle.BORDER_MEDIUM);
+            cellStyle.setBottomBorderColor(IndexedColors.BLACK.getIndex());
         }
     },
     BORDER_NORTH_THIN {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
-            cellStyle.setBorderTop(HSSFCellStyle.BORDER_THIN);
-            cellStyle.setTopBorderColor(HSSFColor.BLACK.index);
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
+            cellStyle.setBorderTop(org.apache.poi.ss.usermodel.CellStyle.BORDER_THIN);
+            cellStyle.setTopBorderColor(IndexedColors.BLACK.getIndex());
         }
     },
     DATE_BORDER_NORTH_THIN {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
             BORDER_NORTH_THIN.apply(workbook, cellStyle);
             DATE.apply(workbook, cellStyle);
         }
     },
     DIGIT_BORDER_NORTH_THIN {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
             BORDER_NORTH_THIN.apply(workbook, cellStyle);
             DIGIT.apply(workbook, cellStyle);
         }
     },
     BOLD_BORDER_SOUTH {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
             BORDER_SOUTH.apply(workbook, cellStyle);
             DIGIT.apply(workbook, cellStyle);
         }
     },
     BORDER_NORTH {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
-            cellStyle.setBorderTop(HSSFCellStyle.BORDER_MEDIUM);
-            cellStyle.setTopBorderColor(HSSFColor.BLACK.index);
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
+            cellStyle.setBorderTop(org.apache.poi.ss.usermodel.CellStyle.BORDER_MEDIUM);
+            cellStyle.setTopBorderColor(IndexedColors.BLACK.getIndex());
         }
     },
     BOLD_BORDER_NORTH {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
             BORDER_NORTH.apply(workbook, cellStyle);
             BOLD_FONT.apply(workbook, cellStyle);
         }
     },
     DIGIT_BOLD_BORDER_NORTH {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
             BORDER_NORTH.apply(workbook, cellStyle);
             BOLD_FONT.apply(workbook, cellStyle);
             DIGIT.apply(workbook, cellStyle);
@@ -125,14 +113,14 @@ public enum CellStyle {
     },
     HEADER {
         @Override
-        public void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle) {
+        public void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle) {
             BOLD_FONT.apply(workbook, cellStyle);
             BORDER_SOUTH.apply(workbook, cellStyle);
 
-            cellStyle.setFillForegroundColor(HSSFColor.BLUE.index);
-            cellStyle.setFillPattern(HSSFCellStyle.SOLID_FOREGROUND);
+            cellStyle.setFillForegroundColor(IndexedColors.BLUE.getIndex());
+            cellStyle.setFillPattern(org.apache.poi.ss.usermodel.CellStyle.SOLID_FOREGROUND);
         }
     };
 
-    public abstract void apply(HSSFWorkbook workbook, HSSFCellStyle cellStyle);
+    public abstract void apply(Workbook workbook, org.apache.poi.ss.usermodel.CellStyle cellStyle);
 }
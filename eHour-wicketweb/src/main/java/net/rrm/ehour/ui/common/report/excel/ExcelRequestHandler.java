@@ -1,20 +1,28 @@
 package net.rrm.ehour.ui.common.report.excel;
 
-import net.rrm.ehour.ui.common.util.Function;
+import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.ui.common.report.ExcelReport;
 import org.apache.wicket.request.IRequestCycle;
 import org.apache.wicket.request.IRequestHandler;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Writes the workbook of an excel report straight to the servlet response
+ */
 public class ExcelRequestHandler implements IRequestHandler {
+    private static final String XLS_CONTENT_TYPE = "application/vnd.ms-excel";
+    private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
 
     private String filename;
-    private Function<byte[]> reportConstructionFunction;
+    private ExcelReport excelReport;
+    private ReportCriteria reportCriteria;
 
-    public ExcelRequestHandler(String filename, Function<byte[]> reportConstructionFunction) {
+    public ExcelRequestHandler(String filename, ExcelReport excelReport, ReportCriteria reportCriteria) {
         this.filename = filename;
-        this.reportConstructionFunction = reportConstructionFunction;
+        this.excelReport = excelReport;
+        this.reportCriteria = reportCriteria;
     }
 
     @Override
@@ -26,11 +34,12 @@ public class ExcelRequestHandler implements IRequestHandler {
         try {
 
             HttpServletResponse httpResponse = (HttpServletResponse) requestCycle.getResponse().getContainerResponse();
-            httpResponse.setContentType("application/vnd.ms-excel");
+            httpResponse.setContentType(filename.endsWith(".xlsx") ? XLSX_CONTENT_TYPE : XLS_CONTENT_TYPE);
             httpResponse.setHeader("Content-disposition", "attachment; filename=" + filename);
             ServletOutputStream outputStream = httpResponse.getOutputStream();
 
-            outputStream.write(reportConstructionFunction.apply());
+            excelReport.write(reportCriteria, outputStream);
+            outputStream.flush();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
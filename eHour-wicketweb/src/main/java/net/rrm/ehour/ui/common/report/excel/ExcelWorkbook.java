@@ -1,41 +1,62 @@
 package net.rrm.ehour.ui.common.report.excel;
 
-import org.apache.poi.hssf.usermodel.HSSFCellStyle;
-import org.apache.poi.hssf.usermodel.HSSFFont;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.OutputStream;
+import java.util.EnumMap;
 import java.util.Map;
 
 public class ExcelWorkbook {
     private static final String FONT_NAME = "Arial";
 
-    private Map<CellStyle, HSSFCellStyle> pregeneratedStyles;
+    /**
+     * Rows kept in memory by a streaming workbook, older rows are flushed to a temp file
+     */
+    private static final int STREAMING_ROW_WINDOW = 100;
 
-    private HSSFWorkbook workbook;
+    private Map<CellStyle, org.apache.poi.ss.usermodel.CellStyle> pregeneratedStyles;
 
+    private Workbook workbook;
+
+    /**
+     * An .xls workbook kept in memory
+     */
     public ExcelWorkbook() {
-        init();
+        this(new HSSFWorkbook());
     }
 
-    private void init() {
-        workbook = new HSSFWorkbook();
+    private ExcelWorkbook(Workbook workbook) {
+        this.workbook = workbook;
 
         pregenerateStyles(workbook);
     }
-    private void pregenerateStyles(HSSFWorkbook workbook) {
-        pregeneratedStyles = new HashMap<CellStyle, HSSFCellStyle>();
+
+    /**
+     * An .xlsx workbook which only keeps a window of rows in memory, rows can only be
+     * added in order. Dispose the workbook after writing it to remove its temp files
+     */
+    public static ExcelWorkbook createStreamingWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+
+        return new ExcelWorkbook(workbook);
+    }
+
+    private void pregenerateStyles(Workbook workbook) {
+        pregeneratedStyles = new EnumMap<CellStyle, org.apache.poi.ss.usermodel.CellStyle>(CellStyle.class);
 
         CellStyle[] styleses = CellStyle.values();
 
-        HSSFFont font = workbook.createFont();
+        Font font = workbook.createFont();
         font.setFontName(FONT_NAME);
 
         for (CellStyle stylese : styleses) {
-            HSSFCellStyle cellStyle = workbook.createCellStyle();
+            org.apache.poi.ss.usermodel.CellStyle cellStyle = workbook.createCellStyle();
             cellStyle.setFont(font);
 
             stylese.apply(workbook, cellStyle);
@@ -44,11 +65,11 @@ public class ExcelWorkbook {
         }
     }
 
-    public HSSFCellStyle getCellStyle(CellStyle forCellStyle) {
+    public org.apache.poi.ss.usermodel.CellStyle getCellStyle(CellStyle forCellStyle) {
         return pregeneratedStyles.get(forCellStyle);
     }
 
-    public HSSFSheet createSheet(String sheetName) {
+    public Sheet createSheet(String sheetName) {
         return workbook.createSheet(sheetName);
     }
 
@@ -56,7 +77,20 @@ public class ExcelWorkbook {
         return workbook.addPicture(image, imageType);
     }
 
-    public void write(ByteArrayOutputStream output) throws IOException {
+    public Workbook getWorkbook() {
+        return workbook;
+    }
+
+    public void write(OutputStream output) throws IOException {
         workbook.write(output);
     }
+
+    /**
+     * Remove the temp files of a streaming workbook
+     */
+    public void dispose() {
+        if (workbook instanceof SXSSFWorkbook) {
+            ((SXSSFWorkbook) workbook).dispose();
+        }
+    }
 }
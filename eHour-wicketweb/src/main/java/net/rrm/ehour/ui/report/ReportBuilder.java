@@ -22,13 +22,14 @@ import net.rrm.ehour.ui.report.node.ReportNode;
 import net.rrm.ehour.ui.report.node.ReportNodeFactory;
 import org.apache.log4j.Logger;
 
-import java.util.ArrayList;
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * ReportBuilder
- * Converts a collection of report elements to a hierarchical reportNode tree.
- * The
+ * Converts a collection of report elements to a hierarchical reportNode tree
+ * in a single pass, each element is routed to its nodes through the id index
+ * of every level.
  *
  * @author Thies
  */
@@ -39,39 +40,35 @@ public class ReportBuilder {
      * Create report
      */
     public List<ReportNode> createReport(ReportData reportData, ReportNodeFactory nodeFactory) {
-        List<ReportNode> reportNodes = new ArrayList<ReportNode>();
+        RootNode root = new RootNode();
 
         for (ReportElement reportElement : reportData.getReportElements()) {
-            if (!processElement(reportElement, nodeFactory, reportNodes)) {
-                ReportNode node = nodeFactory.createReportNode(reportElement, 0);
-                node.processElement(reportElement, 0, nodeFactory);
-                reportNodes.add(node);
-            }
+            // the root sits above the hierarchy so its children are created on level 0
+            root.processElement(reportElement, -1, nodeFactory);
         }
 
-        return reportNodes;
+        return root.getRootNodes();
     }
 
     /**
-     * Process report importer
-     *
-     * @param element
-     * @param factory
-     * @return
+     * Parent of the root nodes which accepts every element
      */
-    private boolean processElement(ReportElement element, ReportNodeFactory factory, List<ReportNode> reportNodes) {
-        boolean processed = false;
+    private static final class RootNode extends ReportNode {
+        private static final long serialVersionUID = -1906413402187713745L;
 
-        // check for each reportNode whether 
-        for (ReportNode reportNode : reportNodes) {
-            if (reportNode.processElement(element, 0, factory)) {
-                processed = true;
-                break;
-            }
-        }
+        private static final String ROOT_ID = "root";
 
-        return processed;
-    }
+        private RootNode() {
+            super(ROOT_ID);
+        }
 
+        @Override
+        protected Serializable getElementId(ReportElement element) {
+            return ROOT_ID;
+        }
 
+        List<ReportNode> getRootNodes() {
+            return getReportNodes();
+        }
+    }
 }
@@ -32,6 +32,9 @@ public class TreeReportData extends ReportData
 	private static final long serialVersionUID = -8826568609798407812L;
 
 	private ReportData rawReportData;
+
+	private float totalHours;
+	private float totalTurnover;
 	
 	public TreeReportData(List<? extends ReportElement> reportElements, DateRange reportRange, ReportData rawReportData)
 	{
@@ -45,4 +48,20 @@ public class TreeReportData extends ReportData
 		return rawReportData;
 	}
 
+	public float getTotalHours()
+	{
+		return totalHours;
+	}
+
+	public float getTotalTurnover()
+	{
+		return totalTurnover;
+	}
+
+	void setTotals(float totalHours, float totalTurnover)
+	{
+		this.totalHours = totalHours;
+		this.totalTurnover = totalTurnover;
+	}
+
 }
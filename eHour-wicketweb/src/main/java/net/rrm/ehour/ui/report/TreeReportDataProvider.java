@@ -16,30 +16,43 @@
 
 package net.rrm.ehour.ui.report;
 
-import java.util.Iterator;
-import java.util.List;
-
-import org.apache.wicket.markup.repeater.data.IDataProvider;
+import net.rrm.ehour.report.reports.ReportData;
+import net.rrm.ehour.report.reports.element.LockableDate;
+import org.apache.wicket.extensions.markup.html.repeater.util.SortParam;
+import org.apache.wicket.extensions.markup.html.repeater.util.SortableDataProvider;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
 /**
- * DataProvider for tree report nodes, not the most efficient memory-wise 
+ * DataProvider for the rows of a tree report, sortable on the column index.
+ * The rows are read from the report model on every request so only the rows
+ * of the page shown end up in the page store, a sorted copy of the rows is
+ * kept until the provider is detached.
  **/
 
-public class TreeReportDataProvider implements IDataProvider<TreeReportElement>
+public class TreeReportDataProvider extends SortableDataProvider<TreeReportElement, Integer>
 {
 	private static final long serialVersionUID = 4346207207281976523L;
 
-	private List<TreeReportElement> nodes;
-	
+	private final IModel<ReportData> reportModel;
+
+	private transient List<TreeReportElement> sortedRows;
+	private transient SortParam<Integer> sortedOn;
+
 	/**
 	 * 
-	 * @param nodes
+	 * @param reportModel model of the tree report data, detached with this provider
 	 */
-	public TreeReportDataProvider(List<TreeReportElement> nodes)
+	public TreeReportDataProvider(IModel<ReportData> reportModel)
 	{
-		this.nodes = nodes;
+		this.reportModel = reportModel;
 	}
 
     /*
@@ -53,7 +66,12 @@ public class TreeReportDataProvider implements IDataProvider<TreeReportElement>
 
     @Override
     public Iterator<? extends TreeReportElement> iterator(long first, long count) {
-        return nodes.subList((int)first, (int)(first + count)).iterator();
+        List<TreeReportElement> rows = getRows();
+
+        int fromIndex = (int) Math.min(first, rows.size());
+        int toIndex = (int) Math.min(first + count, rows.size());
+
+        return rows.subList(fromIndex, toIndex).iterator();
     }
 
     /*
@@ -62,10 +80,98 @@ public class TreeReportDataProvider implements IDataProvider<TreeReportElement>
          */
 	public long size()
 	{
-		return nodes.size();
+		return getElements().size();
+	}
+
+	private List<TreeReportElement> getRows()
+	{
+		SortParam<Integer> sort = getSort();
+
+		if (sort == null)
+		{
+			return getElements();
+		}
+
+		if (sortedRows == null || !sort.equals(sortedOn))
+		{
+			// a stable sort, rows with the same value keep their order in the tree
+			sortedRows = new ArrayList<TreeReportElement>(getElements());
+			Collections.sort(sortedRows, new ColumnComparator(sort.getProperty(), sort.isAscending()));
+			sortedOn = sort;
+		}
+
+		return sortedRows;
 	}
 
+	@SuppressWarnings("unchecked")
+	private List<TreeReportElement> getElements()
+	{
+		return (List<TreeReportElement>) reportModel.getObject().getReportElements();
+	}
+
+	@Override
 	public void detach()
 	{
+		sortedRows = null;
+		sortedOn = null;
+
+		reportModel.detach();
+	}
+
+	/**
+	 * Compares the values of a column, numbers on their value and strings case insensitive.
+	 * Empty cells are sorted last regardless of the direction
+	 */
+	static final class ColumnComparator implements Comparator<TreeReportElement>
+	{
+		private final int column;
+		private final boolean ascending;
+
+		ColumnComparator(int column, boolean ascending)
+		{
+			this.column = column;
+			this.ascending = ascending;
+		}
+
+		@Override
+		public int compare(TreeReportElement o1, TreeReportElement o2)
+		{
+			Serializable value1 = o1.getRow()[column];
+			Serializable value2 = o2.getRow()[column];
+
+			if (value1 == null || value2 == null)
+			{
+				return value1 == null ? (value2 == null ? 0 : 1) : -1;
+			}
+
+			int compare = compareValues(value1, value2);
+
+			return ascending ? compare : -compare;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static int compareValues(Serializable value1, Serializable value2)
+		{
+			if (value1 instanceof Number && value2 instanceof Number)
+			{
+				return Double.compare(((Number) value1).doubleValue(), ((Number) value2).doubleValue());
+			}
+			else if (value1 instanceof String && value2 instanceof String)
+			{
+				return String.CASE_INSENSITIVE_ORDER.compare((String) value1, (String) value2);
+			}
+			else if (value1 instanceof LockableDate && value2 instanceof LockableDate)
+			{
+				return ((LockableDate) value1).getDate().compareTo(((LockableDate) value2).getDate());
+			}
+			else if (value1 instanceof Comparable && value1.getClass() == value2.getClass())
+			{
+				return ((Comparable<Object>) value1).compareTo(value2);
+			}
+			else
+			{
+				return value1.toString().compareTo(value2.toString());
+			}
+		}
 	}
 }
@@ -23,6 +23,8 @@ import net.rrm.ehour.ui.common.report.AbstractReportModel;
 import net.rrm.ehour.ui.common.report.ReportConfig;
 import net.rrm.ehour.ui.report.node.ReportNode;
 import net.rrm.ehour.ui.report.node.ReportNodeFactory;
+import org.apache.wicket.model.AbstractReadOnlyModel;
+import org.apache.wicket.model.IModel;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -33,9 +35,6 @@ public abstract class TreeReportModel extends AbstractReportModel
 {
 	private static final long serialVersionUID = -3717854276306653784L;
 
-	private float totalHours;
-	private float totalTurnover;
-	
 	private ReportConfig reportConfig;
 	
 	/**
@@ -61,9 +60,11 @@ public abstract class TreeReportModel extends AbstractReportModel
         List<ReportNode> rootNodes = reportBuilder.createReport(reportData, getReportNodeFactory());
         
         List<TreeReportElement> matrix = createMatrix(rootNodes, reportConfig.getReportColumns().length);
-        calcTotals(rootNodes);
-        
-        return new TreeReportData(matrix, reportCriteria.getReportRange(), reportData);
+
+        TreeReportData treeReportData = new TreeReportData(matrix, reportCriteria.getReportRange(), reportData);
+        calcTotals(rootNodes, treeReportData);
+
+        return treeReportData;
     }
     
     protected void sort(ReportData reportData, ReportCriteria reportCriteria) {
@@ -82,16 +83,22 @@ public abstract class TreeReportModel extends AbstractReportModel
     protected abstract ReportData fetchReportData(ReportCriteria reportCriteria);
     
     /**
-     * Calculate total turnover & hours booked
+     * Calculate total turnover & hours booked. Kept with the report data rather than
+     * in the model as the data may be created by a report job
      * @param rootNodes
      */
-    private void calcTotals(List<ReportNode> rootNodes)
+    private void calcTotals(List<ReportNode> rootNodes, TreeReportData treeReportData)
     {
+    	float totalHours = 0;
+    	float totalTurnover = 0;
+
     	for (ReportNode reportNode : rootNodes)
 		{
     		totalTurnover += reportNode.getTurnover().floatValue();
 			totalHours += reportNode.getHours().floatValue();
 		}
+
+    	treeReportData.setTotals(totalHours, totalTurnover);
     }
     /**
      * 
@@ -121,7 +128,7 @@ public abstract class TreeReportModel extends AbstractReportModel
 	 */
 	public float getTotalHours()
 	{
-		return totalHours;
+		return ((TreeReportData) getReportData()).getTotalHours();
 	}
 
 	/**
@@ -129,6 +136,31 @@ public abstract class TreeReportModel extends AbstractReportModel
 	 */
 	public float getTotalTurnover()
 	{
-		return totalTurnover;
+		return ((TreeReportData) getReportData()).getTotalTurnover();
+	}
+
+	/**
+	 * Model of the report data the tree was created from. It reads through this model
+	 * and detaches it, so the data isn't serialized with the components using it
+	 * @return
+	 */
+	public IModel<ReportData> getRawReportDataModel()
+	{
+		return new AbstractReadOnlyModel<ReportData>()
+		{
+			private static final long serialVersionUID = 5366271428934185416L;
+
+			@Override
+			public ReportData getObject()
+			{
+				return ((TreeReportData) getReportData()).getRawReportData();
+			}
+
+			@Override
+			public void detach()
+			{
+				TreeReportModel.this.detach();
+			}
+		};
 	}
 }
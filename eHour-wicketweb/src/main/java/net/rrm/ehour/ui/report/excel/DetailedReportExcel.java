@@ -17,12 +17,23 @@
 package net.rrm.ehour.ui.report.excel;
 
 import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
+import net.rrm.ehour.report.service.DetailedReportService;
 import net.rrm.ehour.ui.common.report.AbstractExcelReport;
 import net.rrm.ehour.ui.common.report.Report;
 import net.rrm.ehour.ui.common.report.ReportConfig;
+import net.rrm.ehour.ui.common.report.excel.ExcelWorkbook;
+import net.rrm.ehour.ui.common.util.WebUtils;
+import net.rrm.ehour.ui.report.TreeReportElement;
 import net.rrm.ehour.ui.report.trend.DetailedReportModel;
+import net.rrm.ehour.ui.report.trend.node.FlatUserNode;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.ResourceModel;
+import org.apache.wicket.spring.injection.annot.SpringBean;
+
+import java.io.Serializable;
 
 public class DetailedReportExcel extends AbstractExcelReport
 {
@@ -40,6 +51,45 @@ public class DetailedReportExcel extends AbstractExcelReport
         return new DetailedReportModel(reportCriteria);
     }
 
+    /**
+     * Rows are written as they are streamed from the database instead of building
+     * the report tree first. The streamed elements are ordered by date, customer,
+     * project and user so the rows come out in the same order as the tree's matrix
+     */
+    @Override
+    protected void fillReportSheet(Report report, final Sheet sheet, final int rowNumber, final ExcelWorkbook workbook) {
+        final ReportConfig reportConfig = ReportConfig.DETAILED_REPORT;
+
+        getDetailedReportService().streamDetailedReportData(report.getReportCriteria(), new ReportElementHandler<FlatReportElement>() {
+            private int currentRow = rowNumber;
+
+            @Override
+            public void handle(FlatReportElement element) {
+                addColumns(workbook, reportConfig.getReportColumns(), sheet.createRow(currentRow++), toTreeReportElement(element));
+            }
+        });
+    }
+
+    private TreeReportElement toTreeReportElement(FlatReportElement element) {
+        return new TreeReportElement(new Serializable[]{element.getLockableDate(),
+                element.getCustomerName(),
+                element.getProjectName(),
+                element.getProjectCode(),
+                FlatUserNode.getFullName(element),
+                element.getComment(),
+                element.getRate(),
+                element.getTotalHours(),
+                element.getTotalTurnOver()});
+    }
+
+    private DetailedReportService getDetailedReportService() {
+        // the instance is shared between concurrent exports, inject a holder per export instead
+        ServiceHolder holder = new ServiceHolder();
+        WebUtils.springInjection(holder);
+
+        return holder.detailedReportService;
+    }
+
     @Override
 	protected IModel<String> getExcelReportName()
 	{
@@ -56,4 +106,9 @@ public class DetailedReportExcel extends AbstractExcelReport
 	{
 		return INSTANCE;
 	}
+
+    private static class ServiceHolder {
+        @SpringBean(name = "detailedReportService")
+        private DetailedReportService detailedReportService;
+    }
 }
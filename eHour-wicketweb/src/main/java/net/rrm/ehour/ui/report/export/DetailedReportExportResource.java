@@ -0,0 +1,285 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+
+package net.rrm.ehour.ui.report.export;
+
+import com.google.common.collect.Lists;
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.Customer;
+import net.rrm.ehour.domain.Project;
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.domain.UserDepartment;
+import net.rrm.ehour.domain.UserRole;
+import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.report.criteria.UserSelectedCriteria;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
+import net.rrm.ehour.report.service.DetailedReportService;
+import net.rrm.ehour.ui.common.session.EhourWebSession;
+import net.rrm.ehour.ui.common.util.WebUtils;
+import net.rrm.ehour.util.DateUtil;
+import org.apache.log4j.Logger;
+import org.apache.wicket.authroles.authorization.strategies.role.Roles;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.AbstractResource;
+import org.apache.wicket.request.resource.ContentDisposition;
+import org.apache.wicket.request.resource.IResource;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.spring.injection.annot.SpringBean;
+import org.apache.wicket.util.string.StringValue;
+import org.joda.time.LocalDate;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the detailed report as CSV or NDJSON, mounted on /report/export/detailed/${format}.
+ * Rows are written as they come off the database cursor, without building the report model.
+ * <p/>
+ * Optional parameters: start and end (yyyy-MM-dd, defaults to the current month) and
+ * project, customer, user and department ids (repeated or comma separated). The report
+ * is restricted the same way as in the report page: users with the report role see
+ * everything, project managers only their projects and others only their own hours.
+ * <p/>
+ * No content length is set so the container uses chunked transfer encoding, the response
+ * is gzipped when the client accepts it.
+ */
+public class DetailedReportExportResource extends AbstractResource {
+    private static final long serialVersionUID = -3520839461752914321L;
+
+    private static final Logger LOGGER = Logger.getLogger(DetailedReportExportResource.class);
+
+    public static final String FORMAT_PARAM = "format";
+
+    public static final ResourceReference REFERENCE = new ResourceReference(DetailedReportExportResource.class, "detailedReportExport") {
+        private static final long serialVersionUID = 1969425312573146498L;
+
+        @Override
+        public IResource getResource() {
+            return new DetailedReportExportResource();
+        }
+    };
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final Roles EXPORT_ROLES = new Roles(new String[]{UserRole.ROLE_CONSULTANT, UserRole.ROLE_REPORT, UserRole.ROLE_PROJECTMANAGER});
+
+    @SpringBean(name = "detailedReportService")
+    private transient DetailedReportService detailedReportService;
+
+    /**
+     * Create a new instance for every request, services are injected when constructed
+     */
+    public DetailedReportExportResource() {
+        WebUtils.springInjection(this);
+    }
+
+    @Override
+    protected ResourceResponse newResourceResponse(Attributes attributes) {
+        ResourceResponse response = new ResourceResponse();
+
+        EhourWebSession session = EhourWebSession.getSession();
+        // null when not signed in
+        Roles roles = session.getRoles();
+
+        if (roles == null || !roles.hasAnyRole(EXPORT_ROLES)) {
+            response.setError(HttpServletResponse.SC_FORBIDDEN);
+            return response;
+        }
+
+        PageParameters parameters = attributes.getParameters();
+
+        final ExportFormat format = ExportFormat.forExtension(parameters.get(FORMAT_PARAM).toString(""));
+
+        final ReportCriteria reportCriteria;
+
+        try {
+            if (format == null) {
+                throw new IllegalArgumentException("Unknown export format " + parameters.get(FORMAT_PARAM));
+            }
+
+            reportCriteria = new ReportCriteria(createUserSelectedCriteria(parameters, session));
+        } catch (IllegalArgumentException e) {
+            response.setError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return response;
+        }
+
+        final boolean gzip = acceptsGzip(attributes);
+
+        response.setContentType(format.getContentType());
+        response.setTextEncoding(UTF8.name());
+        response.setContentDisposition(ContentDisposition.ATTACHMENT);
+        response.setFileName("detailed_report." + format.getExtension());
+        response.disableCaching();
+        response.getHeaders().addHeader("Vary", "Accept-Encoding");
+
+        if (gzip) {
+            response.getHeaders().addHeader("Content-Encoding", "gzip");
+        }
+
+        response.setWriteCallback(new WriteCallback() {
+            @Override
+            public void writeData(Attributes attributes) throws IOException {
+                OutputStream outputStream = attributes.getResponse().getOutputStream();
+
+                if (gzip) {
+                    GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+                    write(format, reportCriteria, gzipStream);
+                    gzipStream.finish();
+                } else {
+                    write(format, reportCriteria, outputStream);
+                }
+
+                outputStream.flush();
+            }
+        });
+
+        return response;
+    }
+
+    private void write(final ExportFormat format, ReportCriteria reportCriteria, OutputStream outputStream) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, UTF8), BUFFER_SIZE);
+
+        format.writeHeader(writer);
+
+        try {
+            detailedReportService.streamDetailedReportData(reportCriteria, new ReportElementHandler<FlatReportElement>() {
+                @Override
+                public void handle(FlatReportElement element) {
+                    try {
+                        format.writeRow(writer, element);
+                    } catch (IOException e) {
+                        throw new ExportWriteException(e);
+                    }
+                }
+            });
+        } catch (ExportWriteException e) {
+            // most likely the client went away, the cursor is closed when the transaction ends
+            LOGGER.info("Aborted detailed report export: " + e.getCause().getMessage());
+            throw (IOException) e.getCause();
+        }
+
+        writer.flush();
+    }
+
+    static UserSelectedCriteria createUserSelectedCriteria(PageParameters parameters, EhourWebSession session) {
+        UserSelectedCriteria criteria = new UserSelectedCriteria();
+
+        criteria.setReportRange(getReportRange(parameters, session));
+
+        List<Project> projects = Lists.newArrayList();
+        for (Integer id : getIds(parameters, "project")) {
+            projects.add(new Project(id));
+        }
+        criteria.setProjects(projects);
+
+        List<Customer> customers = Lists.newArrayList();
+        for (Integer id : getIds(parameters, "customer")) {
+            customers.add(new Customer(id));
+        }
+        criteria.setCustomers(customers);
+
+        List<UserDepartment> departments = Lists.newArrayList();
+        for (Integer id : getIds(parameters, "department")) {
+            departments.add(new UserDepartment(id));
+        }
+        criteria.setDepartments(departments);
+
+        List<User> users = Lists.newArrayList();
+        for (Integer id : getIds(parameters, "user")) {
+            users.add(new User(id));
+        }
+        criteria.setUsers(users);
+
+        // same as the report page's default report type
+        if (session.isWithReportRole()) {
+            criteria.setReportTypeToGlobal();
+        } else if (session.isWithPmRole()) {
+            criteria.setReportTypeToPM(session.getUser());
+        } else {
+            criteria.setUsers(Lists.<User>newArrayList());
+            criteria.setReportTypeToIndividualUser(session.getUser());
+        }
+
+        return criteria;
+    }
+
+    private static DateRange getReportRange(PageParameters parameters, EhourWebSession session) {
+        DateRange monthRange = DateUtil.getDateRangeForMonth(DateUtil.getCalendar(session.getEhourConfig()));
+
+        StringValue start = parameters.get("start");
+        StringValue end = parameters.get("end");
+
+        DateRange reportRange = new DateRange(start.isEmpty() ? monthRange.getDateStart() : parseDate(start.toString()),
+                end.isEmpty() ? monthRange.getDateEnd() : parseDate(end.toString()));
+
+        if (reportRange.getDateStart().after(reportRange.getDateEnd())) {
+            throw new IllegalArgumentException("Start date is after the end date");
+        }
+
+        return reportRange;
+    }
+
+    private static java.util.Date parseDate(String date) {
+        try {
+            return LocalDate.parse(date).toDate();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid date " + date + ", expected yyyy-MM-dd");
+        }
+    }
+
+    private static List<Integer> getIds(PageParameters parameters, String name) {
+        List<Integer> ids = Lists.newArrayList();
+
+        for (StringValue value : parameters.getValues(name)) {
+            for (String id : value.toString("").split(",")) {
+                if (!id.trim().isEmpty()) {
+                    try {
+                        ids.add(Integer.valueOf(id.trim()));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid " + name + " id " + id);
+                    }
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    private static boolean acceptsGzip(Attributes attributes) {
+        String acceptEncoding = ((WebRequest) attributes.getRequest()).getHeader("Accept-Encoding");
+
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static class ExportWriteException extends RuntimeException {
+        private static final long serialVersionUID = 4926130387164810519L;
+
+        ExportWriteException(IOException cause) {
+            super(cause);
+        }
+    }
+}
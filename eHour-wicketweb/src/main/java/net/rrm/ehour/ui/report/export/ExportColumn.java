@@ -0,0 +1,138 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+
+package net.rrm.ehour.ui.report.export;
+
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import org.joda.time.LocalDate;
+
+/**
+ * Columns of the detailed report export, in export order
+ */
+enum ExportColumn {
+    DATE("date") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getDayDate() == null ? null : new LocalDate(element.getDayDate()).toString();
+        }
+    },
+    CUSTOMER_ID("customerId") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getCustomerId();
+        }
+    },
+    CUSTOMER_CODE("customerCode") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getCustomerCode();
+        }
+    },
+    CUSTOMER_NAME("customerName") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getCustomerName();
+        }
+    },
+    PROJECT_ID("projectId") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getProjectId();
+        }
+    },
+    PROJECT_CODE("projectCode") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getProjectCode();
+        }
+    },
+    PROJECT_NAME("projectName") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getProjectName();
+        }
+    },
+    ASSIGNMENT_ID("assignmentId") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getAssignmentId();
+        }
+    },
+    USER_ID("userId") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getUserId();
+        }
+    },
+    USER_FIRST_NAME("userFirstName") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getUserFirstName();
+        }
+    },
+    USER_LAST_NAME("userLastName") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getUserLastName();
+        }
+    },
+    RATE("rate") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getRate();
+        }
+    },
+    HOURS("hours") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getTotalHours();
+        }
+    },
+    TURNOVER("turnOver") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getTotalTurnOver();
+        }
+    },
+    COMMENT("comment") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getComment();
+        }
+    },
+    LOCKED("locked") {
+        @Override
+        Object valueOf(FlatReportElement element) {
+            return element.getLockableDate() == null ? null : element.getLockableDate().isLocked();
+        }
+    };
+
+    private final String name;
+
+    private ExportColumn(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return a String, Number, Boolean or null
+     */
+    abstract Object valueOf(FlatReportElement element);
+}
@@ -0,0 +1,194 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+
+package net.rrm.ehour.ui.report.export;
+
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Formats of the detailed report export. Rows are written one at a time so
+ * nothing but the current element is held in memory
+ */
+public enum ExportFormat {
+    CSV("csv", "text/csv") {
+        @Override
+        void writeHeader(Writer writer) throws IOException {
+            ExportColumn[] columns = ExportColumn.values();
+
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+
+                writeCsvValue(writer, columns[i].getName());
+            }
+
+            writer.write("\r\n");
+        }
+
+        @Override
+        void writeRow(Writer writer, FlatReportElement element) throws IOException {
+            ExportColumn[] columns = ExportColumn.values();
+
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+
+                Object value = columns[i].valueOf(element);
+
+                if (value != null) {
+                    writeCsvValue(writer, value.toString());
+                }
+            }
+
+            writer.write("\r\n");
+        }
+    },
+    NDJSON("ndjson", "application/x-ndjson") {
+        @Override
+        void writeHeader(Writer writer) {
+            // every line is a self describing object
+        }
+
+        @Override
+        void writeRow(Writer writer, FlatReportElement element) throws IOException {
+            ExportColumn[] columns = ExportColumn.values();
+
+            writer.write('{');
+
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+
+                writeJsonString(writer, columns[i].getName());
+                writer.write(':');
+
+                Object value = columns[i].valueOf(element);
+
+                if (value == null || value instanceof Number || value instanceof Boolean) {
+                    writer.write(String.valueOf(value));
+                } else {
+                    writeJsonString(writer, value.toString());
+                }
+            }
+
+            writer.write("}\n");
+        }
+    };
+
+    private final String extension;
+    private final String contentType;
+
+    private ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    abstract void writeHeader(Writer writer) throws IOException;
+
+    abstract void writeRow(Writer writer, FlatReportElement element) throws IOException;
+
+    /**
+     * @param extension file extension, case insensitive
+     * @return the format or null when there's no format for the extension
+     */
+    public static ExportFormat forExtension(String extension) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(extension)) {
+                return format;
+            }
+        }
+
+        return null;
+    }
+
+    // RFC 4180, quote when the value contains a separator, quote or line break
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quote = false;
+
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '"') {
+                writer.write('"');
+            }
+
+            writer.write(c);
+        }
+
+        writer.write('"');
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+
+        writer.write('"');
+    }
+}
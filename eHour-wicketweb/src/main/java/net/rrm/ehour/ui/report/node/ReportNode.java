@@ -21,11 +21,15 @@ import net.rrm.ehour.ui.report.TreeReportElement;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Tree structure of abstract nodes for reporting purposes.
- * Each node can have multiple reportnode children, for example customer -> projects -> users
+ * Each node can have multiple reportnode children, for example customer -> projects -> users.
+ * Non-leaf children are indexed on their id so an element finds its path through the tree
+ * with a hash lookup per level, the hours and turnover of a subtree are summed once.
  */
 public abstract class ReportNode implements Serializable
 {
@@ -35,6 +39,12 @@ public abstract class ReportNode implements Serializable
     private List<ReportNode>    reportNodes = new ArrayList<ReportNode>();
     private final Serializable      id;
 
+    // only used while building, rebuilt from reportNodes when needed after deserialization
+    private transient Map<Serializable, ReportNode> childIndex;
+
+    private Float   subtotalHours;
+    private Float   subtotalTurnover;
+
     protected ReportNode(Serializable id) {
         this.id = id;
     }
@@ -100,53 +110,72 @@ public abstract class ReportNode implements Serializable
                                     int hierarchyLevel,
                                     ReportNodeFactory nodeFactory)
     {
-        boolean processed = false;
+        // only process aggregates that belong to this node
+        if (!shouldProcessElement(reportElement)) {
+            return false;
+        }
+
+        subtotalHours = null;
+        subtotalTurnover = null;
 
-        // first check if we need to add the aggregate to his node
-        if (shouldProcessElement(reportElement) && !(processed = processChildNodes(reportElement, hierarchyLevel + 1, nodeFactory))) {
-            // if not make a new child node for this aggregate
-            ReportNode node = nodeFactory.createReportNode(reportElement, ++hierarchyLevel);
+        ReportNode node = findChildNode(reportElement);
 
-            // if the new node is not the last child, check whether one
-            // of it's subschildren can process it
+        if (node != null) {
+            node.processElement(reportElement, hierarchyLevel + 1, nodeFactory);
+        } else {
+            // make a new child node for this aggregate
+            node = nodeFactory.createReportNode(reportElement, ++hierarchyLevel);
+
+            // if the new node is not the last child, let it create its own children
             if (!node.isLeaf()) {
                 node.processElement(reportElement, hierarchyLevel, nodeFactory);
+                getChildIndex().put(node.getId(), node);
             }
 
             reportNodes.add(node);
-            processed = true;
         }
 
-        return processed;
+        return true;
     }
 
     /**
-     * Is the aggregate processed by the childnodes?
+     * Find the child node the element belongs to. The children are all created by the factory
+     * for the same hierarchy level so any child can tell the id of the element on that level.
+     * Leaf children are never shared between elements and therefore not indexed
      * @param element
-     * @return
+     * @return null when a new child is needed
      */
-    private boolean processChildNodes(ReportElement element,
-                                      int hierarchyLevel,
-                                      ReportNodeFactory nodeFactory)
+    private ReportNode findChildNode(ReportElement element)
     {
-        boolean processed = false;
+        if (reportNodes.isEmpty() || reportNodes.get(0).isLeaf()) {
+            return null;
+        }
 
-        for (ReportNode node : reportNodes)
-        {
-        	// if the children are last nodes don't bother checking
-        	if (node.isLeaf())
-        	{
-        		break;
-        	}
-        	
-            if (node.processElement(element, hierarchyLevel, nodeFactory))
-            {
-                processed = true;
-                break;
+        return getChildIndex().get(reportNodes.get(0).getElementId(element));
+    }
+
+    private Map<Serializable, ReportNode> getChildIndex()
+    {
+        if (childIndex == null) {
+            childIndex = new HashMap<Serializable, ReportNode>();
+
+            for (ReportNode node : reportNodes) {
+                if (!node.isLeaf()) {
+                    childIndex.put(node.getId(), node);
+                }
             }
         }
 
-        return processed;
+        return childIndex;
+    }
+
+    /**
+     * Child nodes in the order they were created
+     * @return
+     */
+    protected List<ReportNode> getReportNodes()
+    {
+        return reportNodes;
     }
 
     /**
@@ -177,45 +206,55 @@ public abstract class ReportNode implements Serializable
     }
 
     /**
-     * Get hours
+     * Get hours, summed over the children on the first call after the subtree changed
      * @return
      */
     public Number getHours()
     {
-        float totalHours = 0;
-
-        for (ReportNode reportNode : reportNodes)
+        if (subtotalHours == null)
         {
-            Number hours = reportNode.getHours();
+            float totalHours = 0;
 
-            if (hours != null)
+            for (ReportNode reportNode : reportNodes)
             {
-                totalHours += hours.floatValue();
+                Number hours = reportNode.getHours();
+
+                if (hours != null)
+                {
+                    totalHours += hours.floatValue();
+                }
             }
+
+            subtotalHours = totalHours;
         }
 
-        return totalHours;
+        return subtotalHours;
     }
 
     /**
-     * Get turnover
+     * Get turnover, summed over the children on the first call after the subtree changed
      * @return
      */
     public Number getTurnover()
     {
-        float totalTurnover = 0;
-
-        for (ReportNode reportNode : reportNodes)
+        if (subtotalTurnover == null)
         {
-            Number turnOver = reportNode.getTurnover();
+            float totalTurnover = 0;
 
-            if (turnOver != null)
+            for (ReportNode reportNode : reportNodes)
             {
-                totalTurnover += turnOver.floatValue();
+                Number turnOver = reportNode.getTurnover();
+
+                if (turnOver != null)
+                {
+                    totalTurnover += turnOver.floatValue();
+                }
             }
+
+            subtotalTurnover = totalTurnover;
         }
 
-        return totalTurnover;
+        return subtotalTurnover;
     }
 
     /**
@@ -5,6 +5,7 @@ import net.rrm.ehour.ui.common.model.KeyResourceModel;
 import net.rrm.ehour.ui.report.aggregate.CustomerAggregateReportModel;
 import net.rrm.ehour.ui.report.aggregate.ProjectAggregateReportModel;
 import net.rrm.ehour.ui.report.aggregate.UserAggregateReportModel;
+import net.rrm.ehour.ui.report.panel.ReportJobPanel;
 import net.rrm.ehour.ui.report.panel.aggregate.CustomerReportPanel;
 import net.rrm.ehour.ui.report.panel.aggregate.EmployeeReportPanel;
 import net.rrm.ehour.ui.report.panel.aggregate.ProjectReportPanel;
@@ -63,8 +64,14 @@ public class DefaultReportTabBuilder implements ReportTabBuilder {
     }
 
     private Panel getDetailedReportPanel(String id, ReportCriteria reportCriteria) {
-        DetailedReportModel detailedReport = createDetailedReport(reportCriteria);
-        return new DetailedReportPanel(id, detailedReport);
+        final DetailedReportModel detailedReport = createDetailedReport(reportCriteria);
+
+        return new ReportJobPanel(id, detailedReport, new ReportJobPanel.ReportPanelFactory() {
+            @Override
+            public Panel createReportPanel(String id) {
+                return new DetailedReportPanel(id, detailedReport);
+            }
+        });
     }
 
     private DetailedReportModel createDetailedReport(ReportCriteria reportCriteria) {
@@ -72,17 +79,35 @@ public class DefaultReportTabBuilder implements ReportTabBuilder {
     }
 
     private Panel getCustomerReportPanel(String id, ReportCriteria reportCriteria) {
-        CustomerAggregateReportModel customerAggregateReport = new CustomerAggregateReportModel(reportCriteria);
-        return new CustomerReportPanel(id, customerAggregateReport);
+        final CustomerAggregateReportModel customerAggregateReport = new CustomerAggregateReportModel(reportCriteria);
+
+        return new ReportJobPanel(id, customerAggregateReport, new ReportJobPanel.ReportPanelFactory() {
+            @Override
+            public Panel createReportPanel(String id) {
+                return new CustomerReportPanel(id, customerAggregateReport);
+            }
+        });
     }
 
     private Panel getProjectReportPanel(String id, ReportCriteria reportCriteria) {
-        ProjectAggregateReportModel aggregateReport = new ProjectAggregateReportModel(reportCriteria);
-        return new ProjectReportPanel(id, aggregateReport);
+        final ProjectAggregateReportModel aggregateReport = new ProjectAggregateReportModel(reportCriteria);
+
+        return new ReportJobPanel(id, aggregateReport, new ReportJobPanel.ReportPanelFactory() {
+            @Override
+            public Panel createReportPanel(String id) {
+                return new ProjectReportPanel(id, aggregateReport);
+            }
+        });
     }
 
     private Panel getUserReportPanel(String id, ReportCriteria reportCriteria) {
-        UserAggregateReportModel aggregateReport = new UserAggregateReportModel(reportCriteria);
-        return new EmployeeReportPanel(id, aggregateReport);
+        final UserAggregateReportModel aggregateReport = new UserAggregateReportModel(reportCriteria);
+
+        return new ReportJobPanel(id, aggregateReport, new ReportJobPanel.ReportPanelFactory() {
+            @Override
+            public Panel createReportPanel(String id) {
+                return new EmployeeReportPanel(id, aggregateReport);
+            }
+        });
     }
 }
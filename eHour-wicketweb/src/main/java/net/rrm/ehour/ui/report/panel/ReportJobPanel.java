@@ -0,0 +1,168 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.ui.report.panel;
+
+import net.rrm.ehour.report.service.ReportJobRejectedException;
+import net.rrm.ehour.report.service.ReportJobService;
+import net.rrm.ehour.report.service.ReportJobStatus;
+import net.rrm.ehour.ui.common.panel.AbstractBasePanel;
+import net.rrm.ehour.ui.common.report.AbstractReportModel;
+import net.rrm.ehour.ui.common.report.ReportDataJob;
+import org.apache.wicket.ajax.AbstractAjaxTimerBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.markup.html.AjaxLink;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.model.AbstractReadOnlyModel;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.model.ResourceModel;
+import org.apache.wicket.model.StringResourceModel;
+import org.apache.wicket.spring.injection.annot.SpringBean;
+import org.apache.wicket.util.time.Duration;
+
+import java.io.Serializable;
+
+/**
+ * Creates the report data in a report job and polls its progress, showing the
+ * actual report panel once the job is done. The job is cancelled when the user
+ * cancels or leaves the report before it finished.
+ */
+public class ReportJobPanel extends AbstractBasePanel<Void> {
+    private static final long serialVersionUID = 4227014417426520731L;
+
+    private static final Duration POLL_INTERVAL = Duration.seconds(1);
+
+    @SpringBean
+    private ReportJobService reportJobService;
+
+    private final AbstractReportModel reportModel;
+    private final ReportPanelFactory panelFactory;
+
+    private String jobId;
+    private ReportJobStatus status;
+
+    public ReportJobPanel(String id, AbstractReportModel reportModel, ReportPanelFactory panelFactory) {
+        super(id);
+
+        this.reportModel = reportModel;
+        this.panelFactory = panelFactory;
+
+        setOutputMarkupId(true);
+
+        add(new WebMarkupContainer("report"));
+
+        WebMarkupContainer progress = new WebMarkupContainer("progress");
+        progress.setOutputMarkupPlaceholderTag(true);
+        add(progress);
+
+        progress.add(new Label("status", new StatusModel()));
+        progress.add(new AjaxLink<Void>("cancel") {
+            @Override
+            public void onClick(AjaxRequestTarget target) {
+                reportJobService.cancel(jobId);
+
+                status = reportJobService.getStatus(jobId);
+                target.add(ReportJobPanel.this);
+            }
+
+            @Override
+            public boolean isVisible() {
+                return status != null && !status.getState().isFinished();
+            }
+        });
+
+        try {
+            jobId = reportJobService.submit(getEhourWebSession().getUser().getUserId(), new ReportDataJob(reportModel));
+            status = reportJobService.getStatus(jobId);
+
+            add(new AbstractAjaxTimerBehavior(POLL_INTERVAL) {
+                @Override
+                protected void onTimer(AjaxRequestTarget target) {
+                    poll(target, this);
+                }
+            });
+        } catch (ReportJobRejectedException e) {
+            progress.replace(new Label("status", new ResourceModel("report.job.rejected")));
+        }
+    }
+
+    private void poll(AjaxRequestTarget target, AbstractAjaxTimerBehavior timer) {
+        status = reportJobService.getStatus(jobId);
+
+        if (status == null || status.getState().isFinished()) {
+            timer.stop(target);
+
+            if (status != null && status.getState() == ReportJobStatus.State.DONE) {
+                reportModel.setReportJob(reportJobService, jobId);
+
+                replace(panelFactory.createReportPanel("report"));
+                get("progress").setVisible(false);
+            }
+        }
+
+        target.add(this);
+    }
+
+    @Override
+    protected void onRemove() {
+        super.onRemove();
+
+        // the user moved on to another report
+        if (status != null && !status.getState().isFinished()) {
+            reportJobService.cancel(jobId);
+        }
+    }
+
+    /**
+     * Creates the actual report panel for the report model once its data is available
+     */
+    public interface ReportPanelFactory extends Serializable {
+        Panel createReportPanel(String id);
+    }
+
+    private class StatusModel extends AbstractReadOnlyModel<String> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String getObject() {
+            IModel<String> message;
+
+            if (status == null) {
+                message = new ResourceModel("report.job.cancelled");
+            } else {
+                switch (status.getState()) {
+                    case QUEUED:
+                        message = new ResourceModel("report.job.queued");
+                        break;
+                    case FAILED:
+                        message = new StringResourceModel("report.job.failed", ReportJobPanel.this, null, new Object[]{status.getError()});
+                        break;
+                    case CANCELLED:
+                        message = new ResourceModel("report.job.cancelled");
+                        break;
+                    default:
+                        message = new StringResourceModel("report.job.running", ReportJobPanel.this, null, new Object[]{new Model<Integer>(status.getPercentage())});
+                        break;
+                }
+            }
+
+            return message.getObject();
+        }
+    }
+}
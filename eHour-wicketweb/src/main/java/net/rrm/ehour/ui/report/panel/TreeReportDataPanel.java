@@ -33,9 +33,14 @@ import net.rrm.ehour.ui.report.TreeReportModel;
 import net.rrm.ehour.ui.report.summary.ProjectSummaryPage;
 import org.apache.commons.lang.StringUtils;
 import org.apache.wicket.AttributeModifier;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.form.AjaxFormComponentUpdatingBehavior;
+import org.apache.wicket.extensions.ajax.markup.html.repeater.data.sort.AjaxFallbackOrderByBorder;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.border.Border;
+import org.apache.wicket.markup.html.form.DropDownChoice;
+import org.apache.wicket.markup.html.form.Form;
 import org.apache.wicket.markup.html.link.Link;
 import org.apache.wicket.markup.html.panel.Fragment;
 import org.apache.wicket.markup.html.panel.Panel;
@@ -43,6 +48,7 @@ import org.apache.wicket.markup.repeater.Item;
 import org.apache.wicket.markup.repeater.RepeatingView;
 import org.apache.wicket.markup.repeater.data.DataView;
 import org.apache.wicket.markup.repeater.data.IDataProvider;
+import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
 import org.apache.wicket.model.ResourceModel;
 import org.apache.wicket.model.StringResourceModel;
@@ -51,15 +57,18 @@ import org.apache.wicket.util.convert.IConverter;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Aggregate report data panel
+ * Aggregate report data panel. Only the rows of the current page are rendered, sorting
+ * and paging are done on the report data which is reloaded rather than kept in the page
  */
 
 public class TreeReportDataPanel extends Panel {
     private static final long serialVersionUID = -6757047600645464803L;
     private static final AttributeModifier CSS_ALIGN_RIGHT = AttributeModifier.replace("style", "text-align: right;");
+    private static final List<Long> PAGE_SIZES = Arrays.asList(20L, 50L, 100L, 250L);
 
     private final ReportConfig reportConfig;
 
@@ -91,8 +100,13 @@ public class TreeReportDataPanel extends Panel {
         }
 
         reportContent.add(getReportHeaderLabel("reportHeader", reportModel.getReportRange(), EhourWebSession.getEhourConfig()));
-        addHeaderColumns(reportContent);
-        addReportData(reportModel, reportContent);
+
+        TreeReportDataProvider dataProvider = new TreeReportDataProvider(reportModel);
+        DataView<TreeReportElement> dataView = addReportData(dataProvider, reportContent);
+        addHeaderColumns(dataProvider, dataView, reportContent);
+        addPageSizeChoice(dataView, reportContent);
+
+        // the totals are taken from the report model as the data view only sees the current page
         addGrandTotal(reportModel, reportContent);
     }
 
@@ -151,27 +165,45 @@ public class TreeReportDataPanel extends Panel {
     /**
      * Get root node rows & cells
      */
-    @SuppressWarnings("unchecked")
-    private void addReportData(TreeReportModel reportModel, WebMarkupContainer parent) {
-        List<TreeReportElement> elements = (List<TreeReportElement>) reportModel.getReportData().getReportElements();
-
-        DataView<TreeReportElement> dataView = new TreeReportDataView("reportData", new TreeReportDataProvider(elements));
+    private DataView<TreeReportElement> addReportData(TreeReportDataProvider dataProvider, WebMarkupContainer parent) {
+        DataView<TreeReportElement> dataView = new TreeReportDataView("reportData", dataProvider);
         dataView.setOutputMarkupId(true);
-        dataView.setItemsPerPage(20);
+        dataView.setItemsPerPage(PAGE_SIZES.get(0));
 
         parent.add(new HoverPagingNavigator("navigator", dataView));
         parent.add(dataView);
+
+        return dataView;
     }
 
 
-    private void addHeaderColumns(WebMarkupContainer parent) {
+    private void addHeaderColumns(TreeReportDataProvider dataProvider, final DataView<TreeReportElement> dataView, final WebMarkupContainer parent) {
         RepeatingView columnHeaders = new RepeatingView("columnHeaders");
 
-        for (ReportColumn reportColumn : reportConfig.getReportColumns()) {
-            Label columnHeader = new Label(columnHeaders.newChildId(), new ResourceModel(reportColumn.getColumnHeaderResourceKey()));
+        ReportColumn[] reportColumns = reportConfig.getReportColumns();
+
+        for (int column = 0; column < reportColumns.length; column++) {
+            ReportColumn reportColumn = reportColumns[column];
+
+            Fragment columnHeader = new Fragment(columnHeaders.newChildId(), "sortableHeaderFragment", this);
             columnHeader.setVisible(reportColumn.isVisible());
             columnHeaders.add(columnHeader);
 
+            AjaxFallbackOrderByBorder<Integer> orderBy = new AjaxFallbackOrderByBorder<Integer>("orderBy", column, dataProvider) {
+                @Override
+                protected void onSortChanged() {
+                    dataView.setCurrentPage(0);
+                }
+
+                @Override
+                protected void onAjaxClick(AjaxRequestTarget target) {
+                    target.add(parent);
+                }
+            };
+            columnHeader.add(orderBy);
+
+            orderBy.add(new Label("header", new ResourceModel(reportColumn.getColumnHeaderResourceKey())));
+
             if (reportColumn.getColumnType().isNumeric()) {
                 columnHeader.add(CSS_ALIGN_RIGHT);
             }
@@ -180,6 +212,39 @@ public class TreeReportDataPanel extends Panel {
         parent.add(columnHeaders);
     }
 
+    private void addPageSizeChoice(final DataView<TreeReportElement> dataView, final WebMarkupContainer parent) {
+        Form<Void> pageSizeForm = new Form<Void>("pageSizeForm") {
+            @Override
+            public boolean isVisible() {
+                return dataView.getItemCount() > PAGE_SIZES.get(0);
+            }
+        };
+        parent.add(pageSizeForm);
+
+        IModel<Long> pageSizeModel = new Model<Long>() {
+            @Override
+            public Long getObject() {
+                return dataView.getItemsPerPage();
+            }
+
+            @Override
+            public void setObject(Long pageSize) {
+                dataView.setItemsPerPage(pageSize);
+            }
+        };
+
+        DropDownChoice<Long> pageSize = new DropDownChoice<Long>("pageSize", pageSizeModel, PAGE_SIZES);
+        pageSize.setNullValid(false);
+        pageSize.add(new AjaxFormComponentUpdatingBehavior("onchange") {
+            @Override
+            protected void onUpdate(AjaxRequestTarget target) {
+                dataView.setCurrentPage(0);
+                target.add(parent);
+            }
+        });
+        pageSizeForm.add(pageSize);
+    }
+
     private Optional<String> addColumnTypeStyling(ColumnType columnType) {
         if (columnType.isNumeric()) {
             return Optional.of("numeric");
@@ -201,6 +266,14 @@ public class TreeReportDataPanel extends Panel {
             super(id, dataProvider);
         }
 
+        @Override
+        protected void onBeforeRender() {
+            // the first row of a re-rendered (sorted) page is never a duplicate
+            previousCellValues = null;
+
+            super.onBeforeRender();
+        }
+
         @Override
         protected void populateItem(Item<TreeReportElement> item) {
             internalGetItemCount();
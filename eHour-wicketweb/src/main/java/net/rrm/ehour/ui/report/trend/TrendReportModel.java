@@ -16,21 +16,22 @@
 
 package net.rrm.ehour.ui.report.trend;
 
+import com.google.common.base.Objects;
+import net.rrm.ehour.data.DateRange;
 import net.rrm.ehour.report.criteria.ReportCriteria;
 import net.rrm.ehour.report.reports.ReportData;
 import net.rrm.ehour.report.reports.element.FlatReportElement;
-import net.rrm.ehour.report.reports.element.ReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
 import net.rrm.ehour.ui.common.report.AbstractReportModel;
-import net.rrm.ehour.util.DateUtil;
 import org.apache.log4j.Logger;
 
 import java.text.ParseException;
 import java.util.*;
 
-import static org.springframework.util.Assert.notNull;
-
 /**
- * Base trend report
+ * Base trend report. Every row holds its hours in a float array indexed by the day's offset
+ * in the report range so filling and reading cells doesn't allocate. Rows are interned by
+ * the id of the row key, the key itself is only created for the first element of a row.
  */
 
 public abstract class TrendReportModel<RK extends Comparable<?>> extends AbstractReportModel
@@ -38,7 +39,14 @@ public abstract class TrendReportModel<RK extends Comparable<?>> extends Abstrac
     private static final long serialVersionUID = -8062083697181324496L;
 
     private static final Logger LOGGER = Logger.getLogger(TrendReportModel.class);
-    private transient SortedMap<RK, Map<Date, FlatReportElement>> rowMap;
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private transient Map<Integer, TrendReportRow<RK>> rowsById;
+    private transient List<TrendReportRow<RK>> rows;
+    private transient long firstDay;
+    private transient int dayCount;
+    private transient float grandTotalHours;
 
     /**
      * @param criteria
@@ -51,50 +59,81 @@ public abstract class TrendReportModel<RK extends Comparable<?>> extends Abstrac
     @Override
     protected ReportData getReportData(ReportCriteria reportCriteria)
     {
-        Map<Date, FlatReportElement> rowAggregates;
-        Date aggregateDate;
-        RK rowKey;
-
-        ReportData aggregateData = getValidReportData(reportCriteria);
+        DateRange reportRange = reportCriteria.getReportRange();
 
-        rowMap = new TreeMap<RK, Map<Date, FlatReportElement>>(getRKComparator());
+        firstDay = toDay(reportRange.getDateStart());
+        dayCount = (int) (toDay(reportRange.getDateEnd()) - firstDay + 1);
+        rowsById = new HashMap<Integer, TrendReportRow<RK>>();
+        grandTotalHours = 0;
 
-        for (ReportElement element : aggregateData.getReportElements())
+        streamReportData(reportCriteria, new ReportElementHandler<FlatReportElement>()
         {
-            FlatReportElement aggregate = (FlatReportElement) element;
+            private TrendReportRow<RK> previousRow;
+            private Integer previousRowId;
 
-            rowKey = getRowKey(aggregate);
-
-            if (rowMap.containsKey(rowKey))
-            {
-                rowAggregates = rowMap.get(rowKey);
-            } else
+            @Override
+            public void handle(FlatReportElement element)
             {
-                rowAggregates = new HashMap<Date, FlatReportElement>();
+                Integer rowId = getRowId(element);
+
+                // consecutive elements usually belong to the same row
+                if (previousRow == null || !Objects.equal(previousRowId, rowId))
+                {
+                    previousRow = getRow(rowId, element);
+                    previousRowId = rowId;
+                }
+
+                addToRow(previousRow, element);
             }
+        });
 
-            aggregateDate = getValidAggregateDate(aggregate);
-            aggregateDate = DateUtil.nullifyTime(aggregateDate);
+        rows = new ArrayList<TrendReportRow<RK>>(rowsById.values());
+        Collections.sort(rows, new RowComparator<RK>(getRKComparator()));
+
+        return new ReportData(Collections.<FlatReportElement>emptyList(), reportRange);
+    }
 
-            rowAggregates.put(aggregateDate, aggregate);
+    private TrendReportRow<RK> getRow(Integer rowId, FlatReportElement element)
+    {
+        TrendReportRow<RK> row = rowsById.get(rowId);
 
-            rowMap.put(rowKey, rowAggregates);
+        if (row == null)
+        {
+            row = new TrendReportRow<RK>(getRowKey(element), dayCount);
+            rowsById.put(rowId, row);
         }
 
-        return aggregateData;
+        return row;
     }
 
-    private ReportData getValidReportData(ReportCriteria reportCriteria)
+    private void addToRow(TrendReportRow<RK> row, FlatReportElement element)
     {
-        ReportData reportData = fetchReportData(reportCriteria);
+        Number hours = element.getTotalHours();
 
-        notNull(reportData);
-        notNull(reportData.getReportElements());
+        if (hours == null)
+        {
+            return;
+        }
 
-        return reportData;
+        int dayIndex = (int) (toDay(getValidAggregateDate(element)) - firstDay);
+
+        if (dayIndex < 0 || dayIndex >= dayCount)
+        {
+            LOGGER.warn("Date of " + element + " is outside the report range");
+            return;
+        }
+
+        row.addHours(dayIndex, hours.floatValue());
+        grandTotalHours += hours.floatValue();
     }
 
-    protected abstract ReportData fetchReportData(ReportCriteria reportCriteria);
+    /**
+     * Stream the report elements to the handler, the rows are filled as they arrive
+     *
+     * @param reportCriteria
+     * @param handler
+     */
+    protected abstract void streamReportData(ReportCriteria reportCriteria, ReportElementHandler<FlatReportElement> handler);
 
     /**
      * Get grand total hours
@@ -103,44 +142,57 @@ public abstract class TrendReportModel<RK extends Comparable<?>> extends Abstrac
      */
     public float getGrandTotalHours()
     {
-        float total = 0;
-        Map<Date, FlatReportElement> aggMap;
+        getRows();
 
-        for (RK key : rowMap.keySet())
+        return grandTotalHours;
+    }
+
+    /**
+     * Get the rows, sorted on their key
+     *
+     * @return
+     */
+    public List<TrendReportRow<RK>> getRows()
+    {
+        if (rows == null)
         {
-            aggMap = rowMap.get(key);
+            createReportData();
+        }
 
-            for (Map.Entry<Date, FlatReportElement> entry : aggMap.entrySet())
-            {
-                Number n = entry.getValue().getTotalHours();
+        return rows;
+    }
 
-                if (n != null)
-                {
-                    total += n.floatValue();
-                }
-            }
-        }
+    /**
+     * Number of days in the report range, the length of the rows
+     *
+     * @return
+     */
+    public int getDayCount()
+    {
+        getRows();
 
-        return total;
+        return dayCount;
     }
 
     /**
-     * Get the values
+     * Offset of the date's day in the report range
      *
+     * @param date
      * @return
      */
-    public SortedMap<RK, Map<Date, FlatReportElement>> getValues()
+    public int getDayIndex(Date date)
     {
-        if (rowMap == null)
-        {
-            lazyInitRowMap();
-        }
-        return rowMap;
+        getRows();
+
+        return (int) (toDay(date) - firstDay);
     }
 
-    private void lazyInitRowMap()
+    // day number in the default timezone without going through a calendar
+    private static long toDay(Date date)
     {
-        load();
+        long time = date.getTime();
+
+        return (time + TimeZone.getDefault().getOffset(time)) / DAY_MILLIS;
     }
 
     private Date getValidAggregateDate(FlatReportElement aggregate)
@@ -166,7 +218,8 @@ public abstract class TrendReportModel<RK extends Comparable<?>> extends Abstrac
     @Override
     protected void onDetach()
     {
-        rowMap = null;
+        rowsById = null;
+        rows = null;
     }
 
     /**
@@ -178,7 +231,15 @@ public abstract class TrendReportModel<RK extends Comparable<?>> extends Abstrac
     protected abstract Date getAggregateDate(FlatReportElement aggregate) throws ParseException;
 
     /**
-     * Get the row key
+     * Get the id of the row the aggregate belongs to
+     *
+     * @param aggregate
+     * @return
+     */
+    protected abstract Integer getRowId(FlatReportElement aggregate);
+
+    /**
+     * Get the row key, only called for the first aggregate of a row
      *
      * @param aggregate
      * @return
@@ -191,4 +252,20 @@ public abstract class TrendReportModel<RK extends Comparable<?>> extends Abstrac
      * @return
      */
     protected abstract Comparator<RK> getRKComparator();
+
+    private static class RowComparator<RK> implements Comparator<TrendReportRow<RK>>
+    {
+        private final Comparator<RK> keyComparator;
+
+        RowComparator(Comparator<RK> keyComparator)
+        {
+            this.keyComparator = keyComparator;
+        }
+
+        @Override
+        public int compare(TrendReportRow<RK> o1, TrendReportRow<RK> o2)
+        {
+            return keyComparator.compare(o1.getKey(), o2.getKey());
+        }
+    }
 }
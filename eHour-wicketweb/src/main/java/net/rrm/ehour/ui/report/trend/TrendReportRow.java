@@ -0,0 +1,59 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+
+package net.rrm.ehour.ui.report.trend;
+
+/**
+ * Row of a trend report, the hours are indexed by the day's offset in the report range
+ */
+public class TrendReportRow<RK>
+{
+    private final RK key;
+    private final float[] hours;
+    private float totalHours;
+
+    TrendReportRow(RK key, int days)
+    {
+        this.key = key;
+        this.hours = new float[days];
+    }
+
+    void addHours(int dayIndex, float dayHours)
+    {
+        hours[dayIndex] += dayHours;
+        totalHours += dayHours;
+    }
+
+    public RK getKey()
+    {
+        return key;
+    }
+
+    /**
+     * @param dayIndex offset of the day in the report range
+     * @return booked hours, 0 when nothing is booked
+     */
+    public float getHours(int dayIndex)
+    {
+        return hours[dayIndex];
+    }
+
+    public float getTotalHours()
+    {
+        return totalHours;
+    }
+}
@@ -40,7 +40,7 @@ public class FlatUserNode extends ReportNode {
         return ((FlatReportElement) element).getUserId();
     }
 
-    private String getFullName(FlatReportElement element) {
+    public static String getFullName(FlatReportElement element) {
         StringBuilder fullName = new StringBuilder();
 
         String lastName = element.getUserLastName();
@@ -16,6 +16,7 @@
 
 package net.rrm.ehour.ui.timesheet.dto;
 
+import net.rrm.ehour.data.LockedDays;
 import net.rrm.ehour.domain.*;
 import net.rrm.ehour.project.status.ProjectAssignmentStatus;
 
@@ -35,13 +36,13 @@ public class Timesheet implements Serializable {
     private User user;
     private TimesheetComment comment;
     private float maxHoursPerDay;
-    private List<Date> lockedDays;
+    private LockedDays lockedDays;
 
     public boolean isLocked(int seq) {
-        return lockedDays.contains(dateSequence[seq]);
+        return lockedDays.isLocked(dateSequence[seq]);
     }
 
-    public void setLockedDays(List<Date> lockedDays) {
+    public void setLockedDays(LockedDays lockedDays) {
         this.lockedDays = lockedDays;
     }
 
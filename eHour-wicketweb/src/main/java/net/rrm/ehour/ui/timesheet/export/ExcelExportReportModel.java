@@ -16,11 +16,12 @@
 
 package net.rrm.ehour.ui.timesheet.export;
 
+import net.rrm.ehour.domain.Customer;
 import net.rrm.ehour.domain.Project;
 import net.rrm.ehour.domain.ProjectAssignment;
 import net.rrm.ehour.report.criteria.ReportCriteria;
-import net.rrm.ehour.report.reports.ReportData;
 import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
 import net.rrm.ehour.report.service.DetailedReportService;
 import net.rrm.ehour.sort.ProjectAssignmentComparator;
 import net.rrm.ehour.ui.common.util.WebUtils;
@@ -45,8 +46,13 @@ public class ExcelExportReportModel extends TrendReportModel<ProjectAssignment>
 
     private static final long serialVersionUID = 6099016674849151669L;
 
-    /* (non-Javadoc)
-     * @see net.rrm.ehour.persistence.persistence.web.report.reports.TimelineReport#getRowKey(net.rrm.ehour.persistence.persistence.report.reports.FlatProjectAssignmentAggregate)
+    @Override
+    protected Integer getRowId(FlatReportElement aggregate) {
+        return aggregate.getAssignmentId();
+    }
+
+    /**
+     * Created once per assignment, holds everything the export needs of the row
      */
     @Override
     protected ProjectAssignment getRowKey(FlatReportElement aggregate) {
@@ -57,7 +63,9 @@ public class ExcelExportReportModel extends TrendReportModel<ProjectAssignment>
 
         Project prj = new Project();
         prj.setName(aggregate.getProjectName());
+        prj.setProjectCode(aggregate.getProjectCode());
         prj.setProjectId(aggregate.getProjectId());
+        prj.setCustomer(new Customer(aggregate.getCustomerId(), aggregate.getCustomerCode(), aggregate.getCustomerName()));
 
         pa.setProject(prj);
 
@@ -82,12 +90,9 @@ public class ExcelExportReportModel extends TrendReportModel<ProjectAssignment>
         return new ProjectAssignmentComparator();
     }
 
-    /* (non-Javadoc)
-     * @see net.rrm.ehour.persistence.persistence.ui.report.trend.TrendReportModel#fetchReportData(net.rrm.ehour.persistence.persistence.report.criteria.ReportCriteria)
-     */
     @Override
-    protected ReportData fetchReportData(ReportCriteria reportCriteria) {
-        return getDetailedReportService().getDetailedReportData(reportCriteria);
+    protected void streamReportData(ReportCriteria reportCriteria, ReportElementHandler<FlatReportElement> handler) {
+        getDetailedReportService().streamDetailedReportData(reportCriteria, handler);
     }
 
     private DetailedReportService getDetailedReportService() {
@@ -24,9 +24,10 @@ import net.rrm.ehour.ui.common.report.excel.ExcelWorkbook;
 import net.rrm.ehour.ui.common.util.WebUtils;
 import net.rrm.ehour.ui.timesheet.export.excel.part.*;
 import org.apache.log4j.Logger;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.ss.usermodel.Sheet;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Created on Mar 23, 2009, 1:30:04 PM
@@ -53,10 +54,17 @@ public class TimesheetExcelExport implements ExcelReport {
         }
     }
 
-    private ExcelWorkbook createWorkbook(Report report) {
+    @Override
+    public void write(ReportCriteria reportCriteria, OutputStream output) throws IOException {
+        ExcelExportReportModel report = new ExcelExportReportModel(reportCriteria);
+
+        createWorkbook(report).write(output);
+    }
+
+    private ExcelWorkbook createWorkbook(ExcelExportReportModel report) {
         ExcelWorkbook workbook = new ExcelWorkbook();
 
-        HSSFSheet sheet = workbook.createSheet(WebUtils.formatDate("MMMM yyyy", report.getReportRange().getDateStart()));
+        Sheet sheet = workbook.createSheet(WebUtils.formatDate("MMMM yyyy", report.getReportRange().getDateStart()));
 
         sheet.autoSizeColumn((short) (CELL_BORDER + ExportReportColumn.DATE.getColumn()));
         sheet.autoSizeColumn((short) (CELL_BORDER + ExportReportColumn.CUSTOMER_CODE.getColumn()));
@@ -16,18 +16,17 @@
 
 package net.rrm.ehour.ui.timesheet.export.excel.part;
 
-import net.rrm.ehour.report.reports.ReportData;
-import net.rrm.ehour.report.reports.element.FlatReportElement;
-import net.rrm.ehour.report.reports.element.ReportElement;
-import net.rrm.ehour.ui.common.report.Report;
+import net.rrm.ehour.domain.Project;
+import net.rrm.ehour.domain.ProjectAssignment;
 import net.rrm.ehour.ui.common.report.excel.CellFactory;
 import net.rrm.ehour.ui.common.report.excel.CellStyle;
 import net.rrm.ehour.ui.common.report.excel.ExcelWorkbook;
+import net.rrm.ehour.ui.report.trend.TrendReportModel;
+import net.rrm.ehour.ui.report.trend.TrendReportRow;
 import net.rrm.ehour.util.DateUtil;
-import org.apache.commons.collections.CollectionUtils;
-import org.apache.poi.hssf.usermodel.HSSFCell;
-import org.apache.poi.hssf.usermodel.HSSFRow;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
 
 import java.util.*;
@@ -38,40 +37,57 @@ import java.util.*;
  * @author Thies Edeling (thies@te-con.nl)
  */
 public class ExportReportBody extends AbstractExportReportPart {
-    public ExportReportBody(int cellMargin, HSSFSheet sheet, Report report, ExcelWorkbook workbook) {
+    private final TrendReportModel<ProjectAssignment> trendReport;
+    private final Calendar calendar = GregorianCalendar.getInstance();
+
+    public ExportReportBody(int cellMargin, Sheet sheet, TrendReportModel<ProjectAssignment> report, ExcelWorkbook workbook) {
         super(cellMargin, sheet, report, workbook);
+
+        this.trendReport = report;
     }
 
     @Override
     public int createPart(int rowNumber) {
-        Map<Date, List<FlatReportElement>> dateMap = getElementsAsDateMap(getReport());
         List<Date> dateSequence = DateUtil.createDateSequence(getReport().getReportRange(), getConfig());
 
-        rowNumber = createRowForDateSequence(rowNumber, dateMap, dateSequence);
+        rowNumber = createRowForDateSequence(rowNumber, trendReport.getRows(), dateSequence);
 
         return rowNumber;
     }
 
-    private int createRowForDateSequence(int rowNumber, Map<Date, List<FlatReportElement>> dateMap, List<Date> dateSequence) {
+    private int createRowForDateSequence(int rowNumber, List<TrendReportRow<ProjectAssignment>> rows, List<Date> dateSequence) {
+        int dayCount = trendReport.getDayCount();
+
         for (Date date : dateSequence) {
-            List<FlatReportElement> flatList = dateMap.get(date);
+            int dayIndex = trendReport.getDayIndex(date);
 
             boolean borderCells = isFirstDayOfWeek(date);
 
-            rowNumber = !CollectionUtils.isEmpty(flatList) ? addColumnsToRow(date, flatList, rowNumber, borderCells) : addEmptyRow(rowNumber, date, borderCells);
+            boolean hasHours = dayIndex >= 0 && dayIndex < dayCount && isBooked(rows, dayIndex);
+
+            rowNumber = hasHours ? addColumnsToRow(date, dayIndex, rows, rowNumber, borderCells) : addEmptyRow(rowNumber, date, borderCells);
         }
         return rowNumber;
     }
 
+    private boolean isBooked(List<TrendReportRow<ProjectAssignment>> rows, int dayIndex) {
+        for (TrendReportRow<ProjectAssignment> row : rows) {
+            if (row.getHours(dayIndex) > 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private boolean isFirstDayOfWeek(Date date) {
-        Calendar cal = GregorianCalendar.getInstance();
-        cal.setTime(date);
+        calendar.setTime(date);
 
-        return cal.get(Calendar.DAY_OF_WEEK) == getConfig().getFirstDayOfWeek();
+        return calendar.get(Calendar.DAY_OF_WEEK) == getConfig().getFirstDayOfWeek();
     }
 
     private int addEmptyRow(int rowNumber, Date date, boolean isBorder) {
-        HSSFRow row = getSheet().createRow(rowNumber++);
+        Row row = getSheet().createRow(rowNumber++);
         createDateCell(date, row, isBorder);
 
         if (isBorder) {
@@ -88,18 +104,20 @@ public class ExportReportBody extends AbstractExportReportPart {
         return rowNumber;
     }
 
-    private int addColumnsToRow(Date date, List<FlatReportElement> elements, int rowNumber, boolean isBorder) {
-        boolean addedForDate = false;
+    private int addColumnsToRow(Date date, int dayIndex, List<TrendReportRow<ProjectAssignment>> rows, int rowNumber, boolean isBorder) {
+        for (TrendReportRow<ProjectAssignment> trendRow : rows) {
+            float hours = trendRow.getHours(dayIndex);
+
+            if (hours > 0) {
+                Project project = trendRow.getKey().getProject();
 
-        for (FlatReportElement flatReportElement : elements) {
-            HSSFRow row = getSheet().createRow(rowNumber);
+                Row row = getSheet().createRow(rowNumber);
 
-            if (flatReportElement.getTotalHours() != null && flatReportElement.getTotalHours().doubleValue() > 0.0) {
                 createDateCell(date, row, isBorder);
-                createProjectCell(flatReportElement.getProjectName(), row, isBorder);
-                createProjectCodeCell(flatReportElement.getProjectCode(), row, isBorder);
-                createHoursCell(flatReportElement.getTotalHours(), row, isBorder);
-                createCustomerCodeCell(flatReportElement.getCustomerCode(), row, isBorder);
+                createProjectCell(project.getName(), row, isBorder);
+                createProjectCodeCell(project.getProjectCode(), row, isBorder);
+                createHoursCell(hours, row, isBorder);
+                createCustomerCodeCell(project.getCustomer().getCode(), row, isBorder);
 
                 if (isBorder) {
                     createEmptyCells(row, CellStyle.BORDER_NORTH_THIN);
@@ -108,66 +126,30 @@ public class ExportReportBody extends AbstractExportReportPart {
                 }
 
                 rowNumber++;
-                addedForDate = true;
             }
         }
 
-        if (!addedForDate) {
-            HSSFRow row = getSheet().createRow(rowNumber++);
-            createDateCell(date, row, isBorder);
-        }
-
         return rowNumber;
-
     }
 
-    private HSSFCell createHoursCell(Number hours, HSSFRow row, boolean isBorder) {
+    private Cell createHoursCell(Number hours, Row row, boolean isBorder) {
         return CellFactory.createCell(row, getCellMargin() + ExportReportColumn.HOURS.getColumn(), hours, getWorkbook(), (isBorder) ? CellStyle.DIGIT_BORDER_NORTH_THIN : CellStyle.DIGIT);
     }
 
-    private HSSFCell createProjectCell(String project, HSSFRow row, boolean isBorder) {
+    private Cell createProjectCell(String project, Row row, boolean isBorder) {
         return CellFactory.createCell(row, getCellMargin() + ExportReportColumn.PROJECT.getColumn(), project, getWorkbook(), (isBorder) ? CellStyle.BORDER_NORTH_THIN : CellStyle.NORMAL_FONT);
     }
 
-    private HSSFCell createProjectCodeCell(String project, HSSFRow row, boolean isBorder) {
+    private Cell createProjectCodeCell(String project, Row row, boolean isBorder) {
         return CellFactory.createCell(row, getCellMargin() + ExportReportColumn.PROJECT_CODE.getColumn(), project, getWorkbook(), (isBorder) ? CellStyle.BORDER_NORTH_THIN : CellStyle.NORMAL_FONT);
     }
 
 
-    private HSSFCell createCustomerCodeCell(String customerCode, HSSFRow row, boolean isBorder) {
+    private Cell createCustomerCodeCell(String customerCode, Row row, boolean isBorder) {
         return CellFactory.createCell(row, getCellMargin() + ExportReportColumn.CUSTOMER_CODE.getColumn(), customerCode, getWorkbook(), (isBorder) ? CellStyle.BORDER_NORTH_THIN : CellStyle.NORMAL_FONT);
     }
 
-    private HSSFCell createDateCell(Date date, HSSFRow row, boolean isBorder) {
+    private Cell createDateCell(Date date, Row row, boolean isBorder) {
         return CellFactory.createCell(row, getCellMargin() + ExportReportColumn.DATE.getColumn(), getFormatter().format(date), getWorkbook(), (isBorder) ? CellStyle.DATE_BORDER_NORTH_THIN : CellStyle.DATE);
     }
-
-    /**
-     * Return a map with the key being the report's date and a list of a report elements for that date as the value
-     */
-    private Map<Date, List<FlatReportElement>> getElementsAsDateMap(Report report) {
-        Map<Date, List<FlatReportElement>> flatMap = new TreeMap<Date, List<FlatReportElement>>();
-
-        ReportData reportData = report.getReportData();
-
-        for (ReportElement reportElement : reportData.getReportElements()) {
-            FlatReportElement flat = (FlatReportElement) reportElement;
-
-            Date date = DateUtil.nullifyTime(flat.getDayDate());
-
-            List<FlatReportElement> dateElements;
-
-            if (flatMap.containsKey(date)) {
-                dateElements = flatMap.get(date);
-            } else {
-                dateElements = new ArrayList<FlatReportElement>();
-            }
-
-            dateElements.add(flat);
-
-            flatMap.put(date, dateElements);
-        }
-
-        return flatMap;
-    }
 }
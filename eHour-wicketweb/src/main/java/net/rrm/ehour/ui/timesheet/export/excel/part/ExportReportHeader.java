@@ -27,10 +27,10 @@ import net.rrm.ehour.ui.common.report.excel.CellFactory;
 import net.rrm.ehour.ui.common.report.excel.ExcelWorkbook;
 import net.rrm.ehour.ui.common.session.EhourWebSession;
 import net.rrm.ehour.ui.common.util.WebUtils;
-import org.apache.poi.hssf.usermodel.HSSFClientAnchor;
-import org.apache.poi.hssf.usermodel.HSSFPatriarch;
-import org.apache.poi.hssf.usermodel.HSSFRow;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.Drawing;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.ResourceModel;
 import org.apache.wicket.model.StringResourceModel;
@@ -47,7 +47,7 @@ public class ExportReportHeader extends AbstractExportReportPart
     private ConfigurationService configurationService;
 
 
-    public ExportReportHeader(int cellMargin, HSSFSheet sheet, Report report, ExcelWorkbook workbook)
+    public ExportReportHeader(int cellMargin, Sheet sheet, Report report, ExcelWorkbook workbook)
     {
         super(cellMargin, sheet, report, workbook);
     }
@@ -76,11 +76,15 @@ public class ExportReportHeader extends AbstractExportReportPart
 
         int index = getWorkbook().addPicture(image, PoiUtil.getImageType(excelLogo.getImageType()));
 
-        HSSFClientAnchor anchor = new HSSFClientAnchor(0, 0, 0, 0, (short) 1, 0, (short) 8, 7);
+        ClientAnchor anchor = getWorkbook().getWorkbook().getCreationHelper().createClientAnchor();
+        anchor.setCol1(1);
+        anchor.setRow1(0);
+        anchor.setCol2(8);
+        anchor.setRow2(7);
+        anchor.setAnchorType(ClientAnchor.MOVE_AND_RESIZE);
 
-        HSSFPatriarch patriarch = getSheet().createDrawingPatriarch();
+        Drawing patriarch = getSheet().createDrawingPatriarch();
         patriarch.createPicture(anchor, index);
-        anchor.setAnchorType(0); // 0 = Move and size with Cells, 2 = Move but don't size with cells, 3 = Don't move or size with cells.
 
         return rowNumber;
     }
@@ -88,7 +92,7 @@ public class ExportReportHeader extends AbstractExportReportPart
 
     private int addTitleRow(int rowNumber)
     {
-        HSSFRow row = getSheet().createRow(rowNumber++);
+        Row row = getSheet().createRow(rowNumber++);
 
         CellFactory.createCell(row, getCellMargin(), getExcelReportName(getReport().getReportRange()), getWorkbook());
         return rowNumber;
@@ -96,7 +100,7 @@ public class ExportReportHeader extends AbstractExportReportPart
 
     private int addTitleDateRow(int rowNumber)
     {
-        HSSFRow row = getSheet().createRow(rowNumber++);
+        Row row = getSheet().createRow(rowNumber++);
 
         CellFactory.createCell(row, getCellMargin(), new ResourceModel("excelMonth.date"), getWorkbook());
         CellFactory.createCell(row, getCellMargin() + 2, WebUtils.formatDate("MMMM yyyy", getReport().getReportRange().getDateStart()), getWorkbook());
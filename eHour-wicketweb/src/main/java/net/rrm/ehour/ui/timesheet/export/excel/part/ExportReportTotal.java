@@ -16,15 +16,12 @@
 
 package net.rrm.ehour.ui.timesheet.export.excel.part;
 
-import net.rrm.ehour.report.reports.ReportData;
-import net.rrm.ehour.report.reports.element.FlatReportElement;
-import net.rrm.ehour.report.reports.element.ReportElement;
-import net.rrm.ehour.ui.common.report.Report;
 import net.rrm.ehour.ui.common.report.excel.CellFactory;
 import net.rrm.ehour.ui.common.report.excel.CellStyle;
 import net.rrm.ehour.ui.common.report.excel.ExcelWorkbook;
-import org.apache.poi.hssf.usermodel.HSSFRow;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
+import net.rrm.ehour.ui.report.trend.TrendReportModel;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.wicket.model.ResourceModel;
 
 /**
@@ -34,20 +31,23 @@ import org.apache.wicket.model.ResourceModel;
  */
 public class ExportReportTotal extends AbstractExportReportPart
 {
-	public ExportReportTotal(int cellMargin, HSSFSheet sheet, Report report, ExcelWorkbook workbook)
+	private final TrendReportModel<?> trendReport;
+
+	public ExportReportTotal(int cellMargin, Sheet sheet, TrendReportModel<?> report, ExcelWorkbook workbook)
 	{
 		super(cellMargin, sheet, report, workbook);
+
+		this.trendReport = report;
 	}
 	
 	@Override
 	public int createPart(int rowNumber)
 	{
-		HSSFRow row = getSheet().createRow(rowNumber++);
+		Row row = getSheet().createRow(rowNumber++);
 		
 		addTotalLabel(row);
 
-		float total = getTotal();
-		addTotalValue(total, row);
+		addTotalValue(trendReport.getGrandTotalHours(), row);
 
 
         createEmptyCells(row, CellStyle.BORDER_NORTH);
@@ -58,31 +58,12 @@ public class ExportReportTotal extends AbstractExportReportPart
 		return rowNumber;
 	}
 
-	private void addTotalValue(float total, HSSFRow row) {
+	private void addTotalValue(float total, Row row) {
         CellFactory.createCell(row, getCellMargin() + 6, total, getWorkbook(), CellStyle.DIGIT_BOLD_BORDER_NORTH);
     }
 
-    private void addTotalLabel(HSSFRow row)
+    private void addTotalLabel(Row row)
 	{
 		CellFactory.createCell(row, getCellMargin(), new ResourceModel("excelMonth.total"), getWorkbook(), CellStyle.BOLD_BORDER_NORTH);
 	}
-	
-	private float getTotal()
-	{
-		float total = 0; 
-		
-		ReportData reportData = getReport().getReportData();
-		
-		for (ReportElement reportElement : reportData.getReportElements())
-		{
-			FlatReportElement flat = (FlatReportElement)reportElement;
-			
-			if (flat.getTotalHours() != null)
-			{
-				total += flat.getTotalHours().floatValue();
-			}
-		}
-		
-		return total;
-	}
 }
@@ -7,12 +7,24 @@ import org.apache.wicket.markup.head.{CssHeaderItem, IHeaderResponse}
 import org.apache.wicket.request.resource.CssResourceReference
 import net.rrm.ehour.sysinfo.SystemInfoService
 import org.apache.wicket.spring.injection.annot.SpringBean
+import net.rrm.ehour.report.service.ReportDataCache
+import net.rrm.ehour.persistence.stats.{QueryTiming, QueryStatistics}
+import org.apache.wicket.markup.html.list.{ListItem, ListView}
+import java.util
 
 class SystemInfoPanel(id: String) extends AbstractBasePanel(id) {
 
   @SpringBean
   protected var infoService: SystemInfoService = _
 
+  @SpringBean
+  protected var reportDataCache: ReportDataCache = _
+
+  @SpringBean
+  protected var queryStatistics: QueryStatistics = _
+
+  val SlowestShown = 10
+
   val Css = new CssResourceReference(classOf[SystemInfoPanel], "systemInfo.css")
 
   override def onInitialize() {
@@ -35,6 +47,26 @@ class SystemInfoPanel(id: String) extends AbstractBasePanel(id) {
     add(new Label("db.driver", info.jdbcDriver))
     add(new Label("db.url", info.databaseUrl))
 
+    val cacheStatistics = reportDataCache.getStatistics
+    add(new Label("reportCache.hits", f"${cacheStatistics.getHits}%d hits, ${cacheStatistics.getMisses}%d misses (${cacheStatistics.getHitRatio}%.1f%%)"))
+    add(new Label("reportCache.size", f"${cacheStatistics.getEntries}%d reports, ${cacheStatistics.getSize}%d elements"))
+
+    add(new Label("queries.slowThreshold", f"${queryStatistics.getSlowQueryThresholdMillis}%d ms"))
+    add(createTimingList("queries", queryStatistics.getQueryTimings))
+    add(createTimingList("daoMethods", queryStatistics.getDaoMethodTimings))
+  }
+
+  private def createTimingList(id: String, timings: util.List[QueryTiming]) = {
+    val slowest = new util.ArrayList[QueryTiming](timings.subList(0, math.min(SlowestShown, timings.size)))
+
+    new ListView[QueryTiming](id, slowest) {
+      def populateItem(item: ListItem[QueryTiming]) {
+        val timing = item.getModelObject
+
+        item.add(new Label("name", timing.getName))
+        item.add(new Label("timing", f"${timing.getCalls}%d calls, ${timing.getTotalMillis}%d ms total, avg ${timing.getAverageMillis}%.1f ms, max ${timing.getMaxMillis}%d ms, avg ${timing.getAverageRows}%.1f rows"))
+      }
+    }
   }
 
   override def renderHead(response: IHeaderResponse) {
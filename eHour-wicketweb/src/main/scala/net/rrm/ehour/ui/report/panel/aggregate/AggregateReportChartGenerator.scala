@@ -6,27 +6,43 @@ import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement
 import nl.tecon.highcharts.config._
 import java.lang.String
 import collection.Seq
-import scala.collection.convert.WrapAsScala
+import java.util.{HashMap => JHashMap}
+import scala.collection.mutable.ArrayBuffer
 
 case class ChartContext(renderToId: String, reportData: ReportData, currencySymbol: String, withTurnover: Boolean)
 
+/**
+ * How elements are grouped in a chart: on the id of the category, the name is only resolved
+ * for the first element of a category
+ */
+case class ChartCategory(idOf: (AssignmentAggregateReportElement) => AnyRef, nameOf: (AssignmentAggregateReportElement) => String)
+
 object AggregateReportChartGenerator {
+  /**
+   * Max number of bars in a chart, the categories with the least hours are combined in
+   * an "Other" bar. Override with the ehour.report.chart.maxCategories system property
+   */
+  val MaxCategories: Int = Integer.getInteger("ehour.report.chart.maxCategories", 30)
+
+  val EmployeeCategory = ChartCategory(_.getProjectAssignment.getUser.getUserId, _.getProjectAssignment.getUser.getFullName)
+  val CustomerCategory = ChartCategory(_.getProjectAssignment.getProject.getCustomer.getCustomerId, _.getProjectAssignment.getProject.getCustomer.getFullName)
+  val ProjectCategory = ChartCategory(_.getProjectAssignment.getProject.getProjectId, _.getProjectAssignment.getFullName)
 
   def generateEmployeeReportChart(chartContext: ChartContext): String =
-    generateReportChart(chartContext, _.getProjectAssignment.getUser.getFullName, "Users in hours")
+    generateReportChart(chartContext, EmployeeCategory, "Users in hours")
 
   def generateCustomerReportChart(chartContext: ChartContext): String =
-    generateReportChart(chartContext, _.getProjectAssignment.getProject.getCustomer.getFullName, "Customers in hours")
+    generateReportChart(chartContext, CustomerCategory, "Customers in hours")
 
   def generateProjectReportChart(chartContext: ChartContext): String =
-    generateReportChart(chartContext, _.getProjectAssignment.getFullName, "Projects in hours")
+    generateReportChart(chartContext, ProjectCategory, "Projects in hours")
 
-  private def generateReportChart(chartContext: ChartContext, findCategory: (AssignmentAggregateReportElement) => String, chartTitle: String): String = {
+  private def generateReportChart(chartContext: ChartContext, category: ChartCategory, chartTitle: String): String = {
     import nl.tecon.highcharts.config.Conversions.valueToOption
 
-    val elements = WrapAsScala.asScalaBuffer(chartContext.reportData.getReportElements).toSeq.asInstanceOf[Seq[AssignmentAggregateReportElement]]
+    val elements = chartContext.reportData.getReportElements.asInstanceOf[java.util.List[AssignmentAggregateReportElement]]
 
-    val categoryData = extractCategoryData(elements, findCategory)
+    val categoryData = extractCategoryData(elements, category, MaxCategories)
 
     val categories = categoryData map (_._1)
     val hourSeries = Series(name = "Booked hours", data = categoryData map (_._2), yAxis = 0)
@@ -62,16 +78,48 @@ object AggregateReportChartGenerator {
     ).build(chartContext.renderToId)
   }
 
-  private def extractCategoryData(elements: Seq[AssignmentAggregateReportElement], findCategory: (AssignmentAggregateReportElement) => String): List[(String, Float, Float)] = {
-    val categories = (elements map findCategory).toSet
+  private class CategoryTotal(val name: String) {
+    var hours = 0f
+    var turnover = 0f
+  }
+
+  /**
+   * Hours and turnover per category ordered on name, with at most maxCategories categories
+   * followed by an "Other" category for the remaining ones
+   */
+  private[aggregate] def extractCategoryData(elements: java.util.List[AssignmentAggregateReportElement], category: ChartCategory, maxCategories: Int): List[(String, Float, Float)] = {
+    val totalsById = new JHashMap[AnyRef, CategoryTotal]()
+    val totals = ArrayBuffer[CategoryTotal]()
+
+    val iterator = elements.iterator()
 
-    val aggregator = (id: String, valueOf: (AssignmentAggregateReportElement) => Float) => elements.foldLeft(0f)((total, element) => if (findCategory(element) == id) total + valueOf(element) else total)
+    while (iterator.hasNext) {
+      val element = iterator.next()
+      // unsaved domain objects have no id yet, group those on name
+      val id = Option(category.idOf(element)).getOrElse(category.nameOf(element))
 
-    val hourAggregator = (id: String) => aggregator(id, _.getHours.floatValue())
-    val turnOverAggregator = (id: String) => aggregator(id, _.getTurnOver.floatValue())
+      var total = totalsById.get(id)
 
-    val categoryTuples = categories map (category => (category, hourAggregator(category), turnOverAggregator(category)))
+      if (total == null) {
+        total = new CategoryTotal(category.nameOf(element))
+        totalsById.put(id, total)
+        totals += total
+      }
 
-    categoryTuples.toList.sortBy(_._1)
+      total.hours += floatValue(element.getHours)
+      total.turnover += floatValue(element.getTurnOver)
+    }
+
+    val toTuple = (total: CategoryTotal) => (total.name, total.hours, total.turnover)
+
+    if (totals.size <= maxCategories) {
+      totals.map(toTuple).toList.sortBy(_._1)
+    } else {
+      val (top, other) = totals.sortBy(-_.hours).splitAt(maxCategories)
+
+      top.map(toTuple).toList.sortBy(_._1) :+ ("Other (" + other.size + ")", other.map(_.hours).sum, other.map(_.turnover).sum)
+    }
   }
+
+  private def floatValue(value: Number): Float = if (value == null) 0f else value.floatValue()
 }
\ No newline at end of file
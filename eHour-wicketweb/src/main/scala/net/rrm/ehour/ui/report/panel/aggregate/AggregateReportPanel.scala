@@ -1,11 +1,9 @@
 package net.rrm.ehour.ui.report.panel.aggregate
 
-import net.rrm.ehour.report.reports.ReportData
 import net.rrm.ehour.ui.common.report.{AbstractExcelReport, ReportConfig}
 import net.rrm.ehour.ui.report.panel.TreeReportDataPanel
 import org.apache.wicket.markup.html.WebMarkupContainer
-import net.rrm.ehour.ui.report.{TreeReportData, TreeReportModel}
-import org.apache.wicket.model.Model
+import net.rrm.ehour.ui.report.TreeReportModel
 import net.rrm.ehour.ui.chart.HighChartContainer
 import net.rrm.ehour.ui.common.panel.AbstractBasePanel
 import org.apache.wicket.markup.html.panel.Panel
@@ -24,16 +22,14 @@ abstract class AggregateReportPanel(id: String, reportModel: TreeReportModel, re
     val reportModel = getDefaultModel.asInstanceOf[TreeReportModel]
     greyBorder.add(new TreeReportDataPanel("reportTable", reportModel, reportConfig, excelReport))
 
-    val reportData: ReportData = reportModel.getReportData
-    greyBorder.add(addCharts(reportData, greyBorder))
+    greyBorder.add(addCharts(reportModel, greyBorder))
 
     super.onBeforeRender()
   }
 
-  private def addCharts(data: ReportData, parent: WebMarkupContainer): Panel = {
-    val rawData: ReportData = data.asInstanceOf[TreeReportData].getRawReportData
+  private def addCharts(reportModel: TreeReportModel, parent: WebMarkupContainer): Panel = {
     implicit val withTurnover = EhourWebSession.getSession.isWithReportRole
 
-    new HighChartContainer("chart", new Model(rawData), generateChart)
+    new HighChartContainer("chart", reportModel.getRawReportDataModel, generateChart)
   }
 }
\ No newline at end of file
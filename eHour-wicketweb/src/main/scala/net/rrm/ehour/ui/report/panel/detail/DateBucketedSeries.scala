@@ -0,0 +1,110 @@
+package net.rrm.ehour.ui.report.panel.detail
+
+import net.rrm.ehour.data.DateRange
+import net.rrm.ehour.report.reports.element.FlatReportElement
+import org.joda.time.{DateTimeConstants, Days, LocalDate, Months}
+import java.util.{Date, HashMap => JHashMap}
+import scala.collection.mutable.ArrayBuffer
+
+object Granularity extends Enumeration {
+  val Day, Week, Month = Value
+}
+
+case class BucketedSeries(name: String, values: Array[Float])
+
+/**
+ * Values per category summed into date buckets of the report range. Bucket i starts
+ * on bucketStarts(i), the first bucket starts on the report start even when that is
+ * halfway a week or month
+ */
+case class BucketedChartData(granularity: Granularity.Value, bucketStarts: Array[LocalDate], series: List[BucketedSeries])
+
+/**
+ * Sums flat report elements per customer into day, week or month buckets in one pass.
+ * Days are used when the report range fits in the point budget, otherwise weeks
+ * and finally months
+ */
+object DateBucketedSeries {
+
+  def granularityFor(reportRange: DateRange, pointBudget: Int): Granularity.Value = {
+    val start = new LocalDate(reportRange.getDateStart)
+    val end = new LocalDate(reportRange.getDateEnd)
+
+    Seq(Granularity.Day, Granularity.Week).find(bucketCount(start, end, _) <= pointBudget).getOrElse(Granularity.Month)
+  }
+
+  def bucket(elements: java.util.List[FlatReportElement], reportRange: DateRange, valueOf: FlatReportElement => Number, pointBudget: Int): BucketedChartData = {
+    val start = new LocalDate(reportRange.getDateStart)
+    val end = new LocalDate(reportRange.getDateEnd)
+
+    val granularity = granularityFor(reportRange, pointBudget)
+    val buckets = bucketCount(start, end, granularity)
+
+    val categoryIndex = new JHashMap[Integer, Integer]()
+    val names = ArrayBuffer[String]()
+    val values = ArrayBuffer[Array[Float]]()
+
+    // elements come ordered on date so the bucket only needs to be resolved when the date changes
+    var lastDate: Date = null
+    var lastBucket = -1
+
+    val iterator = elements.iterator()
+
+    while (iterator.hasNext) {
+      val element = iterator.next()
+      val date = element.getDayDate
+      val value = valueOf(element)
+
+      if (date != null && value != null) {
+        if (lastDate == null || date.getTime != lastDate.getTime) {
+          lastBucket = bucketOf(start, new LocalDate(date), granularity)
+          lastDate = date
+        }
+
+        if (lastBucket >= 0 && lastBucket < buckets) {
+          var index = categoryIndex.get(element.getCustomerId)
+
+          if (index == null) {
+            index = names.size
+            categoryIndex.put(element.getCustomerId, index)
+            names += element.getCustomerName
+            values += new Array[Float](buckets)
+          }
+
+          values(index)(lastBucket) += value.floatValue()
+        }
+      }
+    }
+
+    val series = names.indices.map(i => BucketedSeries(names(i), values(i))).sortBy(_.name).toList
+
+    BucketedChartData(granularity, bucketStarts(start, buckets, granularity), series)
+  }
+
+  private def bucketCount(start: LocalDate, end: LocalDate, granularity: Granularity.Value): Int =
+    if (end.isBefore(start)) 0 else bucketOf(start, end, granularity) + 1
+
+  private def bucketOf(start: LocalDate, date: LocalDate, granularity: Granularity.Value): Int = {
+    val days = Days.daysBetween(start, date).getDays
+
+    if (days < 0) {
+      -1
+    } else granularity match {
+      case Granularity.Day => days
+      case Granularity.Week => Days.daysBetween(weekStart(start), date).getDays / 7
+      case Granularity.Month => Months.monthsBetween(start.withDayOfMonth(1), date.withDayOfMonth(1)).getMonths
+    }
+  }
+
+  private def bucketStarts(start: LocalDate, buckets: Int, granularity: Granularity.Value): Array[LocalDate] = {
+    val starts = granularity match {
+      case Granularity.Day => (0 until buckets) map (start.plusDays(_))
+      case Granularity.Week => (0 until buckets) map (weekStart(start).plusWeeks(_))
+      case Granularity.Month => (0 until buckets) map (start.withDayOfMonth(1).plusMonths(_))
+    }
+
+    starts.map(s => if (s.isBefore(start)) start else s).toArray
+  }
+
+  private def weekStart(date: LocalDate) = date.withDayOfWeek(DateTimeConstants.MONDAY)
+}
@@ -7,79 +7,77 @@ import nl.tecon.highcharts.config._
 import collection.Seq
 import java.lang.String
 import org.joda.time.DateTime
+import org.joda.time.format.DateTimeFormat
 import nl.tecon.highcharts.config.Conversions._
 import net.rrm.ehour.ui.report.panel.aggregate.ChartContext
-import scala.collection.convert.WrapAsScala
 
 object DetailedReportChartGenerator {
+  /**
+   * Max number of points per customer, longer report ranges are shown per week or month.
+   * Override with the ehour.report.chart.pointBudget system property
+   */
+  val PointBudget: Int = Integer.getInteger("ehour.report.chart.pointBudget", 400)
+
   val axis = (title: String) => Seq(Axis(title = Title(text = title)))
   val title = (t: String) => Title(text = t)
-  val tooltip = (t: String) => Tooltip(formatter = Some(JavascriptFunction("function() { return new Date(this.x).toLocaleDateString() + '<br />' + this.series.name + ': ' + this.y.toLocaleString() + ' " + t + "' } ")))
+  val dateTooltip = (t: String) => Tooltip(formatter = Some(JavascriptFunction("function() { return new Date(this.x).toLocaleDateString() + '<br />' + this.series.name + ': ' + this.y.toLocaleString() + ' " + t + "' } ")))
+  val categoryTooltip = (t: String) => Tooltip(formatter = Some(JavascriptFunction("function() { return this.x + '<br />' + this.series.name + ': ' + this.y.toLocaleString() + ' " + t + "' } ")))
+
+  private val bucketName = Map(Granularity.Day -> "day", Granularity.Week -> "week", Granularity.Month -> "month")
+  private val bucketFormat = Map(Granularity.Week -> DateTimeFormat.forPattern("d MMM yyyy"), Granularity.Month -> DateTimeFormat.forPattern("MMM yyyy"))
 
+  def generateHourBasedDetailedChart(chartContext: ChartContext): String = generateHourBasedDetailedChart(chartContext, PointBudget)
 
-  def generateHourBasedDetailedChart(chartContext: ChartContext): String = {
-    val highChart = generateDetailedChart(chartContext.reportData, _.getTotalHours.floatValue())
+  def generateHourBasedDetailedChart(chartContext: ChartContext, pointBudget: Int): String = {
+    val (highChart, granularity) = generateDetailedChart(chartContext.reportData, _.getTotalHours, pointBudget)
 
-    highChart.copy(yAxis = axis("Hours"), title = title("Hours booked on customers per day"), tooltip = tooltip("hours")).build(chartContext.renderToId)
+    highChart.copy(yAxis = axis("Hours"), title = title("Hours booked on customers per " + bucketName(granularity)), tooltip = tooltip(granularity, "hours")).build(chartContext.renderToId)
   }
 
+  def generateTurnoverBasedDetailedChart(chartContext: ChartContext): String = generateTurnoverBasedDetailedChart(chartContext, PointBudget)
 
-  def generateTurnoverBasedDetailedChart(chartContext: ChartContext): String = {
-    val highChart = generateDetailedChart(chartContext.reportData, _.getTotalTurnOver.floatValue())
+  def generateTurnoverBasedDetailedChart(chartContext: ChartContext, pointBudget: Int): String = {
+    val (highChart, granularity) = generateDetailedChart(chartContext.reportData, _.getTotalTurnOver, pointBudget)
 
-    highChart.copy(yAxis = axis(chartContext.currencySymbol), title = title("Turnover booked on customers per day"), tooltip = tooltip(chartContext.currencySymbol)).build(chartContext.renderToId)
+    highChart.copy(yAxis = axis(chartContext.currencySymbol), title = title("Turnover booked on customers per " + bucketName(granularity)), tooltip = tooltip(granularity, chartContext.currencySymbol)).build(chartContext.renderToId)
   }
 
+  private def tooltip(granularity: Granularity.Value, unit: String) =
+    if (granularity == Granularity.Day) dateTooltip(unit) else categoryTooltip(unit)
 
-  private def generateDetailedChart(reportData: ReportData, f: FlatReportElement => Float): HighChart = {
-    val elements = WrapAsScala.asScalaBuffer(reportData.getReportElements).toSeq.asInstanceOf[Seq[FlatReportElement]]
+  private def generateDetailedChart(reportData: ReportData, f: FlatReportElement => Number, pointBudget: Int): (HighChart, Granularity.Value) = {
+    val elements = reportData.getReportElements.asInstanceOf[java.util.List[FlatReportElement]]
 
     val reportRange = reportData.getReportRange
 
-    val (categoryDataMap, categoryNameMap) = buildCategoryMap(elements, f)
-
-    val series = (for (category <- categoryDataMap.keySet) yield {
-      val values = categoryDataMap.get(category).get
+    val chartData = DateBucketedSeries.bucket(elements, reportRange, f, pointBudget)
 
-      SparseDateSeries(name = categoryNameMap.get(category), data = values, dateStart = new DateTime(reportRange.getDateStart), dateEnd = new DateTime(reportRange.getDateEnd))
-    }).toList
+    val series = chartData.series map (s => Series(name = s.name, data = s.values.toList))
 
     val chart = new Chart(defaultSeriesType = SeriesType.column, zoomType = ZoomType.x)
 
-    val seriesLength = if (series.length > 0) series.head.data.length else 1
-
     // for performance reasons, disable shadows when there's a lot of data
-    val isBigDataSet = (series.length * seriesLength) > 150
-
-    val plotOptions = PlotOptions(PlotOptionsSeries(shadow = !isBigDataSet, pointStart = Some(new DateTime(reportRange.getDateStart)), pointInterval = Some(PointInterval.DAY)), column = PlotOptionsColumn(pointWidth = 10))
-    new HighChart(chart = chart,
-      xAxis = Seq(Axis(axisType = AxisType.datetime, maxZoom = 3)),
-      series = series,
-      plotOptions = plotOptions
-    )
-  }
-
-  private def buildCategoryMap(elements: Seq[FlatReportElement], f: FlatReportElement => Float) = {
-
-    type NameMap = Map[Int, String]
-    type DataMap = Map[Int, List[DateFloatValue]]
-
-    def add(es: Seq[FlatReportElement], nameMap: NameMap = Map(), dataMap: DataMap = Map()): (DataMap, NameMap) = {
-      if (es.isEmpty) {
-        (dataMap, nameMap)
-      } else {
-        val e = es.head
-        val id = e.getCustomerId.toInt
-        val nameMap2 = nameMap + (id -> e.getCustomerName)
-
-        val item = DateFloatValue(new DateTime(e.getDayDate), f(e))
-
-        val d = (item :: dataMap.getOrElse(id, List()).reverse).reverse
-
-        add(es.tail, nameMap2, dataMap + (id -> d))
-      }
+    val isBigDataSet = (series.length * chartData.bucketStarts.length) > 150
+
+    val highChart = if (chartData.granularity == Granularity.Day) {
+      val plotOptions = PlotOptions(PlotOptionsSeries(shadow = !isBigDataSet, pointStart = Some(new DateTime(reportRange.getDateStart)), pointInterval = Some(PointInterval.DAY)), column = PlotOptionsColumn(pointWidth = 10))
+
+      new HighChart(chart = chart,
+        xAxis = Seq(Axis(axisType = AxisType.datetime, maxZoom = 3)),
+        series = series,
+        plotOptions = plotOptions
+      )
+    } else {
+      val formatter = bucketFormat(chartData.granularity)
+      val categories = chartData.bucketStarts map (formatter.print(_))
+
+      new HighChart(chart = chart,
+        xAxis = Seq(Axis(Some(categories))),
+        series = series,
+        plotOptions = PlotOptions(PlotOptionsSeries(shadow = !isBigDataSet))
+      )
     }
 
-    add(elements)
+    (highChart, chartData.granularity)
   }
-}
\ No newline at end of file
+}
@@ -6,8 +6,7 @@ import net.rrm.ehour.ui.common.report.ReportConfig
 import net.rrm.ehour.ui.report.panel.TreeReportDataPanel
 import net.rrm.ehour.ui.report.trend.DetailedReportModel
 import net.rrm.ehour.ui.chart.HighChartContainer
-import org.apache.wicket.model.Model
-import net.rrm.ehour.ui.report.{TreeReportData, TreeReportModel}
+import net.rrm.ehour.ui.report.TreeReportModel
 import org.apache.wicket.markup.html.WebMarkupContainer
 import org.apache.wicket.ajax.AjaxRequestTarget
 import net.rrm.ehour.ui.common.component.AjaxBehaviorComponent
@@ -27,13 +26,12 @@ class DetailedReportPanel(id: String, report: DetailedReportModel) extends Abstr
     val reportModel = getDefaultModel.asInstanceOf[TreeReportModel]
     frame.add(new TreeReportDataPanel("reportTable", report, ReportConfig.DETAILED_REPORT, DetailedReportExcel.getInstance()))
 
-    val treeReportData = reportModel.getReportData.asInstanceOf[TreeReportData]
-    val rawData = treeReportData.getRawReportData
-    frame.add(new HighChartContainer("chart", new Model(rawData), DetailedReportChartGenerator.generateHourBasedDetailedChart))
+    val rawDataModel = reportModel.getRawReportDataModel
+    frame.add(new HighChartContainer("chart", rawDataModel, DetailedReportChartGenerator.generateHourBasedDetailedChart))
 
     val radioButton = (id: String, generateChart: (ChartContext) => String) => {
       new AjaxBehaviorComponent(id, "onclick", (target: AjaxRequestTarget) => {
-        val chart = new HighChartContainer("chart", new Model(rawData), generateChart)
+        val chart = new HighChartContainer("chart", rawDataModel, generateChart)
         frame.addOrReplace(chart)
         target.add(chart)
       })
@@ -21,6 +21,8 @@ import net.rrm.ehour.config.EhourConfig;
 import net.rrm.ehour.config.EhourConfigStub;
 import net.rrm.ehour.config.service.ConfigurationServiceImpl;
 import net.rrm.ehour.mail.service.MailService;
+import net.rrm.ehour.persistence.stats.QueryStatisticsImpl;
+import net.rrm.ehour.report.service.ReportDataCacheImpl;
 import net.rrm.ehour.sysinfo.SystemInfo;
 import net.rrm.ehour.sysinfo.SystemInfoService;
 import net.rrm.ehour.ui.common.BaseSpringWebAppTester;
@@ -55,6 +57,9 @@ public abstract class AbstractMainConfigTest extends BaseSpringWebAppTester impl
         expect(infoService.info()).andReturn(new SystemInfo("a", "b", "c"));
         replay(infoService);
 
+        getMockContext().putBean(new ReportDataCacheImpl(1000, 30));
+        getMockContext().putBean(new QueryStatisticsImpl(1000, false));
+
         mailService = createMock(MailService.class);
 		getMockContext().putBean("mailService", mailService);	
 
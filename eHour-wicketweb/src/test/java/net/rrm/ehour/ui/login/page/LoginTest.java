@@ -19,6 +19,8 @@ package net.rrm.ehour.ui.login.page;
 import net.rrm.ehour.config.EhourConfigStub;
 import net.rrm.ehour.config.service.ConfigurationService;
 import net.rrm.ehour.mail.service.MailService;
+import net.rrm.ehour.persistence.stats.QueryStatisticsImpl;
+import net.rrm.ehour.report.service.ReportDataCacheImpl;
 import net.rrm.ehour.sysinfo.SystemInfo;
 import net.rrm.ehour.sysinfo.SystemInfoService;
 import net.rrm.ehour.ui.admin.config.page.MainConfigPage;
@@ -61,6 +63,9 @@ public class LoginTest extends BaseSpringWebAppTester {
         expectLastCall().times(2);
         replay(infoService);
 
+        getMockContext().putBean(new ReportDataCacheImpl(1000, 30));
+        getMockContext().putBean(new QueryStatisticsImpl(1000, false));
+
         expect(configService.getConfiguration())
                 .andReturn(new EhourConfigStub())
                 .anyTimes();
@@ -0,0 +1,60 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.ui.report;
+
+import net.rrm.ehour.report.reports.AggregateReportDataObjectMother;
+import net.rrm.ehour.ui.common.BaseSpringWebAppTester;
+import net.rrm.ehour.ui.report.aggregate.CustomerAggregateReportModel;
+import net.rrm.ehour.ui.report.node.ReportNode;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReportBuilderTest extends BaseSpringWebAppTester
+{
+	@Test
+	public void shouldGroupElementsOnCustomerAndProject()
+	{
+		List<ReportNode> rootNodes = new ReportBuilder().createReport(AggregateReportDataObjectMother.generateReportData(),
+																		new CustomerAggregateReportModel(null).getReportNodeFactory());
+
+		assertEquals(4, rootNodes.size());
+		assertEquals(1, rootNodes.get(0).getId());
+
+		// the last element joins the project of the second element
+		List<TreeReportElement> matrix = rootNodes.get(0).getNodeMatrix(7);
+		assertEquals(3, matrix.size());
+		assertEquals("Project A", matrix.get(0).getRow()[1]);
+		assertEquals("Project B", matrix.get(1).getRow()[1]);
+		assertEquals("Edeling, Rosalie", matrix.get(1).getRow()[3]);
+		assertEquals("Project B", matrix.get(2).getRow()[1]);
+		assertEquals("Edeling, Thies", matrix.get(2).getRow()[3]);
+	}
+
+	@Test
+	public void shouldSumSubtotals()
+	{
+		List<ReportNode> rootNodes = new ReportBuilder().createReport(AggregateReportDataObjectMother.generateReportData(),
+																		new CustomerAggregateReportModel(null).getReportNodeFactory());
+
+		assertEquals(32f, rootNodes.get(0).getHours().floatValue(), 0.001f);
+		assertEquals(14 * 10 + 8 * 25 + 10 * 35f, rootNodes.get(0).getTurnover().floatValue(), 0.001f);
+		assertEquals(10f, rootNodes.get(1).getHours().floatValue(), 0.001f);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.ui.report;
+
+import com.google.common.collect.Lists;
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.report.reports.ReportData;
+import org.apache.wicket.extensions.markup.html.repeater.data.sort.SortOrder;
+import org.apache.wicket.model.Model;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TreeReportDataProviderTest
+{
+	private TreeReportDataProvider provider;
+
+	@Before
+	public void setUp()
+	{
+		List<TreeReportElement> rows = Lists.newArrayList(row("beta", 8f),
+															row("Alpha", 12.5f),
+															row("gamma", null),
+															row("alpha", 2f));
+
+		provider = new TreeReportDataProvider(new Model<ReportData>(new TreeReportData(rows, new DateRange(), null)));
+	}
+
+	@Test
+	public void shouldKeepTreeOrderWhenUnsorted()
+	{
+		assertEquals(4, provider.size());
+		assertColumn(0, provider.iterator(0, 4), "beta", "Alpha", "gamma", "alpha");
+	}
+
+	@Test
+	public void shouldSortStringsCaseInsensitive()
+	{
+		provider.setSort(0, SortOrder.ASCENDING);
+
+		assertColumn(0, provider.iterator(0, 4), "Alpha", "alpha", "beta", "gamma");
+	}
+
+	@Test
+	public void shouldSortNumbersDescendingWithEmptyCellsLast()
+	{
+		provider.setSort(1, SortOrder.DESCENDING);
+
+		assertColumn(1, provider.iterator(0, 4), 12.5f, 8f, 2f, null);
+	}
+
+	@Test
+	public void shouldOnlyReturnRowsOfPage()
+	{
+		provider.setSort(1, SortOrder.ASCENDING);
+
+		assertColumn(1, provider.iterator(2, 5), 12.5f, null);
+		assertFalse(provider.iterator(4, 5).hasNext());
+	}
+
+	private static TreeReportElement row(String name, Float hours)
+	{
+		return new TreeReportElement(new Serializable[]{name, hours});
+	}
+
+	private static void assertColumn(int column, Iterator<? extends TreeReportElement> rows, Serializable... expected)
+	{
+		List<Serializable> values = Lists.newArrayList();
+
+		while (rows.hasNext())
+		{
+			values.add(rows.next().getRow()[column]);
+		}
+
+		assertEquals(Lists.newArrayList(expected), values);
+	}
+}
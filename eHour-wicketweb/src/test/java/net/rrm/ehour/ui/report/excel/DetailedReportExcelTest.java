@@ -1,6 +1,8 @@
 package net.rrm.ehour.ui.report.excel;
 
 import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
 import net.rrm.ehour.report.service.DetailedReportService;
 import net.rrm.ehour.ui.common.BaseSpringWebAppTester;
 import net.rrm.ehour.ui.report.panel.DetailedReportDataObjectMother;
@@ -8,9 +10,22 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Scanner;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
-import static org.mockito.Mockito.when;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 
 public class DetailedReportExcelTest extends BaseSpringWebAppTester {
     @Mock
@@ -27,8 +42,73 @@ public class DetailedReportExcelTest extends BaseSpringWebAppTester {
     public void should_generate() throws Exception {
         ReportCriteria criteria = DetailedReportDataObjectMother.getReportCriteria();
 
-        when(detailedReportService.getDetailedReportData(criteria)).thenReturn(DetailedReportDataObjectMother.getFlatReportData());
+        streamElements(criteria, 1);
 
         assertNotNull(DetailedReportExcel.getInstance().getExcelData(criteria));
+
+        verify(detailedReportService).streamDetailedReportData(eq(criteria), any(ReportElementHandler.class));
+    }
+
+    @Test
+    public void should_write_more_rows_than_fit_in_xls() throws Exception {
+        ReportCriteria criteria = DetailedReportDataObjectMother.getReportCriteria();
+
+        // 5 elements per repeat
+        streamElements(criteria, 14000);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DetailedReportExcel.getInstance().write(criteria, output);
+
+        String sheet = readEntry(output.toByteArray(), "xl/worksheets/sheet1.xml");
+
+        // title, report range and column header rows precede the data
+        assertEquals(70003, countRows(sheet));
+        assertTrue(DetailedReportExcel.getInstance().getFilename().endsWith(".xlsx"));
+    }
+
+    private void streamElements(ReportCriteria criteria, final int repeat) {
+        doAnswer(new Answer<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ReportElementHandler<FlatReportElement> handler = (ReportElementHandler<FlatReportElement>) invocation.getArguments()[1];
+
+                for (int i = 0; i < repeat; i++) {
+                    for (FlatReportElement element : DetailedReportDataObjectMother.getFlatReportElements()) {
+                        handler.handle(element);
+                    }
+                }
+
+                return null;
+            }
+        }).when(detailedReportService).streamDetailedReportData(eq(criteria), any(ReportElementHandler.class));
+    }
+
+    private static String readEntry(byte[] xlsx, String entryName) throws Exception {
+        ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(xlsx));
+
+        try {
+            ZipEntry entry;
+
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals(entryName)) {
+                    return new Scanner(zip, "UTF-8").useDelimiter("\\A").next();
+                }
+            }
+        } finally {
+            zip.close();
+        }
+
+        throw new AssertionError(entryName + " not found");
+    }
+
+    private static int countRows(String sheet) {
+        int rows = 0;
+
+        for (int index = sheet.indexOf("<row "); index >= 0; index = sheet.indexOf("<row ", index + 1)) {
+            rows++;
+        }
+
+        return rows;
     }
 }
@@ -0,0 +1,143 @@
+package net.rrm.ehour.ui.report.export;
+
+import net.rrm.ehour.domain.User;
+import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.report.criteria.UserSelectedCriteria;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
+import net.rrm.ehour.report.service.DetailedReportService;
+import net.rrm.ehour.ui.common.BaseSpringWebAppTester;
+import net.rrm.ehour.ui.common.session.EhourWebSession;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.util.Date;
+import java.util.Scanner;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class DetailedReportExportResourceTest extends BaseSpringWebAppTester {
+    @Mock
+    private DetailedReportService detailedReportService;
+
+    @Before
+    public void set_up() {
+        MockitoAnnotations.initMocks(this);
+
+        getMockContext().putBean("detailedReportService", detailedReportService);
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ReportElementHandler<FlatReportElement> handler = (ReportElementHandler<FlatReportElement>) invocation.getArguments()[1];
+
+                FlatReportElement element = new FlatReportElement();
+                element.setDayDate(new Date(2013 - 1900, 11 - 1, 4));
+                element.setCustomerId(1);
+                element.setCustomerCode("AA");
+                element.setCustomerName("A \"Company\"");
+                element.setProjectId(2);
+                element.setProjectName("PRJ, the project");
+                element.setUserId(5);
+                element.setTotalHours(5);
+                element.setComment("line\nbreak");
+                handler.handle(element);
+
+                return null;
+            }
+        }).when(detailedReportService).streamDetailedReportData(any(ReportCriteria.class), any(ReportElementHandler.class));
+    }
+
+    @Test
+    public void should_stream_csv() {
+        PageParameters parameters = new PageParameters().set("format", "csv").set("start", "2013-11-01").set("end", "2013-11-30").set("project", "2,3");
+
+        tester.startResourceReference(DetailedReportExportResource.REFERENCE, parameters);
+
+        String csv = tester.getLastResponseAsString();
+        String[] lines = csv.split("\r\n", 2);
+
+        assertTrue(lines[0].startsWith("date,customerId,customerCode,customerName,projectId"));
+        assertEquals("2013-11-04,1,AA,\"A \"\"Company\"\"\",2,,\"PRJ, the project\",,5,,,0,5,0,\"line\nbreak\",\r\n", lines[1]);
+        assertTrue(tester.getLastResponse().getContentType().startsWith("text/csv"));
+
+        ArgumentCaptor<ReportCriteria> criteria = ArgumentCaptor.forClass(ReportCriteria.class);
+        verify(detailedReportService).streamDetailedReportData(criteria.capture(), any(ReportElementHandler.class));
+
+        UserSelectedCriteria userSelectedCriteria = criteria.getValue().getUserSelectedCriteria();
+        assertTrue(userSelectedCriteria.isForGlobalReport());
+        assertEquals(2, userSelectedCriteria.getProjects().size());
+        assertEquals(new LocalDate(2013, 11, 30), new LocalDate(userSelectedCriteria.getReportRange().getDateEnd()));
+    }
+
+    @Test
+    public void should_stream_gzipped_ndjson() throws Exception {
+        tester.getRequest().addHeader("Accept-Encoding", "gzip, deflate");
+
+        tester.startResourceReference(DetailedReportExportResource.REFERENCE, new PageParameters().set("format", "ndjson"));
+
+        assertEquals("gzip", tester.getLastResponse().getHeader("Content-Encoding"));
+
+        GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(tester.getLastResponse().getBinaryContent()));
+        String json = new Scanner(inputStream, "UTF-8").useDelimiter("\\A").next();
+
+        assertEquals("{\"date\":\"2013-11-04\",\"customerId\":1,\"customerCode\":\"AA\",\"customerName\":\"A \\\"Company\\\"\",\"projectId\":2," +
+                "\"projectCode\":null,\"projectName\":\"PRJ, the project\",\"assignmentId\":null,\"userId\":5,\"userFirstName\":null," +
+                "\"userLastName\":null,\"rate\":0,\"hours\":5,\"turnOver\":0,\"comment\":\"line\\nbreak\",\"locked\":null}\n", json);
+    }
+
+    @Test
+    public void should_reject_unknown_format() {
+        tester.startResourceReference(DetailedReportExportResource.REFERENCE, new PageParameters().set("format", "xml"));
+
+        assertEquals(400, tester.getLastResponse().getStatus());
+        verifyZeroInteractions(detailedReportService);
+    }
+
+    @Test
+    public void should_reject_invalid_ids() {
+        tester.startResourceReference(DetailedReportExportResource.REFERENCE, new PageParameters().set("format", "csv").set("user", "a"));
+
+        assertEquals(400, tester.getLastResponse().getStatus());
+        verifyZeroInteractions(detailedReportService);
+    }
+
+    @Test
+    public void should_restrict_to_pm_projects() {
+        EhourWebSession session = mock(EhourWebSession.class);
+        User pm = new User(4);
+        when(session.isWithPmRole()).thenReturn(true);
+        when(session.getUser()).thenReturn(pm);
+
+        UserSelectedCriteria criteria = DetailedReportExportResource.createUserSelectedCriteria(new PageParameters().set("user", "6"), session);
+
+        assertTrue(criteria.isForPm());
+        assertEquals(pm, criteria.getPm());
+        assertEquals(1, criteria.getUsers().size());
+    }
+
+    @Test
+    public void should_restrict_to_own_hours_for_consultants() {
+        EhourWebSession session = mock(EhourWebSession.class);
+        User user = new User(4);
+        when(session.getUser()).thenReturn(user);
+
+        UserSelectedCriteria criteria = DetailedReportExportResource.createUserSelectedCriteria(new PageParameters().set("user", "6,7"), session);
+
+        assertTrue(criteria.isForIndividualUser());
+        assertEquals(1, criteria.getUsers().size());
+        assertEquals(user, criteria.getUsers().get(0));
+    }
+}
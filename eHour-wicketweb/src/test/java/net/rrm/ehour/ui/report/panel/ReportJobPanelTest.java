@@ -0,0 +1,120 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package net.rrm.ehour.ui.report.panel;
+
+import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.report.reports.ReportData;
+import net.rrm.ehour.report.service.ReportJob;
+import net.rrm.ehour.report.service.ReportJobRejectedException;
+import net.rrm.ehour.report.service.ReportJobService;
+import net.rrm.ehour.report.service.ReportJobStatus;
+import net.rrm.ehour.ui.common.BaseSpringWebAppTester;
+import net.rrm.ehour.ui.common.report.AbstractReportModel;
+import org.apache.wicket.ajax.AbstractAjaxTimerBehavior;
+import org.apache.wicket.markup.html.panel.EmptyPanel;
+import org.apache.wicket.markup.html.panel.Panel;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.easymock.EasyMock.*;
+
+public class ReportJobPanelTest extends BaseSpringWebAppTester {
+    private ReportJobService reportJobService;
+
+    @Before
+    public void setup() {
+        reportJobService = createMock(ReportJobService.class);
+        getMockContext().putBean("reportJobService", reportJobService);
+    }
+
+    @Test
+    public void shouldShowReportWhenJobIsDone() throws ReportJobRejectedException {
+        expect(reportJobService.submit(anyObject(Integer.class), isA(ReportJob.class))).andReturn("job");
+        expect(reportJobService.getStatus("job")).andReturn(status(ReportJobStatus.State.RUNNING));
+        expect(reportJobService.getStatus("job")).andReturn(status(ReportJobStatus.State.DONE));
+        replay(reportJobService);
+
+        startPanel();
+
+        tester.assertLabel("id:progress:status", "report.job.running");
+
+        pollJob();
+
+        tester.assertComponent("id:report", EmptyPanel.class);
+        tester.assertInvisible("id:progress");
+
+        verify(reportJobService);
+    }
+
+    @Test
+    public void shouldCancelJob() throws ReportJobRejectedException {
+        expect(reportJobService.submit(anyObject(Integer.class), isA(ReportJob.class))).andReturn("job");
+        expect(reportJobService.getStatus("job")).andReturn(status(ReportJobStatus.State.RUNNING));
+        reportJobService.cancel("job");
+        expect(reportJobService.getStatus("job")).andReturn(status(ReportJobStatus.State.CANCELLED));
+        replay(reportJobService);
+
+        startPanel();
+
+        tester.clickLink("id:progress:cancel", true);
+
+        tester.assertLabel("id:progress:status", "report.job.cancelled");
+
+        verify(reportJobService);
+    }
+
+    @Test
+    public void shouldShowRejection() throws ReportJobRejectedException {
+        expect(reportJobService.submit(anyObject(Integer.class), isA(ReportJob.class))).andThrow(new ReportJobRejectedException("full"));
+        replay(reportJobService);
+
+        startPanel();
+
+        tester.assertLabel("id:progress:status", "report.job.rejected");
+
+        verify(reportJobService);
+    }
+
+    private void startPanel() {
+        tester.startComponentInPage(new ReportJobPanel("id", new StubReportModel(), new ReportJobPanel.ReportPanelFactory() {
+            @Override
+            public Panel createReportPanel(String id) {
+                return new EmptyPanel(id);
+            }
+        }));
+    }
+
+    private void pollJob() {
+        AbstractAjaxTimerBehavior timer = tester.getComponentFromLastRenderedPage("id").getBehaviors(AbstractAjaxTimerBehavior.class).get(0);
+        tester.executeBehavior(timer);
+    }
+
+    private static ReportJobStatus status(ReportJobStatus.State state) {
+        return new ReportJobStatus("job", state, 1, 2, null);
+    }
+
+    private static class StubReportModel extends AbstractReportModel {
+        StubReportModel() {
+            super(null);
+        }
+
+        @Override
+        protected ReportData getReportData(ReportCriteria reportCriteria) {
+            return null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package net.rrm.ehour.ui.timesheet.dto;
 
+import net.rrm.ehour.data.LockedDays;
 import org.junit.Test;
 
 import java.util.Arrays;
@@ -13,7 +14,7 @@ public class TimesheetTest {
         Timesheet timesheet = new Timesheet();
 
         Date date = new Date();
-        timesheet.setLockedDays(Arrays.asList(date));
+        timesheet.setLockedDays(LockedDays.forDates(Arrays.asList(date)));
         timesheet.setDateSequence(new Date[]{date});
         assertTrue(timesheet.isLocked(0));
     }
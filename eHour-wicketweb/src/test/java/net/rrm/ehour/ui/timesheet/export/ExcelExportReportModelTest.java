@@ -0,0 +1,93 @@
+package net.rrm.ehour.ui.timesheet.export;
+
+import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.domain.ProjectAssignment;
+import net.rrm.ehour.report.criteria.ReportCriteria;
+import net.rrm.ehour.report.criteria.UserSelectedCriteria;
+import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
+import net.rrm.ehour.report.service.DetailedReportService;
+import net.rrm.ehour.ui.common.BaseSpringWebAppTester;
+import net.rrm.ehour.ui.report.trend.TrendReportRow;
+import org.easymock.IAnswer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ExcelExportReportModelTest extends BaseSpringWebAppTester {
+    private DetailedReportService detailedReportService;
+
+    @Before
+    public void before() throws Exception {
+        detailedReportService = createMock(DetailedReportService.class);
+        getMockContext().putBean("detailedReportService", detailedReportService);
+    }
+
+    @Test
+    public void should_index_hours_per_assignment_and_day() {
+        UserSelectedCriteria userSelectedCriteria = new UserSelectedCriteria();
+        userSelectedCriteria.setReportRange(new DateRange(new Date(2013 - 1900, 10, 1), new Date(2013 - 1900, 10, 30, 23, 59, 59)));
+        ReportCriteria criteria = new ReportCriteria(userSelectedCriteria);
+
+        final List<FlatReportElement> elements = Arrays.asList(createElement(1, "B project", 1, 8),
+                createElement(2, "A project", 1, 2),
+                createElement(1, "B project", 30, 4));
+
+        detailedReportService.streamDetailedReportData(eq(criteria), isA(ReportElementHandler.class));
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object answer() throws Throwable {
+                ReportElementHandler<FlatReportElement> handler = (ReportElementHandler<FlatReportElement>) getCurrentArguments()[1];
+
+                for (FlatReportElement element : elements) {
+                    handler.handle(element);
+                }
+
+                return null;
+            }
+        });
+        replay(detailedReportService);
+
+        ExcelExportReportModel model = new ExcelExportReportModel(criteria);
+
+        List<TrendReportRow<ProjectAssignment>> rows = model.getRows();
+
+        assertEquals(30, model.getDayCount());
+        assertEquals(2, rows.size());
+
+        TrendReportRow<ProjectAssignment> projectA = rows.get(0);
+        assertEquals(Integer.valueOf(2), projectA.getKey().getAssignmentId());
+        assertEquals(2f, projectA.getHours(0), 0.01f);
+
+        TrendReportRow<ProjectAssignment> projectB = rows.get(1);
+        assertEquals("CUST", projectB.getKey().getProject().getCustomer().getCode());
+        assertEquals(8f, projectB.getHours(model.getDayIndex(new Date(2013 - 1900, 10, 1, 12, 0))), 0.01f);
+        assertEquals(4f, projectB.getHours(29), 0.01f);
+        assertEquals(0f, projectB.getHours(15), 0.01f);
+        assertEquals(12f, projectB.getTotalHours(), 0.01f);
+
+        assertEquals(14f, model.getGrandTotalHours(), 0.01f);
+        assertSame(rows, model.getRows());
+
+        verify(detailedReportService);
+    }
+
+    private FlatReportElement createElement(int assignmentId, String projectName, int day, float hours) {
+        FlatReportElement element = new FlatReportElement();
+        element.setAssignmentId(assignmentId);
+        element.setProjectId(assignmentId);
+        element.setProjectName(projectName);
+        element.setCustomerCode("CUST");
+        element.setDayDate(new Date(2013 - 1900, 10, day));
+        element.setTotalHours(hours);
+        return element;
+    }
+}
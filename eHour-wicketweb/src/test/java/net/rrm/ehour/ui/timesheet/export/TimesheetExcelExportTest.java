@@ -22,12 +22,12 @@ import net.rrm.ehour.config.service.ConfigurationServiceImpl;
 import net.rrm.ehour.persistence.config.dao.BinaryConfigurationDao;
 import net.rrm.ehour.report.criteria.ReportCriteria;
 import net.rrm.ehour.report.criteria.UserSelectedCriteria;
-import net.rrm.ehour.report.reports.ReportData;
 import net.rrm.ehour.report.reports.element.FlatReportElement;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
 import net.rrm.ehour.report.service.DetailedReportService;
 import net.rrm.ehour.ui.admin.config.panel.SkinConfigPanel;
 import net.rrm.ehour.ui.common.BaseSpringWebAppTester;
-import net.rrm.ehour.util.DateUtil;
+import org.easymock.IAnswer;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -36,7 +36,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
 
 import static org.easymock.EasyMock.*;
@@ -70,14 +69,12 @@ public class TimesheetExcelExportTest extends BaseSpringWebAppTester {
     public void produceExcelReport() throws IOException {
         List<FlatReportElement> elements = SkinConfigPanel.TimesheetExportDummyDataGenerator.createMonthData(getConfig());
 
-        ReportData data = new ReportData(elements, SkinConfigPanel.TimesheetExportDummyDataGenerator.getDateRangeForCurrentMonth());
-
         UserSelectedCriteria userSelectedCriteria = new UserSelectedCriteria();
         userSelectedCriteria.getCustomParameters().put(TimesheetExportParameter.INCL_SIGN_OFF.name(), Boolean.TRUE);
         userSelectedCriteria.setReportRange(SkinConfigPanel.TimesheetExportDummyDataGenerator.getDateRangeForCurrentMonth());
         ReportCriteria criteria = new ReportCriteria(userSelectedCriteria);
 
-        expect(detailedReportService.getDetailedReportData(criteria)).andReturn(data);
+        expectStreamedElements(criteria, elements);
 
         replay(detailedReportService);
         byte[] excelData = new TimesheetExcelExport().getExcelData(criteria);
@@ -91,13 +88,11 @@ public class TimesheetExcelExportTest extends BaseSpringWebAppTester {
     public void produceForEmptyMonth() throws IOException {
         List<FlatReportElement> elements = new ArrayList<FlatReportElement>();
 
-        ReportData data = new ReportData(elements, DateUtil.getDateRangeForMonth(new Date()));
         UserSelectedCriteria userSelectedCriteria = new UserSelectedCriteria();
         userSelectedCriteria.setReportRange(SkinConfigPanel.TimesheetExportDummyDataGenerator.getDateRangeForCurrentMonth());
         ReportCriteria criteria = new ReportCriteria(userSelectedCriteria);
 
-        expect(detailedReportService.getDetailedReportData(criteria))
-                .andReturn(data);
+        expectStreamedElements(criteria, elements);
 
         replay(detailedReportService);
         byte[] excelData = new TimesheetExcelExport().getExcelData(criteria);
@@ -106,6 +101,23 @@ public class TimesheetExcelExportTest extends BaseSpringWebAppTester {
         verify(detailedReportService);
     }
 
+    @SuppressWarnings("unchecked")
+    private void expectStreamedElements(ReportCriteria criteria, final List<FlatReportElement> elements) {
+        detailedReportService.streamDetailedReportData(eq(criteria), isA(ReportElementHandler.class));
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+            @Override
+            public Object answer() throws Throwable {
+                ReportElementHandler<FlatReportElement> handler = (ReportElementHandler<FlatReportElement>) getCurrentArguments()[1];
+
+                for (FlatReportElement element : elements) {
+                    handler.handle(element);
+                }
+
+                return null;
+            }
+        });
+    }
+
     @SuppressWarnings("unused")
     private void writeByteData(byte[] excelData) throws IOException {
         File outfile = new File("d:\\test.xls");
@@ -21,11 +21,11 @@ import net.rrm.ehour.domain.ProjectObjectMother;
 import net.rrm.ehour.report.criteria.AvailableCriteria;
 import net.rrm.ehour.report.criteria.ReportCriteria;
 import net.rrm.ehour.report.criteria.ReportCriteriaUpdateType;
+import net.rrm.ehour.report.reports.element.ReportElementHandler;
 import net.rrm.ehour.report.service.DetailedReportService;
 import net.rrm.ehour.report.service.ReportCriteriaService;
 import net.rrm.ehour.timesheet.service.IOverviewTimesheet;
 import net.rrm.ehour.ui.common.BaseSpringWebAppTester;
-import net.rrm.ehour.ui.report.panel.DetailedReportDataObjectMother;
 import org.apache.wicket.util.tester.FormTester;
 import org.joda.time.LocalDate;
 import org.junit.Before;
@@ -73,8 +73,7 @@ public class TimesheetExportPageTest extends BaseSpringWebAppTester
         expect(reportCriteriaService.syncUserReportCriteria(isA(ReportCriteria.class), isA(ReportCriteriaUpdateType.class)))
                 .andReturn(reportCriteria);
 
-        expect(detailedReportService.getDetailedReportData(isA(ReportCriteria.class)))
-                .andReturn(DetailedReportDataObjectMother.getFlatReportData());
+        detailedReportService.streamDetailedReportData(isA(ReportCriteria.class), isA(ReportElementHandler.class));
         replay(overviewTimesheet, reportCriteriaService, detailedReportService);
 
         tester.startPage(TimesheetExportPage.class);
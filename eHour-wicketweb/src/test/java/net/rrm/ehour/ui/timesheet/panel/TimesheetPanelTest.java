@@ -18,6 +18,7 @@ package net.rrm.ehour.ui.timesheet.panel;
 
 import com.google.common.collect.Lists;
 import net.rrm.ehour.data.DateRange;
+import net.rrm.ehour.data.LockedDays;
 import net.rrm.ehour.domain.*;
 import net.rrm.ehour.project.status.ProjectAssignmentStatus;
 import net.rrm.ehour.timesheet.dto.WeekOverview;
@@ -244,7 +245,7 @@ public class TimesheetPanelTest extends BaseSpringWebAppTester {
         List<TimesheetEntry> entries = Arrays.asList(timesheetEntry);
         List<ProjectAssignment> assignments = Arrays.asList(ProjectAssignmentObjectMother.createProjectAssignment(1));
 
-        WeekOverview overview = new WeekOverview(entries, null, assignments, nextWeekRange, USER, lockedDates);
+        WeekOverview overview = new WeekOverview(entries, null, assignments, nextWeekRange, USER, LockedDays.forDates(lockedDates));
 
         expectDefaultWeekOverview(overview);
 
@@ -323,6 +324,6 @@ public class TimesheetPanelTest extends BaseSpringWebAppTester {
         List<TimesheetEntry> entries = Arrays.asList(TimesheetEntryObjectMother.createTimesheetEntry(1, new Date(), 5));
         List<ProjectAssignment> assignments = Arrays.asList(ProjectAssignmentObjectMother.createProjectAssignment(1));
 
-        return new WeekOverview(entries, null, assignments, nextWeekRange, USER, lockedDates);
+        return new WeekOverview(entries, null, assignments, nextWeekRange, USER, LockedDays.forDates(lockedDates));
     }
 }
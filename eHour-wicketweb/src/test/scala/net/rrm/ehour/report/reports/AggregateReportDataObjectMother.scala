@@ -2,12 +2,11 @@ package net.rrm.ehour.report.reports
 
 import element.{AssignmentAggregateReportElementMother, AssignmentAggregateReportElement}
 import net.rrm.ehour.domain._
-import net.rrm.ehour.data.DateRange
+import net.rrm.ehour.data.{LockedDays, DateRange}
 import net.rrm.ehour.util.DateUtil
 import java.util.Calendar
 import scala.collection.convert.WrapAsJava
 import scala.collection.mutable
-import com.google.common.collect.Lists
 
 object AggregateReportDataObjectMother {
   def generateReportData: ReportData = {
@@ -32,7 +31,7 @@ object AggregateReportDataObjectMother {
     val reportElementE = new AssignmentAggregateReportElement(new ProjectAssignment(userT, projectE, 35), 10)
     val reportElementF = new AssignmentAggregateReportElement(new ProjectAssignment(userT, projectB, 35), 10)
 
-    new ReportData(Lists.newArrayList(), WrapAsJava.bufferAsJavaList(mutable.Buffer(reportElementA, reportElementB, reportElementC, reportElementD, reportElementE, reportElementF)), DateUtil.getDateRangeForMonth(Calendar.getInstance()))
+    new ReportData(LockedDays.NONE, WrapAsJava.bufferAsJavaList(mutable.Buffer(reportElementA, reportElementB, reportElementC, reportElementD, reportElementE, reportElementF)), DateUtil.getDateRangeForMonth(Calendar.getInstance()))
   }
 
   def getAssignmentAggregateReportElements = {
@@ -52,5 +51,5 @@ object AggregateReportDataObjectMother {
     WrapAsJava.bufferAsJavaList(mutable.Buffer(pagE, pagD, pagB, pagC, pagA, pagF))
   }
 
-  def getAssignmentReportData: ReportData = new ReportData(Lists.newArrayList(), getAssignmentAggregateReportElements, new DateRange)
+  def getAssignmentReportData: ReportData = new ReportData(LockedDays.NONE, getAssignmentAggregateReportElements, new DateRange)
 }
\ No newline at end of file
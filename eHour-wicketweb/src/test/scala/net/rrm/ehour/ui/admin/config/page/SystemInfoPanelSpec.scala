@@ -2,6 +2,8 @@ package net.rrm.ehour.ui.admin.config.page
 
 import net.rrm.ehour.AbstractSpringWebAppSpec
 import net.rrm.ehour.sysinfo.{SystemInfo, SystemInfoService}
+import net.rrm.ehour.report.service.ReportDataCacheImpl
+import net.rrm.ehour.persistence.stats.QueryStatisticsImpl
 import org.mockito.Mockito._
 
 
@@ -9,6 +11,10 @@ class SystemInfoPanelSpec extends AbstractSpringWebAppSpec {
   "System Info Panel"  should {
     val sysInfoService = mock[SystemInfoService]
     springTester.getMockContext.putBean(sysInfoService)
+    springTester.getMockContext.putBean(new ReportDataCacheImpl(1000, 30))
+
+    val queryStatistics = new QueryStatisticsImpl(1000, false)
+    springTester.getMockContext.putBean(queryStatistics)
 
     "render" in {
       when(sysInfoService.info).thenReturn(SystemInfo("mysql", "..", "jdbc.Driver"))
@@ -16,6 +22,16 @@ class SystemInfoPanelSpec extends AbstractSpringWebAppSpec {
       tester.startComponentInPage(new SystemInfoPanel("id"))
       tester.assertNoErrorMessage()
     }
+
+    "render the slowest queries" in {
+      when(sysInfoService.info).thenReturn(SystemInfo("mysql", "..", "jdbc.Driver"))
+      queryStatistics.recordQuery("Report.getHoursPerDay", 5000000, 12)
+      queryStatistics.recordDaoMethod("DetailedReportDaoHibernateImpl.getHoursPerDay", 6000000, 12)
+
+      tester.startComponentInPage(new SystemInfoPanel("id"))
+      tester.assertLabel("id:queries:0:name", "Report.getHoursPerDay")
+      tester.assertLabel("id:daoMethods:0:name", "DetailedReportDaoHibernateImpl.getHoursPerDay")
+    }
   }
 
 }
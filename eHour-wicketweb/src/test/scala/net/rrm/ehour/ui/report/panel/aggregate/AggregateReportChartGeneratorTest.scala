@@ -0,0 +1,44 @@
+package net.rrm.ehour.ui.report.panel.aggregate
+
+import org.scalatest.{Matchers, FunSuite}
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import net.rrm.ehour.report.reports.AggregateReportDataObjectMother
+import net.rrm.ehour.report.reports.element.AssignmentAggregateReportElement
+import net.rrm.ehour.domain.{ProjectAssignment, Project, Customer, User}
+import java.util
+
+@RunWith(classOf[JUnitRunner])
+class AggregateReportChartGeneratorTest extends FunSuite with Matchers {
+  val elements = AggregateReportDataObjectMother.generateReportData.getReportElements.asInstanceOf[util.List[AssignmentAggregateReportElement]]
+
+  test("should sum hours and turnover per employee ordered on name") {
+    val data = AggregateReportChartGenerator.extractCategoryData(elements, AggregateReportChartGenerator.EmployeeCategory, 30)
+
+    data should be(List(("Edeling, Rosalie", 22f, 340f), ("Edeling, Thies", 42f, 1110f)))
+  }
+
+  test("should group projects on id") {
+    val data = AggregateReportChartGenerator.extractCategoryData(elements, AggregateReportChartGenerator.ProjectCategory, 30)
+
+    data.map(_._1) should be(List("Project A", "Project B", "Project C", "Project D", "Project E"))
+    data(1)._2 should be(18f)
+  }
+
+  test("should combine the categories with the least hours in other") {
+    val customer = new Customer(1).setName("Customer")
+
+    val manyUsers = new util.ArrayList[AssignmentAggregateReportElement]()
+
+    for (i <- 1 to 50) {
+      val project = new Project(i, customer).setName("Project " + i)
+      manyUsers.add(new AssignmentAggregateReportElement(new ProjectAssignment(new User(i, "First", "User " + i), project, 10), i))
+    }
+
+    val data = AggregateReportChartGenerator.extractCategoryData(manyUsers, AggregateReportChartGenerator.EmployeeCategory, 30)
+
+    data should have size 31
+    data.take(30).map(_._2).min should be(21f)
+    data.last should be(("Other (20)", (1 to 20).sum.toFloat, (1 to 20).sum * 10f))
+  }
+}
@@ -0,0 +1,79 @@
+package net.rrm.ehour.ui.report.panel.detail
+
+import org.scalatest.{Matchers, FunSuite}
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import net.rrm.ehour.ui.report.panel.DetailedReportDataObjectMother
+import net.rrm.ehour.data.DateRange
+import net.rrm.ehour.report.reports.element.FlatReportElement
+import org.joda.time.LocalDate
+import java.util
+
+@RunWith(classOf[JUnitRunner])
+class DateBucketedSeriesTest extends FunSuite with Matchers {
+
+  val hours = (e: FlatReportElement) => e.getTotalHours
+
+  test("should sum hours per day when the range fits in the point budget") {
+    val reportData = DetailedReportDataObjectMother.getFlatReportData
+
+    val chartData = DateBucketedSeries.bucket(reportData.getReportElements.asInstanceOf[util.List[FlatReportElement]], reportData.getReportRange, hours, 400)
+
+    chartData.granularity should be(Granularity.Day)
+    chartData.series should have size 1
+    chartData.series.head.name should be("A Company")
+    chartData.series.head.values.toList should be(List(0f, 16.25f, 7f, 6f, 5f, 0f))
+    chartData.bucketStarts.head should be(new LocalDate(2007, 12, 27))
+  }
+
+  test("should downsample to weeks and months when the range exceeds the point budget") {
+    val twoYears = range(new LocalDate(2012, 1, 1), new LocalDate(2013, 12, 31))
+    val tenYears = range(new LocalDate(2004, 1, 1), new LocalDate(2013, 12, 31))
+
+    DateBucketedSeries.granularityFor(twoYears, 400) should be(Granularity.Week)
+    DateBucketedSeries.granularityFor(twoYears, 1000) should be(Granularity.Day)
+    DateBucketedSeries.granularityFor(tenYears, 400) should be(Granularity.Month)
+  }
+
+  test("should sum into weeks starting on monday") {
+    // sunday 1 jan 2012 is in the partial first week
+    val elements = util.Arrays.asList(element(1, "A", new LocalDate(2012, 1, 1), 2),
+      element(1, "A", new LocalDate(2012, 1, 2), 3),
+      element(1, "A", new LocalDate(2012, 1, 8), 4),
+      element(1, "A", new LocalDate(2012, 1, 9), 5))
+
+    val chartData = DateBucketedSeries.bucket(elements, range(new LocalDate(2012, 1, 1), new LocalDate(2013, 12, 31)), hours, 400)
+
+    chartData.granularity should be(Granularity.Week)
+    chartData.series.head.values.take(3).toList should be(List(2f, 7f, 5f))
+    chartData.bucketStarts.take(3).toList should be(List(new LocalDate(2012, 1, 1), new LocalDate(2012, 1, 2), new LocalDate(2012, 1, 9)))
+  }
+
+  test("should sum into months, one series per customer ordered on name and skip days outside the range") {
+    val elements = util.Arrays.asList(element(2, "B", new LocalDate(2004, 1, 5), 2),
+      element(1, "A", new LocalDate(2004, 1, 20), 3),
+      element(2, "B", new LocalDate(2004, 1, 31), 4),
+      element(2, "B", new LocalDate(2004, 2, 1), 5),
+      element(2, "B", new LocalDate(2014, 2, 1), 6))
+
+    val chartData = DateBucketedSeries.bucket(elements, range(new LocalDate(2004, 1, 1), new LocalDate(2013, 12, 31)), hours, 400)
+
+    chartData.granularity should be(Granularity.Month)
+    chartData.bucketStarts should have length 120
+    chartData.series.map(_.name) should be(List("A", "B"))
+    chartData.series(0).values.take(2).toList should be(List(3f, 0f))
+    chartData.series(1).values.take(2).toList should be(List(6f, 5f))
+    chartData.series(1).values.sum should be(11f)
+  }
+
+  private def range(start: LocalDate, end: LocalDate) = new DateRange(start.toDate, end.toDate)
+
+  private def element(customerId: Int, customerName: String, date: LocalDate, totalHours: Float) = {
+    val element = new FlatReportElement()
+    element.setCustomerId(customerId)
+    element.setCustomerName(customerName)
+    element.setDayDate(date.toDate)
+    element.setTotalHours(totalHours)
+    element
+  }
+}